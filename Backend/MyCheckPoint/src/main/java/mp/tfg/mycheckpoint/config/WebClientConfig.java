@@ -1,5 +1,6 @@
 package mp.tfg.mycheckpoint.config;
 
+import mp.tfg.mycheckpoint.service.games.IgdbRequestScheduler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,12 +21,13 @@ public class WebClientConfig {
     private String igdbAuthorizationHeader;
 
     @Bean // Define este WebClient como un bean de Spring
-    public WebClient igdbWebClient(WebClient.Builder builder) {
+    public WebClient igdbWebClient(WebClient.Builder builder, IgdbRequestScheduler igdbRequestScheduler) {
         return builder
                 .baseUrl(igdbBaseUrl)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader("Client-ID", igdbClientId)
                 .defaultHeader(HttpHeaders.AUTHORIZATION, igdbAuthorizationHeader)
+                .filter(igdbRequestScheduler) // Ritmo, concurrencia y prioridad de todas las peticiones a IGDB
                 .build();
     }
 }
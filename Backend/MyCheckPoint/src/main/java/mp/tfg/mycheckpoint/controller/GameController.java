@@ -14,6 +14,7 @@ import mp.tfg.mycheckpoint.dto.games.GameDto;
 import mp.tfg.mycheckpoint.entity.games.Game;
 import mp.tfg.mycheckpoint.mapper.games.GameMapper;
 import mp.tfg.mycheckpoint.service.games.GameService;
+import mp.tfg.mycheckpoint.service.games.IgdbResilience;
 import mp.tfg.mycheckpoint.service.games.IgdbService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -37,6 +39,7 @@ public class GameController {
     private final GameMapper gameMapper;
     private final IgdbService igdbService;
     private static final Logger logger = LoggerFactory.getLogger(GameController.class);
+    private static final int LOCAL_SEARCH_LIMIT = 10;
 
     @Autowired
     public GameController(GameService gameService, GameMapper gameMapper, IgdbService igdbService) {
@@ -110,6 +113,13 @@ public class GameController {
                     schema = @Schema(type = "string"))
             @RequestParam String nombre) {
         return igdbService.findGamesByName(nombre)
+                // Si IGDB no está disponible se busca en los juegos ya guardados en la BD local
+                .onErrorResume(IgdbResilience::isUnavailable, error -> {
+                    logger.warn("IGDB no disponible ({}). Buscando \"{}\" en la BD local.", error.getMessage(), nombre);
+                    return Mono.fromCallable(() -> gameService.searchLocalGamesByName(nombre, LOCAL_SEARCH_LIMIT))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .flatMapIterable(localResults -> localResults);
+                })
                 .map(gameDto -> {
                     // Los DTOs que vienen de una búsqueda general pueden ser resúmenes.
                     // Si queremos que al guardarlos se traten como parciales por defecto:
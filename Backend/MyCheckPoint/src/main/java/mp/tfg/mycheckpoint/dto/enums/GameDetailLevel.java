@@ -0,0 +1,20 @@
+package mp.tfg.mycheckpoint.dto.enums;
+
+/**
+ * Nivel de detalle (perfil de proyección de campos de IGDB) con el que se ha obtenido o guardado un juego.
+ * Los niveles están ordenados de menos a más: cada uno incluye todos los campos del anterior.
+ */
+public enum GameDetailLevel {
+    /** Lo necesario para una tarjeta: nombre, carátula, tipo, fecha y valoración. */
+    CARD,
+    /** Tarjeta más resumen, géneros, temas, modos y plataformas (listados filtrados). */
+    SUMMARY,
+    /** Lo que muestra la vista de detalle del juego. */
+    DETAIL,
+    /** Todos los campos y relaciones que se guardan en la BD local. */
+    FULL;
+
+    public boolean isAtLeast(GameDetailLevel other) {
+        return compareTo(other) >= 0;
+    }
+}
@@ -26,4 +26,8 @@ public class DlcInfoDto {
 
     @JsonProperty("slug") // Campo añadido
     private String slug;
+
+    // Solo la piden las proyecciones FULL (ingesta): completa la tarjeta del juego relacionado que se guarda
+    @JsonProperty("first_release_date")
+    private Long firstReleaseDate;
 }
@@ -0,0 +1,41 @@
+package mp.tfg.mycheckpoint.dto.games;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mp.tfg.mycheckpoint.dto.enums.GameType;
+
+@Schema(description = "Datos mínimos de un juego para mostrarlo en listas (biblioteca, listas de juegos, tier lists).")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameCardDTO {
+
+    @Schema(description = "ID único del juego en IGDB.", example = "1020")
+    @JsonProperty("igdb_id")
+    private Long igdbId;
+
+    @Schema(description = "Nombre del juego.", example = "The Legend of Zelda: Breath of the Wild")
+    @JsonProperty("name")
+    private String name;
+
+    @Schema(description = "URL de la carátula del juego.", nullable = true)
+    @JsonProperty("cover_url")
+    private String coverUrl;
+
+    @Schema(description = "Calificación total del juego.", example = "97.0", nullable = true)
+    @JsonProperty("total_rating")
+    private Double totalRating;
+
+    @Schema(description = "Tipo de juego (ej. JUEGO_PRINCIPAL, DLC, EXPANSION).", nullable = true)
+    @JsonProperty("game_type")
+    private GameType gameType;
+
+    @Schema(description = "Fecha del primer lanzamiento (timestamp Unix en segundos).", example = "1488499200", nullable = true)
+    @JsonProperty("first_release_date")
+    private Long firstReleaseDate;
+}
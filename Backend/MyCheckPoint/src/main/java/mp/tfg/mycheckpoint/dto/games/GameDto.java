@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
 import mp.tfg.mycheckpoint.dto.enums.GameType;
 import mp.tfg.mycheckpoint.dto.enums.ReleaseStatus;
 
@@ -137,7 +138,22 @@ public class GameDto {
 
     @JsonIgnore // Para que no se serialice/deserialice desde JSON automáticamente
     @Schema(hidden = true) // Oculta este campo de la documentación ya que es interno
-    private boolean isFullDetails = true; // Por defecto, asumimos que es completo
+    private GameDetailLevel detailLevel = GameDetailLevel.FULL; // Por defecto, asumimos que es completo
+
+    // isFullDetails se deriva del nivel de detalle: completo equivale a FULL.
+    @JsonIgnore
+    public boolean isFullDetails() {
+        return detailLevel == GameDetailLevel.FULL;
+    }
+
+    @JsonIgnore
+    public void setFullDetails(boolean fullDetails) {
+        if (fullDetails) {
+            detailLevel = GameDetailLevel.FULL;
+        } else if (detailLevel == GameDetailLevel.FULL) {
+            detailLevel = GameDetailLevel.DETAIL;
+        }
+    }
 
 
 }
\ No newline at end of file
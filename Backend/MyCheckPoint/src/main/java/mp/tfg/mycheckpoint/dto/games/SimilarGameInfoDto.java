@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import mp.tfg.mycheckpoint.dto.enums.GameType;
 
 @Data
 @NoArgsConstructor
@@ -21,6 +22,10 @@ public class SimilarGameInfoDto {
     @JsonProperty("total_rating")
     private Double totalRating;
 
-    // No incluimos game_type aquí, ya que asumiremos que es GAME (0)
-    // al procesar estos datos parciales, según tu descripción.
+    // Solo los piden las proyecciones FULL (ingesta); sin game_type se asume GAME (0) al guardarlo
+    @JsonProperty("game_type")
+    private GameType gameType;
+
+    @JsonProperty("first_release_date")
+    private Long firstReleaseDate;
 }
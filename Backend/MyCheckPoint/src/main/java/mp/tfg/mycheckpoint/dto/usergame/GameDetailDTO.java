@@ -1,5 +1,6 @@
 package mp.tfg.mycheckpoint.dto.usergame;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -8,6 +9,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import mp.tfg.mycheckpoint.dto.comment.PublicGameCommentDTO;
+import com.fasterxml.jackson.databind.util.RawValue;
 import mp.tfg.mycheckpoint.dto.games.GameDto; // El DTO general de juego
 
 import java.util.List;
@@ -21,10 +23,13 @@ import java.util.List;
 @AllArgsConstructor
 public class GameDetailDTO {
 
-    @Schema(description = "Información general y detallada del juego (obtenida de IGDB y/o base de datos local).")
-    @JsonProperty("game_info")
+    @JsonIgnore // Se serializa con getGameInfoForResponse()
     private GameDto gameInfo; // Información general del juego (de IGDB/tu BD)
 
+    // Documento JSON precalculado del juego (GameDetailDocumentService). Si está, se escribe tal cual como game_info.
+    @JsonIgnore
+    private String gameInfoDocument;
+
     @Schema(description = "Datos específicos del usuario para este juego (estado, puntuación, comentarios privados, etc.). " +
             "Este campo será nulo si el usuario no está autenticado o si el juego no está en su biblioteca.",
             nullable = true)
@@ -39,4 +44,15 @@ public class GameDetailDTO {
     @JsonInclude(JsonInclude.Include.NON_EMPTY)
     private List<PublicGameCommentDTO> publicComments;
 
+    @Schema(description = "Indica que IGDB no estaba disponible y que la información del juego proviene de la base de datos local " +
+            "o de la caché, por lo que puede estar incompleta o desactualizada.", example = "false")
+    @JsonProperty("stale")
+    private boolean stale;
+
+    @Schema(description = "Información general y detallada del juego (obtenida de IGDB y/o base de datos local).",
+            implementation = GameDto.class)
+    @JsonProperty("game_info")
+    public Object getGameInfoForResponse() {
+        return gameInfoDocument != null ? new RawValue(gameInfoDocument) : gameInfo;
+    }
 }
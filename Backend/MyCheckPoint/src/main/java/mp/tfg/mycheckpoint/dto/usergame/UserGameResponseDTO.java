@@ -1,6 +1,7 @@
 package mp.tfg.mycheckpoint.dto.usergame;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -9,6 +10,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import mp.tfg.mycheckpoint.dto.enums.UserGamePersonalPlatform;
 import mp.tfg.mycheckpoint.dto.enums.UserGameStatus;
+import mp.tfg.mycheckpoint.dto.games.GameCardDTO;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -32,6 +34,11 @@ public class UserGameResponseDTO {
     @JsonProperty("game_igdb_id")
     private Long gameIgdbId; // Para identificar el juego
 
+    @Schema(description = "Datos básicos del juego para mostrarlo en listados (solo en respuestas de listas: biblioteca, listas de juegos).", nullable = true)
+    @JsonProperty("game_card")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private GameCardDTO gameCard;
+
     @Schema(description = "Estado actual del juego en la biblioteca del usuario.", example = "COMPLETED_MAIN_STORY")
     @JsonProperty("status")
     private UserGameStatus status;
@@ -23,7 +23,8 @@ import java.util.UUID;
 public class GameList {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_lists_seq")
+    @SequenceGenerator(name = "game_lists_seq", sequenceName = "game_lists_seq", allocationSize = 50) // pooled: permite agrupar INSERTs
     @Column(name = "internal_id")
     private Long internalId;
 
@@ -23,7 +23,8 @@ import java.util.UUID;
 public class TierList {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tier_lists_seq")
+    @SequenceGenerator(name = "tier_lists_seq", sequenceName = "tier_lists_seq", allocationSize = 50) // pooled: permite agrupar INSERTs
     @Column(name = "internal_id")
     private Long internalId;
 
@@ -20,7 +20,8 @@ import java.util.Objects;
 public class TierListItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tier_list_items_seq")
+    @SequenceGenerator(name = "tier_list_items_seq", sequenceName = "tier_list_items_seq", allocationSize = 50) // pooled: permite agrupar INSERTs
     @Column(name = "internal_id")
     private Long internalId;
 
@@ -22,7 +22,8 @@ import java.util.Objects;
 public class TierSection {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tier_sections_seq")
+    @SequenceGenerator(name = "tier_sections_seq", sequenceName = "tier_sections_seq", allocationSize = 50) // pooled: permite agrupar INSERTs
     @Column(name = "internal_id")
     private Long internalId;
 
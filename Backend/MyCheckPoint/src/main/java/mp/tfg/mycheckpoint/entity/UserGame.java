@@ -26,7 +26,8 @@ import java.util.Objects;
 public class UserGame {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_games_seq")
+    @SequenceGenerator(name = "user_games_seq", sequenceName = "user_games_seq", allocationSize = 50) // pooled: permite agrupar INSERTs
     @Column(name = "internal_id")
     private Long internalId;
 
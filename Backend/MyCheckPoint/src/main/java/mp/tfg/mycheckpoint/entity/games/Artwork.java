@@ -1,28 +1,23 @@
 package mp.tfg.mycheckpoint.entity.games;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Embeddable;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.util.Objects; // Para equals y hashCode
 
-@Embeddable // Indica que esta clase puede ser embebida en otras entidades
+// Valor guardado dentro de la columna JSONB de su lista en games (ver Game)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Artwork {
 
-    @Column(name = "artwork_igdb_id") // Es buena idea prefijar para evitar colisiones de nombres en la tabla
     private Long igdbId;
 
-    @Column(name = "artwork_url", length = 512) // Ajusta la longitud si es necesario
     private String url;
 
-    // Implementar equals y hashCode es importante para colecciones de Embeddables,
-    // especialmente si JPA necesita comparar elementos.
+    // equals y hashCode por valor: Hibernate compara las listas para detectar cambios en la columna JSONB.
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
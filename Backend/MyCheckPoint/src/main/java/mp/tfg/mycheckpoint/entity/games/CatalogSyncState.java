@@ -0,0 +1,41 @@
+package mp.tfg.mycheckpoint.entity.games;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Estado persistido de una sincronización incremental del catálogo con IGDB (ver {@code CatalogSyncScheduler}).
+ * <p>
+ * {@code watermark} es el {@code updated_at} de IGDB (segundos Unix) hasta el que el catálogo está al día.
+ * Mientras una pasada está en curso, {@code runTarget} guarda el watermark que quedará al terminarla y
+ * {@code cursorIgdbId} el último IGDB ID local cuyo bloque ya está confirmado, para reanudarla tras un reinicio.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "catalog_sync_state")
+public class CatalogSyncState {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "watermark", nullable = false)
+    private long watermark;
+
+    @Column(name = "run_target")
+    private Long runTarget;
+
+    @Column(name = "cursor_igdb_id")
+    private Long cursorIgdbId;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
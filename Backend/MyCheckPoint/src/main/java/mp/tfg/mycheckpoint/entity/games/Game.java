@@ -6,8 +6,11 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
 import mp.tfg.mycheckpoint.dto.enums.GameType;
 import mp.tfg.mycheckpoint.dto.enums.ReleaseStatus;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -21,11 +24,17 @@ import java.util.Objects;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "games")
+@Table(name = "games", indexes = {
+        // Índice con todas las columnas de la tarjeta de juego (GameCardProjection): permite leer tarjetas solo del índice
+        @Index(name = "idx_games_card", columnList = "internal_id, igdb_id, name, cover_url, total_rating, game_type, first_release_date"),
+        // Selección de juegos pendientes de refresco (GameRefreshScheduler)
+        @Index(name = "idx_games_next_refresh", columnList = "next_refresh_at")
+})
 public class Game {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "games_seq")
+    @SequenceGenerator(name = "games_seq", sequenceName = "games_seq", allocationSize = 50) // pooled: permite agrupar INSERTs
     private Long internalId;
 
     @Column(unique = true, nullable = false)
@@ -48,6 +57,21 @@ public class Game {
     @Column(name = "is_full_details", nullable = false)
     private boolean isFullDetails = false;
 
+    // Nivel de detalle guardado. is_full_details se mantiene sincronizado: es true solo con FULL.
+    @Enumerated(EnumType.STRING)
+    @Column(name = "detail_level", length = 16)
+    private GameDetailLevel detailLevel;
+
+    // Hash del último GameDto completo aplicado (ver GameContentHasher). Si el siguiente coincide, no se reescribe nada.
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Última ingesta con datos completos de IGDB y próxima prevista (ver GameFreshnessPolicy y GameRefreshScheduler)
+    @Column(name = "refreshed_at")
+    private Instant refreshedAt;
+    @Column(name = "next_refresh_at")
+    private Instant nextRefreshAt;
+
     @Enumerated(EnumType.ORDINAL)
     @Column(name = "game_type")
     private GameType gameType;
@@ -78,47 +102,49 @@ public class Game {
     @JoinTable(name = "game_remaster_versions_assoc", joinColumns = @JoinColumn(name = "original_game_id"), inverseJoinColumns = @JoinColumn(name = "remaster_game_id"))
     private Set<Game> remasterVersions = new HashSet<>();
 
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "game_artworks", joinColumns = @JoinColumn(name = "game_internal_id"))
+    // Listas de valores guardadas como JSONB en la propia fila del juego: se leen y escriben con el juego,
+    // sin tablas hijas ni DELETE + INSERT de todas sus filas cuando cambian (ver db/media-jsonb.sql).
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "artworks")
     private List<Artwork> artworks = new ArrayList<>();
 
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "game_screenshots", joinColumns = @JoinColumn(name = "game_internal_id"))
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "screenshots")
     private List<Screenshot> screenshots = new ArrayList<>();
 
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "game_websites", joinColumns = @JoinColumn(name = "game_internal_id"))
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "websites")
     private List<Website> websites = new ArrayList<>();
 
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "game_videos", joinColumns = @JoinColumn(name = "game_internal_id"))
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "videos")
     private List<Video> videos = new ArrayList<>();
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany
     @JoinTable(name = "game_game_modes", joinColumns = @JoinColumn(name = "game_internal_id"), inverseJoinColumns = @JoinColumn(name = "game_mode_internal_id"))
     private Set<GameMode> gameModes = new HashSet<>();
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany
     @JoinTable(name = "game_genres", joinColumns = @JoinColumn(name = "game_internal_id"), inverseJoinColumns = @JoinColumn(name = "genre_internal_id"))
     private Set<Genre> genres = new HashSet<>();
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany
     @JoinTable(name = "game_franchises", joinColumns = @JoinColumn(name = "game_internal_id"), inverseJoinColumns = @JoinColumn(name = "franchise_internal_id"))
     private Set<Franchise> franchises = new HashSet<>();
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany
     @JoinTable(name = "game_game_engines_assoc", joinColumns = @JoinColumn(name = "game_internal_id"), inverseJoinColumns = @JoinColumn(name = "game_engine_internal_id"))
     private Set<GameEngine> gameEngines = new HashSet<>();
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany
     @JoinTable(name = "game_keywords_assoc", joinColumns = @JoinColumn(name = "game_internal_id"), inverseJoinColumns = @JoinColumn(name = "keyword_internal_id"))
     private Set<Keyword> keywords = new HashSet<>();
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany
     @JoinTable(name = "game_platforms_assoc", joinColumns = @JoinColumn(name = "game_internal_id"), inverseJoinColumns = @JoinColumn(name = "platform_internal_id"))
     private Set<Platform> platforms = new HashSet<>();
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany
     @JoinTable(name = "game_themes_assoc", joinColumns = @JoinColumn(name = "game_internal_id"), inverseJoinColumns = @JoinColumn(name = "theme_internal_id"))
     private Set<Theme> themes = new HashSet<>();
 
@@ -129,6 +155,28 @@ public class Game {
     @OneToMany(mappedBy = "game", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private Set<GameCompanyInvolvement> involvedCompanies = new HashSet<>();
 
+    public GameDetailLevel getDetailLevel() {
+        if (detailLevel == null) {
+            // Filas anteriores a la columna detail_level: solo se sabe si eran completas.
+            return isFullDetails ? GameDetailLevel.FULL : GameDetailLevel.CARD;
+        }
+        return detailLevel;
+    }
+
+    public void setDetailLevel(GameDetailLevel detailLevel) {
+        this.detailLevel = detailLevel;
+        this.isFullDetails = detailLevel == GameDetailLevel.FULL;
+    }
+
+    public void setFullDetails(boolean fullDetails) {
+        this.isFullDetails = fullDetails;
+        if (fullDetails) {
+            this.detailLevel = GameDetailLevel.FULL;
+        } else if (getDetailLevel() == GameDetailLevel.FULL) {
+            this.detailLevel = GameDetailLevel.DETAIL;
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -18,7 +18,8 @@ import java.util.Objects;
 public class GameCompanyInvolvement {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_company_involvements_seq")
+    @SequenceGenerator(name = "game_company_involvements_seq", sequenceName = "game_company_involvements_seq", allocationSize = 50) // pooled: permite agrupar INSERTs
     private Long internalId;
 
     @Column(name = "involvement_igdb_id", unique = true, nullable = false)
@@ -28,7 +29,7 @@ public class GameCompanyInvolvement {
     @JoinColumn(name = "game_internal_id", nullable = false)
     private Game game;
 
-    @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE}) // Persistir/mergear compañía si es nueva/cambia
+    @ManyToOne(fetch = FetchType.LAZY) // La compañía se escribe antes con un upsert (CatalogUpsertRepository)
     @JoinColumn(name = "company_internal_id", nullable = false)
     private Company company;
 
@@ -0,0 +1,38 @@
+package mp.tfg.mycheckpoint.entity.games;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Documento JSON precalculado con el {@code game_info} de la vista de detalle de un juego
+ * (el {@code GameDto} que produce {@code GameMapper.toDto}, ya serializado con el ObjectMapper de la API).
+ * Se regenera en la ingesta y se sirve tal cual, sin cargar ni mapear la entidad.
+ * Ver {@code GameDetailDocumentService}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "game_detail_documents")
+public class GameDetailDocument {
+
+    @Id
+    @Column(name = "igdb_id")
+    private Long igdbId;
+
+    // Versión del formato del documento: si no coincide con la actual, el documento se ignora y se regenera
+    @Column(name = "document_version", nullable = false)
+    private int documentVersion;
+
+    @Column(name = "document", nullable = false, columnDefinition = "TEXT")
+    private String document;
+
+    @Column(name = "generated_at", nullable = false)
+    private Instant generatedAt;
+}
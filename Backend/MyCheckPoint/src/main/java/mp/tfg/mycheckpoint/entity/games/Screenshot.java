@@ -1,24 +1,20 @@
 package mp.tfg.mycheckpoint.entity.games;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Embeddable;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.util.Objects;
 
-@Embeddable
+// Valor guardado dentro de la columna JSONB de su lista en games (ver Game)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Screenshot {
 
-    @Column(name = "screenshot_igdb_id")
     private Long igdbId;
 
-    @Column(name = "screenshot_url", length = 512) // Ajusta la longitud si es necesario
     private String url;
 
     @Override
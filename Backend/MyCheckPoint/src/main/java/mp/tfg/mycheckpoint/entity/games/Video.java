@@ -1,27 +1,23 @@
 package mp.tfg.mycheckpoint.entity.games;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Embeddable;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.util.Objects;
 
-@Embeddable
+// Valor guardado dentro de la columna JSONB de su lista en games (ver Game)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Video {
 
-    @Column(name = "video_igdb_id")
     private Long igdbId;
 
-    @Column(name = "video_name")
     private String name;
 
-    @Column(name = "video_platform_id") // Para almacenar el "video_id" del JSON (ej. ID de YouTube)
+    // "video_id" de IGDB (ej. ID de YouTube)
     private String videoId;
 
     @Override
@@ -1,24 +1,20 @@
 package mp.tfg.mycheckpoint.entity.games;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Embeddable;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.util.Objects;
 
-@Embeddable
+// Valor guardado dentro de la columna JSONB de su lista en games (ver Game)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Website {
 
-    @Column(name = "website_igdb_id")
     private Long igdbId;
 
-    @Column(name = "website_url", length = 1024) // Las URLs pueden ser largas
     private String url;
 
     @Override
@@ -0,0 +1,18 @@
+package mp.tfg.mycheckpoint.exception;
+
+import org.springframework.http.HttpStatus;
+
+// Se lanza cuando un servicio externo (IGDB) no puede atender la petición en este momento:
+// cola de salida llena, espera máxima superada, etc. El cliente puede reintentar más tarde.
+public class ExternalServiceUnavailableException extends MyCheckPointException {
+
+    private static final HttpStatus STATUS = HttpStatus.SERVICE_UNAVAILABLE;
+
+    public ExternalServiceUnavailableException(String message) {
+        super(message, STATUS);
+    }
+
+    public ExternalServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause, STATUS);
+    }
+}
@@ -7,6 +7,7 @@ import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.mapstruct.factory.Mappers;
 
@@ -16,9 +17,17 @@ public interface UserGameMapper {
     UserGameMapper INSTANCE = Mappers.getMapper(UserGameMapper.class);
 
     @Mapping(source = "game.igdbId", target = "gameIgdbId")
+    @Mapping(target = "gameCard", ignore = true)
         // @Mapping(source = "internalId", target = "libraryEntryId") // Si decides incluirlo
     UserGameResponseDTO toResponseDto(UserGame userGame);
 
+    // Para listados: no toca el juego (ni siquiera su igdbId, que inicializaría el proxy).
+    // GameCardService rellena gameIgdbId y gameCard con una sola consulta para toda la lista.
+    @Named("toResponseDtoWithoutGame")
+    @Mapping(target = "gameIgdbId", ignore = true)
+    @Mapping(target = "gameCard", ignore = true)
+    UserGameResponseDTO toResponseDtoWithoutGame(UserGame userGame);
+
     // No necesitamos un toEntity desde UserGameDataDTO directamente porque
     // la entidad UserGame se crea/actualiza en el servicio con User y Game ya obtenidos.
     // En su lugar, usaremos un método para actualizar una entidad existente.
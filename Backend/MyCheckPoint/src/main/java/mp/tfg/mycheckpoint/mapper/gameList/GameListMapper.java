@@ -2,10 +2,13 @@ package mp.tfg.mycheckpoint.mapper.gameList;
 
 import mp.tfg.mycheckpoint.dto.gameList.GameListRequestDTO;
 import mp.tfg.mycheckpoint.dto.gameList.GameListResponseDTO;
+import mp.tfg.mycheckpoint.dto.usergame.UserGameResponseDTO;
 import mp.tfg.mycheckpoint.entity.GameList;
 import mp.tfg.mycheckpoint.mapper.UserGameMapper; // Asumiendo que tienes este mapper
 import org.mapstruct.*;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring", uses = {UserGameMapper.class}) // Asegúrate que UserGameMapper esté disponible
 public interface GameListMapper {
 
@@ -34,15 +37,17 @@ public interface GameListMapper {
     void updateFromDto(GameListRequestDTO dto, @MappingTarget GameList entity);
 
 
-    @Mapping(source = "owner.nombreUsuario", target = "ownerUsername")
-    @Mapping(source = "userGames", target = "gamesInList")
+    // Los juegos de la lista llegan ya mapeados con su tarjeta: el servicio los resuelve con GameCardService
+    // (una consulta para toda la lista en lugar de cargar cada juego para leer su igdbId).
+    @Mapping(source = "gameList.owner.nombreUsuario", target = "ownerUsername")
+    @Mapping(source = "gamesInList", target = "gamesInList")
     @Mapping(target = "gameCount", expression = "java(gameList.getUserGames() != null ? gameList.getUserGames().size() : 0)")
     // MODIFICACIÓN: Añadir mapeo explícito para leer 'isPublic' al DTO de respuesta.
     // El 'source' es "public" porque el getter en la entidad GameList (generado por Lombok @Data para boolean isPublic) es isPublic().
     // MapStruct interpreta la propiedad de la entidad como "public".
     // El 'target' es "isPublic" en el DTO de respuesta.
-    @Mapping(source = "public", target = "isPublic")
-    GameListResponseDTO toResponseDto(GameList gameList);
+    @Mapping(source = "gameList.public", target = "isPublic")
+    GameListResponseDTO toResponseDto(GameList gameList, List<UserGameResponseDTO> gamesInList);
 
     // Método helper para mapear Set<UserGame> a List<UserGameResponseDTO>
     // MapStruct usará UserGameMapper.toResponseDto para cada elemento.
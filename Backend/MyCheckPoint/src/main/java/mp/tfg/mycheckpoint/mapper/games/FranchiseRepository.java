@@ -4,9 +4,12 @@ package mp.tfg.mycheckpoint.mapper.games;
 import mp.tfg.mycheckpoint.entity.games.Franchise;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FranchiseRepository extends JpaRepository<Franchise, Long> {
     Optional<Franchise> findByIgdbId(Long igdbId);
+    List<Franchise> findByIgdbIdIn(Collection<Long> igdbIds);
 }
\ No newline at end of file
@@ -95,6 +95,9 @@ public interface GameMapper {
     @Mapping(target = "gameEngines", ignore = true)
     @Mapping(target = "franchises", ignore = true)
     @Mapping(target = "firstReleaseStatus", ignore = true)
+    @Mapping(target = "contentHash", ignore = true)
+    @Mapping(target = "refreshedAt", ignore = true)
+    @Mapping(target = "nextRefreshAt", ignore = true)
     Game toEntity(GameDto gameDto);
 
     @Mapping(target = "internalId", ignore = true)
@@ -113,6 +116,9 @@ public interface GameMapper {
     @Mapping(target = "gameEngines", ignore = true)
     @Mapping(target = "franchises", ignore = true)
     @Mapping(target = "firstReleaseStatus", ignore = true)
+    @Mapping(target = "contentHash", ignore = true)
+    @Mapping(target = "refreshedAt", ignore = true)
+    @Mapping(target = "nextRefreshAt", ignore = true)
     void updateFromDto(GameDto gameDto, @MappingTarget Game game);
 
     default Instant mapTimestampToInstant(Long timestamp) {
@@ -14,9 +14,10 @@ public interface TierListItemMapper {
 
     @Mapping(target = "tierListItemId", source = "tierListItem.internalId")
     @Mapping(target = "userGameId", source = "tierListItem.userGame.internalId")
-    @Mapping(target = "gameIgdbId", source = "tierListItem.userGame.game.igdbId")
-    @Mapping(target = "gameName", source = "tierListItem.userGame.game.name")
-    @Mapping(target = "gameCoverUrl", source = "tierListItem.userGame.game", qualifiedByName = "gameToCoverUrlTierList")
+    // Los datos del juego los rellena TierListMapper con las tarjetas que resuelve el servicio (una consulta por respuesta)
+    @Mapping(target = "gameIgdbId", ignore = true)
+    @Mapping(target = "gameName", ignore = true)
+    @Mapping(target = "gameCoverUrl", ignore = true)
     @Mapping(target = "itemOrder", source = "tierListItem.itemOrder")
     TierListItemGameInfoDTO toGameInfoDTO(TierListItem tierListItem);
 
@@ -1,10 +1,13 @@
 package mp.tfg.mycheckpoint.mapper.tierlist;
 
+import mp.tfg.mycheckpoint.dto.games.GameCardDTO;
 import mp.tfg.mycheckpoint.dto.tierlist.TierListCreateRequestDTO;
+import mp.tfg.mycheckpoint.dto.tierlist.TierListItemGameInfoDTO;
 import mp.tfg.mycheckpoint.dto.tierlist.TierListResponseDTO;
 import mp.tfg.mycheckpoint.dto.tierlist.TierListUpdateRequestDTO;
 import mp.tfg.mycheckpoint.dto.tierlist.TierSectionResponseDTO;
 import mp.tfg.mycheckpoint.entity.TierList;
+import mp.tfg.mycheckpoint.entity.TierListItem;
 import mp.tfg.mycheckpoint.entity.TierSection;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -12,7 +15,9 @@ import org.mapstruct.MappingTarget;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring", uses = {TierSectionMapper.class})
@@ -34,16 +39,20 @@ public abstract class TierListMapper {
     @Mapping(target = "unclassifiedSection", ignore = true)
     protected abstract TierListResponseDTO tierListToBaseDto(TierList tierList);
 
-    public TierListResponseDTO toTierListResponseDTOWithSections(TierList tierList) {
+    /**
+     * @param cardsByGameInternalId tarjetas de los juegos de la tier list por ID interno del juego, resueltas
+     *                              por el servicio con GameCardService (una consulta para toda la respuesta)
+     */
+    public TierListResponseDTO toTierListResponseDTOWithSections(TierList tierList, Map<Long, GameCardDTO> cardsByGameInternalId) {
         if (tierList == null) {
             return null;
         }
         TierListResponseDTO responseDTO = tierListToBaseDto(tierList);
-        mapSectionsLogic(tierList, responseDTO);
+        mapSectionsLogic(tierList, responseDTO, cardsByGameInternalId);
         return responseDTO;
     }
 
-    protected void mapSectionsLogic(TierList tierList, TierListResponseDTO responseDTO) {
+    protected void mapSectionsLogic(TierList tierList, TierListResponseDTO responseDTO, Map<Long, GameCardDTO> cardsByGameInternalId) {
         System.out.println("TierListMapper - INICIO mapSectionsLogic para TierList ID: " + (tierList != null ? tierList.getPublicId() : "null"));
         if (responseDTO == null) {
             System.err.println("TierListMapper - mapSectionsLogic: responseDTO es null.");
@@ -80,9 +89,42 @@ public abstract class TierListMapper {
         } else {
             System.out.println("TierListMapper - mapSectionsLogic: No se encontró sección sin clasificar para mapear.");
         }
+        fillGameInfo(tierList, responseDTO, cardsByGameInternalId);
         System.out.println("TierListMapper - FIN mapSectionsLogic para TierList ID: " + tierList.getPublicId());
     }
 
+    // Rellena nombre, carátula e IGDB ID de los ítems con las tarjetas de sus juegos
+    protected void fillGameInfo(TierList tierList, TierListResponseDTO responseDTO, Map<Long, GameCardDTO> cardsByGameInternalId) {
+        Map<Long, Long> gameIdByItemId = new HashMap<>();
+        for (TierSection section : tierList.getSections()) {
+            if (section.getItems() == null) continue;
+            for (TierListItem item : section.getItems()) {
+                if (item.getUserGame() != null && item.getUserGame().getGame() != null) {
+                    gameIdByItemId.put(item.getInternalId(), item.getUserGame().getGame().getInternalId());
+                }
+            }
+        }
+        if (gameIdByItemId.isEmpty() || cardsByGameInternalId == null) {
+            return;
+        }
+
+        List<TierSectionResponseDTO> sectionDTOs = new ArrayList<>(responseDTO.getSections());
+        if (responseDTO.getUnclassifiedSection() != null) {
+            sectionDTOs.add(responseDTO.getUnclassifiedSection());
+        }
+        for (TierSectionResponseDTO sectionDTO : sectionDTOs) {
+            if (sectionDTO.getItems() == null) continue;
+            for (TierListItemGameInfoDTO itemDTO : sectionDTO.getItems()) {
+                GameCardDTO card = cardsByGameInternalId.get(gameIdByItemId.get(itemDTO.getTierListItemId()));
+                if (card != null) {
+                    itemDTO.setGameIgdbId(card.getIgdbId());
+                    itemDTO.setGameName(card.getName());
+                    itemDTO.setGameCoverUrl(card.getCoverUrl());
+                }
+            }
+        }
+    }
+
     public abstract TierList fromCreateRequestDTO(TierListCreateRequestDTO createRequestDTO);
 
     @Mapping(source = "isPublic", target = "public")
@@ -0,0 +1,472 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Carga masiva del catálogo con {@code COPY ... FROM STDIN} de PostgreSQL (importación de volcados de IGDB).
+ * <p>
+ * Cada lote de juegos se escribe con un solo {@code COPY} en una tabla temporal de staging
+ * ({@code catalog_import_games}, {@code ON COMMIT DROP}) y se fusiona en las tablas del catálogo con sentencias
+ * sobre conjuntos: upsert de las tablas de referencia, actualización de los juegos existentes, inserción de los
+ * nuevos y reescritura de sus asociaciones. Los IDs de juegos e involucramientos se reservan de sus secuencias en
+ * bloques de {@value #ID_BLOCK_SIZE} ({@code nextval} devuelve el final del rango, igual que para Hibernate),
+ * así que no chocan con los que asigna la aplicación.
+ * <p>
+ * Las relaciones entre juegos (padre, versión padre, similares, remakes y remasters) pueden apuntar a juegos de
+ * lotes posteriores: se guardan en {@code catalog_import_pending} y se resuelven al final
+ * ({@link #resolvePendingRelations()}). Hasta entonces los juegos importados quedan sin {@code content_hash},
+ * de modo que si la importación se interrumpe, repetirla los vuelve a escribir.
+ * <p>
+ * Todos los métodos se ejecutan dentro de la transacción en curso, que debe ser la misma desde
+ * {@link #createStagingTable()} hasta {@link #mergeStagedGames()}.
+ */
+@Repository
+public class CatalogBulkImportRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogBulkImportRepository.class);
+
+    // allocationSize de games_seq y game_company_involvements_seq (INCREMENT BY de la secuencia)
+    static final int ID_BLOCK_SIZE = 50;
+
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+    private static final List<String> STAGING_COLUMNS = List.of(
+            "line_no", "igdb_id", "name", "slug", "cover_igdb_id", "cover_url", "total_rating", "total_rating_count",
+            "summary", "storyline", "game_type", "first_release_date", "first_release_status", "content_hash",
+            "next_refresh_at", "artworks", "screenshots", "websites", "videos",
+            "game_modes", "genres", "franchises", "game_engines", "keywords", "themes", "platforms",
+            "involved_companies", "parent_igdb_id", "version_parent_igdb_id",
+            "similar_igdb_ids", "remake_igdb_ids", "remaster_igdb_ids");
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE catalog_import_games (" +
+            "line_no bigint NOT NULL, igdb_id bigint NOT NULL, name text, slug text, " +
+            "cover_igdb_id bigint, cover_url text, total_rating double precision, total_rating_count integer, " +
+            "summary text, storyline text, game_type integer, first_release_date timestamp with time zone, " +
+            "first_release_status text, content_hash text, next_refresh_at timestamp with time zone, " +
+            "artworks jsonb, screenshots jsonb, websites jsonb, videos jsonb, " +
+            "game_modes jsonb, genres jsonb, franchises jsonb, game_engines jsonb, keywords jsonb, themes jsonb, " +
+            "platforms jsonb, involved_companies jsonb, parent_igdb_id bigint, version_parent_igdb_id bigint, " +
+            "similar_igdb_ids bigint[], remake_igdb_ids bigint[], remaster_igdb_ids bigint[]" +
+            ") ON COMMIT DROP";
+
+    private static final String COPY_SQL =
+            "COPY catalog_import_games (" + String.join(", ", STAGING_COLUMNS) + ") FROM STDIN";
+
+    private static final String CREATE_PENDING_SQL =
+            "CREATE UNLOGGED TABLE IF NOT EXISTS catalog_import_pending (" +
+            "igdb_id bigint PRIMARY KEY, content_hash text, parent_igdb_id bigint, version_parent_igdb_id bigint, " +
+            "similar_igdb_ids bigint[], remake_igdb_ids bigint[], remaster_igdb_ids bigint[])";
+
+    // Un mismo juego repetido en el lote: prevalece la última línea
+    private static final String DISCARD_DUPLICATES_SQL =
+            "DELETE FROM catalog_import_games a USING catalog_import_games b " +
+            "WHERE a.igdb_id = b.igdb_id AND a.line_no < b.line_no";
+
+    // Juegos completos con el mismo hash de contenido que el volcado: no hay nada que escribir
+    private static final String DISCARD_UNCHANGED_SQL =
+            "DELETE FROM catalog_import_games s USING games g " +
+            "WHERE g.igdb_id = s.igdb_id AND g.is_full_details = true AND g.content_hash = s.content_hash";
+
+    private static final String UPSERT_PLATFORMS_SQL =
+            "INSERT INTO platforms AS t (igdb_id, name, alternative_name, logo_igdb_id, logo_url) " +
+            "SELECT DISTINCT ON (r.id) r.id, r.name, r.alternative_name, r.logo_igdb_id, r.logo_url " +
+            "FROM catalog_import_games s CROSS JOIN LATERAL jsonb_to_recordset(s.platforms) " +
+            "AS r(id bigint, name varchar, alternative_name varchar, logo_igdb_id bigint, logo_url varchar) " +
+            "WHERE r.id IS NOT NULL AND r.name IS NOT NULL ORDER BY r.id, s.line_no DESC " +
+            "ON CONFLICT (igdb_id) DO UPDATE SET name = EXCLUDED.name, alternative_name = EXCLUDED.alternative_name, " +
+            "logo_igdb_id = EXCLUDED.logo_igdb_id, logo_url = EXCLUDED.logo_url " +
+            "WHERE ROW(t.name, t.alternative_name, t.logo_igdb_id, t.logo_url) " +
+            "IS DISTINCT FROM ROW(EXCLUDED.name, EXCLUDED.alternative_name, EXCLUDED.logo_igdb_id, EXCLUDED.logo_url)";
+
+    private static final String UPSERT_COMPANIES_SQL =
+            "INSERT INTO companies AS t (igdb_id, name) " +
+            "SELECT DISTINCT ON (r.company_igdb_id) r.company_igdb_id, r.company_name " +
+            "FROM catalog_import_games s CROSS JOIN LATERAL jsonb_to_recordset(s.involved_companies) " +
+            "AS r(company_igdb_id bigint, company_name varchar) " +
+            "WHERE r.company_igdb_id IS NOT NULL AND r.company_name IS NOT NULL " +
+            "ORDER BY r.company_igdb_id, s.line_no DESC " +
+            "ON CONFLICT (igdb_id) DO UPDATE SET name = EXCLUDED.name WHERE t.name IS DISTINCT FROM EXCLUDED.name";
+
+    private static final String UPDATE_EXISTING_GAMES_SQL =
+            "UPDATE games g SET name = s.name, slug = s.slug, cover_igdb_id = s.cover_igdb_id, cover_url = s.cover_url, " +
+            "total_rating = s.total_rating, total_rating_count = s.total_rating_count, summary = s.summary, " +
+            "storyline = s.storyline, game_type = s.game_type, first_release_date = s.first_release_date, " +
+            "first_release_status = s.first_release_status, artworks = s.artworks, screenshots = s.screenshots, " +
+            "websites = s.websites, videos = s.videos, is_full_details = true, detail_level = ?, content_hash = NULL, " +
+            "refreshed_at = now(), next_refresh_at = s.next_refresh_at " +
+            "FROM catalog_import_games s WHERE g.igdb_id = s.igdb_id";
+
+    private static final String INSERT_NEW_GAMES_SQL =
+            "WITH new_games AS (" +
+            "SELECT s.*, row_number() OVER (ORDER BY s.igdb_id) - 1 AS position FROM catalog_import_games s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM games g WHERE g.igdb_id = s.igdb_id)), " +
+            idBlocksCte("games_seq", "new_games") + " " +
+            "INSERT INTO games (internal_id, igdb_id, name, slug, cover_igdb_id, cover_url, total_rating, " +
+            "total_rating_count, summary, storyline, game_type, first_release_date, first_release_status, " +
+            "artworks, screenshots, websites, videos, is_full_details, detail_level, content_hash, refreshed_at, next_refresh_at) " +
+            "SELECT " + idFromBlock("n") + ", n.igdb_id, n.name, n.slug, n.cover_igdb_id, n.cover_url, n.total_rating, " +
+            "n.total_rating_count, n.summary, n.storyline, n.game_type, n.first_release_date, n.first_release_status, " +
+            "n.artworks, n.screenshots, n.websites, n.videos, true, ?, NULL, now(), n.next_refresh_at " +
+            "FROM new_games n JOIN id_blocks b ON b.block = n.position / " + ID_BLOCK_SIZE + " " +
+            "ON CONFLICT (igdb_id) DO NOTHING"; // Guardado entretanto por la ingesta normal, que ya trae datos de IGDB
+
+    private static final String DELETE_INVOLVEMENTS_SQL =
+            "DELETE FROM game_company_involvements i USING catalog_import_games s JOIN games g ON g.igdb_id = s.igdb_id " +
+            "WHERE i.game_internal_id = g.internal_id";
+
+    private static final String INSERT_INVOLVEMENTS_SQL =
+            "WITH involvements AS (" +
+            "SELECT DISTINCT ON (r.id) r.id AS involvement_igdb_id, g.internal_id AS game_internal_id, " +
+            "c.internal_id AS company_internal_id, COALESCE(r.developer, false) AS developer, " +
+            "COALESCE(r.porting, false) AS porting, COALESCE(r.publisher, false) AS publisher, " +
+            "COALESCE(r.supporting, false) AS supporting " +
+            "FROM catalog_import_games s JOIN games g ON g.igdb_id = s.igdb_id " +
+            "CROSS JOIN LATERAL jsonb_to_recordset(s.involved_companies) AS r(id bigint, company_igdb_id bigint, " +
+            "developer boolean, porting boolean, publisher boolean, supporting boolean) " +
+            "JOIN companies c ON c.igdb_id = r.company_igdb_id " +
+            "WHERE r.id IS NOT NULL ORDER BY r.id, s.line_no DESC), " +
+            "positioned AS (SELECT i.*, row_number() OVER (ORDER BY i.involvement_igdb_id) - 1 AS position FROM involvements i), " +
+            idBlocksCte("game_company_involvements_seq", "positioned") + " " +
+            "INSERT INTO game_company_involvements (internal_id, involvement_igdb_id, game_internal_id, company_internal_id, " +
+            "developer, porting, publisher, supporting) " +
+            "SELECT " + idFromBlock("p") + ", p.involvement_igdb_id, p.game_internal_id, p.company_internal_id, " +
+            "p.developer, p.porting, p.publisher, p.supporting " +
+            "FROM positioned p JOIN id_blocks b ON b.block = p.position / " + ID_BLOCK_SIZE + " " +
+            "ON CONFLICT (involvement_igdb_id) DO NOTHING";
+
+    // Los documentos se invalidan dejando la fila (ver GameDetailDocumentService), no se borran
+    private static final String INVALIDATE_DOCUMENTS_SQL_PREFIX =
+            "INSERT INTO game_detail_documents (igdb_id, document_version, document, generated_at) " +
+            "SELECT DISTINCT igdb_id, 0, '', now() FROM ";
+    private static final String INVALIDATE_DOCUMENTS_SQL_SUFFIX =
+            " ON CONFLICT (igdb_id) DO UPDATE SET document_version = EXCLUDED.document_version, " +
+            "document = EXCLUDED.document, generated_at = EXCLUDED.generated_at";
+
+    private static final String INVALIDATE_STAGED_DOCUMENTS_SQL =
+            INVALIDATE_DOCUMENTS_SQL_PREFIX + "catalog_import_games" + INVALIDATE_DOCUMENTS_SQL_SUFFIX;
+
+    private static final String UPSERT_PENDING_SQL =
+            "INSERT INTO catalog_import_pending (igdb_id, content_hash, parent_igdb_id, version_parent_igdb_id, " +
+            "similar_igdb_ids, remake_igdb_ids, remaster_igdb_ids) " +
+            "SELECT igdb_id, content_hash, parent_igdb_id, version_parent_igdb_id, similar_igdb_ids, remake_igdb_ids, remaster_igdb_ids " +
+            "FROM catalog_import_games " +
+            "ON CONFLICT (igdb_id) DO UPDATE SET content_hash = EXCLUDED.content_hash, parent_igdb_id = EXCLUDED.parent_igdb_id, " +
+            "version_parent_igdb_id = EXCLUDED.version_parent_igdb_id, similar_igdb_ids = EXCLUDED.similar_igdb_ids, " +
+            "remake_igdb_ids = EXCLUDED.remake_igdb_ids, remaster_igdb_ids = EXCLUDED.remaster_igdb_ids";
+
+    private static final String RESOLVE_PARENTS_SQL =
+            "UPDATE games g SET parent_game_internal_id = parent.internal_id, " +
+            "version_parent_game_internal_id = version_parent.internal_id " +
+            "FROM catalog_import_pending p " +
+            "LEFT JOIN games parent ON parent.igdb_id = p.parent_igdb_id " +
+            "LEFT JOIN games version_parent ON version_parent.igdb_id = p.version_parent_igdb_id " +
+            "WHERE g.igdb_id = p.igdb_id";
+
+    private static final String INVALIDATE_PENDING_DOCUMENTS_SQL =
+            INVALIDATE_DOCUMENTS_SQL_PREFIX + "(SELECT p.igdb_id FROM catalog_import_pending p " +
+            "UNION SELECT p.parent_igdb_id FROM catalog_import_pending p " +
+            "UNION SELECT p.version_parent_igdb_id FROM catalog_import_pending p) ids WHERE igdb_id IS NOT NULL" +
+            INVALIDATE_DOCUMENTS_SQL_SUFFIX;
+
+    private static final String APPLY_PENDING_HASHES_SQL =
+            "UPDATE games g SET content_hash = p.content_hash FROM catalog_import_pending p WHERE g.igdb_id = p.igdb_id";
+
+    private static final List<ReferenceTable> REFERENCE_TABLES = List.of(
+            namedReferenceTable("game_modes", "game_game_modes", "game_mode_internal_id"),
+            namedReferenceTable("genres", "game_genres", "genre_internal_id"),
+            namedReferenceTable("franchises", "game_franchises", "franchise_internal_id"),
+            namedReferenceTable("game_engines", "game_game_engines_assoc", "game_engine_internal_id"),
+            namedReferenceTable("keywords", "game_keywords_assoc", "keyword_internal_id"),
+            namedReferenceTable("themes", "game_themes_assoc", "theme_internal_id"),
+            new ReferenceTable("platforms", "game_platforms_assoc", "platform_internal_id", UPSERT_PLATFORMS_SQL));
+
+    private static final List<GameRelationTable> GAME_RELATION_TABLES = List.of(
+            new GameRelationTable("game_similar_games_assoc", "game_id", "similar_game_id", "similar_igdb_ids"),
+            new GameRelationTable("game_remake_versions_assoc", "original_game_id", "remake_game_id", "remake_igdb_ids"),
+            new GameRelationTable("game_remaster_versions_assoc", "original_game_id", "remaster_game_id", "remaster_igdb_ids"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CatalogBulkImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Crea (si no existe) la tabla de relaciones pendientes. Si quedó con filas de una importación interrumpida,
+     * se conservan y se resuelven al final de esta.
+     */
+    public void preparePendingTable() {
+        jdbcTemplate.execute(CREATE_PENDING_SQL);
+    }
+
+    /**
+     * Crea la tabla temporal de staging del lote; desaparece al confirmar o deshacer la transacción.
+     */
+    public void createStagingTable() {
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+    }
+
+    /**
+     * Escribe las filas en la tabla de staging con un solo {@code COPY}, a medida que el iterador las produce
+     * (sin acumularlas en memoria).
+     *
+     * @return filas copiadas.
+     */
+    public long copyIntoStaging(Iterator<CatalogImportRow> rows) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        PGCopyOutputStream copyStream = null;
+        try {
+            copyStream = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL, COPY_BUFFER_SIZE);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(copyStream, StandardCharsets.UTF_8), COPY_BUFFER_SIZE);
+            StringBuilder line = new StringBuilder(4096);
+            long lineNo = 0;
+            while (rows.hasNext()) {
+                line.setLength(0);
+                appendRow(line, ++lineNo, rows.next());
+                writer.append(line);
+            }
+            writer.flush();
+            return copyStream.endCopy();
+        } catch (SQLException e) {
+            cancelCopy(copyStream);
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("COPY", COPY_SQL, e);
+            throw translated != null ? translated : new IllegalStateException("Error en COPY a catalog_import_games", e);
+        } catch (IOException e) {
+            cancelCopy(copyStream);
+            throw new UncheckedIOException("Error escribiendo el COPY a catalog_import_games", e);
+        } catch (RuntimeException e) {
+            cancelCopy(copyStream);
+            throw e;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static void cancelCopy(PGCopyOutputStream copyStream) {
+        try {
+            if (copyStream != null && copyStream.isActive()) {
+                copyStream.cancelCopy();
+            }
+        } catch (SQLException e) {
+            logger.debug("No se pudo cancelar el COPY a catalog_import_games: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fusiona el lote de staging en el catálogo. Descarta antes los juegos repetidos en el lote y los que ya están
+     * guardados con el mismo contenido.
+     *
+     * @return juegos escritos (nuevos o modificados).
+     */
+    public int mergeStagedGames() {
+        jdbcTemplate.update(DISCARD_DUPLICATES_SQL);
+        jdbcTemplate.update(DISCARD_UNCHANGED_SQL);
+        // Las tablas temporales no las analiza autovacuum: sin estadísticas el planificador estima mal los JOIN
+        jdbcTemplate.execute("ANALYZE catalog_import_games");
+
+        for (ReferenceTable referenceTable : REFERENCE_TABLES) {
+            jdbcTemplate.update(referenceTable.upsertSql());
+        }
+        jdbcTemplate.update(UPSERT_COMPANIES_SQL);
+
+        int updated = jdbcTemplate.update(UPDATE_EXISTING_GAMES_SQL, GameDetailLevel.FULL.name());
+        int inserted = jdbcTemplate.update(INSERT_NEW_GAMES_SQL, GameDetailLevel.FULL.name());
+
+        for (ReferenceTable referenceTable : REFERENCE_TABLES) {
+            jdbcTemplate.update(deleteReferenceLinksSql(referenceTable));
+            jdbcTemplate.update(insertReferenceLinksSql(referenceTable));
+        }
+        jdbcTemplate.update(DELETE_INVOLVEMENTS_SQL);
+        jdbcTemplate.update(INSERT_INVOLVEMENTS_SQL);
+
+        jdbcTemplate.update(INVALIDATE_STAGED_DOCUMENTS_SQL);
+        jdbcTemplate.update(UPSERT_PENDING_SQL);
+        logger.debug("Lote de importación fusionado: {} juegos actualizados, {} nuevos.", updated, inserted);
+        return updated + inserted;
+    }
+
+    /**
+     * Resuelve las relaciones entre juegos de todo lo importado (las que apuntan a juegos que no están en el
+     * catálogo quedan sin enlazar), fija el {@code content_hash} de los juegos importados y vacía las pendientes.
+     *
+     * @return juegos cuyas relaciones se han resuelto.
+     */
+    public int resolvePendingRelations() {
+        jdbcTemplate.update(RESOLVE_PARENTS_SQL);
+        for (GameRelationTable relationTable : GAME_RELATION_TABLES) {
+            jdbcTemplate.update(deleteGameRelationsSql(relationTable));
+            jdbcTemplate.update(insertGameRelationsSql(relationTable));
+        }
+        jdbcTemplate.update(INVALIDATE_PENDING_DOCUMENTS_SQL);
+        int resolved = jdbcTemplate.update(APPLY_PENDING_HASHES_SQL);
+        jdbcTemplate.execute("DROP TABLE catalog_import_pending");
+        return resolved;
+    }
+
+    /**
+     * <pre>
+     * id_block_ends AS (SELECT nextval('games_seq') AS block_end
+     *                   FROM generate_series(1, CEIL((SELECT count(*) FROM new_games) / 50.0) [+ 1])),
+     * id_blocks AS (SELECT row_number() OVER (ORDER BY block_end) - 1 AS block, block_end
+     *               FROM id_block_ends WHERE block_end &gt;= 50)
+     * </pre>
+     * Un {@code nextval} por cada {@value #ID_BLOCK_SIZE} filas: la fila en la posición {@code p} recibe
+     * {@code block_end - 49 + p % 50} del bloque {@code p / 50}.
+     * <p>
+     * En una BD nueva la secuencia empieza en 1, que daría el rango -48..1. Como el optimizador pooled de
+     * Hibernate, ese primer valor no se usa como final de bloque: si el siguiente {@code nextval} va a ser menor que
+     * {@value #ID_BLOCK_SIZE} se pide un bloque más y se descartan los que acaban por debajo.
+     */
+    static String idBlocksCte(String sequence, String source) {
+        String blockCount = "CAST(CEIL((SELECT count(*) FROM " + source + ") / " + ID_BLOCK_SIZE + ".0) AS integer)";
+        String nextValue = "(SELECT CASE WHEN is_called THEN last_value + " + ID_BLOCK_SIZE + " ELSE last_value END FROM " + sequence + ")";
+        return "id_block_ends AS (SELECT nextval('" + sequence + "') AS block_end " +
+                "FROM generate_series(1, " + blockCount + " + " +
+                "CASE WHEN " + blockCount + " > 0 AND " + nextValue + " < " + ID_BLOCK_SIZE + " THEN 1 ELSE 0 END)), " +
+                "id_blocks AS (SELECT row_number() OVER (ORDER BY block_end) - 1 AS block, block_end " +
+                "FROM id_block_ends WHERE block_end >= " + ID_BLOCK_SIZE + ")";
+    }
+
+    static String idFromBlock(String alias) {
+        return "b.block_end - " + (ID_BLOCK_SIZE - 1) + " + " + alias + ".position % " + ID_BLOCK_SIZE;
+    }
+
+    private static ReferenceTable namedReferenceTable(String table, String joinTable, String joinColumn) {
+        return new ReferenceTable(table, joinTable, joinColumn, upsertNamedReferenceSql(table));
+    }
+
+    private static String upsertNamedReferenceSql(String table) {
+        return "INSERT INTO " + table + " AS t (igdb_id, name) " +
+                "SELECT DISTINCT ON (r.id) r.id, r.name " +
+                "FROM catalog_import_games s CROSS JOIN LATERAL jsonb_to_recordset(s." + table + ") AS r(id bigint, name varchar) " +
+                "WHERE r.id IS NOT NULL AND r.name IS NOT NULL ORDER BY r.id, s.line_no DESC " +
+                "ON CONFLICT (igdb_id) DO UPDATE SET name = EXCLUDED.name WHERE t.name IS DISTINCT FROM EXCLUDED.name";
+    }
+
+    private static String deleteReferenceLinksSql(ReferenceTable referenceTable) {
+        return "DELETE FROM " + referenceTable.joinTable() + " l " +
+                "USING catalog_import_games s JOIN games g ON g.igdb_id = s.igdb_id " +
+                "WHERE l.game_internal_id = g.internal_id";
+    }
+
+    private static String insertReferenceLinksSql(ReferenceTable referenceTable) {
+        return "INSERT INTO " + referenceTable.joinTable() + " (game_internal_id, " + referenceTable.joinColumn() + ") " +
+                "SELECT DISTINCT g.internal_id, t.internal_id " +
+                "FROM catalog_import_games s JOIN games g ON g.igdb_id = s.igdb_id " +
+                "CROSS JOIN LATERAL jsonb_to_recordset(s." + referenceTable.table() + ") AS r(id bigint) " +
+                "JOIN " + referenceTable.table() + " t ON t.igdb_id = r.id " +
+                "ON CONFLICT DO NOTHING";
+    }
+
+    private static String deleteGameRelationsSql(GameRelationTable relationTable) {
+        return "DELETE FROM " + relationTable.table() + " l " +
+                "USING catalog_import_pending p JOIN games g ON g.igdb_id = p.igdb_id " +
+                "WHERE l." + relationTable.gameColumn() + " = g.internal_id";
+    }
+
+    private static String insertGameRelationsSql(GameRelationTable relationTable) {
+        return "INSERT INTO " + relationTable.table() + " (" + relationTable.gameColumn() + ", " + relationTable.relatedColumn() + ") " +
+                "SELECT DISTINCT g.internal_id, related.internal_id " +
+                "FROM catalog_import_pending p JOIN games g ON g.igdb_id = p.igdb_id " +
+                "CROSS JOIN LATERAL unnest(p." + relationTable.pendingColumn() + ") AS r(igdb_id) " +
+                "JOIN games related ON related.igdb_id = r.igdb_id " +
+                "ON CONFLICT DO NOTHING";
+    }
+
+    // Una fila en el formato de texto de COPY: columnas separadas por tabuladores y \N para NULL
+    private static void appendRow(StringBuilder line, long lineNo, CatalogImportRow row) {
+        appendField(line, lineNo);
+        appendField(line, row.igdbId());
+        appendField(line, row.name());
+        appendField(line, row.slug());
+        appendField(line, row.coverIgdbId());
+        appendField(line, row.coverUrl());
+        appendField(line, row.totalRating());
+        appendField(line, row.totalRatingCount());
+        appendField(line, row.summary());
+        appendField(line, row.storyline());
+        appendField(line, row.gameType());
+        appendField(line, row.firstReleaseDate());
+        appendField(line, row.firstReleaseStatus());
+        appendField(line, row.contentHash());
+        appendField(line, row.nextRefreshAt());
+        appendField(line, row.artworksJson());
+        appendField(line, row.screenshotsJson());
+        appendField(line, row.websitesJson());
+        appendField(line, row.videosJson());
+        appendField(line, row.gameModesJson());
+        appendField(line, row.genresJson());
+        appendField(line, row.franchisesJson());
+        appendField(line, row.gameEnginesJson());
+        appendField(line, row.keywordsJson());
+        appendField(line, row.themesJson());
+        appendField(line, row.platformsJson());
+        appendField(line, row.involvedCompaniesJson());
+        appendField(line, row.parentIgdbId());
+        appendField(line, row.versionParentIgdbId());
+        appendField(line, row.similarIgdbIds());
+        appendField(line, row.remakeIgdbIds());
+        appendField(line, row.remasterIgdbIds());
+        line.setCharAt(line.length() - 1, '\n');
+    }
+
+    private static void appendField(StringBuilder line, Object value) {
+        if (value == null) {
+            line.append("\\N");
+        } else if (value instanceof String text) {
+            appendEscaped(line, text);
+        } else if (value instanceof Instant instant) {
+            line.append(instant); // ISO-8601 en UTC, válido para timestamp with time zone
+        } else if (value instanceof List<?> ids) {
+            line.append(ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}")));
+        } else {
+            line.append(value);
+        }
+        line.append('\t');
+    }
+
+    private static void appendEscaped(StringBuilder line, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> line.append("\\\\");
+                case '\t' -> line.append("\\t");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\0' -> {
+                    // PostgreSQL no admite el carácter NUL en columnas de texto
+                }
+                default -> line.append(c);
+            }
+        }
+    }
+
+    // La columna de staging con sus filas JSON se llama igual que la tabla de referencia
+    private record ReferenceTable(String table, String joinTable, String joinColumn, String upsertSql) {
+    }
+
+    private record GameRelationTable(String table, String gameColumn, String relatedColumn, String pendingColumn) {
+    }
+}
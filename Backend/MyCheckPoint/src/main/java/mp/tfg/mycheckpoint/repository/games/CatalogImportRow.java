@@ -0,0 +1,43 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Un juego del volcado ya transformado a las columnas de la tabla de staging de la importación masiva
+ * ({@link CatalogBulkImportRepository}). Las listas de referencias, compañías y medios van como texto JSON
+ * (arrays) y las relaciones con otros juegos como IGDB IDs, que se resuelven al final de la importación.
+ */
+public record CatalogImportRow(
+        Long igdbId,
+        String name,
+        String slug,
+        Long coverIgdbId,
+        String coverUrl,
+        Double totalRating,
+        Integer totalRatingCount,
+        String summary,
+        String storyline,
+        Integer gameType,
+        Instant firstReleaseDate,
+        String firstReleaseStatus,
+        String contentHash,
+        Instant nextRefreshAt,
+        String artworksJson,
+        String screenshotsJson,
+        String websitesJson,
+        String videosJson,
+        String gameModesJson,
+        String genresJson,
+        String franchisesJson,
+        String gameEnginesJson,
+        String keywordsJson,
+        String themesJson,
+        String platformsJson,
+        String involvedCompaniesJson,
+        Long parentIgdbId,
+        Long versionParentIgdbId,
+        List<Long> similarIgdbIds,
+        List<Long> remakeIgdbIds,
+        List<Long> remasterIgdbIds) {
+}
@@ -0,0 +1,132 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Bloqueo consultivo (advisory lock) de PostgreSQL por sincronización del catálogo, para que una pasada no se
+ * ejecute a la vez en dos instancias (o dos veces en la misma).
+ * <p>
+ * A diferencia de {@link GameIngestionLockRepository}, la pasada abarca muchas transacciones, así que el bloqueo es
+ * de sesión ({@code pg_try_advisory_lock}): se toma en una conexión propia, fuera de cualquier transacción, que se
+ * mantiene abierta hasta cerrar el {@link RunLock}. Si la conexión se pierde, PostgreSQL libera el bloqueo solo.
+ */
+@Repository
+public class CatalogSyncLockRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSyncLockRepository.class);
+
+    // Primera clave del bloqueo (forma de dos enteros): separa estos bloqueos de los de GameIngestionLockRepository
+    private static final int SYNC_LOCK_NAMESPACE = 10002;
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(" + SYNC_LOCK_NAMESPACE + ", hashtext(?))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(" + SYNC_LOCK_NAMESPACE + ", hashtext(?))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CatalogSyncLockRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Intenta tomar el bloqueo de la sincronización indicada sin esperar.
+     *
+     * @return el bloqueo tomado (hay que cerrarlo al acabar la pasada), o vacío si otra pasada lo tiene.
+     */
+    public Optional<RunLock> tryLock(String syncName) {
+        Connection connection = null;
+        try {
+            connection = jdbcTemplate.getDataSource().getConnection();
+            connection.setAutoCommit(true);
+            if (queryBoolean(connection, TRY_LOCK_SQL, syncName)) {
+                return Optional.of(new RunLock(connection, syncName));
+            }
+            connection.close();
+            return Optional.empty();
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw translate(TRY_LOCK_SQL, e);
+        }
+    }
+
+    /**
+     * Bloqueo de una pasada tomado con {@link #tryLock}: al cerrarlo se libera y se devuelve la conexión al pool.
+     */
+    public final class RunLock implements AutoCloseable {
+
+        private final Connection connection;
+        private final String syncName;
+
+        private RunLock(Connection connection, String syncName) {
+            this.connection = connection;
+            this.syncName = syncName;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (!queryBoolean(connection, UNLOCK_SQL, syncName)) {
+                    logger.warn("El bloqueo de la sincronización '{}' ya no estaba tomado al liberarlo.", syncName);
+                }
+                closeQuietly(connection);
+            } catch (SQLException e) {
+                // La conexión no puede volver al pool con el bloqueo tomado: se descarta, y al cerrarse la sesión
+                // PostgreSQL lo libera
+                logger.warn("No se pudo liberar el bloqueo de la sincronización '{}': {}", syncName, e.getMessage());
+                evict(connection);
+            }
+        }
+    }
+
+    private static boolean queryBoolean(Connection connection, String sql, String syncName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, syncName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private DataAccessException translate(String sql, SQLException e) {
+        DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("advisory lock", sql, e);
+        return translated != null ? translated : new UncategorizedSQLException("advisory lock", sql, e);
+    }
+
+    private void evict(Connection connection) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                dataSource.unwrap(HikariDataSource.class).evictConnection(connection);
+                return;
+            }
+        } catch (SQLException e) {
+            logger.debug("No se pudo descartar la conexión del bloqueo de sincronización: {}", e.getMessage());
+        }
+        closeQuietly(connection);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Error cerrando la conexión del bloqueo de sincronización: {}", e.getMessage());
+        }
+    }
+}
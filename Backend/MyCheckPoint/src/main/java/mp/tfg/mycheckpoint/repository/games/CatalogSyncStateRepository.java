@@ -0,0 +1,9 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import mp.tfg.mycheckpoint.entity.games.CatalogSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogSyncStateRepository extends JpaRepository<CatalogSyncState, String> {
+}
@@ -0,0 +1,174 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import mp.tfg.mycheckpoint.entity.games.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Upsert nativo de PostgreSQL ({@code INSERT ... ON CONFLICT (igdb_id) DO UPDATE ... RETURNING internal_id})
+ * para las tablas del catálogo identificadas por un {@code igdb_id} único.
+ * <p>
+ * Cada bloque de filas se escribe con una sola sentencia y devuelve el {@code internal_id} de todas ellas,
+ * sin una consulta posterior: las filas nuevas o modificadas salen del {@code RETURNING} y las que ya estaban
+ * al día (que no se reescriben) salen de la misma sentencia. Al no haber "buscar y luego guardar",
+ * dos ingestas concurrentes no chocan con la restricción de unicidad.
+ * <p>
+ * Las sentencias se ejecutan con {@link JdbcTemplate}, dentro de la transacción en curso si la hay.
+ */
+@Repository
+public class CatalogUpsertRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogUpsertRepository.class);
+
+    // PostgreSQL admite como mucho 32767 parámetros por sentencia
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final List<Column> NAMED_COLUMNS = List.of(
+            new Column("name", "varchar"));
+    private static final List<Column> PLATFORM_COLUMNS = List.of(
+            new Column("name", "varchar"),
+            new Column("alternative_name", "varchar"),
+            new Column("logo_igdb_id", "bigint"),
+            new Column("logo_url", "varchar"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CatalogUpsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** @return internal_id por igdb_id de las filas escritas o ya existentes. */
+    public Map<Long, Long> upsertGameModes(Collection<GameMode> gameModes) {
+        return upsert("game_modes", NAMED_COLUMNS, gameModes, GameMode::getIgdbId, gameMode -> new Object[]{gameMode.getName()});
+    }
+
+    public Map<Long, Long> upsertGenres(Collection<Genre> genres) {
+        return upsert("genres", NAMED_COLUMNS, genres, Genre::getIgdbId, genre -> new Object[]{genre.getName()});
+    }
+
+    public Map<Long, Long> upsertFranchises(Collection<Franchise> franchises) {
+        return upsert("franchises", NAMED_COLUMNS, franchises, Franchise::getIgdbId, franchise -> new Object[]{franchise.getName()});
+    }
+
+    public Map<Long, Long> upsertGameEngines(Collection<GameEngine> gameEngines) {
+        return upsert("game_engines", NAMED_COLUMNS, gameEngines, GameEngine::getIgdbId, gameEngine -> new Object[]{gameEngine.getName()});
+    }
+
+    public Map<Long, Long> upsertKeywords(Collection<Keyword> keywords) {
+        return upsert("keywords", NAMED_COLUMNS, keywords, Keyword::getIgdbId, keyword -> new Object[]{keyword.getName()});
+    }
+
+    public Map<Long, Long> upsertThemes(Collection<Theme> themes) {
+        return upsert("themes", NAMED_COLUMNS, themes, Theme::getIgdbId, theme -> new Object[]{theme.getName()});
+    }
+
+    public Map<Long, Long> upsertCompanies(Collection<Company> companies) {
+        return upsert("companies", NAMED_COLUMNS, companies, Company::getIgdbId, company -> new Object[]{company.getName()});
+    }
+
+    public Map<Long, Long> upsertPlatforms(Collection<Platform> platforms) {
+        return upsert("platforms", PLATFORM_COLUMNS, platforms, Platform::getIgdbId, platform -> {
+            PlatformLogo logo = platform.getPlatformLogo();
+            return new Object[]{platform.getName(), platform.getAlternativeName(),
+                    logo != null ? logo.getIgdbId() : null, logo != null ? logo.getUrl() : null};
+        });
+    }
+
+    private <E> Map<Long, Long> upsert(String table, List<Column> columns, Collection<E> entities,
+                                       Function<E, Long> igdbIdOf, Function<E, Object[]> valuesOf) {
+        // Un mismo igdb_id no puede aparecer dos veces en la sentencia (ON CONFLICT no actualiza dos veces la misma fila):
+        // prevalece el último, como si se guardasen en orden.
+        Map<Long, Object[]> rowsByIgdbId = new LinkedHashMap<>();
+        for (E entity : entities) {
+            if (entity != null && igdbIdOf.apply(entity) != null) {
+                rowsByIgdbId.put(igdbIdOf.apply(entity), valuesOf.apply(entity));
+            }
+        }
+
+        // Filas en orden de igdb_id: dos upserts concurrentes bloquean las filas comunes en el mismo orden
+        // y no pueden interbloquearse (ingesta en paralelo).
+        Map<Long, Long> internalIds = new HashMap<>();
+        List<Long> igdbIds = new ArrayList<>(rowsByIgdbId.keySet());
+        Collections.sort(igdbIds);
+        for (int from = 0; from < igdbIds.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Long> chunk = igdbIds.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, igdbIds.size()));
+            internalIds.putAll(upsertChunk(table, columns, chunk, rowsByIgdbId));
+        }
+        return internalIds;
+    }
+
+    private Map<Long, Long> upsertChunk(String table, List<Column> columns, List<Long> igdbIds, Map<Long, Object[]> rowsByIgdbId) {
+        Map<Long, Long> internalIds = execute(table, columns, igdbIds, rowsByIgdbId);
+        if (internalIds.size() < igdbIds.size()) {
+            // Una fila idéntica insertada por otra transacción después de nuestra instantánea no sale ni en el
+            // RETURNING (no se actualiza) ni en la lectura (no es visible todavía). Se repite solo para esas.
+            List<Long> missing = igdbIds.stream().filter(igdbId -> !internalIds.containsKey(igdbId)).toList();
+            logger.debug("Upsert en '{}': {} filas escritas en paralelo por otra transacción. Repitiendo para ellas.", table, missing.size());
+            internalIds.putAll(execute(table, columns, missing, rowsByIgdbId));
+        }
+        return internalIds;
+    }
+
+    private Map<Long, Long> execute(String table, List<Column> columns, List<Long> igdbIds, Map<Long, Object[]> rowsByIgdbId) {
+        List<Object> parameters = new ArrayList<>(igdbIds.size() * (columns.size() + 1));
+        for (Long igdbId : igdbIds) {
+            parameters.add(igdbId);
+            parameters.addAll(Arrays.asList(rowsByIgdbId.get(igdbId)));
+        }
+        Map<Long, Long> internalIds = new HashMap<>();
+        jdbcTemplate.query(upsertSql(table, columns, igdbIds.size()),
+                resultSet -> {
+                    internalIds.put(resultSet.getLong("igdb_id"), resultSet.getLong("internal_id"));
+                },
+                parameters.toArray());
+        return internalIds;
+    }
+
+    /**
+     * <pre>
+     * WITH input (igdb_id, name) AS (VALUES (CAST(? AS bigint), CAST(? AS varchar)), ...),
+     * upserted AS (
+     *     INSERT INTO genres AS t (igdb_id, name) SELECT igdb_id, name FROM input
+     *     ON CONFLICT (igdb_id) DO UPDATE SET name = EXCLUDED.name
+     *     WHERE ROW(t.name) IS DISTINCT FROM ROW(EXCLUDED.name)
+     *     RETURNING t.igdb_id, t.internal_id)
+     * SELECT igdb_id, internal_id FROM upserted
+     * UNION ALL
+     * SELECT t.igdb_id, t.internal_id FROM genres t JOIN input i ON i.igdb_id = t.igdb_id
+     * WHERE NOT EXISTS (SELECT 1 FROM upserted u WHERE u.igdb_id = t.igdb_id)
+     * </pre>
+     * El {@code WHERE ... IS DISTINCT FROM} evita reescribir (y generar tuplas muertas) filas que no han cambiado.
+     */
+    private static String upsertSql(String table, List<Column> columns, int rowCount) {
+        String columnNames = columns.stream().map(Column::name).collect(Collectors.joining(", "));
+        String placeholders = columns.stream().map(column -> "CAST(? AS " + column.sqlType() + ")")
+                .collect(Collectors.joining(", ", "(CAST(? AS bigint), ", ")"));
+        String values = String.join(", ", Collections.nCopies(rowCount, placeholders));
+        String updates = columns.stream().map(column -> column.name() + " = EXCLUDED." + column.name())
+                .collect(Collectors.joining(", "));
+        String current = columns.stream().map(column -> "t." + column.name()).collect(Collectors.joining(", "));
+        String excluded = columns.stream().map(column -> "EXCLUDED." + column.name()).collect(Collectors.joining(", "));
+
+        return "WITH input (igdb_id, " + columnNames + ") AS (VALUES " + values + "), " +
+                "upserted AS (" +
+                "INSERT INTO " + table + " AS t (igdb_id, " + columnNames + ") SELECT igdb_id, " + columnNames + " FROM input " +
+                "ON CONFLICT (igdb_id) DO UPDATE SET " + updates + " " +
+                "WHERE ROW(" + current + ") IS DISTINCT FROM ROW(" + excluded + ") " +
+                "RETURNING t.igdb_id, t.internal_id) " +
+                "SELECT igdb_id, internal_id FROM upserted " +
+                "UNION ALL " +
+                "SELECT t.igdb_id, t.internal_id FROM " + table + " t JOIN input i ON i.igdb_id = t.igdb_id " +
+                "WHERE NOT EXISTS (SELECT 1 FROM upserted u WHERE u.igdb_id = t.igdb_id)";
+    }
+
+    private record Column(String name, String sqlType) {
+    }
+}
@@ -4,9 +4,12 @@ package mp.tfg.mycheckpoint.repository.games;
 import mp.tfg.mycheckpoint.entity.games.Company;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CompanyRepository extends JpaRepository<Company, Long> {
     Optional<Company> findByIgdbId(Long igdbId);
+    List<Company> findByIgdbIdIn(Collection<Long> igdbIds);
 }
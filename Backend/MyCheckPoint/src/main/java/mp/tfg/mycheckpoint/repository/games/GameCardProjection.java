@@ -0,0 +1,13 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import mp.tfg.mycheckpoint.dto.enums.GameType;
+
+import java.time.Instant;
+
+/**
+ * Columnas de {@code games} que necesita una tarjeta de juego (ver {@link GameRepository#findCardsByInternalIdIn}).
+ * Todas están en el índice {@code idx_games_card}, así que la consulta se resuelve solo con el índice.
+ */
+public record GameCardProjection(Long internalId, Long igdbId, String name, String coverUrl,
+                                 Double totalRating, GameType gameType, Instant firstReleaseDate) {
+}
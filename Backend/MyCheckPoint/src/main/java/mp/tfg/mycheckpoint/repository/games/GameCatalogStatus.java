@@ -0,0 +1,7 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+/**
+ * ID interno de un juego del catálogo local y si ya tiene detalles completos, leídos sin cargar la entidad.
+ */
+public record GameCatalogStatus(Long internalId, boolean fullDetails) {
+}
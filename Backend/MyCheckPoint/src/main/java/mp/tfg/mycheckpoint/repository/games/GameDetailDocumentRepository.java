@@ -0,0 +1,68 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import mp.tfg.mycheckpoint.entity.games.GameDetailDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface GameDetailDocumentRepository extends JpaRepository<GameDetailDocument, Long> {
+
+    /**
+     * Documento guardado y su sello de generación, tal como estaban al leerlos.
+     */
+    interface DocumentSnapshot {
+        String getDocument();
+
+        int getDocumentVersion();
+
+        Instant getGeneratedAt();
+    }
+
+    // Sin cargar la entidad en el contexto de persistencia: una lectura por clave primaria
+    @Query("SELECT d.document AS document, d.documentVersion AS documentVersion, d.generatedAt AS generatedAt " +
+            "FROM GameDetailDocument d WHERE d.igdbId = :igdbId")
+    Optional<DocumentSnapshot> findSnapshot(@Param("igdbId") Long igdbId);
+
+    // Escritura de la ingesta: sus datos son los que se confirman con ella, así que siempre sustituye al documento.
+    // Una sentencia para todos los juegos (cada consulta nativa vacía antes el contexto de persistencia de la ingesta)
+    @Modifying
+    @Query(value = "INSERT INTO game_detail_documents (igdb_id, document_version, document, generated_at) " +
+            "SELECT d.igdb_id, :documentVersion, d.document, :generatedAt " +
+            "FROM unnest(CAST(:igdbIds AS bigint[]), CAST(:documents AS text[])) AS d(igdb_id, document) " +
+            "ON CONFLICT (igdb_id) DO UPDATE SET document_version = EXCLUDED.document_version, " +
+            "document = EXCLUDED.document, generated_at = EXCLUDED.generated_at", nativeQuery = true)
+    void upsert(@Param("igdbIds") Long[] igdbIds, @Param("documents") String[] documents,
+                @Param("documentVersion") int documentVersion, @Param("generatedAt") Instant generatedAt);
+
+    // Escritura desde una lectura que no encontró fila: si otra transacción la ha creado entretanto, gana esa
+    @Modifying
+    @Query(value = "INSERT INTO game_detail_documents (igdb_id, document_version, document, generated_at) " +
+            "VALUES (:igdbId, :documentVersion, :document, :generatedAt) " +
+            "ON CONFLICT (igdb_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("igdbId") Long igdbId, @Param("documentVersion") int documentVersion,
+                       @Param("document") String document, @Param("generatedAt") Instant generatedAt);
+
+    // Escritura desde una lectura que encontró la fila con el sello indicado: solo si nadie la ha reescrito después
+    @Modifying
+    @Query(value = "UPDATE game_detail_documents SET document_version = :documentVersion, document = :document, " +
+            "generated_at = :generatedAt WHERE igdb_id = :igdbId AND generated_at = :readGeneratedAt", nativeQuery = true)
+    int replaceIfUnchanged(@Param("igdbId") Long igdbId, @Param("documentVersion") int documentVersion,
+                           @Param("document") String document, @Param("generatedAt") Instant generatedAt,
+                           @Param("readGeneratedAt") Instant readGeneratedAt);
+
+    // Invalida los documentos dejando una fila que no se sirve (en vez de borrarla), para que una lectura anterior
+    // no pueda volver a escribir el documento viejo: ver replaceIfUnchanged e insertIfAbsent
+    @Modifying
+    @Query(value = "INSERT INTO game_detail_documents (igdb_id, document_version, document, generated_at) " +
+            "SELECT id, :invalidatedVersion, '', :generatedAt FROM unnest(CAST(:igdbIds AS bigint[])) AS id " +
+            "ON CONFLICT (igdb_id) DO UPDATE SET document_version = EXCLUDED.document_version, " +
+            "document = EXCLUDED.document, generated_at = EXCLUDED.generated_at", nativeQuery = true)
+    void invalidate(@Param("igdbIds") Long[] igdbIds, @Param("invalidatedVersion") int invalidatedVersion,
+                    @Param("generatedAt") Instant generatedAt);
+}
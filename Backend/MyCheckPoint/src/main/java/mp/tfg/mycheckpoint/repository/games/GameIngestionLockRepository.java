@@ -0,0 +1,50 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Bloqueos consultivos (advisory locks) de PostgreSQL por IGDB ID de juego, para que dos ingestas que tocan
+ * el mismo juego (en esta instancia o en otra) no se ejecuten a la vez.
+ * <p>
+ * Son bloqueos de transacción ({@code pg_advisory_xact_lock}): se liberan solos en el commit o rollback,
+ * así que deben tomarse dentro de la transacción de la ingesta. Se toman todos con una sola sentencia
+ * y siempre en orden ascendente, de modo que dos ingestas con juegos en común no se bloquean mutuamente.
+ */
+@Repository
+public class GameIngestionLockRepository {
+
+    // Primera clave del bloqueo (forma de dos enteros): separa estos bloqueos de cualquier otro uso de advisory locks
+    private static final int GAME_LOCK_NAMESPACE = 10001;
+
+    private static final String LOCK_SQL =
+            "SELECT pg_advisory_xact_lock(" + GAME_LOCK_NAMESPACE + ", lock_key) " +
+            "FROM (SELECT DISTINCT CAST(igdb_id % 2147483647 AS int) AS lock_key " +
+            "FROM unnest(CAST(? AS bigint[])) AS igdb_id ORDER BY lock_key) AS keys";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GameIngestionLockRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Bloquea los juegos indicados hasta el final de la transacción en curso, esperando si otra ingesta los tiene.
+     * Dos IDs pueden compartir clave (módulo 2^31 - 1): en ese caso solo se serializa de más, nunca de menos.
+     */
+    public void lockGames(Collection<Long> igdbIds) {
+        if (igdbIds.isEmpty()) {
+            return;
+        }
+        String igdbIdArray = igdbIds.stream().filter(Objects::nonNull).map(String::valueOf)
+                .collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.query(LOCK_SQL, resultSet -> {
+        }, igdbIdArray);
+    }
+}
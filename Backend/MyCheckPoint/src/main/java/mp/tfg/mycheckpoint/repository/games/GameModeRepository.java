@@ -6,9 +6,12 @@ import mp.tfg.mycheckpoint.entity.games.GameMode;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GameModeRepository extends JpaRepository<GameMode, Long> {
     Optional<GameMode> findByIgdbId(Long igdbId);
+    List<GameMode> findByIgdbIdIn(Collection<Long> igdbIds);
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Selección de los juegos completos cuyo refresco contra IGDB ha vencido ({@code games.next_refresh_at}).
+ * <p>
+ * Los juegos se reclaman con una sola sentencia que, además de devolverlos, adelanta su {@code next_refresh_at}
+ * al final de un plazo de reserva: otra ejecución (en esta instancia o en otra) ya no los ve, y si el refresco
+ * falla sin llegar a guardarse vuelven a vencer al acabar la reserva. Al guardarse, la ingesta fija su siguiente
+ * refresco real. {@code SKIP LOCKED} evita esperar por filas que otra transacción tiene bloqueadas.
+ */
+@Repository
+public class GameRefreshRepository {
+
+    private static final String CLAIM_SQL =
+            "UPDATE games SET next_refresh_at = ? WHERE internal_id IN (" +
+            "SELECT internal_id FROM games WHERE is_full_details = true AND next_refresh_at <= ? " +
+            "ORDER BY next_refresh_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING igdb_id";
+
+    private static final String COUNT_DUE_SQL =
+            "SELECT count(*) FROM games WHERE is_full_details = true AND next_refresh_at <= ?";
+
+    private static final String POSTPONE_SQL =
+            "UPDATE games SET next_refresh_at = ? WHERE igdb_id = ANY (CAST(? AS bigint[]))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GameRefreshRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reclama hasta {@code limit} juegos vencidos en {@code now}, los más atrasados primero.
+     *
+     * @return los IGDB IDs reclamados (reservados hasta {@code reservedUntil}).
+     */
+    public List<Long> claimDueGames(Instant now, Instant reservedUntil, int limit) {
+        return jdbcTemplate.queryForList(CLAIM_SQL, Long.class,
+                Timestamp.from(reservedUntil), Timestamp.from(now), limit);
+    }
+
+    /**
+     * @return cuántos juegos completos tienen el refresco vencido en {@code now}.
+     */
+    public long countDueGames(Instant now) {
+        Long count = jdbcTemplate.queryForObject(COUNT_DUE_SQL, Long.class, Timestamp.from(now));
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Aplaza el refresco de los juegos indicados (p. ej. los que IGDB ya no devuelve) hasta {@code until}.
+     */
+    public void postponeRefresh(Collection<Long> igdbIds, Instant until) {
+        if (igdbIds.isEmpty()) {
+            return;
+        }
+        String igdbIdArray = igdbIds.stream().filter(Objects::nonNull).map(String::valueOf)
+                .collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.update(POSTPONE_SQL, Timestamp.from(until), igdbIdArray);
+    }
+}
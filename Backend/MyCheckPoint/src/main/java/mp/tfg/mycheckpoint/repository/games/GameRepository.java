@@ -3,12 +3,37 @@ package mp.tfg.mycheckpoint.repository.games;
 
 
 import mp.tfg.mycheckpoint.entity.games.Game;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
     Optional<Game> findByIgdbId(Long igdbId); // Para buscar si un juego ya existe por su ID de IGDB
+    List<Game> findByIgdbIdIn(Collection<Long> igdbIds);
+
+    // ID interno del juego y si tiene detalles completos (lectura por índice, sin cargar la entidad)
+    @Query("SELECT new mp.tfg.mycheckpoint.repository.games.GameCatalogStatus(g.internalId, g.isFullDetails) " +
+            "FROM Game g WHERE g.igdbId = :igdbId")
+    Optional<GameCatalogStatus> findCatalogStatusByIgdbId(@Param("igdbId") Long igdbId);
+
+    // IGDB IDs de los juegos completos por encima de un ID, en orden (paginación por clave para recorrer el catálogo)
+    @Query("SELECT g.igdbId FROM Game g WHERE g.isFullDetails = true AND g.igdbId > :afterIgdbId ORDER BY g.igdbId")
+    List<Long> findFullDetailsIgdbIdsAfter(@Param("afterIgdbId") Long afterIgdbId, Pageable pageable);
+
+    // Búsqueda local por nombre (respaldo cuando IGDB no está disponible); los más valorados primero
+    @Query("SELECT g FROM Game g WHERE LOWER(g.name) LIKE LOWER(CONCAT('%', :name, '%')) ESCAPE '\\' " +
+            "ORDER BY g.totalRatingCount DESC NULLS LAST, g.name ASC")
+    List<Game> searchByName(@Param("name") String name, Pageable pageable);
+
+    // Tarjetas de juego (nombre, carátula, valoración, tipo y fecha) sin cargar las entidades: una consulta por página
+    @Query("SELECT new mp.tfg.mycheckpoint.repository.games.GameCardProjection(g.internalId, g.igdbId, g.name, " +
+            "g.cover.url, g.totalRating, g.gameType, g.firstReleaseDate) FROM Game g WHERE g.internalId IN :internalIds")
+    List<GameCardProjection> findCardsByInternalIdIn(@Param("internalIds") Collection<Long> internalIds);
 }
\ No newline at end of file
@@ -6,9 +6,12 @@ import mp.tfg.mycheckpoint.entity.games.Genre;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GenreRepository extends JpaRepository<Genre, Long> {
     Optional<Genre> findByIgdbId(Long igdbId);
+    List<Genre> findByIgdbIdIn(Collection<Long> igdbIds);
 }
\ No newline at end of file
@@ -4,9 +4,12 @@ package mp.tfg.mycheckpoint.repository.games;
 import mp.tfg.mycheckpoint.entity.games.Platform;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PlatformRepository extends JpaRepository<Platform, Long> {
     Optional<Platform> findByIgdbId(Long igdbId);
+    List<Platform> findByIgdbIdIn(Collection<Long> igdbIds);
 }
@@ -0,0 +1,27 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import java.time.Duration;
+
+/**
+ * Resultado de una importación masiva del catálogo ({@link CatalogImportService#importFiles}).
+ *
+ * @param read      juegos válidos leídos del volcado.
+ * @param written   juegos creados o actualizados.
+ * @param unchanged juegos que ya estaban guardados con el mismo contenido (o repetidos en el volcado).
+ * @param invalid   líneas que no se pudieron leer como juego de IGDB.
+ * @param elapsed   duración de la importación.
+ */
+public record CatalogImportReport(long read, long written, long unchanged, long invalid, Duration elapsed) {
+
+    /**
+     * @return juegos leídos por segundo.
+     */
+    public double gamesPerSecond() {
+        return gamesPerSecond(read, elapsed);
+    }
+
+    static double gamesPerSecond(long games, Duration elapsed) {
+        long millis = elapsed.toMillis();
+        return millis > 0 ? games * 1000.0 / millis : 0.0;
+    }
+}
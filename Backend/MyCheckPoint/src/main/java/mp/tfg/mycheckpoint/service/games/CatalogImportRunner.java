@@ -0,0 +1,63 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lanza la importación masiva del catálogo ({@link CatalogImportService}) al arrancar, solo si se indica
+ * {@code games.import.files} (ficheros o directorios separados por comas). Por ejemplo:
+ * <pre>
+ * java -jar mycheckpoint.jar --games.import.files=/dumps/igdb --spring.main.web-application-type=none
+ * </pre>
+ * Con {@code games.import.exit-when-done} (por defecto) la aplicación termina al acabar la importación,
+ * con código de salida 0 si ha ido bien y 1 si ha fallado.
+ */
+@Component
+@ConditionalOnProperty(name = "games.import.files")
+public class CatalogImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportRunner.class);
+
+    private final CatalogImportService catalogImportService;
+    private final ConfigurableApplicationContext applicationContext;
+    private final List<Path> paths;
+    private final boolean exitWhenDone;
+
+    @Autowired
+    public CatalogImportRunner(CatalogImportService catalogImportService,
+                               ConfigurableApplicationContext applicationContext,
+                               @Value("${games.import.files}") String[] files,
+                               @Value("${games.import.exit-when-done:true}") boolean exitWhenDone) {
+        this.catalogImportService = catalogImportService;
+        this.applicationContext = applicationContext;
+        this.paths = Arrays.stream(files).map(String::trim).filter(file -> !file.isEmpty()).map(Path::of).toList();
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            catalogImportService.importFiles(paths);
+        } catch (RuntimeException e) {
+            logger.error("Importación del catálogo fallida: {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+        if (exitWhenDone) {
+            int finalExitCode = exitCode;
+            System.exit(SpringApplication.exit(applicationContext, () -> finalExitCode));
+        }
+    }
+}
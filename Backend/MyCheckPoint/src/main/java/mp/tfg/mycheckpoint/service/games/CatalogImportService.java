@@ -0,0 +1,421 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import mp.tfg.mycheckpoint.dto.enums.ReleaseStatus;
+import mp.tfg.mycheckpoint.dto.games.*;
+import mp.tfg.mycheckpoint.entity.games.Cover;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import mp.tfg.mycheckpoint.mapper.games.GameMapper;
+import mp.tfg.mycheckpoint.repository.games.CatalogBulkImportRepository;
+import mp.tfg.mycheckpoint.repository.games.CatalogImportRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importación masiva del catálogo desde un volcado de IGDB: ficheros NDJSON con un juego por línea, con la misma
+ * forma que las respuestas de IGDB a las consultas de detalle (opcionalmente comprimidos con gzip). Pensada para
+ * poblar un entorno vacío o recuperar la BD, donde {@link GameService#saveGames} juego a juego tardaría horas.
+ * <p>
+ * Los ficheros se leen línea a línea y cada juego se transforma en una fila de staging ({@link CatalogImportRow})
+ * con el mismo mapeo que la ingesta normal ({@link GameMapper}, estado de lanzamiento, hash de contenido y
+ * próximo refresco). Las filas se escriben con {@code COPY} a medida que se leen, en lotes de
+ * {@code games.import.batch-size} juegos, y cada lote se fusiona en el catálogo con sentencias sobre conjuntos
+ * en su propia transacción ({@link CatalogBulkImportRepository}). La memoria usada depende del tamaño de una
+ * línea, no del de los ficheros. Los juegos que ya están guardados con el mismo contenido no se reescriben.
+ * <p>
+ * Al terminar se resuelven las relaciones entre juegos (que pueden apuntar a juegos de lotes posteriores) y se
+ * informa del rendimiento en juegos por segundo. La ejecuta {@link CatalogImportRunner}.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+
+    private static final List<String> DUMP_EXTENSIONS = List.of(".ndjson", ".jsonl", ".json");
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_LOGGED_INVALID_LINES = 20;
+
+    private final CatalogBulkImportRepository catalogBulkImportRepository;
+    private final GameMapper gameMapper;
+    private final GameContentHasher gameContentHasher;
+    private final ObjectMapper objectMapper;
+    // Mismo formato que las columnas JSON de Game, que Hibernate serializa con un ObjectMapper por defecto
+    private final ObjectMapper jsonColumnMapper = new ObjectMapper().findAndRegisterModules();
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final AtomicLong gamesPerSecond = new AtomicLong();
+    private final Counter writtenGames;
+    private final Counter unchangedGames;
+    private final Counter invalidLines;
+    private final Timer runTimer;
+
+    @Autowired
+    public CatalogImportService(CatalogBulkImportRepository catalogBulkImportRepository,
+                                GameMapper gameMapper,
+                                GameContentHasher gameContentHasher,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${games.import.batch-size:5000}") int batchSize) {
+        this.catalogBulkImportRepository = catalogBulkImportRepository;
+        this.gameMapper = gameMapper;
+        this.gameContentHasher = gameContentHasher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+
+        Gauge.builder("games.import.rate", gamesPerSecond, AtomicLong::get)
+                .description("Juegos por segundo de la importación masiva del catálogo en curso o de la última")
+                .register(meterRegistry);
+        this.writtenGames = importCounter("written", meterRegistry);
+        this.unchangedGames = importCounter("unchanged", meterRegistry);
+        this.invalidLines = importCounter("invalid", meterRegistry);
+        this.runTimer = Timer.builder("games.import.run")
+                .description("Duración de cada importación masiva del catálogo")
+                .register(meterRegistry);
+    }
+
+    private static Counter importCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("games.import.games")
+                .description("Juegos leídos por la importación masiva del catálogo, por resultado")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Importa los ficheros de volcado indicados; los directorios se recorren (sin entrar en subdirectorios)
+     * buscando ficheros {@code .ndjson}, {@code .jsonl} o {@code .json}, con o sin {@code .gz}, en orden de nombre.
+     * Si falla un lote, la importación se detiene: lo confirmado hasta entonces se queda, y repetirla completa
+     * el resto.
+     */
+    public CatalogImportReport importFiles(Collection<Path> paths) {
+        List<Path> dumpFiles = resolveDumpFiles(paths);
+        if (dumpFiles.isEmpty()) {
+            throw new IllegalArgumentException("No hay ficheros de volcado que importar en: " + paths);
+        }
+        logger.info("Importación del catálogo: {} ficheros, en lotes de {} juegos.", dumpFiles.size(), batchSize);
+
+        long startNanos = System.nanoTime();
+        ImportProgress progress = new ImportProgress(startNanos);
+        transactionTemplate.executeWithoutResult(status -> catalogBulkImportRepository.preparePendingTable());
+        for (Path dumpFile : dumpFiles) {
+            importFile(dumpFile, progress);
+        }
+        Integer resolved = transactionTemplate.execute(status -> catalogBulkImportRepository.resolvePendingRelations());
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+        runTimer.record(elapsed);
+        CatalogImportReport report = new CatalogImportReport(progress.read, progress.written, progress.unchanged,
+                progress.invalid, elapsed);
+        gamesPerSecond.set(Math.round(report.gamesPerSecond()));
+        logger.info("Importación del catálogo terminada en {}: {} juegos leídos ({} escritos, {} sin cambios), " +
+                        "{} líneas no válidas, relaciones resueltas para {} juegos. Rendimiento: {} juegos/s.",
+                elapsed, report.read(), report.written(), report.unchanged(), report.invalid(),
+                resolved != null ? resolved : 0, Math.round(report.gamesPerSecond()));
+        return report;
+    }
+
+    private void importFile(Path dumpFile, ImportProgress progress) {
+        logger.info("Importando el volcado {}...", dumpFile);
+        try (BufferedReader reader = openDump(dumpFile)) {
+            DumpReader dump = new DumpReader(dumpFile, reader, progress);
+            while (!dump.isExhausted()) {
+                Iterator<CatalogImportRow> batch = dump.nextBatch(batchSize);
+                BatchResult result = transactionTemplate.execute(status -> {
+                    catalogBulkImportRepository.createStagingTable();
+                    long copied = catalogBulkImportRepository.copyIntoStaging(batch);
+                    return new BatchResult(copied, copied > 0 ? catalogBulkImportRepository.mergeStagedGames() : 0);
+                });
+                if (result == null || result.copied() == 0) {
+                    continue;
+                }
+                progress.read += result.copied();
+                progress.written += result.written();
+                progress.unchanged += result.copied() - result.written();
+                writtenGames.increment(result.written());
+                unchangedGames.increment(result.copied() - result.written());
+
+                double rate = CatalogImportReport.gamesPerSecond(progress.read,
+                        Duration.ofNanos(System.nanoTime() - progress.startNanos));
+                gamesPerSecond.set(Math.round(rate));
+                logger.info("Importación del catálogo: {} juegos leídos ({} escritos, {} sin cambios, {} líneas no válidas). {} juegos/s.",
+                        progress.read, progress.written, progress.unchanged, progress.invalid, Math.round(rate));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo el volcado " + dumpFile, e);
+        }
+    }
+
+    private CatalogImportRow toRow(GameDto gameDto, Instant now) throws JsonProcessingException {
+        gameDto.setDetailLevel(GameDetailLevel.FULL);
+        Game game = gameMapper.toEntity(gameDto);
+        game.setFirstReleaseStatus(gameDto.getGameStatus() != null
+                ? ReleaseStatus.mapFromIgdbValue(gameDto.getGameStatus().getId())
+                : ReleaseStatus.UNKNOWN);
+        Cover cover = game.getCover();
+
+        return new CatalogImportRow(
+                game.getIgdbId(),
+                game.getName(),
+                game.getSlug(),
+                cover != null ? cover.getIgdbId() : null,
+                cover != null ? cover.getUrl() : null,
+                game.getTotalRating(),
+                game.getTotalRatingCount(),
+                game.getSummary(),
+                game.getStoryline(),
+                game.getGameType() != null ? game.getGameType().ordinal() : null,
+                game.getFirstReleaseDate(),
+                game.getFirstReleaseStatus().name(),
+                gameContentHasher.hash(gameDto),
+                GameFreshnessPolicy.nextRefreshAt(game, now),
+                jsonColumnMapper.writeValueAsString(game.getArtworks()),
+                jsonColumnMapper.writeValueAsString(game.getScreenshots()),
+                jsonColumnMapper.writeValueAsString(game.getWebsites()),
+                jsonColumnMapper.writeValueAsString(game.getVideos()),
+                referencesJson(gameDto.getGameModes(), GameModeDto::getIgdbId, GameModeDto::getName),
+                referencesJson(gameDto.getGenres(), GenreDto::getIgdbId, GenreDto::getName),
+                referencesJson(gameDto.getFranchises(), FranchiseDto::getIgdbId, FranchiseDto::getName),
+                referencesJson(gameDto.getGameEngines(), GameEngineDto::getIgdbId, GameEngineDto::getName),
+                referencesJson(gameDto.getKeywords(), KeywordDto::getIgdbId, KeywordDto::getName),
+                referencesJson(gameDto.getThemes(), ThemeDto::getIgdbId, ThemeDto::getName),
+                platformsJson(gameDto.getPlatforms()),
+                involvedCompaniesJson(gameDto.getInvolvedCompanies()),
+                gameDto.getParentGameInfo() != null ? gameDto.getParentGameInfo().getIgdbId() : null,
+                gameDto.getVersionParent() != null ? gameDto.getVersionParent().getIgdbId() : null,
+                igdbIds(gameDto.getSimilarGames(), SimilarGameInfoDto::getIgdbId),
+                igdbIds(gameDto.getRemakes(), DlcInfoDto::getIgdbId),
+                igdbIds(gameDto.getRemasters(), DlcInfoDto::getIgdbId));
+    }
+
+    private <D> String referencesJson(List<D> dtos, Function<D, Long> igdbIdOf, Function<D, String> nameOf) throws JsonProcessingException {
+        List<ReferenceRow> rows = new ArrayList<>();
+        if (dtos != null) {
+            for (D dto : dtos) {
+                if (dto != null && igdbIdOf.apply(dto) != null) {
+                    rows.add(new ReferenceRow(igdbIdOf.apply(dto), nameOf.apply(dto)));
+                }
+            }
+        }
+        return jsonColumnMapper.writeValueAsString(rows);
+    }
+
+    private String platformsJson(List<PlatformDto> platforms) throws JsonProcessingException {
+        List<PlatformRow> rows = new ArrayList<>();
+        if (platforms != null) {
+            for (PlatformDto platform : platforms) {
+                if (platform != null && platform.getIgdbId() != null) {
+                    PlatformLogoDto logo = platform.getPlatformLogo();
+                    rows.add(new PlatformRow(platform.getIgdbId(), platform.getName(), platform.getAlternativeName(),
+                            logo != null ? logo.getIgdbId() : null, logo != null ? logo.getUrl() : null));
+                }
+            }
+        }
+        return jsonColumnMapper.writeValueAsString(rows);
+    }
+
+    private String involvedCompaniesJson(List<InvolvedCompanyDto> involvedCompanies) throws JsonProcessingException {
+        List<InvolvementRow> rows = new ArrayList<>();
+        if (involvedCompanies != null) {
+            for (InvolvedCompanyDto involvement : involvedCompanies) {
+                if (involvement != null && involvement.getInvolvementIgdbId() != null
+                        && involvement.getCompany() != null && involvement.getCompany().getIgdbId() != null) {
+                    rows.add(new InvolvementRow(involvement.getInvolvementIgdbId(), involvement.getCompany().getIgdbId(),
+                            involvement.getCompany().getName(), involvement.isDeveloper(), involvement.isPorting(),
+                            involvement.isPublisher(), involvement.isSupporting()));
+                }
+            }
+        }
+        return jsonColumnMapper.writeValueAsString(rows);
+    }
+
+    private static <D> List<Long> igdbIds(List<D> dtos, Function<D, Long> igdbIdOf) {
+        if (dtos == null) {
+            return List.of();
+        }
+        return dtos.stream().filter(Objects::nonNull).map(igdbIdOf).filter(Objects::nonNull).distinct().toList();
+    }
+
+    static List<Path> resolveDumpFiles(Collection<Path> paths) {
+        List<Path> dumpFiles = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> entries = Files.list(path)) {
+                    entries.filter(Files::isRegularFile).filter(CatalogImportService::isDumpFile).sorted().forEach(dumpFiles::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo leer el directorio de volcado " + path, e);
+                }
+            } else if (Files.isRegularFile(path)) {
+                dumpFiles.add(path);
+            } else {
+                throw new IllegalArgumentException("No existe el fichero o directorio de volcado: " + path);
+            }
+        }
+        return dumpFiles;
+    }
+
+    private static boolean isDumpFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        String uncompressedName = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+        return DUMP_EXTENSIONS.stream().anyMatch(uncompressedName::endsWith);
+    }
+
+    private static BufferedReader openDump(Path dumpFile) throws IOException {
+        InputStream input = Files.newInputStream(dumpFile);
+        if (dumpFile.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            input = new GZIPInputStream(input, READ_BUFFER_SIZE);
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Lee un fichero de volcado línea a línea y entrega los juegos por lotes. Las líneas vacías se saltan y las
+     * que no son un juego de IGDB válido se cuentan y se descartan.
+     */
+    private final class DumpReader {
+
+        private final Path dumpFile;
+        private final BufferedReader reader;
+        private final ImportProgress progress;
+        private final Instant now = Instant.now();
+        private long lineNumber;
+        private boolean exhausted;
+
+        private DumpReader(Path dumpFile, BufferedReader reader, ImportProgress progress) {
+            this.dumpFile = dumpFile;
+            this.reader = reader;
+            this.progress = progress;
+        }
+
+        boolean isExhausted() {
+            return exhausted;
+        }
+
+        // Iterador perezoso: cada fila se lee del fichero cuando COPY la pide
+        Iterator<CatalogImportRow> nextBatch(int size) {
+            return new Iterator<>() {
+                private int taken;
+                private CatalogImportRow next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null && taken < size && !exhausted) {
+                        next = nextRow();
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public CatalogImportRow next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    CatalogImportRow row = next;
+                    next = null;
+                    taken++;
+                    return row;
+                }
+            };
+        }
+
+        private CatalogImportRow nextRow() {
+            String line;
+            while ((line = readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    GameDto gameDto = objectMapper.readValue(line, GameDto.class);
+                    if (gameDto != null && gameDto.getIgdbId() != null) {
+                        return toRow(gameDto, now);
+                    }
+                    discard("sin IGDB ID");
+                } catch (JsonProcessingException e) {
+                    discard(e.getOriginalMessage());
+                }
+            }
+            exhausted = true;
+            return null;
+        }
+
+        private String readLine() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error leyendo el volcado " + dumpFile + " (línea " + (lineNumber + 1) + ")", e);
+            }
+        }
+
+        private void discard(String reason) {
+            progress.invalid++;
+            invalidLines.increment();
+            if (progress.invalid <= MAX_LOGGED_INVALID_LINES) {
+                logger.warn("Importación del catálogo: línea {} de {} descartada: {}", lineNumber, dumpFile, reason);
+            } else if (progress.invalid == MAX_LOGGED_INVALID_LINES + 1) {
+                logger.warn("Importación del catálogo: demasiadas líneas no válidas; solo se contarán las siguientes.");
+            }
+        }
+    }
+
+    private static final class ImportProgress {
+        private final long startNanos;
+        private long read;
+        private long written;
+        private long unchanged;
+        private long invalid;
+
+        private ImportProgress(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    private record BatchResult(long copied, int written) {
+    }
+
+    // Filas de las columnas JSON de staging; las claves son las que lee jsonb_to_recordset en CatalogBulkImportRepository
+    private record ReferenceRow(@JsonProperty("id") Long id,
+                                @JsonProperty("name") String name) {
+    }
+
+    private record PlatformRow(@JsonProperty("id") Long id,
+                               @JsonProperty("name") String name,
+                               @JsonProperty("alternative_name") String alternativeName,
+                               @JsonProperty("logo_igdb_id") Long logoIgdbId,
+                               @JsonProperty("logo_url") String logoUrl) {
+    }
+
+    private record InvolvementRow(@JsonProperty("id") Long id,
+                                  @JsonProperty("company_igdb_id") Long companyIgdbId,
+                                  @JsonProperty("company_name") String companyName,
+                                  @JsonProperty("developer") boolean developer,
+                                  @JsonProperty("porting") boolean porting,
+                                  @JsonProperty("publisher") boolean publisher,
+                                  @JsonProperty("supporting") boolean supporting) {
+    }
+}
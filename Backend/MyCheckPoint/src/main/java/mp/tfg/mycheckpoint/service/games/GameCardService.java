@@ -0,0 +1,84 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.games.GameCardDTO;
+import mp.tfg.mycheckpoint.dto.usergame.UserGameResponseDTO;
+import mp.tfg.mycheckpoint.entity.UserGame;
+import mp.tfg.mycheckpoint.mapper.UserGameMapper;
+import mp.tfg.mycheckpoint.repository.games.GameCardProjection;
+import mp.tfg.mycheckpoint.repository.games.GameRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Tarjetas de juego ({@link GameCardDTO}) para las respuestas en forma de lista: biblioteca, listas de juegos
+ * y tier lists. Se leen en bloque con una consulta por página ({@link GameRepository#findCardsByInternalIdIn})
+ * en lugar de inicializar la asociación {@code UserGame.game} de cada entrada (N+1 consultas de juegos completos).
+ * <p>
+ * No hay copia que sincronizar: la consulta lee las columnas de {@code games}, cubiertas por el índice
+ * {@code idx_games_card}, así que las tarjetas reflejan siempre lo último que ha escrito la ingesta.
+ */
+@Service
+public class GameCardService {
+
+    private static final int IN_QUERY_CHUNK_SIZE = 1000;
+
+    private final GameRepository gameRepository;
+    private final UserGameMapper userGameMapper;
+
+    @Autowired
+    public GameCardService(GameRepository gameRepository, UserGameMapper userGameMapper) {
+        this.gameRepository = gameRepository;
+        this.userGameMapper = userGameMapper;
+    }
+
+    /**
+     * @return tarjetas por ID interno del juego (los que no existen no aparecen).
+     */
+    public Map<Long, GameCardDTO> findCardsByGameInternalId(Collection<Long> gameInternalIds) {
+        List<Long> ids = gameInternalIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, GameCardDTO> cards = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_QUERY_CHUNK_SIZE) {
+            gameRepository.findCardsByInternalIdIn(ids.subList(from, Math.min(from + IN_QUERY_CHUNK_SIZE, ids.size())))
+                    .forEach(projection -> cards.put(projection.internalId(), toCard(projection)));
+        }
+        return cards;
+    }
+
+    /**
+     * Mapea entradas de biblioteca con su tarjeta de juego, resolviendo todas las tarjetas con una sola consulta.
+     * Solo se usa el ID del juego de cada entrada, que Hibernate conoce sin cargar el juego.
+     */
+    public List<UserGameResponseDTO> toResponseDtosWithCards(Collection<UserGame> userGames) {
+        if (userGames == null || userGames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, GameCardDTO> cards = findCardsByGameInternalId(userGames.stream()
+                .map(userGame -> userGame.getGame() != null ? userGame.getGame().getInternalId() : null)
+                .toList());
+
+        List<UserGameResponseDTO> responseDtos = new ArrayList<>(userGames.size());
+        for (UserGame userGame : userGames) {
+            UserGameResponseDTO responseDto = userGameMapper.toResponseDtoWithoutGame(userGame);
+            GameCardDTO card = userGame.getGame() != null ? cards.get(userGame.getGame().getInternalId()) : null;
+            if (card != null) {
+                responseDto.setGameIgdbId(card.getIgdbId());
+                responseDto.setGameCard(card);
+            }
+            responseDtos.add(responseDto);
+        }
+        return responseDtos;
+    }
+
+    private static GameCardDTO toCard(GameCardProjection projection) {
+        return GameCardDTO.builder()
+                .igdbId(projection.igdbId())
+                .name(projection.name())
+                .coverUrl(projection.coverUrl())
+                .totalRating(projection.totalRating())
+                .gameType(projection.gameType())
+                .firstReleaseDate(projection.firstReleaseDate() != null ? projection.firstReleaseDate().getEpochSecond() : null)
+                .build();
+    }
+}
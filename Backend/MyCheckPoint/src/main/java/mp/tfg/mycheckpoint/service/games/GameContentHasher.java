@@ -0,0 +1,65 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Calcula un hash estable (SHA-256) del contenido de un {@link GameDto} tal y como llega de IGDB.
+ * <p>
+ * El DTO se normaliza antes de hashearlo: propiedades en orden alfabético, sin valores nulos, listas vacías
+ * equivalentes a listas ausentes y sin los campos que calcula la propia ingesta ({@code first_release_status}).
+ * Si dos DTOs del mismo juego dan el mismo hash, aplicarlos sobre la entidad produce el mismo resultado.
+ */
+@Component
+class GameContentHasher {
+
+    // Cambiar si cambia la forma de mapear el DTO a la entidad, para que los hashes guardados dejen de coincidir
+    private static final String HASH_VERSION = "v2";
+
+    private final ObjectMapper canonicalMapper;
+
+    @Autowired
+    GameContentHasher(ObjectMapper objectMapper) {
+        this.canonicalMapper = objectMapper.copy()
+                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+                .configure(SerializationFeature.INDENT_OUTPUT, false)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .addMixIn(GameDto.class, GameDtoHashMixIn.class);
+        this.canonicalMapper.configOverride(List.class)
+                .setInclude(JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, JsonInclude.Include.NON_NULL));
+    }
+
+    /**
+     * @return hash hexadecimal del contenido del DTO, o {@code null} si no se pudo serializar
+     * (en ese caso el juego se actualiza siempre).
+     */
+    String hash(GameDto gameDto) {
+        try {
+            byte[] canonical = canonicalMapper.writeValueAsBytes(gameDto);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(HASH_VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update(canonical);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    @JsonIgnoreProperties({"first_release_status"})
+    private abstract static class GameDtoHashMixIn {
+    }
+}
@@ -0,0 +1,213 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import mp.tfg.mycheckpoint.mapper.games.GameMapper;
+import mp.tfg.mycheckpoint.repository.games.GameDetailDocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Documentos JSON precalculados con el {@code game_info} de la vista de detalle de cada juego
+ * ({@link mp.tfg.mycheckpoint.entity.games.GameDetailDocument}).
+ * <p>
+ * La ingesta regenera el documento de los juegos que guarda e invalida el de los juegos relacionados que
+ * modifica. La vista de detalle lo sirve tal cual (una lectura por clave primaria, sin mapear la entidad)
+ * y, si falta o es de una versión anterior, lo genera a partir de la entidad y lo guarda para las siguientes.
+ * <p>
+ * Ese guardado llega después de la lectura, cuando una ingesta puede haber escrito ya un documento más nuevo.
+ * Por eso solo se escribe si la fila sigue como estaba al leerla (mismo {@code generated_at}, o sin fila), y la
+ * ingesta invalida los documentos dejando la fila en vez de borrarla. Comparar solo los instantes no bastaría:
+ * la ingesta fija el suyo antes de confirmar, y una lectura posterior a ese instante aún ve los datos anteriores.
+ */
+@Service
+public class GameDetailDocumentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameDetailDocumentService.class);
+
+    // Incrementar cuando cambie GameDto o GameMapper.toDto: los documentos guardados dejan de servirse y se regeneran
+    static final int DOCUMENT_VERSION = 2;
+    // Versión de los documentos invalidados por la ingesta (nunca coincide con DOCUMENT_VERSION)
+    static final int INVALIDATED_VERSION = 0;
+    // Los documentos ocupan unos KB: se escriben en sentencias de este número de juegos
+    private static final int DOCUMENTS_PER_UPSERT = 200;
+
+    /**
+     * Resultado de buscar el documento de un juego en una lectura.
+     *
+     * @param igdbId           IGDB ID del juego.
+     * @param document         el JSON de la versión actual, o null si falta, está invalidado o es de otra versión.
+     * @param readGeneratedAt  el {@code generated_at} de la fila al leerla, o null si no había fila.
+     * @param readAt           instante de la lectura, anterior a la carga de la entidad que se use para regenerarlo.
+     */
+    public record DocumentLookup(Long igdbId, String document, Instant readGeneratedAt, Instant readAt) {
+    }
+
+    private final GameDetailDocumentRepository documentRepository;
+    private final GameMapper gameMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate requiresNewTransaction;
+    // Un único hilo escribe los documentos generados en las lecturas; con la cola llena se descartan (se
+    // volverán a generar en la siguiente lectura)
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100),
+            runnable -> {
+                Thread thread = new Thread(runnable, "game-detail-document-writer");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    private final Counter documentHits;
+    private final Counter documentMisses;
+
+    @Autowired
+    public GameDetailDocumentService(GameDetailDocumentRepository documentRepository,
+                                     GameMapper gameMapper,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.documentRepository = documentRepository;
+        this.gameMapper = gameMapper;
+        this.objectMapper = objectMapper;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.documentHits = Counter.builder("games.detail.documents")
+                .description("Lecturas de la vista de detalle servidas desde el documento precalculado o regeneradas")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.documentMisses = Counter.builder("games.detail.documents")
+                .description("Lecturas de la vista de detalle servidas desde el documento precalculado o regeneradas")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Busca el documento de un juego. Debe llamarse antes de cargar la entidad con la que, si falta, se regenere:
+     * el sello leído es el que protege luego su guardado ({@link #storeAfterTransaction}).
+     *
+     * @return el documento JSON de la versión actual (listo para escribirse tal cual en la respuesta), si lo hay.
+     */
+    public DocumentLookup find(Long igdbId) {
+        Instant readAt = Instant.now();
+        Optional<GameDetailDocumentRepository.DocumentSnapshot> snapshot = documentRepository.findSnapshot(igdbId);
+        String document = snapshot
+                .filter(row -> row.getDocumentVersion() == DOCUMENT_VERSION)
+                .map(GameDetailDocumentRepository.DocumentSnapshot::getDocument)
+                .orElse(null);
+        (document != null ? documentHits : documentMisses).increment();
+        return new DocumentLookup(igdbId, document,
+                snapshot.map(GameDetailDocumentRepository.DocumentSnapshot::getGeneratedAt).orElse(null), readAt);
+    }
+
+    /**
+     * Regenera los documentos de los juegos indicados dentro de la transacción en curso (la de la ingesta),
+     * de modo que se confirman o descartan junto con los datos del juego. Los juegos deben estar gestionados.
+     */
+    void regenerate(Collection<Game> games) {
+        Instant now = Instant.now();
+        List<Long> igdbIds = new ArrayList<>();
+        List<String> documents = new ArrayList<>();
+        for (Game game : games) {
+            String document = serialize(gameMapper.toDto(game));
+            if (document != null) {
+                igdbIds.add(game.getIgdbId());
+                documents.add(document);
+            }
+        }
+        for (int from = 0; from < igdbIds.size(); from += DOCUMENTS_PER_UPSERT) {
+            int to = Math.min(from + DOCUMENTS_PER_UPSERT, igdbIds.size());
+            documentRepository.upsert(igdbIds.subList(from, to).toArray(Long[]::new),
+                    documents.subList(from, to).toArray(String[]::new), DOCUMENT_VERSION, now);
+        }
+    }
+
+    /**
+     * Invalida los documentos de los juegos indicados dentro de la transacción en curso (se regenerarán en la
+     * siguiente lectura posterior a ella).
+     */
+    void invalidate(Collection<Long> igdbIds) {
+        Instant now = Instant.now();
+        List<Long> ids = new ArrayList<>(igdbIds);
+        for (int from = 0; from < ids.size(); from += 1000) {
+            documentRepository.invalidate(ids.subList(from, Math.min(from + 1000, ids.size())).toArray(Long[]::new),
+                    INVALIDATED_VERSION, now);
+        }
+    }
+
+    /**
+     * Guarda el documento de un juego ya mapeado desde una lectura. Se escribe en segundo plano, en una
+     * transacción propia y cuando la transacción de la lectura ya ha terminado (así la petición no ocupa
+     * dos conexiones a la vez), y solo si la fila sigue como la encontró {@code lookup}. Es una optimización:
+     * si falla, se descarta o la fila ha cambiado, la lectura no se ve afectada.
+     */
+    public void storeAfterTransaction(DocumentLookup lookup, GameDto gameInfo) {
+        // Se serializa ya: el DTO sigue siendo de la petición, que lo devolverá y lo puede modificar
+        String document = serialize(gameInfo);
+        if (document == null) {
+            return;
+        }
+        Runnable enqueue = () -> writer.execute(() -> store(lookup, document));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    void store(DocumentLookup lookup, String document) {
+        Long igdbId = lookup.igdbId();
+        try {
+            Integer written = requiresNewTransaction.execute(status -> lookup.readGeneratedAt() == null
+                    ? documentRepository.insertIfAbsent(igdbId, DOCUMENT_VERSION, document, lookup.readAt())
+                    : documentRepository.replaceIfUnchanged(igdbId, DOCUMENT_VERSION, document, lookup.readAt(),
+                    lookup.readGeneratedAt()));
+            if (written == null || written == 0) {
+                logger.debug("Documento de detalle del juego IGDB ID {} no guardado: la fila ha cambiado desde la lectura.", igdbId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo guardar el documento de detalle del juego IGDB ID {}: {}", igdbId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+
+    private String serialize(GameDto gameDto) {
+        try {
+            return objectMapper.writeValueAsString(gameDto);
+        } catch (JsonProcessingException e) {
+            logger.warn("No se pudo serializar el documento de detalle del juego IGDB ID {}: {}", gameDto.getIgdbId(), e.getMessage());
+            return null;
+        }
+    }
+}
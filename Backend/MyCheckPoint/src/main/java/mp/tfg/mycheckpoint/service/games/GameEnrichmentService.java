@@ -0,0 +1,212 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import mp.tfg.mycheckpoint.exception.ResourceNotFoundException;
+import mp.tfg.mycheckpoint.repository.games.GameCatalogStatus;
+import mp.tfg.mycheckpoint.repository.games.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de enriquecimiento en segundo plano: completa con los detalles de IGDB los juegos que están guardados
+ * solo con datos parciales ({@code isFullDetails = false}), sin que la petición que los toca tenga que esperar.
+ * <p>
+ * Cada IGDB ID está como mucho una vez en la cola: los encolados repetidos mientras está pendiente (o
+ * reintentándose) se agrupan en el mismo trabajo. Los trabajos se ejecutan en un pool de hilos acotado con
+ * {@link GameIngestionCoordinator#ingestFullGame(Long, IgdbPriority)} y prioridad
+ * {@link IgdbPriority#BACKGROUND}, así que ceden el paso a las peticiones interactivas a IGDB. Si fallan se
+ * reintentan con espera exponencial; si IGDB no conoce el juego se descartan.
+ * <p>
+ * La cola está en memoria: lo pendiente se pierde al reiniciar, y el juego se volverá a encolar la próxima vez
+ * que alguien lo toque.
+ */
+@Service
+public class GameEnrichmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameEnrichmentService.class);
+
+    private final GameIngestionCoordinator gameIngestionCoordinator;
+    private final GameRepository gameRepository;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final Duration retryInitialDelay;
+    private final Duration retryMaxDelay;
+
+    // Juegos pendientes (en cola, en curso o esperando reintento) con el instante en que se encolaron
+    private final ConcurrentMap<Long, Instant> pending = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retryScheduler;
+
+    private final Counter enqueued;
+    private final Counter coalesced;
+    private final Counter rejected;
+    private final Counter enriched;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer lag;
+
+    @Autowired
+    public GameEnrichmentService(GameIngestionCoordinator gameIngestionCoordinator,
+                                 GameRepository gameRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${games.enrichment.threads:2}") int threads,
+                                 @Value("${games.enrichment.max-pending:10000}") int maxPending,
+                                 @Value("${games.enrichment.max-attempts:5}") int maxAttempts,
+                                 @Value("${games.enrichment.retry.initial-delay:PT10S}") Duration retryInitialDelay,
+                                 @Value("${games.enrichment.retry.max-delay:PT10M}") Duration retryMaxDelay) {
+        this.gameIngestionCoordinator = gameIngestionCoordinator;
+        this.gameRepository = gameRepository;
+        this.maxPending = Math.max(1, maxPending);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryInitialDelay = retryInitialDelay;
+        this.retryMaxDelay = retryMaxDelay;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Cola sin límite propio: su tamaño ya lo acota max-pending (un trabajo por juego pendiente)
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "game-enrichment-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-enrichment-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("games.enrichment.queue.depth", pending, ConcurrentMap::size)
+                .description("Juegos pendientes de enriquecer (en cola, en curso o esperando reintento)")
+                .register(meterRegistry);
+        Gauge.builder("games.enrichment.queue.oldest.age", this, GameEnrichmentService::oldestPendingAgeSeconds)
+                .description("Segundos que lleva en cola el juego pendiente más antiguo")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.lag = Timer.builder("games.enrichment.lag")
+                .description("Tiempo desde que se encola un juego hasta que queda guardado con detalles completos")
+                .register(meterRegistry);
+        this.enqueued = enrichmentCounter("enqueued", meterRegistry);
+        this.coalesced = enrichmentCounter("coalesced", meterRegistry);
+        this.rejected = enrichmentCounter("rejected", meterRegistry);
+        this.enriched = enrichmentCounter("enriched", meterRegistry);
+        this.retried = enrichmentCounter("retried", meterRegistry);
+        this.failed = enrichmentCounter("failed", meterRegistry);
+    }
+
+    private static Counter enrichmentCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("games.enrichment.requests")
+                .description("Peticiones de enriquecimiento de juegos parciales, por resultado")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola el juego para completarlo con los detalles de IGDB. Vuelve enseguida.
+     *
+     * @return {@code false} si la cola está llena y el juego no se ha encolado.
+     */
+    public boolean enqueue(Long igdbId) {
+        if (igdbId == null) {
+            return false;
+        }
+        if (pending.containsKey(igdbId)) {
+            coalesced.increment();
+            return true;
+        }
+        if (pending.size() >= maxPending) {
+            rejected.increment();
+            logger.warn("Cola de enriquecimiento llena ({} juegos). No se encola el juego IGDB ID {}.", pending.size(), igdbId);
+            return false;
+        }
+        if (pending.putIfAbsent(igdbId, Instant.now()) != null) {
+            coalesced.increment();
+            return true;
+        }
+        enqueued.increment();
+        logger.debug("Juego IGDB ID {} encolado para enriquecer.", igdbId);
+        submit(igdbId, 1);
+        return true;
+    }
+
+    private void submit(Long igdbId, int attempt) {
+        try {
+            workers.execute(() -> enrich(igdbId, attempt));
+        } catch (RejectedExecutionException e) {
+            // Solo ocurre durante el apagado
+            pending.remove(igdbId);
+        }
+    }
+
+    private void enrich(Long igdbId, int attempt) {
+        try {
+            GameCatalogStatus catalogStatus = gameRepository.findCatalogStatusByIgdbId(igdbId).orElse(null);
+            if (catalogStatus == null || !catalogStatus.fullDetails()) {
+                gameIngestionCoordinator.ingestFullGame(igdbId, IgdbPriority.BACKGROUND);
+                logger.info("Juego IGDB ID {} enriquecido con detalles completos (intento {}).", igdbId, attempt);
+            } else {
+                logger.debug("Juego IGDB ID {} ya tenía detalles completos. Nada que enriquecer.", igdbId);
+            }
+            enriched.increment();
+            complete(igdbId);
+        } catch (ResourceNotFoundException e) {
+            failed.increment();
+            logger.warn("Enriquecimiento descartado: IGDB no devuelve el juego IGDB ID {}.", igdbId);
+            complete(igdbId);
+        } catch (RuntimeException e) {
+            if (attempt >= maxAttempts) {
+                failed.increment();
+                logger.error("Enriquecimiento del juego IGDB ID {} fallido tras {} intentos: {}", igdbId, attempt, e.getMessage(), e);
+                complete(igdbId);
+                return;
+            }
+            Duration delay = retryDelay(attempt);
+            retried.increment();
+            logger.warn("Enriquecimiento del juego IGDB ID {} fallido (intento {}). Reintento en {}: {}", igdbId, attempt, delay, e.getMessage());
+            try {
+                retryScheduler.schedule(() -> submit(igdbId, attempt + 1), delay.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                pending.remove(igdbId);
+            }
+        }
+    }
+
+    // Espera exponencial: initial-delay, 2x, 4x... hasta max-delay
+    private Duration retryDelay(int attempt) {
+        Duration delay = retryInitialDelay.multipliedBy(1L << Math.min(attempt - 1, 20));
+        return delay.compareTo(retryMaxDelay) > 0 ? retryMaxDelay : delay;
+    }
+
+    private void complete(Long igdbId) {
+        Instant enqueuedAt = pending.remove(igdbId);
+        if (enqueuedAt != null) {
+            lag.record(Duration.between(enqueuedAt, Instant.now()));
+        }
+    }
+
+    private double oldestPendingAgeSeconds() {
+        Instant now = Instant.now();
+        return pending.values().stream()
+                .mapToLong(enqueuedAt -> Duration.between(enqueuedAt, now).toMillis())
+                .max()
+                .orElse(0L) / 1000.0;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        retryScheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+}
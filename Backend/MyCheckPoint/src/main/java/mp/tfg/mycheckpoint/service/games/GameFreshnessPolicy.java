@@ -0,0 +1,70 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.enums.ReleaseStatus;
+import mp.tfg.mycheckpoint.entity.games.Game;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Cada cuánto se refresca un juego completo contra IGDB, según su estado de lanzamiento y su fecha de salida.
+ * Los juegos que todavía cambian (próximos lanzamientos, acceso anticipado, recién salidos) se refrescan a diario;
+ * los publicados hace años, cada pocos meses.
+ */
+final class GameFreshnessPolicy {
+
+    private static final Duration DAILY = Duration.ofDays(1);
+    private static final Duration EVERY_THREE_DAYS = Duration.ofDays(3);
+    private static final Duration WEEKLY = Duration.ofDays(7);
+    private static final Duration MONTHLY = Duration.ofDays(30);
+    private static final Duration QUARTERLY = Duration.ofDays(90);
+
+    private GameFreshnessPolicy() {
+    }
+
+    /**
+     * Intervalo de refresco para un estado y una fecha de primer lanzamiento (ambos pueden ser {@code null}).
+     */
+    static Duration refreshInterval(ReleaseStatus status, Instant firstReleaseDate, Instant now) {
+        if (status != null) {
+            switch (status) {
+                case ALPHA, BETA, EARLY_ACCESS:
+                    return DAILY;
+                case RUMORED:
+                    return EVERY_THREE_DAYS;
+                case CANCELLED, DELISTED, OFFLINE:
+                    return QUARTERLY;
+                default:
+                    break; // RELEASED y UNKNOWN: según la fecha
+            }
+        }
+        if (firstReleaseDate == null) {
+            return WEEKLY; // Sin fecha anunciada
+        }
+        if (firstReleaseDate.isAfter(now)) {
+            // Próximo lanzamiento: fecha, plataformas y estado cambian más cuanto más cerca está
+            return firstReleaseDate.isBefore(now.plus(Duration.ofDays(90))) ? DAILY : WEEKLY;
+        }
+        Duration sinceRelease = Duration.between(firstReleaseDate, now);
+        if (sinceRelease.compareTo(Duration.ofDays(30)) < 0) {
+            return DAILY; // Recién salido: valoraciones y parches
+        }
+        if (sinceRelease.compareTo(Duration.ofDays(365)) < 0) {
+            return WEEKLY;
+        }
+        if (sinceRelease.compareTo(Duration.ofDays(5 * 365)) < 0) {
+            return MONTHLY;
+        }
+        return QUARTERLY;
+    }
+
+    /**
+     * Próximo refresco de un juego que se acaba de guardar con datos completos. Se añade un desfase de hasta un
+     * 10 % del intervalo, fijo por juego, para que los juegos ingeridos a la vez no venzan todos a la vez.
+     */
+    static Instant nextRefreshAt(Game game, Instant now) {
+        Duration interval = refreshInterval(game.getFirstReleaseStatus(), game.getFirstReleaseDate(), now);
+        long spreadPercent = game.getIgdbId() != null ? Math.floorMod(game.getIgdbId(), 11L) : 0L;
+        return now.plus(interval).plus(interval.multipliedBy(spreadPercent).dividedBy(100));
+    }
+}
@@ -0,0 +1,311 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.games.*;
+import mp.tfg.mycheckpoint.entity.games.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Estado de una llamada a {@link GameService#saveGames}.
+ * <p>
+ * Antes de guardar nada se recorre el grafo completo de {@link GameDto} (juegos raíz y juegos relacionados:
+ * padre, versión padre, DLCs, expansiones, bundles, remakes, remasters y similares) para reunir los IGDB IDs
+ * de cada tipo de entidad. {@link GameService} resuelve después cada tipo con una sola consulta
+ * {@code ...IgdbIdIn} y deja aquí las entidades gestionadas, de modo que la ingesta ya no consulta
+ * la BD entidad a entidad.
+ * <p>
+ * Además hace de mapa de identidad del grafo de juegos: cada juego (nodo) se procesa una sola vez por llamada,
+ * con el DTO más rico que aparezca en el grafo para su IGDB ID, aunque lo referencien varios juegos
+ * o haya ciclos (juegos similares entre sí, remakes que apuntan al original...).
+ * <p>
+ * No es thread-safe: vive solo durante una llamada a {@code saveGames}.
+ */
+class GameIngestionContext {
+
+    // DTO más rico de cada juego del grafo (raíz y relacionados) por IGDB ID
+    private final Map<Long, GameDto> gameNodes = new LinkedHashMap<>();
+    // IGDB IDs de todos los juegos del grafo
+    final Set<Long> gameIds = gameNodes.keySet();
+
+    // DTOs de entidades de referencia por IGDB ID, solo de los DTOs completos (los únicos que las procesan).
+    // Si un mismo IGDB ID aparece varias veces, prevalece el último, igual que al procesarlos en orden.
+    final Map<Long, GameModeDto> gameModeDtos = new LinkedHashMap<>();
+    final Map<Long, GenreDto> genreDtos = new LinkedHashMap<>();
+    final Map<Long, FranchiseDto> franchiseDtos = new LinkedHashMap<>();
+    final Map<Long, GameEngineDto> gameEngineDtos = new LinkedHashMap<>();
+    final Map<Long, KeywordDto> keywordDtos = new LinkedHashMap<>();
+    final Map<Long, PlatformDto> platformDtos = new LinkedHashMap<>();
+    final Map<Long, ThemeDto> themeDtos = new LinkedHashMap<>();
+    final Map<Long, CompanyInfoDto> companyDtos = new LinkedHashMap<>();
+    final Set<Long> involvementIds = new LinkedHashSet<>();
+
+    // Entidades gestionadas ya resueltas por IGDB ID
+    final Map<Long, Game> games = new HashMap<>();
+    final Map<Long, GameMode> gameModes = new HashMap<>();
+    final Map<Long, Genre> genres = new HashMap<>();
+    final Map<Long, Franchise> franchises = new HashMap<>();
+    final Map<Long, GameEngine> gameEngines = new HashMap<>();
+    final Map<Long, Keyword> keywords = new HashMap<>();
+    final Map<Long, Platform> platforms = new HashMap<>();
+    final Map<Long, Theme> themes = new HashMap<>();
+    final Map<Long, Company> companies = new HashMap<>();
+    final Map<Long, GameCompanyInvolvement> involvements = new HashMap<>();
+
+    // Mapa de identidad: juegos ya procesados (o en proceso) en esta llamada por IGDB ID
+    private final Map<Long, Game> processedGames = new HashMap<>();
+    // Juegos creados o actualizados en esta llamada (no incluye los omitidos por no tener cambios)
+    private final Map<Long, Game> changedGames = new LinkedHashMap<>();
+    // Juegos que han ganado o perdido DLCs, expansiones o bundles en esta llamada (aunque no hayan cambiado)
+    private final Set<Long> childGamesChanged = new LinkedHashSet<>();
+    private int nodesVisited;
+    private int nodesDeduplicated;
+
+    private final Function<DlcInfoDto, GameDto> dlcInfoConverter;
+    private final Function<SimilarGameInfoDto, GameDto> similarGameConverter;
+
+    private GameIngestionContext(Function<DlcInfoDto, GameDto> dlcInfoConverter,
+                                 Function<SimilarGameInfoDto, GameDto> similarGameConverter) {
+        this.dlcInfoConverter = dlcInfoConverter;
+        this.similarGameConverter = similarGameConverter;
+    }
+
+    /**
+     * Recorre los DTOs a guardar y reúne los IGDB IDs de todas las entidades que la ingesta va a necesitar.
+     *
+     * @param dlcInfoConverter     convierte la referencia a un juego relacionado en su DTO parcial.
+     * @param similarGameConverter convierte un juego similar en su DTO parcial.
+     */
+    static GameIngestionContext collect(List<GameDto> gameDtos,
+                                        Function<DlcInfoDto, GameDto> dlcInfoConverter,
+                                        Function<SimilarGameInfoDto, GameDto> similarGameConverter) {
+        GameIngestionContext context = new GameIngestionContext(dlcInfoConverter, similarGameConverter);
+        for (GameDto gameDto : gameDtos) {
+            if (gameDto != null && gameDto.getIgdbId() != null) {
+                context.collectGame(gameDto);
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Agrupa los DTOs en subgrafos independientes: dos DTOs van al mismo grupo si sus grafos
+     * (el juego y sus juegos relacionados) comparten algún juego, directa o indirectamente.
+     * Los grupos no tienen juegos en común, así que pueden guardarse en paralelo y en transacciones distintas.
+     * Se conserva el orden de entrada dentro de cada grupo y entre grupos (por su primer DTO).
+     */
+    static List<List<GameDto>> partitionIndependentGraphs(List<GameDto> gameDtos) {
+        int[] groupOf = new int[gameDtos.size()];
+        Map<Long, Integer> firstOwnerByGameId = new HashMap<>();
+        for (int i = 0; i < gameDtos.size(); i++) {
+            groupOf[i] = i;
+            for (Long gameId : graphGameIds(gameDtos.get(i))) {
+                Integer owner = firstOwnerByGameId.putIfAbsent(gameId, i);
+                if (owner != null) {
+                    union(groupOf, owner, i);
+                }
+            }
+        }
+
+        Map<Integer, List<GameDto>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < gameDtos.size(); i++) {
+            groups.computeIfAbsent(find(groupOf, i), root -> new ArrayList<>()).add(gameDtos.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static Set<Long> graphGameIds(GameDto gameDto) {
+        Set<Long> gameIds = new HashSet<>();
+        gameIds.add(gameDto.getIgdbId());
+        addRelatedGameId(gameIds, gameDto.getParentGameInfo());
+        addRelatedGameId(gameIds, gameDto.getVersionParent());
+        for (List<DlcInfoDto> relatedGames : Arrays.asList(gameDto.getDlcs(), gameDto.getExpansions(),
+                gameDto.getBundles(), gameDto.getRemakes(), gameDto.getRemasters())) {
+            if (relatedGames != null) {
+                relatedGames.forEach(relatedGame -> addRelatedGameId(gameIds, relatedGame));
+            }
+        }
+        if (gameDto.getSimilarGames() != null) {
+            gameDto.getSimilarGames().stream()
+                    .filter(similarGame -> similarGame != null && similarGame.getIgdbId() != null)
+                    .forEach(similarGame -> gameIds.add(similarGame.getIgdbId()));
+        }
+        return gameIds;
+    }
+
+    private static void addRelatedGameId(Set<Long> gameIds, DlcInfoDto relatedGame) {
+        if (relatedGame != null && relatedGame.getIgdbId() != null) {
+            gameIds.add(relatedGame.getIgdbId());
+        }
+    }
+
+    private static int find(int[] groupOf, int i) {
+        while (groupOf[i] != i) {
+            groupOf[i] = groupOf[groupOf[i]];
+            i = groupOf[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] groupOf, int a, int b) {
+        int rootA = find(groupOf, a);
+        int rootB = find(groupOf, b);
+        if (rootA != rootB) {
+            // El grupo queda representado por el DTO que aparece antes
+            groupOf[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private void collectGame(GameDto gameDto) {
+        offerGameNode(gameDto);
+
+        // Juegos relacionados: se guardan como DTOs parciales, sin colecciones propias que recorrer
+        offerRelatedGame(gameDto.getParentGameInfo());
+        offerRelatedGame(gameDto.getVersionParent());
+        offerRelatedGames(gameDto.getDlcs());
+        offerRelatedGames(gameDto.getExpansions());
+        offerRelatedGames(gameDto.getBundles());
+        offerRelatedGames(gameDto.getRemakes());
+        offerRelatedGames(gameDto.getRemasters());
+        if (gameDto.getSimilarGames() != null) {
+            gameDto.getSimilarGames().stream()
+                    .filter(similarGame -> similarGame != null && similarGame.getIgdbId() != null)
+                    .map(similarGameConverter)
+                    .forEach(this::offerGameNode);
+        }
+
+        if (!gameDto.isFullDetails()) {
+            return;
+        }
+        collectReferences(gameDto.getGameModes(), GameModeDto::getIgdbId, gameModeDtos);
+        collectReferences(gameDto.getGenres(), GenreDto::getIgdbId, genreDtos);
+        collectReferences(gameDto.getFranchises(), FranchiseDto::getIgdbId, franchiseDtos);
+        collectReferences(gameDto.getGameEngines(), GameEngineDto::getIgdbId, gameEngineDtos);
+        collectReferences(gameDto.getKeywords(), KeywordDto::getIgdbId, keywordDtos);
+        collectReferences(gameDto.getPlatforms(), PlatformDto::getIgdbId, platformDtos);
+        collectReferences(gameDto.getThemes(), ThemeDto::getIgdbId, themeDtos);
+        if (gameDto.getInvolvedCompanies() != null) {
+            for (InvolvedCompanyDto involvedCompany : gameDto.getInvolvedCompanies()) {
+                if (involvedCompany == null || involvedCompany.getInvolvementIgdbId() == null
+                        || involvedCompany.getCompany() == null || involvedCompany.getCompany().getIgdbId() == null) {
+                    continue;
+                }
+                involvementIds.add(involvedCompany.getInvolvementIgdbId());
+                companyDtos.put(involvedCompany.getCompany().getIgdbId(), involvedCompany.getCompany());
+            }
+        }
+    }
+
+    private void offerRelatedGame(DlcInfoDto relatedGame) {
+        if (relatedGame != null && relatedGame.getIgdbId() != null) {
+            offerGameNode(dlcInfoConverter.apply(relatedGame));
+        }
+    }
+
+    /**
+     * Se queda con el DTO más rico para cada juego. A igual nivel de detalle prevalece el último,
+     * como ocurría al procesar cada aparición en orden.
+     */
+    private void offerGameNode(GameDto candidate) {
+        if (candidate == null || candidate.getIgdbId() == null) {
+            return;
+        }
+        GameDto current = gameNodes.get(candidate.getIgdbId());
+        if (current == null || candidate.getDetailLevel().isAtLeast(current.getDetailLevel())) {
+            gameNodes.put(candidate.getIgdbId(), candidate);
+        }
+    }
+
+    private void offerRelatedGames(List<DlcInfoDto> relatedGames) {
+        if (relatedGames != null) {
+            relatedGames.forEach(this::offerRelatedGame);
+        }
+    }
+
+    private static <D> void collectReferences(List<D> dtos, Function<D, Long> igdbIdOf, Map<Long, D> target) {
+        if (dtos == null) {
+            return;
+        }
+        for (D dto : dtos) {
+            if (dto != null && igdbIdOf.apply(dto) != null) {
+                target.put(igdbIdOf.apply(dto), dto);
+            }
+        }
+    }
+
+    Optional<Game> findGame(Long igdbId) {
+        return Optional.ofNullable(games.get(igdbId));
+    }
+
+    void registerGame(Game game) {
+        games.put(game.getIgdbId(), game);
+    }
+
+    /**
+     * Devuelve el DTO más rico del grafo para el juego indicado, o el propio DTO si es igual de rico.
+     */
+    GameDto richestDto(GameDto gameDto) {
+        GameDto richest = gameNodes.get(gameDto.getIgdbId());
+        if (richest == null || gameDto.getDetailLevel().isAtLeast(richest.getDetailLevel())) {
+            return gameDto;
+        }
+        return richest;
+    }
+
+    /**
+     * Cuenta una visita al nodo y devuelve el juego si ya se procesó (o se está procesando) en esta llamada.
+     */
+    Optional<Game> visitGame(Long igdbId) {
+        nodesVisited++;
+        Game processedGame = processedGames.get(igdbId);
+        if (processedGame != null) {
+            nodesDeduplicated++;
+        }
+        return Optional.ofNullable(processedGame);
+    }
+
+    /**
+     * Marca el juego como procesado. Se llama antes de recorrer sus relaciones para cortar los ciclos.
+     */
+    void markProcessed(Game game) {
+        processedGames.put(game.getIgdbId(), game);
+    }
+
+    /**
+     * Marca el juego como creado o actualizado en esta llamada.
+     */
+    void markChanged(Game game) {
+        changedGames.put(game.getIgdbId(), game);
+    }
+
+    boolean isChanged(Long igdbId) {
+        return changedGames.containsKey(igdbId);
+    }
+
+    Set<Long> changedGameIds() {
+        return changedGames.keySet();
+    }
+
+    Collection<Game> changedGames() {
+        return changedGames.values();
+    }
+
+    /**
+     * Marca que la lista de juegos hijos del juego ha cambiado (su documento de detalle ya no vale).
+     */
+    void markChildGamesChanged(Game parent) {
+        childGamesChanged.add(parent.getIgdbId());
+    }
+
+    Set<Long> childGamesChangedIds() {
+        return childGamesChanged;
+    }
+
+    int nodesVisited() {
+        return nodesVisited;
+    }
+
+    int nodesDeduplicated() {
+        return nodesDeduplicated;
+    }
+}
@@ -0,0 +1,133 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import mp.tfg.mycheckpoint.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coordina la ingesta de juegos completos desde IGDB para que las peticiones concurrentes
+ * sobre el mismo IGDB ID compartan una única obtención y un único {@link GameService#saveGames}.
+ * <p>
+ * La ingesta se ejecuta en su propia transacción (REQUIRES_NEW), de modo que cuando termina los
+ * datos ya están confirmados y visibles para todos los llamadores que esperaban el resultado.
+ */
+@Service
+public class GameIngestionCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameIngestionCoordinator.class);
+
+    private final IgdbService igdbService;
+    private final GameService gameService;
+    private final TransactionTemplate requiresNewTransaction;
+
+    // Ingestas en curso por IGDB ID. El futuro se resuelve con el internalId del juego guardado.
+    private final ConcurrentMap<Long, CompletableFuture<Long>> inFlightIngestions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GameIngestionCoordinator(IgdbService igdbService,
+                                    GameService gameService,
+                                    PlatformTransactionManager transactionManager) {
+        this.igdbService = igdbService;
+        this.gameService = gameService;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Obtiene el juego completo de IGDB y lo guarda (o actualiza) en la BD local.
+     * Si ya hay una ingesta en curso para ese IGDB ID, espera a ella en lugar de lanzar otra.
+     *
+     * @return el internalId del juego guardado.
+     * @throws ResourceNotFoundException si IGDB no devuelve el juego.
+     */
+    public Long ingestFullGame(Long igdbId) {
+        return ingestFullGame(igdbId, IgdbPriority.INTERACTIVE);
+    }
+
+    /**
+     * Como {@link #ingestFullGame(Long)}, indicando la prioridad de la petición a IGDB. Con
+     * {@link IgdbPriority#BACKGROUND} el juego se pide siempre a IGDB (no se sirve de la caché) y la petición
+     * cede el paso a las interactivas.
+     */
+    public Long ingestFullGame(Long igdbId, IgdbPriority priority) {
+        CompletableFuture<Long> ownIngestion = new CompletableFuture<>();
+        CompletableFuture<Long> runningIngestion = inFlightIngestions.putIfAbsent(igdbId, ownIngestion);
+        if (runningIngestion != null) {
+            logger.debug("Ingesta del juego IGDB ID {} ya en curso. Esperando a su resultado.", igdbId);
+            return awaitIngestion(runningIngestion);
+        }
+
+        try {
+            Long internalId = fetchAndSave(igdbId, priority);
+            ownIngestion.complete(internalId);
+            return internalId;
+        } catch (RuntimeException e) {
+            ownIngestion.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightIngestions.remove(igdbId, ownIngestion);
+        }
+    }
+
+    private Long fetchAndSave(Long igdbId, IgdbPriority priority) {
+        GameDto gameDtoFromIgdb = (priority == IgdbPriority.BACKGROUND
+                ? igdbService.fetchGameInBackground(igdbId)
+                : igdbService.findGameByIgdbId(igdbId)).block();
+        if (gameDtoFromIgdb == null) {
+            throw new ResourceNotFoundException("Juego no encontrado en IGDB con ID: " + igdbId);
+        }
+        gameDtoFromIgdb.setDetailLevel(GameDetailLevel.FULL);
+
+        try {
+            return saveInNewTransaction(gameDtoFromIgdb);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia (u otro juego relacionado) insertó alguna de las filas a la vez que nosotros.
+            // En el segundo intento esas filas ya existen y se toma el camino de actualización.
+            logger.warn("Conflicto de unicidad guardando el juego IGDB ID {}. Reintentando una vez: {}", igdbId, e.getMessage());
+            return saveInNewTransaction(gameDtoFromIgdb);
+        }
+    }
+
+    private Long saveInNewTransaction(GameDto gameDto) {
+        Long internalId = requiresNewTransaction.execute(status -> {
+            List<Game> savedGames = gameService.saveGames(Collections.singletonList(gameDto));
+            if (savedGames.isEmpty() || savedGames.get(0) == null) {
+                return null;
+            }
+            return savedGames.get(0).getInternalId();
+        });
+        if (internalId == null) {
+            logger.error("Error al guardar el juego de IGDB con ID {}.", gameDto.getIgdbId());
+            throw new RuntimeException("Falló el guardado del juego desde IGDB con ID: " + gameDto.getIgdbId());
+        }
+        logger.info("Juego con IGDB ID {} guardado con detalles completos (internalId {}).", gameDto.getIgdbId(), internalId);
+        return internalId;
+    }
+
+    private Long awaitIngestion(CompletableFuture<Long> ingestion) {
+        try {
+            return ingestion.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package mp.tfg.mycheckpoint.service.games;
+
+/**
+ * Resultado de la ingesta de un {@code GameDto} en {@link ParallelGameIngestionService#ingest}.
+ *
+ * @param igdbId     IGDB ID del DTO (puede ser {@code null} si el DTO no era válido).
+ * @param status     resultado de la ingesta.
+ * @param internalId ID interno del juego guardado, solo con {@link Status#SAVED}.
+ * @param error      motivo del fallo, solo con {@link Status#FAILED} o {@link Status#INVALID}.
+ */
+public record GameIngestionOutcome(Long igdbId, Status status, Long internalId, String error) {
+
+    public enum Status {
+        /** El juego se creó o actualizó (o ya estaba al día) y la transacción se confirmó. */
+        SAVED,
+        /** La transacción de su subgrafo falló; no se guardó nada de ese subgrafo. */
+        FAILED,
+        /** DTO nulo o sin IGDB ID: no se intentó guardar. */
+        INVALID
+    }
+
+    static GameIngestionOutcome saved(Long igdbId, Long internalId) {
+        return new GameIngestionOutcome(igdbId, Status.SAVED, internalId, null);
+    }
+
+    static GameIngestionOutcome failed(Long igdbId, String error) {
+        return new GameIngestionOutcome(igdbId, Status.FAILED, null, error);
+    }
+
+    static GameIngestionOutcome invalid(Long igdbId, String error) {
+        return new GameIngestionOutcome(igdbId, Status.INVALID, null, error);
+    }
+}
@@ -0,0 +1,171 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mp.tfg.mycheckpoint.dto.games.*;
+import mp.tfg.mycheckpoint.entity.games.*;
+import mp.tfg.mycheckpoint.mapper.games.*;
+import mp.tfg.mycheckpoint.repository.games.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Diccionarios en memoria de las tablas de referencia del catálogo (modos de juego, géneros, franquicias,
+ * motores, plataformas y temas). Son tablas pequeñas que casi nunca cambian, así que la ingesta de juegos
+ * las resuelve aquí sin consultar la BD salvo cuando IGDB trae un valor nuevo o modificado.
+ * <p>
+ * Se precargan al arrancar la aplicación (o en el primer uso si la BD no estaba disponible).
+ * Ver {@link ReferenceDataDictionary}.
+ */
+@Service
+public class GameReferenceDataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameReferenceDataService.class);
+
+    private final PlatformLogoMapper platformLogoMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReferenceDataDictionary<GameModeDto, GameMode> gameModes;
+    private final ReferenceDataDictionary<GenreDto, Genre> genres;
+    private final ReferenceDataDictionary<FranchiseDto, Franchise> franchises;
+    private final ReferenceDataDictionary<GameEngineDto, GameEngine> gameEngines;
+    private final ReferenceDataDictionary<PlatformDto, Platform> platforms;
+    private final ReferenceDataDictionary<ThemeDto, Theme> themes;
+
+    @Autowired
+    public GameReferenceDataService(GameModeRepository gameModeRepository, GenreRepository genreRepository,
+                                    FranchiseRepository franchiseRepository, GameEngineRepository gameEngineRepository,
+                                    PlatformRepository platformRepository, ThemeRepository themeRepository,
+                                    GameModeMapper gameModeMapper, GenreMapper genreMapper, FranchiseMapper franchiseMapper,
+                                    GameEngineMapper gameEngineMapper, PlatformMapper platformMapper,
+                                    PlatformLogoMapper platformLogoMapper, ThemeMapper themeMapper,
+                                    CatalogUpsertRepository catalogUpsertRepository,
+                                    PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.platformLogoMapper = platformLogoMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.gameModes = new ReferenceDataDictionary<>("game_modes", GameMode::getIgdbId,
+                (dto, entity) -> Objects.equals(dto.getName(), entity.getName()),
+                () -> loadAll(gameModeRepository::findAll),
+                dtos -> write(dtos, gameModeMapper::toEntity, catalogUpsertRepository::upsertGameModes,
+                        GameMode::getIgdbId, GameMode::setInternalId));
+        this.genres = new ReferenceDataDictionary<>("genres", Genre::getIgdbId,
+                (dto, entity) -> Objects.equals(dto.getName(), entity.getName()),
+                () -> loadAll(genreRepository::findAll),
+                dtos -> write(dtos, genreMapper::toEntity, catalogUpsertRepository::upsertGenres,
+                        Genre::getIgdbId, Genre::setInternalId));
+        this.franchises = new ReferenceDataDictionary<>("franchises", Franchise::getIgdbId,
+                (dto, entity) -> Objects.equals(dto.getName(), entity.getName()),
+                () -> loadAll(franchiseRepository::findAll),
+                dtos -> write(dtos, franchiseMapper::toEntity, catalogUpsertRepository::upsertFranchises,
+                        Franchise::getIgdbId, Franchise::setInternalId));
+        this.gameEngines = new ReferenceDataDictionary<>("game_engines", GameEngine::getIgdbId,
+                (dto, entity) -> Objects.equals(dto.getName(), entity.getName()),
+                () -> loadAll(gameEngineRepository::findAll),
+                dtos -> write(dtos, gameEngineMapper::toEntity, catalogUpsertRepository::upsertGameEngines,
+                        GameEngine::getIgdbId, GameEngine::setInternalId));
+        this.platforms = new ReferenceDataDictionary<>("platforms", Platform::getIgdbId,
+                this::isPlatformUpToDate,
+                () -> loadAll(platformRepository::findAll),
+                dtos -> write(dtos, platformMapper::toEntity, catalogUpsertRepository::upsertPlatforms,
+                        Platform::getIgdbId, Platform::setInternalId));
+        this.themes = new ReferenceDataDictionary<>("themes", Theme::getIgdbId,
+                (dto, entity) -> Objects.equals(dto.getName(), entity.getName()),
+                () -> loadAll(themeRepository::findAll),
+                dtos -> write(dtos, themeMapper::toEntity, catalogUpsertRepository::upsertThemes,
+                        Theme::getIgdbId, Theme::setInternalId));
+
+        Map.of("game_modes", gameModes, "genres", genres, "franchises", franchises,
+                        "game_engines", gameEngines, "platforms", platforms, "themes", themes)
+                .forEach((name, dictionary) -> Gauge.builder("games.reference.dictionary.size", dictionary, ReferenceDataDictionary::size)
+                        .description("Entradas cargadas en el diccionario en memoria de la tabla de referencia")
+                        .tag("dictionary", name)
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Precarga los diccionarios al arrancar. Si falla (p. ej. la BD aún no está disponible)
+     * se cargarán en el primer uso.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            gameModes.reload();
+            genres.reload();
+            franchises.reload();
+            gameEngines.reload();
+            platforms.reload();
+            themes.reload();
+            logger.info("Diccionarios de referencia precargados: {} modos, {} géneros, {} franquicias, {} motores, {} plataformas, {} temas.",
+                    gameModes.size(), genres.size(), franchises.size(), gameEngines.size(), platforms.size(), themes.size());
+        } catch (RuntimeException e) {
+            logger.warn("No se pudieron precargar los diccionarios de referencia. Se cargarán en el primer uso: {}", e.getMessage());
+        }
+    }
+
+    public Map<Long, GameMode> resolveGameModes(Map<Long, GameModeDto> dtosByIgdbId) {
+        return gameModes.resolve(dtosByIgdbId);
+    }
+
+    public Map<Long, Genre> resolveGenres(Map<Long, GenreDto> dtosByIgdbId) {
+        return genres.resolve(dtosByIgdbId);
+    }
+
+    public Map<Long, Franchise> resolveFranchises(Map<Long, FranchiseDto> dtosByIgdbId) {
+        return franchises.resolve(dtosByIgdbId);
+    }
+
+    public Map<Long, GameEngine> resolveGameEngines(Map<Long, GameEngineDto> dtosByIgdbId) {
+        return gameEngines.resolve(dtosByIgdbId);
+    }
+
+    public Map<Long, Platform> resolvePlatforms(Map<Long, PlatformDto> dtosByIgdbId) {
+        return platforms.resolve(dtosByIgdbId);
+    }
+
+    public Map<Long, Theme> resolveThemes(Map<Long, ThemeDto> dtosByIgdbId) {
+        return themes.resolve(dtosByIgdbId);
+    }
+
+    private <E> List<E> loadAll(Supplier<List<E>> findAll) {
+        List<E> entities = transactionTemplate.execute(status -> findAll.get());
+        return entities != null ? entities : List.of();
+    }
+
+    /**
+     * Inserta las entradas que no existen y actualiza las que han cambiado con un upsert nativo, dentro de la
+     * transacción de la ingesta (la misma conexión). Las entidades devueltas se construyen a partir de los DTOs
+     * con el internal_id que devuelve el upsert; el diccionario las publica cuando la transacción se confirma.
+     */
+    private <D, E> List<E> write(Map<Long, D> dtosByIgdbId,
+                                 Function<D, E> creator,
+                                 Function<Collection<E>, Map<Long, Long>> upsert,
+                                 Function<E, Long> igdbIdOf,
+                                 BiConsumer<E, Long> internalIdSetter) {
+        List<E> entities = dtosByIgdbId.values().stream().map(creator).toList();
+        Map<Long, Long> internalIds = transactionTemplate.execute(status -> upsert.apply(entities));
+        if (internalIds == null) {
+            return List.of();
+        }
+        entities.forEach(entity -> internalIdSetter.accept(entity, internalIds.get(igdbIdOf.apply(entity))));
+        return entities;
+    }
+
+    private boolean isPlatformUpToDate(PlatformDto dto, Platform entity) {
+        PlatformLogo logoFromDto = dto.getPlatformLogo() != null ? platformLogoMapper.toEntity(dto.getPlatformLogo()) : null;
+        return Objects.equals(dto.getName(), entity.getName())
+                && Objects.equals(dto.getAlternativeName(), entity.getAlternativeName())
+                && Objects.equals(logoFromDto, entity.getPlatformLogo());
+    }
+}
@@ -2,48 +2,40 @@ package mp.tfg.mycheckpoint.service.games;
 
 
 import jakarta.transaction.Transactional;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
 import mp.tfg.mycheckpoint.dto.enums.GameType;
 import mp.tfg.mycheckpoint.dto.enums.ReleaseStatus;
 import mp.tfg.mycheckpoint.dto.games.*;
 import mp.tfg.mycheckpoint.entity.games.*;
 import mp.tfg.mycheckpoint.mapper.games.*;
 import mp.tfg.mycheckpoint.repository.games.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.hibernate.Hibernate; // IMPORTANTE
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class GameService {
 
     private static final Logger logger = LoggerFactory.getLogger(GameService.class);
+    private static final int IN_QUERY_CHUNK_SIZE = 1000;
 
     private final GameRepository gameRepository;
-    private final GameModeRepository gameModeRepository;
-    private final GenreRepository genreRepository;
-    private final FranchiseRepository franchiseRepository;
-    private final GameEngineRepository gameEngineRepository;
-    private final KeywordRepository keywordRepository;
-    private final PlatformRepository platformRepository;
-    private final ThemeRepository themeRepository;
-    private final CompanyRepository companyRepository;
     private final GameCompanyInvolvementRepository gameCompanyInvolvementRepository;
 
     private final GameMapper gameMapper;
-    private final GameModeMapper gameModeMapper;
-    private final GenreMapper genreMapper;
-    private final FranchiseMapper franchiseMapper;
-    private final GameEngineMapper gameEngineMapper;
     private final KeywordMapper keywordMapper;
-    private final PlatformMapper platformMapper;
-    private final PlatformLogoMapper platformLogoMapper;
-    private final ThemeMapper themeMapper;
     private final CompanyMapper companyMapper;
-    private final InvolvedCompanyMapper involvedCompanyMapper;
 
     private final CoverMapper coverMapper;
     private final ArtworkMapper artworkMapper;
@@ -51,58 +43,78 @@ public class GameService {
     private final VideoMapper videoMapper;
     private final WebsiteMapper websiteMapper;
 
+    private final GameReferenceDataService referenceDataService;
+    private final CatalogUpsertRepository catalogUpsertRepository;
+    private final GameContentHasher gameContentHasher;
+    private final GameIngestionLockRepository gameIngestionLockRepository;
+    private final GameDetailDocumentService gameDetailDocumentService;
+
+    private final Counter ingestionNodesVisited;
+    private final Counter ingestionNodesDeduplicated;
+    private final Counter fullUpdatesApplied;
+    private final Counter fullUpdatesSkipped;
 
     @Autowired
-    public GameService(GameRepository gameRepository, GameModeRepository gameModeRepository,
-                       GenreRepository genreRepository, FranchiseRepository franchiseRepository,
-                       GameEngineRepository gameEngineRepository, KeywordRepository keywordRepository,
-                       PlatformRepository platformRepository,PlatformLogoMapper platformLogoMapper, ThemeRepository themeRepository,
-                       CompanyRepository companyRepository, GameCompanyInvolvementRepository gameCompanyInvolvementRepository,
-                       GameMapper gameMapper, GameModeMapper gameModeMapper, GenreMapper genreMapper,
-                       FranchiseMapper franchiseMapper, GameEngineMapper gameEngineMapper,
-                       KeywordMapper keywordMapper, PlatformMapper platformMapper, ThemeMapper themeMapper,
-                       CompanyMapper companyMapper, InvolvedCompanyMapper involvedCompanyMapper,
-                       CoverMapper coverMapper, ArtworkMapper artworkMapper, ScreenshotMapper screenshotMapper,
-                       VideoMapper videoMapper, WebsiteMapper websiteMapper) {
+    public GameService(GameRepository gameRepository, GameCompanyInvolvementRepository gameCompanyInvolvementRepository,
+                       GameMapper gameMapper, KeywordMapper keywordMapper, CompanyMapper companyMapper, CoverMapper coverMapper,
+                       ArtworkMapper artworkMapper, ScreenshotMapper screenshotMapper, VideoMapper videoMapper,
+                       WebsiteMapper websiteMapper, GameReferenceDataService referenceDataService,
+                       CatalogUpsertRepository catalogUpsertRepository, GameContentHasher gameContentHasher,
+                       GameIngestionLockRepository gameIngestionLockRepository, GameDetailDocumentService gameDetailDocumentService,
+                       MeterRegistry meterRegistry) {
         this.gameRepository = gameRepository;
-        this.gameModeRepository = gameModeRepository;
-        this.genreRepository = genreRepository;
-        this.franchiseRepository = franchiseRepository;
-        this.gameEngineRepository = gameEngineRepository;
-        this.keywordRepository = keywordRepository;
-        this.platformRepository = platformRepository;
-        this.themeRepository = themeRepository;
-        this.companyRepository = companyRepository;
         this.gameCompanyInvolvementRepository = gameCompanyInvolvementRepository;
         this.gameMapper = gameMapper;
-        this.gameModeMapper = gameModeMapper;
-        this.genreMapper = genreMapper;
-        this.franchiseMapper = franchiseMapper;
-        this.gameEngineMapper = gameEngineMapper;
         this.keywordMapper = keywordMapper;
-        this.platformMapper = platformMapper;
-        this.platformLogoMapper = platformLogoMapper;
-        this.themeMapper = themeMapper;
         this.companyMapper = companyMapper;
-        this.involvedCompanyMapper = involvedCompanyMapper;
         this.coverMapper = coverMapper;
         this.artworkMapper = artworkMapper;
         this.screenshotMapper = screenshotMapper;
         this.videoMapper = videoMapper;
         this.websiteMapper = websiteMapper;
+        this.referenceDataService = referenceDataService;
+        this.catalogUpsertRepository = catalogUpsertRepository;
+        this.gameContentHasher = gameContentHasher;
+        this.gameIngestionLockRepository = gameIngestionLockRepository;
+        this.gameDetailDocumentService = gameDetailDocumentService;
+
+        this.ingestionNodesVisited = Counter.builder("games.ingestion.nodes")
+                .description("Juegos (nodos del grafo) visitados al guardar juegos")
+                .tag("result", "visited")
+                .register(meterRegistry);
+        this.ingestionNodesDeduplicated = Counter.builder("games.ingestion.nodes")
+                .description("Juegos (nodos del grafo) visitados al guardar juegos")
+                .tag("result", "deduplicated")
+                .register(meterRegistry);
+        this.fullUpdatesApplied = Counter.builder("games.ingestion.updates")
+                .description("Actualizaciones completas de juegos existentes, aplicadas u omitidas por tener el mismo contenido")
+                .tag("result", "applied")
+                .register(meterRegistry);
+        this.fullUpdatesSkipped = Counter.builder("games.ingestion.updates")
+                .description("Actualizaciones completas de juegos existentes, aplicadas u omitidas por tener el mismo contenido")
+                .tag("result", "skipped")
+                .register(meterRegistry);
     }
 
     @Transactional
     public List<Game> saveGames(List<GameDto> gameDtos) {
         List<Game> processedGames = new ArrayList<>();
         if (gameDtos == null) return processedGames;
+
+        // Resolver de una vez todas las entidades del grafo (una consulta ...IgdbIdIn por tipo)
+        GameIngestionContext context = GameIngestionContext.collect(gameDtos,
+                this::convertDlcInfoToGameDto, this::convertSimilarGameInfoToGameDto);
+        // Otra ingesta que comparta juegos con esta (en paralelo o en otra instancia) espera a que termine
+        gameIngestionLockRepository.lockGames(context.gameIds);
+        prefetchEntities(context);
+
         for (GameDto gameDto : gameDtos) {
             if (gameDto != null && gameDto.getIgdbId() != null) {
                 // Si gameDto.isFullDetails() no está seteado explícitamente antes de llamar a saveGames,
                 // y este es un punto de entrada genérico para guardar, es razonable asumir
                 // que el DTO pretende ser completo. GameDto ya se inicializa con isFullDetails = true.
                 // gameDto.setFullDetails(true); // Ya no es necesario aquí si el DTO lo tiene por defecto.
-                Game processedGameEntity = processSingleGameDto(gameDto, null);
+                Game processedGameEntity = processSingleGameDto(gameDto, null, context);
                 if (processedGameEntity != null) {
                     processedGames.add(processedGameEntity);
                 } else {
@@ -114,30 +126,117 @@ public class GameService {
                 logger.warn("GameDto nulo en la lista.");
             }
         }
+
+        refreshDetailDocuments(processedGames, context);
+
+        ingestionNodesVisited.increment(context.nodesVisited());
+        ingestionNodesDeduplicated.increment(context.nodesDeduplicated());
+        logger.debug("saveGames: {} juegos visitados, {} ya procesados en esta llamada (deduplicados).",
+                context.nodesVisited(), context.nodesDeduplicated());
         return processedGames;
     }
 
-    private Game processSingleGameDto(GameDto gameDto, Game prospectiveParentGameEntity) {
+    /**
+     * Regenera el documento de detalle precalculado de los juegos pedidos que han cambiado y tienen detalle
+     * suficiente para la vista, y descarta el de los demás juegos del grafo que han cambiado
+     * (se regenerará cuando alguien los consulte). Así la ingesta solo mapea los juegos que se acaban de pedir.
+     * <p>
+     * El documento de un juego también incluye el nombre, la carátula y el tipo de sus DLCs, expansiones y
+     * bundles, así que cuenta como cambiado si ha ganado o perdido alguno, o si alguno de ellos ha cambiado.
+     */
+    private void refreshDetailDocuments(List<Game> processedGames, GameIngestionContext context) {
+        Set<Long> stale = new LinkedHashSet<>(context.changedGameIds());
+        stale.addAll(context.childGamesChangedIds());
+        for (Game changedGame : context.changedGames()) {
+            if (changedGame.getParentGame() != null) {
+                stale.add(changedGame.getParentGame().getIgdbId());
+            }
+        }
+
+        Map<Long, Game> regenerated = new LinkedHashMap<>();
+        for (Game game : processedGames) {
+            if (stale.contains(game.getIgdbId()) && game.getDetailLevel().isAtLeast(GameDetailLevel.DETAIL)) {
+                regenerated.put(game.getIgdbId(), game);
+            }
+        }
+        Set<Long> invalidated = new HashSet<>(stale);
+        invalidated.removeAll(regenerated.keySet());
+
+        gameDetailDocumentService.regenerate(regenerated.values());
+        if (!invalidated.isEmpty()) {
+            gameDetailDocumentService.invalidate(invalidated);
+        }
+    }
+
+    /**
+     * Agrupa los DTOs en subgrafos de juegos independientes entre sí, que pueden pasarse por separado
+     * (y en paralelo) a {@link #saveGames}. Ver {@link GameIngestionContext#partitionIndependentGraphs}.
+     */
+    public List<List<GameDto>> partitionIndependentGraphs(List<GameDto> gameDtos) {
+        return GameIngestionContext.partitionIndependentGraphs(gameDtos);
+    }
+
+    private Game processSingleGameDto(GameDto gameDto, Game prospectiveParentGameEntity, GameIngestionContext context) {
         if (gameDto == null || gameDto.getIgdbId() == null) {
             logger.warn("processSingleGameDto: GameDto nulo o sin IgdbId. Saltando.");
             return null;
         }
 
+        // Cada juego se procesa una sola vez por llamada: si ya se procesó (o se está procesando,
+        // en caso de ciclo) se reutiliza la entidad y solo se asigna el padre prospectivo.
+        Optional<Game> alreadyProcessed = context.visitGame(gameDto.getIgdbId());
+        if (alreadyProcessed.isPresent()) {
+            logger.debug("GameDto ID={} ya procesado en esta llamada. Se reutiliza la entidad.", gameDto.getIgdbId());
+            assignProspectiveParent(alreadyProcessed.get(), prospectiveParentGameEntity, context);
+            return alreadyProcessed.get();
+        }
+        // Procesarlo con el DTO más rico que haya para este juego en todo el grafo
+        gameDto = context.richestDto(gameDto);
+
+        // Si el juego ya está completo en la BD y el DTO es idéntico al último que se le aplicó,
+        // no hay nada que mapear ni reescribir (ni el juego, ni sus colecciones, ni sus relaciones).
+        String contentHash = gameDto.isFullDetails() ? gameContentHasher.hash(gameDto) : null;
+        Optional<Game> unchangedGame = findUnchangedGame(gameDto, contentHash, context);
+        if (unchangedGame.isPresent()) {
+            Game game = unchangedGame.get();
+            setFirstReleaseStatusFromDto(gameDto, game); // Completa el estado en el DTO; la entidad ya lo tiene
+            scheduleNextRefresh(game); // Sin cambios, pero el juego se ha comprobado contra IGDB
+            assignProspectiveParent(game, prospectiveParentGameEntity, context);
+            context.markProcessed(game);
+            fullUpdatesSkipped.increment();
+            logger.debug("GameDto ID={} sin cambios desde la última ingesta completa. Se omite la actualización.", gameDto.getIgdbId());
+            return game;
+        }
+
         logger.debug("Inicio procesando GameDto: ID={}, Name={}, isFullDetails={}, ProspectiveParentIGDBID={}",
                 gameDto.getIgdbId(), gameDto.getName(), gameDto.isFullDetails(),
                 (prospectiveParentGameEntity != null ? prospectiveParentGameEntity.getIgdbId() : "null"));
 
         // 1. Encontrar o crear la entidad base del juego y guardarla inicialmente
-        Game currentGameEntity = findOrCreateAndUpdateBaseGame(gameDto, prospectiveParentGameEntity);
+        Game currentGameEntity = findOrCreateAndUpdateBaseGame(gameDto, prospectiveParentGameEntity, context);
         if (currentGameEntity == null) { // No debería ocurrir si gameDto e igdbId no son nulos
             logger.error("Error: findOrCreateBaseGame devolvió null para GameDto IGDB ID: {}", gameDto.getIgdbId());
             return null;
         }
+        if (gameDto.isFullDetails()) {
+            if (currentGameEntity.getInternalId() != null) {
+                fullUpdatesApplied.increment();
+            }
+            // Las colecciones y compañías se aplican a continuación en esta misma transacción
+            currentGameEntity.setContentHash(contentHash);
+            scheduleNextRefresh(currentGameEntity);
+        }
 
-        // Guardamos aquí para asegurar que la entidad está gestionada y tiene un ID interno
+        // Si es nuevo, lo persistimos aquí para que esté gestionado y tenga un ID interno
         // antes de procesar relaciones más complejas que podrían depender de ello.
+        // Si ya existía, ya está gestionado: sus cambios se sincronizan en el flush.
         try {
-            currentGameEntity = gameRepository.save(currentGameEntity);
+            if (currentGameEntity.getInternalId() == null) {
+                currentGameEntity = gameRepository.save(currentGameEntity);
+            }
+            context.registerGame(currentGameEntity);
+            context.markProcessed(currentGameEntity);
+            context.markChanged(currentGameEntity);
         } catch (Exception e) {
             logger.error("Error guardando la entidad base del juego (IGDB ID: {}) : {}", gameDto.getIgdbId(), e.getMessage(), e);
             throw e; // Relanzar para que la transacción haga rollback si es necesario
@@ -147,45 +246,32 @@ public class GameService {
         // 2. Procesar relaciones jerárquicas (juego padre, versión padre)
         // Estas relaciones pueden implicar llamadas recursivas a processSingleGameDto,
         // por lo que es bueno tener la entidad actual ya guardada y gestionada.
-        processParentAndVersionRelationships(gameDto, managedGameEntity);
+        processParentAndVersionRelationships(gameDto, managedGameEntity, context);
 
         // 3. Si el DTO tiene todos los detalles, procesar colecciones y compañías involucradas
         if (gameDto.isFullDetails()) {
             logger.debug("DTO completo (ID: {}), procesando colecciones detalladas.", managedGameEntity.getIgdbId());
-            processAssociatedManyToManyCollections(gameDto, managedGameEntity);
-            processInvolvedCompanies(gameDto, managedGameEntity);
+            processAssociatedManyToManyCollections(gameDto, managedGameEntity, context);
+            processInvolvedCompanies(gameDto, managedGameEntity, context);
         } else {
             logger.debug("DTO parcial (ID: {}), se omite procesamiento de colecciones detalladas.", managedGameEntity.getIgdbId());
         }
 
-        // 4. Guardar la entidad principal después de establecer relaciones ManyToMany y OneToMany (como InvolvedCompanies)
-        // Esto asegura que los cambios en las colecciones se persistan.
-        Game savedMainGameEntity;
-        try {
-            savedMainGameEntity = gameRepository.save(managedGameEntity);
-        } catch (Exception e) {
-            logger.error("Error guardando managedGameEntity (IGDB ID: {}) después de procesar colecciones: {}", gameDto.getIgdbId(), e.getMessage(), e);
-            throw e;
-        }
-
-        // 5. Procesar listas de juegos hijos (DLCs, expansiones, bundles) y relacionados (remakes, remasters, similares)
+        // 4. Procesar listas de juegos hijos (DLCs, expansiones, bundles) y relacionados (remakes, remasters, similares)
         // Estas operaciones pueden implicar más llamadas a processSingleGameDto para esas entidades relacionadas
-        // y luego establecer la relación con 'savedMainGameEntity'.
-        processChildGameLists(gameDto, savedMainGameEntity);
-        processRelatedGameLists(gameDto, savedMainGameEntity); // Incluye remakes, remasters, similar_games
-
-        // 6. Guardado final para persistir cualquier cambio en las relaciones de listas (como similarGames, childGames etc.)
-        Game finalSavedEntity;
-        try {
-            finalSavedEntity = gameRepository.save(savedMainGameEntity);
-        } catch (Exception e) {
-            logger.error("Error en el guardado final del juego (IGDB ID: {}): {}",
-                    (savedMainGameEntity != null ? savedMainGameEntity.getIgdbId() : gameDto.getIgdbId()),
-                    e.getMessage(), e);
-            throw e;
+        // y luego establecer la relación con 'managedGameEntity'.
+        processChildGameLists(gameDto, managedGameEntity, context);
+        // Las proyecciones por debajo de DETAIL (tarjetas de juegos relacionados, resultados de búsqueda) no traen
+        // estas listas: vacías no significan que el juego ya no tenga remakes, remasters ni similares
+        if (gameDto.getDetailLevel().isAtLeast(GameDetailLevel.DETAIL)) {
+            processRelatedGameLists(gameDto, managedGameEntity, context); // Incluye remakes, remasters, similar_games
         }
 
-        // 7. Inicializar colecciones LAZY antes de devolver la entidad (si es necesario para el llamador)
+        // 5. No hace falta volver a llamar a save(): la entidad está gestionada y los cambios en sus
+        // colecciones se escriben en el flush de la transacción, agrupados en lotes JDBC.
+        Game finalSavedEntity = managedGameEntity;
+
+        // 6. Inicializar colecciones LAZY antes de devolver la entidad (si es necesario para el llamador)
         if (finalSavedEntity != null) {
             initializeLazyCollections(finalSavedEntity);
         }
@@ -194,9 +280,22 @@ public class GameService {
         return finalSavedEntity;
     }
 
-    private Game findOrCreateAndUpdateBaseGame(GameDto gameDto, Game prospectiveParentGameEntity) {
-        // Buscar si el juego ya existe en la base de datos por su IGDB ID.
-        Optional<Game> existingGameOptional = gameRepository.findByIgdbId(gameDto.getIgdbId());
+    /**
+     * Devuelve el juego existente si ya tiene todos los detalles y el hash del DTO completo coincide
+     * con el del último DTO que se le aplicó.
+     */
+    private Optional<Game> findUnchangedGame(GameDto gameDto, String contentHash, GameIngestionContext context) {
+        if (contentHash == null) {
+            return Optional.empty();
+        }
+        return context.findGame(gameDto.getIgdbId())
+                .filter(Game::isFullDetails)
+                .filter(game -> contentHash.equals(game.getContentHash()));
+    }
+
+    private Game findOrCreateAndUpdateBaseGame(GameDto gameDto, Game prospectiveParentGameEntity, GameIngestionContext context) {
+        // Buscar si el juego ya existe por su IGDB ID (precargado en el contexto de la ingesta).
+        Optional<Game> existingGameOptional = context.findGame(gameDto.getIgdbId());
 
         Game gameToProcess; // Esta será la entidad que se devolverá, ya sea existente o nueva.
 
@@ -222,24 +321,18 @@ public class GameService {
             } else {
                 // El DTO entrante es parcial (isFullDetails = false), así que solo actualizamos
                 // los campos básicos definidos en updateSelectiveFields.
-                // No cambiamos el estado de existingGame.isFullDetails basado en un DTO parcial.
-                logger.debug("GameDto (ID: {}) es parcial. Actualización selectiva.", gameDto.getIgdbId());
+                // El nivel de detalle guardado solo sube (nunca baja) con un DTO parcial.
+                logger.debug("GameDto (ID: {}) es parcial ({}). Actualización selectiva.", gameDto.getIgdbId(), gameDto.getDetailLevel());
                 updateSelectiveFields(gameDto, existingGame);
+                if (!existingGame.getDetailLevel().isAtLeast(gameDto.getDetailLevel())) {
+                    existingGame.setDetailLevel(gameDto.getDetailLevel());
+                }
             }
 
             // Establecer el estado de lanzamiento (ReleaseStatus) basado en el DTO.
             setFirstReleaseStatusFromDto(gameDto, existingGame);
 
-            // Asignar el 'prospectiveParentGameEntity' si es necesario:
-            // - Si se proporcionó un 'prospectiveParentGameEntity'.
-            // - Y el juego existente no tiene un padre O su padre actual es diferente al prospectivo.
-            if (prospectiveParentGameEntity != null &&
-                    (existingGame.getParentGame() == null ||
-                            !existingGame.getParentGame().getIgdbId().equals(prospectiveParentGameEntity.getIgdbId()))) {
-                existingGame.setParentGame(prospectiveParentGameEntity);
-                logger.debug("Asignado prospectiveParentGameEntity (ID: {}) al juego existente (ID: {}).",
-                        prospectiveParentGameEntity.getIgdbId(), existingGame.getIgdbId());
-            }
+            assignProspectiveParent(existingGame, prospectiveParentGameEntity, context);
             gameToProcess = existingGame;
 
         } else {
@@ -247,11 +340,10 @@ public class GameService {
             logger.debug("Creando nuevo juego para IGDB ID: {}", gameDto.getIgdbId());
             Game newGame = gameMapper.toEntity(gameDto); // Mapea los campos básicos del DTO a una nueva entidad.
 
-            // Establecer el estado de 'isFullDetails' de la nueva entidad basado en el DTO.
-            // Asumiendo que tu entidad Game tiene un campo boolean isFullDetails y su setter
-            // newGame.setFullDetails(gameDto.isFullDetails()); // DESCOMENTA SI TIENES ESTE CAMPO Y SETTER EN LA ENTIDAD GAME
-            logger.debug("Nueva entidad Game (ID: {}) creada con isFullDetails = {} (si el campo existe).",
-                    newGame.getIgdbId(), gameDto.isFullDetails());
+            // Establecer el nivel de detalle (y con él isFullDetails) de la nueva entidad basado en el DTO.
+            newGame.setDetailLevel(gameDto.getDetailLevel());
+            logger.debug("Nueva entidad Game (ID: {}) creada con nivel de detalle {}.",
+                    newGame.getIgdbId(), gameDto.getDetailLevel());
 
 
             // Establecer el estado de lanzamiento (ReleaseStatus) para el nuevo juego.
@@ -259,7 +351,7 @@ public class GameService {
 
             // Si se proporcionó un 'prospectiveParentGameEntity', asignarlo al nuevo juego.
             if (prospectiveParentGameEntity != null) {
-                newGame.setParentGame(prospectiveParentGameEntity);
+                linkToParent(newGame, prospectiveParentGameEntity, context);
                 logger.debug("Asignado prospectiveParentGameEntity (ID: {}) al nuevo juego (ID: {}).",
                         prospectiveParentGameEntity.getIgdbId(), newGame.getIgdbId());
             }
@@ -269,16 +361,48 @@ public class GameService {
         return gameToProcess; // Devolver la entidad (existente actualizada o nueva).
     }
 
-    private void processParentAndVersionRelationships(GameDto gameDto, Game managedGameEntity) {
+    /**
+     * Asigna el 'prospectiveParentGameEntity' a un juego existente si es necesario:
+     * - Si se proporcionó un 'prospectiveParentGameEntity'.
+     * - Y el juego no tiene un padre O su padre actual es diferente al prospectivo.
+     */
+    private void assignProspectiveParent(Game existingGame, Game prospectiveParentGameEntity, GameIngestionContext context) {
+        if (prospectiveParentGameEntity != null &&
+                (existingGame.getParentGame() == null ||
+                        !existingGame.getParentGame().getIgdbId().equals(prospectiveParentGameEntity.getIgdbId()))) {
+            linkToParent(existingGame, prospectiveParentGameEntity, context);
+            logger.debug("Asignado prospectiveParentGameEntity (ID: {}) al juego existente (ID: {}).",
+                    prospectiveParentGameEntity.getIgdbId(), existingGame.getIgdbId());
+        }
+    }
+
+    /**
+     * Asigna el padre al juego manteniendo sincronizados los dos lados de la asociación: el juego pasa de
+     * los {@code childGames} de su padre anterior a los del nuevo. Así el documento de detalle que se genera
+     * en esta misma transacción ya incluye sus DLCs, expansiones y bundles. Los dos padres quedan marcados
+     * para regenerar o descartar su documento aunque su contenido no haya cambiado.
+     */
+    private void linkToParent(Game child, Game parent, GameIngestionContext context) {
+        Game previousParent = child.getParentGame();
+        if (previousParent != null) {
+            previousParent.getChildGames().remove(child);
+            context.markChildGamesChanged(previousParent);
+        }
+        child.setParentGame(parent);
+        parent.getChildGames().add(child);
+        context.markChildGamesChanged(parent);
+    }
+
+    private void processParentAndVersionRelationships(GameDto gameDto, Game managedGameEntity, GameIngestionContext context) {
         // Procesar Parent Game (si no se asignó como 'prospectiveParentGameEntity')
         if (gameDto.getParentGameInfo() != null && managedGameEntity.getParentGame() == null) {
             DlcInfoDto parentDto = gameDto.getParentGameInfo();
             if (parentDto.getIgdbId() != null && !parentDto.getIgdbId().equals(managedGameEntity.getIgdbId())) {
                 GameDto parentAsGameDto = convertDlcInfoToGameDto(parentDto);
                 if (parentAsGameDto != null) {
-                    Game parentEntity = processSingleGameDto(parentAsGameDto, null); // El padre no tiene un padre prospectivo en este contexto
+                    Game parentEntity = processSingleGameDto(parentAsGameDto, null, context); // El padre no tiene un padre prospectivo en este contexto
                     if (parentEntity != null) {
-                        managedGameEntity.setParentGame(parentEntity);
+                        linkToParent(managedGameEntity, parentEntity, context);
                     }
                 }
             }
@@ -290,7 +414,7 @@ public class GameService {
             if (vpDto.getIgdbId() != null && !vpDto.getIgdbId().equals(managedGameEntity.getIgdbId())) {
                 GameDto vpAsGameDto = convertDlcInfoToGameDto(vpDto);
                 if (vpAsGameDto != null) {
-                    Game vpEntity = processSingleGameDto(vpAsGameDto, null);
+                    Game vpEntity = processSingleGameDto(vpAsGameDto, null, context);
                     if (vpEntity != null) {
                         managedGameEntity.setVersionParentGame(vpEntity);
                     }
@@ -299,13 +423,13 @@ public class GameService {
         }
     }
 
-    private void processChildGameLists(GameDto gameDto, Game parentGame) {
-        processChildGameList(gameDto.getDlcs(), parentGame, "DLCs");
-        processChildGameList(gameDto.getExpansions(), parentGame, "Expansions");
-        processChildGameList(gameDto.getBundles(), parentGame, "Bundles");
+    private void processChildGameLists(GameDto gameDto, Game parentGame, GameIngestionContext context) {
+        processChildGameList(gameDto.getDlcs(), parentGame, "DLCs", context);
+        processChildGameList(gameDto.getExpansions(), parentGame, "Expansions", context);
+        processChildGameList(gameDto.getBundles(), parentGame, "Bundles", context);
     }
 
-    private void processRelatedGameLists(GameDto gameDto, Game mainGame) {
+    private void processRelatedGameLists(GameDto gameDto, Game mainGame, GameIngestionContext context) {
         // Remakes
         if (gameDto.getRemakes() != null) {
             updateRelatedGameCollection(
@@ -315,7 +439,8 @@ public class GameService {
                             .collect(Collectors.toList()),
                     mainGame,
                     mainGame.getRemakeVersions(),
-                    "Remakes"
+                    "Remakes",
+                    context
             );
         }
 
@@ -328,7 +453,8 @@ public class GameService {
                             .collect(Collectors.toList()),
                     mainGame,
                     mainGame.getRemasterVersions(),
-                    "Remasters"
+                    "Remasters",
+                    context
             );
         }
 
@@ -341,19 +467,20 @@ public class GameService {
                             .collect(Collectors.toList()),
                     mainGame,
                     mainGame.getSimilarGames(),
-                    "SimilarGames"
+                    "SimilarGames",
+                    context
             );
         }
     }
 
     // Método helper para actualizar colecciones de juegos relacionados (remakes, remasters, similar)
-    private void updateRelatedGameCollection(List<GameDto> relatedGameDtos, Game mainGame, Set<Game> existingRelatedCollection, String relationName) {
+    private void updateRelatedGameCollection(List<GameDto> relatedGameDtos, Game mainGame, Set<Game> existingRelatedCollection, String relationName, GameIngestionContext context) {
         logger.debug("Procesando lista de {} para el juego principal ID: {}", relationName, mainGame.getIgdbId());
         Set<Game> newRelatedEntities = new HashSet<>();
 
         for (GameDto relatedDto : relatedGameDtos) {
             if (relatedDto.getIgdbId() != null && !relatedDto.getIgdbId().equals(mainGame.getIgdbId())) {
-                Game relatedEntity = processSingleGameDto(relatedDto, null); // Procesar como juego independiente
+                Game relatedEntity = processSingleGameDto(relatedDto, null, context); // Procesar como juego independiente
                 if (relatedEntity != null) {
                     newRelatedEntities.add(relatedEntity);
                 }
@@ -387,10 +514,7 @@ public class GameService {
         if (game.getPlatforms() != null) Hibernate.initialize(game.getPlatforms());
         if (game.getGameEngines() != null) Hibernate.initialize(game.getGameEngines());
         if (game.getFranchises() != null) Hibernate.initialize(game.getFranchises());
-        if (game.getArtworks() != null) Hibernate.initialize(game.getArtworks());
-        if (game.getScreenshots() != null) Hibernate.initialize(game.getScreenshots());
-        if (game.getWebsites() != null) Hibernate.initialize(game.getWebsites());
-        if (game.getVideos() != null) Hibernate.initialize(game.getVideos());
+        // artworks, screenshots, websites y videos son columnas JSONB: se cargan con la propia fila del juego
     }
 
     private void updateSelectiveFields(GameDto dto, Game entity) {
@@ -433,6 +557,13 @@ public class GameService {
         }
     }
 
+    // Un DTO completo cuenta como refresco desde IGDB: se programa el siguiente según GameFreshnessPolicy
+    private void scheduleNextRefresh(Game game) {
+        Instant now = Instant.now();
+        game.setRefreshedAt(now);
+        game.setNextRefreshAt(GameFreshnessPolicy.nextRefreshAt(game, now));
+    }
+
     private void setFirstReleaseStatusFromDto(GameDto gameDto, Game gameEntity) {
         if (gameDto.getGameStatus() != null && gameDto.getGameStatus().getId() != null) {
             Integer statusId = gameDto.getGameStatus().getId();
@@ -451,47 +582,20 @@ public class GameService {
         }
     }
 
-    private void processChildGameList(List<DlcInfoDto> dlcInfoList, Game parentGame, String listType) {
+    private void processChildGameList(List<DlcInfoDto> dlcInfoList, Game parentGame, String listType, GameIngestionContext context) {
         if (dlcInfoList != null && parentGame != null) {
             logger.debug("Procesando lista de {} para el juego padre ID: {}", listType, parentGame.getIgdbId());
             dlcInfoList.forEach(dlcInfo -> {
                 if (dlcInfo != null && dlcInfo.getIgdbId() != null && !dlcInfo.getIgdbId().equals(parentGame.getIgdbId())) {
                     GameDto childGameDto = convertDlcInfoToGameDto(dlcInfo);
                     if (childGameDto != null) {
-                        processSingleGameDto(childGameDto, parentGame);
+                        processSingleGameDto(childGameDto, parentGame, context);
                     }
                 }
             });
         }
     }
 
-    private void processRelatedGameList(List<DlcInfoDto> relatedInfoDtoList, Game mainGame, Set<Game> entityCollectionToUpdate, String relationType) {
-        if (relatedInfoDtoList != null && mainGame != null) {
-            logger.debug("Procesando lista de {} para el juego principal ID: {}", relationType, mainGame.getIgdbId());
-            Set<Long> existingRelatedIds = entityCollectionToUpdate.stream().map(Game::getIgdbId).collect(Collectors.toSet());
-            Set<Game> newRelatedEntities = new HashSet<>();
-
-            for (DlcInfoDto dto : relatedInfoDtoList) {
-                if (dto != null && dto.getIgdbId() != null && !dto.getIgdbId().equals(mainGame.getIgdbId())) {
-                    GameDto relatedAsFullDto = convertDlcInfoToGameDto(dto);
-                    if (relatedAsFullDto != null) {
-                        Game relatedEntity = processSingleGameDto(relatedAsFullDto, null);
-                        if (relatedEntity != null) {
-                            newRelatedEntities.add(relatedEntity);
-                        }
-                    }
-                }
-            }
-
-            Set<Long> newRelatedIds = newRelatedEntities.stream().map(Game::getIgdbId).collect(Collectors.toSet());
-            if (!existingRelatedIds.equals(newRelatedIds)) {
-                logger.debug("Colección de '{}' para el juego {} ha cambiado. Actualizando.", relationType, mainGame.getIgdbId());
-                entityCollectionToUpdate.clear();
-                entityCollectionToUpdate.addAll(newRelatedEntities);
-            }
-        }
-    }
-
     private GameDto convertDlcInfoToGameDto(DlcInfoDto dlcInfo) {
         if (dlcInfo == null || dlcInfo.getIgdbId() == null) return null;
         GameDto gameDto = new GameDto();
@@ -501,8 +605,9 @@ public class GameService {
         gameDto.setTotalRating(dlcInfo.getTotalRating());
         gameDto.setGameType(dlcInfo.getGameType());
         gameDto.setSlug(dlcInfo.getSlug());
+        gameDto.setFirstReleaseDate(dlcInfo.getFirstReleaseDate());
         initializeEmptyCollections(gameDto);
-        gameDto.setFullDetails(false);
+        gameDto.setDetailLevel(GameDetailLevel.CARD);
         return gameDto;
     }
 
@@ -515,9 +620,10 @@ public class GameService {
         gameDto.setSummary(similarInfo.getSummary());
         gameDto.setCover(similarInfo.getCover());
         gameDto.setTotalRating(similarInfo.getTotalRating());
-        gameDto.setGameType(GameType.GAME);
+        gameDto.setGameType(similarInfo.getGameType() != null ? similarInfo.getGameType() : GameType.GAME);
+        gameDto.setFirstReleaseDate(similarInfo.getFirstReleaseDate());
         initializeEmptyCollections(gameDto);
-        gameDto.setFullDetails(false);
+        gameDto.setDetailLevel(GameDetailLevel.SUMMARY);
         return gameDto;
     }
 
@@ -545,151 +651,77 @@ public class GameService {
     }
 
     /**
-     * Obtiene una entidad GameMode existente por igdbId o crea una nueva si no existe.
-     * Actualiza el nombre si es diferente.
-     */
-    private GameMode getOrCreateGameMode(GameModeDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            return null;
-        }
-        return gameModeRepository.findByIgdbId(dto.getIgdbId())
-                .map(existingEntity -> {
-                    if (!Objects.equals(dto.getName(), existingEntity.getName())) {
-                        existingEntity.setName(dto.getName());
-                        return gameModeRepository.save(existingEntity); // Guardar si hay cambios
-                    }
-                    return existingEntity;
-                })
-                .orElseGet(() -> gameModeRepository.save(gameModeMapper.toEntity(dto)));
-    }
-
-    /**
-     * Obtiene una entidad Genre existente por igdbId o crea una nueva si no existe.
-     * Actualiza el nombre si es diferente.
+     * Resuelve todas las entidades que necesita la ingesta con una consulta {@code ...IgdbIdIn} por tipo
+     * (juegos e involucramientos) en lugar de una por DTO; las tablas de referencia pequeñas salen de
+     * {@link GameReferenceDataService} y las keywords y compañías se escriben con un upsert nativo en bloque
+     * ({@link CatalogUpsertRepository}).
      */
-    private Genre getOrCreateGenre(GenreDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            return null;
-        }
-        return genreRepository.findByIgdbId(dto.getIgdbId())
-                .map(existingEntity -> {
-                    if (!Objects.equals(dto.getName(), existingEntity.getName())) {
-                        existingEntity.setName(dto.getName());
-                        return genreRepository.save(existingEntity);
-                    }
-                    return existingEntity;
-                })
-                .orElseGet(() -> genreRepository.save(genreMapper.toEntity(dto)));
+    private void prefetchEntities(GameIngestionContext context) {
+        findInChunks(context.gameIds, gameRepository::findByIgdbIdIn).forEach(context::registerGame);
+
+        // Tablas de referencia pequeñas: se resuelven contra los diccionarios en memoria
+        context.gameModes.putAll(referenceDataService.resolveGameModes(context.gameModeDtos));
+        context.genres.putAll(referenceDataService.resolveGenres(context.genreDtos));
+        context.franchises.putAll(referenceDataService.resolveFranchises(context.franchiseDtos));
+        context.gameEngines.putAll(referenceDataService.resolveGameEngines(context.gameEngineDtos));
+        context.platforms.putAll(referenceDataService.resolvePlatforms(context.platformDtos));
+        context.themes.putAll(referenceDataService.resolveThemes(context.themeDtos));
+
+        // Keywords y compañías: upsert nativo en bloque, que devuelve directamente los internal_id
+        upsertReferenceEntities(context.keywordDtos, context.keywords, keywordMapper::toEntity,
+                catalogUpsertRepository::upsertKeywords, Keyword::getIgdbId, Keyword::setInternalId);
+        upsertReferenceEntities(context.companyDtos, context.companies, companyMapper::toEntity,
+                catalogUpsertRepository::upsertCompanies, Company::getIgdbId, Company::setInternalId);
+
+        findInChunks(context.involvementIds, gameCompanyInvolvementRepository::findByInvolvementIgdbIdIn)
+                .forEach(involvement -> context.involvements.put(involvement.getInvolvementIgdbId(), involvement));
+
+        logger.debug("Ingesta: precargados {} juegos (de {}), {} compañías y {} involucramientos existentes.",
+                context.games.size(), context.gameIds.size(), context.companies.size(), context.involvements.size());
     }
 
     /**
-     * Obtiene una entidad Franchise existente por igdbId o crea una nueva si no existe.
-     * Actualiza el nombre si es diferente.
+     * Inserta o actualiza un tipo de entidad de referencia con un único upsert nativo por bloque y deja en
+     * {@code resolved} las entidades construidas a partir de los DTOs con el internal_id devuelto.
+     * Son instancias desacopladas: solo se usan como extremo de una asociación, que no propaga persist/merge.
      */
-    private Franchise getOrCreateFranchise(FranchiseDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            return null;
+    private <D, E> void upsertReferenceEntities(Map<Long, D> dtosByIgdbId, Map<Long, E> resolved,
+                                                Function<D, E> creator,
+                                                Function<Collection<E>, Map<Long, Long>> upsert,
+                                                Function<E, Long> igdbIdOf,
+                                                BiConsumer<E, Long> internalIdSetter) {
+        if (dtosByIgdbId.isEmpty()) {
+            return;
+        }
+        List<E> entities = dtosByIgdbId.values().stream().map(creator).collect(Collectors.toList());
+        Map<Long, Long> internalIds = upsert.apply(entities);
+        for (E entity : entities) {
+            internalIdSetter.accept(entity, internalIds.get(igdbIdOf.apply(entity)));
+            resolved.put(igdbIdOf.apply(entity), entity);
         }
-        return franchiseRepository.findByIgdbId(dto.getIgdbId())
-                .map(existingEntity -> {
-                    if (!Objects.equals(dto.getName(), existingEntity.getName())) {
-                        existingEntity.setName(dto.getName());
-                        return franchiseRepository.save(existingEntity);
-                    }
-                    return existingEntity;
-                })
-                .orElseGet(() -> franchiseRepository.save(franchiseMapper.toEntity(dto)));
     }
 
     /**
-     * Obtiene una entidad GameEngine existente por igdbId o crea una nueva si no existe.
-     * Actualiza el nombre si es diferente.
+     * Ejecuta la consulta {@code ...In} en bloques de {@link #IN_QUERY_CHUNK_SIZE} IDs para no superar
+     * el límite de parámetros de PostgreSQL con grafos muy grandes.
      */
-    private GameEngine getOrCreateGameEngine(GameEngineDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            return null;
+    private static <E> List<E> findInChunks(Collection<Long> igdbIds, Function<Collection<Long>, List<E>> findByIdIn) {
+        List<E> found = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(igdbIds);
+        for (int from = 0; from < ids.size(); from += IN_QUERY_CHUNK_SIZE) {
+            found.addAll(findByIdIn.apply(ids.subList(from, Math.min(from + IN_QUERY_CHUNK_SIZE, ids.size()))));
         }
-        return gameEngineRepository.findByIgdbId(dto.getIgdbId())
-                .map(existingEntity -> {
-                    if (!Objects.equals(dto.getName(), existingEntity.getName())) {
-                        existingEntity.setName(dto.getName());
-                        return gameEngineRepository.save(existingEntity);
-                    }
-                    return existingEntity;
-                })
-                .orElseGet(() -> gameEngineRepository.save(gameEngineMapper.toEntity(dto)));
+        return found;
     }
 
-    /**
-     * Obtiene una entidad Keyword existente por igdbId o crea una nueva si no existe.
-     * Actualiza el nombre si es diferente.
-     */
-    private Keyword getOrCreateKeyword(KeywordDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            return null;
-        }
-        return keywordRepository.findByIgdbId(dto.getIgdbId())
-                .map(existingEntity -> {
-                    if (!Objects.equals(dto.getName(), existingEntity.getName())) {
-                        existingEntity.setName(dto.getName());
-                        return keywordRepository.save(existingEntity);
-                    }
-                    return existingEntity;
-                })
-                .orElseGet(() -> keywordRepository.save(keywordMapper.toEntity(dto)));
-    }
-
-    /**
-     * Obtiene una entidad Platform existente por igdbId o crea una nueva si no existe.
-     * Actualiza campos relevantes si son diferentes.
-     */
-    private Platform getOrCreatePlatform(PlatformDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            return null;
-        }
-        return platformRepository.findByIgdbId(dto.getIgdbId())
-                .map(existingEntity -> {
-                    boolean changed = false;
-                    if (!Objects.equals(dto.getName(), existingEntity.getName())) {
-                        existingEntity.setName(dto.getName());
-                        changed = true;
-                    }
-                    if (!Objects.equals(dto.getAlternativeName(), existingEntity.getAlternativeName())) {
-                        existingEntity.setAlternativeName(dto.getAlternativeName());
-                        changed = true;
-                    }
-
-                    PlatformLogoDto logoDto = dto.getPlatformLogo();
-                    PlatformLogo currentLogoEntity = existingEntity.getPlatformLogo();
-
-                    if (logoDto != null) {
-                        // Usa la instancia inyectada de PlatformLogoMapper
-                        PlatformLogo newLogoEntity = platformLogoMapper.toEntity(logoDto); // <--- CORREGIDO AQUÍ
-                        if (currentLogoEntity == null || !currentLogoEntity.equals(newLogoEntity)) {
-                            existingEntity.setPlatformLogo(newLogoEntity);
-                            changed = true;
-                        }
-                    } else if (currentLogoEntity != null) {
-                        existingEntity.setPlatformLogo(null);
-                        changed = true;
-                    }
-
-                    return changed ? platformRepository.save(existingEntity) : existingEntity;
-                })
-                .orElseGet(() -> {
-                    // Usa la instancia inyectada de PlatformMapper
-                    Platform newPlatform = platformMapper.toEntity(dto); // <--- CORREGIDO AQUÍ (usa la instancia de clase)
-                    return platformRepository.save(newPlatform);
-                });
-    }
-
-    private void processAssociatedManyToManyCollections(GameDto gameDto, Game gameEntity) {
+    private void processAssociatedManyToManyCollections(GameDto gameDto, Game gameEntity, GameIngestionContext context) {
         logger.debug("Procesando colecciones ManyToMany para el juego completo {}", gameEntity.getIgdbId());
 
         // GameModes
         if (gameDto.getGameModes() != null) {
             Set<GameMode> gameModesFromDto = gameDto.getGameModes().stream()
-                    .map(this::getOrCreateGameMode) // Usa el helper
+                    .filter(Objects::nonNull)
+                    .map(dto -> context.gameModes.get(dto.getIgdbId())) // Precargado en el contexto
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             if (!gameEntity.getGameModes().equals(gameModesFromDto)) {
@@ -704,7 +736,8 @@ public class GameService {
         // Genres
         if (gameDto.getGenres() != null) {
             Set<Genre> genresFromDto = gameDto.getGenres().stream()
-                    .map(this::getOrCreateGenre) // Usa el helper
+                    .filter(Objects::nonNull)
+                    .map(dto -> context.genres.get(dto.getIgdbId())) // Precargado en el contexto
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             if (!gameEntity.getGenres().equals(genresFromDto)) {
@@ -719,7 +752,8 @@ public class GameService {
         // Franchises
         if (gameDto.getFranchises() != null) {
             Set<Franchise> franchisesFromDto = gameDto.getFranchises().stream()
-                    .map(this::getOrCreateFranchise) // Usa el helper
+                    .filter(Objects::nonNull)
+                    .map(dto -> context.franchises.get(dto.getIgdbId())) // Precargado en el contexto
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             if (!gameEntity.getFranchises().equals(franchisesFromDto)) {
@@ -734,7 +768,8 @@ public class GameService {
         // GameEngines
         if (gameDto.getGameEngines() != null) {
             Set<GameEngine> gameEnginesFromDto = gameDto.getGameEngines().stream()
-                    .map(this::getOrCreateGameEngine) // Usa el helper
+                    .filter(Objects::nonNull)
+                    .map(dto -> context.gameEngines.get(dto.getIgdbId())) // Precargado en el contexto
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             if (!gameEntity.getGameEngines().equals(gameEnginesFromDto)) {
@@ -749,7 +784,8 @@ public class GameService {
         // Keywords
         if (gameDto.getKeywords() != null) {
             Set<Keyword> keywordsFromDto = gameDto.getKeywords().stream()
-                    .map(this::getOrCreateKeyword) // Usa el helper
+                    .filter(Objects::nonNull)
+                    .map(dto -> context.keywords.get(dto.getIgdbId())) // Precargado en el contexto
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             if (!gameEntity.getKeywords().equals(keywordsFromDto)) {
@@ -764,7 +800,8 @@ public class GameService {
         // Platforms
         if (gameDto.getPlatforms() != null) {
             Set<Platform> platformsFromDto = gameDto.getPlatforms().stream()
-                    .map(this::getOrCreatePlatform) // Usa el helper
+                    .filter(Objects::nonNull)
+                    .map(dto -> context.platforms.get(dto.getIgdbId())) // Precargado en el contexto
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             if (!gameEntity.getPlatforms().equals(platformsFromDto)) {
@@ -779,7 +816,8 @@ public class GameService {
         // Themes
         if (gameDto.getThemes() != null) {
             Set<Theme> themesFromDto = gameDto.getThemes().stream()
-                    .map(this::getOrCreateTheme) // Usa el helper
+                    .filter(Objects::nonNull)
+                    .map(dto -> context.themes.get(dto.getIgdbId())) // Precargado en el contexto
                     .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
             if (!gameEntity.getThemes().equals(themesFromDto)) {
@@ -793,59 +831,15 @@ public class GameService {
     }
 
 
-    /**
-     * Obtiene una entidad Theme existente por igdbId o crea una nueva si no existe.
-     * Actualiza el nombre si es diferente.
-     */
-    private Theme getOrCreateTheme(ThemeDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            return null;
-        }
-        return themeRepository.findByIgdbId(dto.getIgdbId())
-                .map(existingEntity -> {
-                    if (!Objects.equals(dto.getName(), existingEntity.getName())) {
-                        existingEntity.setName(dto.getName());
-                        return themeRepository.save(existingEntity);
-                    }
-                    return existingEntity;
-                })
-                .orElseGet(() -> themeRepository.save(themeMapper.toEntity(dto)));
-    }
-
-    private Company getOrCreateCompany(CompanyInfoDto dto) {
-        if (dto == null || dto.getIgdbId() == null) {
-            logger.warn("CompanyInfoDto nulo o sin IgdbId. No se puede procesar la compañía.");
-            return null;
-        }
-
-        Optional<Company> existingCompanyOpt = companyRepository.findByIgdbId(dto.getIgdbId());
-        Company companyEntity;
-
-        if (existingCompanyOpt.isPresent()) {
-            companyEntity = existingCompanyOpt.get();
-            if (!Objects.equals(companyEntity.getName(), dto.getName())) {
-                logger.debug("Actualizando nombre de Company existente IGDB ID: {} de '{}' a '{}'",
-                        dto.getIgdbId(), companyEntity.getName(), dto.getName());
-                companyEntity.setName(dto.getName());
-                return companyRepository.save(companyEntity); // Guardar si hay cambios
-            }
-        } else {
-            logger.debug("Creando nueva Company para IGDB ID: {}", dto.getIgdbId());
-            companyEntity = companyMapper.toEntity(dto);
-            return companyRepository.save(companyEntity); // Guardar nueva entidad
-        }
-        return companyEntity;
-    }
-
     // Helper para GameCompanyInvolvement (ya lo tenías definido o lo definimos ahora)
-    private GameCompanyInvolvement getOrCreateGameCompanyInvolvement(InvolvedCompanyDto invDto, Game gameEntity, Company companyEntity) {
+    private GameCompanyInvolvement getOrCreateGameCompanyInvolvement(InvolvedCompanyDto invDto, Game gameEntity, Company companyEntity, GameIngestionContext context) {
         if (invDto == null || invDto.getInvolvementIgdbId() == null || companyEntity == null || gameEntity == null) {
             logger.warn("Datos insuficientes para crear o actualizar GameCompanyInvolvement. invDto: {}, gameEntity: {}, companyEntity: {}",
                     invDto, gameEntity != null ? gameEntity.getIgdbId() : "null", companyEntity != null ? companyEntity.getIgdbId() : "null");
             return null;
         }
 
-        Optional<GameCompanyInvolvement> existingInvolvementOpt = gameCompanyInvolvementRepository.findByInvolvementIgdbId(invDto.getInvolvementIgdbId());
+        Optional<GameCompanyInvolvement> existingInvolvementOpt = Optional.ofNullable(context.involvements.get(invDto.getInvolvementIgdbId()));
         GameCompanyInvolvement involvementEntity;
 
         if (existingInvolvementOpt.isPresent()) {
@@ -896,12 +890,14 @@ public class GameService {
             newInvolvement.setPublisher(invDto.isPublisher());
             newInvolvement.setPorting(invDto.isPorting());
             newInvolvement.setSupporting(invDto.isSupporting());
-            return gameCompanyInvolvementRepository.save(newInvolvement);
+            GameCompanyInvolvement savedInvolvement = gameCompanyInvolvementRepository.save(newInvolvement);
+            context.involvements.put(savedInvolvement.getInvolvementIgdbId(), savedInvolvement);
+            return savedInvolvement;
         }
         return involvementEntity;
     }
 
-    private void processInvolvedCompanies(GameDto gameDto, Game gameEntity) {
+    private void processInvolvedCompanies(GameDto gameDto, Game gameEntity, GameIngestionContext context) {
         logger.debug("Procesando InvolvedCompanies para el juego {} (IGDB ID: {})", gameEntity.getName(), gameEntity.getIgdbId());
 
         // Si el DTO no trae información de compañías, y la entidad sí tiene,
@@ -931,8 +927,8 @@ public class GameService {
                 continue;
             }
 
-            // 1. Obtener o crear la entidad Company
-            Company companyEntity = getOrCreateCompany(companyInfoDto);
+            // 1. Obtener la entidad Company (ya creada o actualizada al precargar el contexto)
+            Company companyEntity = context.companies.get(companyInfoDto.getIgdbId());
             if (companyEntity == null) {
                 logger.warn("No se pudo obtener o crear la entidad Company para CompanyInfoDto con IGDB ID: {}. Saltando este InvolvedCompany.",
                         companyInfoDto.getIgdbId());
@@ -940,7 +936,7 @@ public class GameService {
             }
 
             // 2. Obtener o crear la entidad GameCompanyInvolvement
-            GameCompanyInvolvement involvementEntity = getOrCreateGameCompanyInvolvement(invDto, gameEntity, companyEntity);
+            GameCompanyInvolvement involvementEntity = getOrCreateGameCompanyInvolvement(invDto, gameEntity, companyEntity, context);
             if (involvementEntity != null) {
                 processedInvolvements.add(involvementEntity);
             }
@@ -974,6 +970,35 @@ public class GameService {
         return games;
     }
 
+    /**
+     * Busca juegos en la BD local por nombre y los devuelve con los mismos campos que una búsqueda en IGDB.
+     * Se usa como respaldo de la búsqueda cuando IGDB no está disponible.
+     */
+    @Transactional
+    public List<GameDto> searchLocalGamesByName(String name, int limit) {
+        String escapedName = name.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return gameRepository.searchByName(escapedName, PageRequest.of(0, limit)).stream()
+                .map(this::toSearchResultDto)
+                .collect(Collectors.toList());
+    }
+
+    private GameDto toSearchResultDto(Game game) {
+        GameDto gameDto = new GameDto();
+        gameDto.setIgdbId(game.getIgdbId());
+        gameDto.setName(game.getName());
+        gameDto.setSlug(game.getSlug());
+        gameDto.setSummary(game.getSummary());
+        gameDto.setCover(coverMapper.toDto(game.getCover()));
+        gameDto.setTotalRating(game.getTotalRating());
+        gameDto.setTotalRatingCount(game.getTotalRatingCount());
+        gameDto.setGameType(game.getGameType());
+        gameDto.setFirstReleaseDate(gameMapper.mapInstantToTimestamp(game.getFirstReleaseDate()));
+        gameDto.setFirstReleaseStatus(game.getFirstReleaseStatus());
+        initializeEmptyCollections(gameDto);
+        gameDto.setDetailLevel(game.getDetailLevel().isAtLeast(GameDetailLevel.SUMMARY) ? GameDetailLevel.SUMMARY : game.getDetailLevel());
+        return gameDto;
+    }
+
     public Game getGameByIgdbIdOriginal(Long igdbId) {
         return gameRepository.findByIgdbId(igdbId)
                 .map(game -> {
@@ -990,10 +1015,6 @@ public class GameService {
                     Hibernate.initialize(game.getPlatforms());
                     Hibernate.initialize(game.getGameEngines());
                     Hibernate.initialize(game.getFranchises());
-                    Hibernate.initialize(game.getArtworks());
-                    Hibernate.initialize(game.getScreenshots());
-                    Hibernate.initialize(game.getWebsites());
-                    Hibernate.initialize(game.getVideos());
                     return game;
                 })
                 .orElse(null);
@@ -0,0 +1,21 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * Respuesta de error (4xx/5xx) de la API de IGDB. Conserva el código de estado para que
+ * {@link IgdbResilience} distinga los fallos del servicio (5xx, 429) de los errores de la consulta.
+ */
+class IgdbApiException extends RuntimeException {
+
+    private final HttpStatusCode statusCode;
+
+    IgdbApiException(HttpStatusCode statusCode, String errorBody) {
+        super("IGDB API Error: " + statusCode + " - " + errorBody);
+        this.statusCode = statusCode;
+    }
+
+    HttpStatusCode getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,49 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.security.UserDetailsImpl;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Identifica a quién se le imputa una petición a IGDB para repartir la cuota de forma justa
+ * entre usuarios (ver {@link IgdbRequestScheduler}).
+ *
+ * @param key  clave de reparto: "user:&lt;publicId&gt;", "ip:&lt;dirección&gt;" o "system".
+ * @param type tipo de llamador, que determina su peso en el reparto.
+ */
+public record IgdbCaller(String key, Type type) {
+
+    public enum Type {
+        USER,
+        ANONYMOUS,
+        SYSTEM
+    }
+
+    /** Trabajo interno (tareas programadas, lotes que mezclan varios usuarios...). */
+    public static final IgdbCaller SYSTEM = new IgdbCaller("system", Type.SYSTEM);
+
+    /**
+     * Resuelve el llamador a partir de la petición HTTP en curso en este hilo: el usuario autenticado
+     * o, en endpoints públicos, la IP del cliente. Fuera de una petición HTTP devuelve {@link #SYSTEM}.
+     * Debe llamarse en el hilo del servlet, antes de pasar a hilos reactivos.
+     */
+    public static IgdbCaller current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+                return new IgdbCaller("user:" + userDetails.getPublicId(), Type.USER);
+            }
+            return new IgdbCaller("user:" + authentication.getName(), Type.USER);
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            return new IgdbCaller("ip:" + servletRequestAttributes.getRequest().getRemoteAddr(), Type.ANONYMOUS);
+        }
+        return SYSTEM;
+    }
+}
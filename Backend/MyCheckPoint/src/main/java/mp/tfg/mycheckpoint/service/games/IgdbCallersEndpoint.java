@@ -0,0 +1,31 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint de actuator ({@code /actuator/igdbcallers}) con el reparto de la cuota de IGDB por llamador.
+ * Las métricas de Micrometer solo se etiquetan por tipo de llamador para no disparar la cardinalidad;
+ * el detalle por usuario/IP se consulta aquí.
+ */
+@Component
+@Endpoint(id = "igdbcallers")
+public class IgdbCallersEndpoint {
+
+    private final IgdbRequestScheduler igdbRequestScheduler;
+
+    @Autowired
+    public IgdbCallersEndpoint(IgdbRequestScheduler igdbRequestScheduler) {
+        this.igdbRequestScheduler = igdbRequestScheduler;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> callers() {
+        return igdbRequestScheduler.callerSnapshot();
+    }
+}
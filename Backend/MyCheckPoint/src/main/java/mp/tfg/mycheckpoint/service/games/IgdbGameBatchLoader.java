@@ -0,0 +1,121 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Agrupa las búsquedas de juegos por IGDB ID que llegan dentro de una ventana corta de tiempo
+ * y las resuelve con una sola consulta {@code where id = (a,b,c,...)} por bloque de hasta 500 IDs
+ * (o con una multiquery de varios bloques si la ventana acumula más).
+ * Cada llamador recibe su propio {@link Mono} con el juego que le corresponde (o vacío si IGDB no lo devuelve).
+ * <p>
+ * La consulta se imputa al llamador ({@link IgdbCaller}) de las búsquedas del bloque si todas son suyas;
+ * si el bloque mezcla varios llamadores se imputa a {@link IgdbCaller#SYSTEM}.
+ */
+class IgdbGameBatchLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgdbGameBatchLoader.class);
+
+    /** Máximo de IDs que IGDB acepta en una consulta (y valor máximo de "limit"). */
+    static final int IGDB_MAX_IDS_PER_QUERY = 500;
+    /** Máximo de IDs que se resuelven en un solo viaje a IGDB: 500 por sub-consulta de una multiquery. */
+    static final int MAX_IDS_PER_ROUND_TRIP = IGDB_MAX_IDS_PER_QUERY * IgdbMultiQuery.MAX_QUERIES;
+    private static final int MAX_CONCURRENT_BATCHES = 4;
+
+    private final BiFunction<List<Long>, IgdbCaller, Flux<GameDto>> batchFetcher;
+    private final Duration window;
+    private final int batchSize;
+    // Se sustituye (con su pipeline) si el pipeline anterior termina con error
+    private volatile Sinks.Many<PendingLookup> pendingLookups;
+
+    /**
+     * @param batchFetcher función que consulta IGDB para un bloque de IDs (ya deduplicados)
+     *                     en nombre del llamador indicado.
+     * @param window       tiempo máximo que una búsqueda espera a que se le unan otras.
+     * @param maxBatchSize tamaño máximo del bloque (se limita a {@link #MAX_IDS_PER_ROUND_TRIP}).
+     */
+    IgdbGameBatchLoader(BiFunction<List<Long>, IgdbCaller, Flux<GameDto>> batchFetcher, Duration window, int maxBatchSize) {
+        this.batchFetcher = batchFetcher;
+        this.window = window;
+        this.batchSize = Math.max(1, Math.min(maxBatchSize, MAX_IDS_PER_ROUND_TRIP));
+        startPipeline();
+    }
+
+    /**
+     * Crea la cola de búsquedas y su pipeline. {@code bufferTimeout} con backpressure justo solo cierra un bloque
+     * cuando hay demanda, así que si ya hay {@link #MAX_CONCURRENT_BATCHES} bloques en curso las búsquedas
+     * esperan en la cola (sin límite) en lugar de desbordar el buffer. Cada bloque recoge sus propios errores;
+     * si aun así el pipeline termina con error, se arranca uno nuevo para las búsquedas siguientes
+     * (las que estaban en la cola anterior terminan por el timeout del llamador).
+     */
+    private void startPipeline() {
+        Sinks.Many<PendingLookup> sink = Sinks.many().unicast().onBackpressureBuffer();
+        pendingLookups = sink;
+        sink.asFlux()
+                .bufferTimeout(batchSize, window, true)
+                .flatMap(this::executeBatch, MAX_CONCURRENT_BATCHES)
+                .subscribe(null, error -> {
+                    logger.error("El agrupador de búsquedas de juegos en IGDB se ha detenido por un error. Reiniciándolo: {}", error.getMessage(), error);
+                    startPipeline();
+                });
+    }
+
+    /**
+     * Encola la búsqueda de un juego. El llamador se resuelve aquí, en el hilo que invoca el método.
+     * El {@link Mono} devuelto no tiene timeout propio: el llamador debe acotarlo
+     * ({@link IgdbResilience#withTimeout}).
+     */
+    Mono<GameDto> load(Long igdbId) {
+        IgdbCaller caller = IgdbCaller.current();
+        return Mono.defer(() -> {
+            PendingLookup lookup = new PendingLookup(igdbId, caller, Sinks.one());
+            // Varios hilos pueden emitir a la vez: reintentar brevemente si el sink está ocupado.
+            pendingLookups.emitNext(lookup, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            return lookup.result().asMono();
+        });
+    }
+
+    private Mono<Void> executeBatch(List<PendingLookup> batch) {
+        Set<Long> distinctIds = new LinkedHashSet<>();
+        batch.forEach(lookup -> distinctIds.add(lookup.igdbId()));
+        IgdbCaller firstCaller = batch.get(0).caller();
+        boolean singleCaller = batch.stream().allMatch(lookup -> lookup.caller().equals(firstCaller));
+        IgdbCaller caller = singleCaller ? firstCaller : IgdbCaller.SYSTEM;
+        logger.debug("Resolviendo {} búsquedas de juegos ({} IDs distintos) con una sola consulta a IGDB.", batch.size(), distinctIds.size());
+
+        // defer: un fallo síncrono al preparar la consulta se trata como el resto de errores del bloque
+        return Flux.defer(() -> batchFetcher.apply(List.copyOf(distinctIds), caller))
+                .collectMap(GameDto::getIgdbId, Function.identity(), HashMap::new)
+                .doOnNext(gamesById -> completeAll(batch, gamesById))
+                .doOnError(error -> batch.forEach(lookup -> lookup.result().tryEmitError(error)))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private void completeAll(List<PendingLookup> batch, Map<Long, GameDto> gamesById) {
+        for (PendingLookup lookup : batch) {
+            GameDto game = gamesById.get(lookup.igdbId());
+            if (game != null) {
+                lookup.result().tryEmitValue(game);
+            } else {
+                lookup.result().tryEmitEmpty();
+            }
+        }
+    }
+
+    private record PendingLookup(Long igdbId, IgdbCaller caller, Sinks.One<GameDto> result) {
+    }
+}
@@ -0,0 +1,228 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodifica respuestas JSON de IGDB de forma incremental, directamente sobre los {@link DataBuffer}
+ * que llegan de Netty, con el parser no bloqueante de Jackson. Cada elemento se emite en cuanto se cierra
+ * su objeto, sin esperar al resto del cuerpo, y solo se retienen en memoria los tokens del elemento en curso
+ * (como mucho {@code maxElementBytes}).
+ * <p>
+ * Soporta dos formas de respuesta:
+ * <ul>
+ *     <li>Un array de resultados ({@code /games}, etc.): se emite cada elemento del array.</li>
+ *     <li>Una respuesta de {@code /multiquery} ({@code [{"name": ..., "result": [...]}, ...]}): se emite cada
+ *     elemento de cada "result" junto con el nombre de su sub-consulta. Los resultados de tipo objeto
+ *     (sub-consultas /count) se emiten enteros.</li>
+ * </ul>
+ */
+class IgdbJsonStreamDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgdbJsonStreamDecoder.class);
+
+    private final ObjectMapper objectMapper;
+    private final int maxElementBytes;
+
+    IgdbJsonStreamDecoder(ObjectMapper objectMapper, int maxElementBytes) {
+        this.objectMapper = objectMapper;
+        this.maxElementBytes = maxElementBytes;
+    }
+
+    /** Elementos de un array JSON, convertidos a {@code type} según se completan. */
+    <T> Flux<T> decodeArray(Flux<DataBuffer> body, Class<T> type) {
+        return decodeElements(body, false).map(element -> readValue(element.tokens(), type));
+    }
+
+    /** Elementos de una respuesta de {@code /multiquery}, sin convertir, con el nombre de su sub-consulta. */
+    Flux<DecodedElement> decodeMultiquery(Flux<DataBuffer> body) {
+        return decodeElements(body, true);
+    }
+
+    <T> T readValue(TokenBuffer tokens, Class<T> type) {
+        try (JsonParser parser = tokens.asParser(objectMapper)) {
+            return objectMapper.readValue(parser, type);
+        } catch (IOException e) {
+            throw new DecodingException("No se pudo convertir la respuesta de IGDB a " + type.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Flux<DecodedElement> decodeElements(Flux<DataBuffer> body, boolean multiquery) {
+        return Flux.defer(() -> {
+            StreamState state = new StreamState(multiquery);
+            return body.concatMapIterable(state::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(state.endOfInput())))
+                    .doFinally(signal -> state.close())
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    /**
+     * Un elemento ya completo.
+     *
+     * @param queryName   nombre de la sub-consulta (null fuera de una multiquery).
+     * @param wholeResult true si el elemento es el "result" completo de una sub-consulta (ej. un /count).
+     * @param tokens      tokens del elemento, listos para convertirse con {@link #readValue}.
+     */
+    record DecodedElement(String queryName, boolean wholeResult, TokenBuffer tokens) {
+    }
+
+    /** Estado del parser para una respuesta. Se usa siempre desde un único hilo a la vez (concatMap). */
+    private final class StreamState {
+        private final boolean multiquery;
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+
+        // Profundidad de anidamiento antes de procesar el token actual (0 = fuera de todo valor)
+        private int depth;
+
+        // Elemento en construcción
+        private TokenBuffer element;
+        private int elementDepth;
+        private boolean elementIsWholeResult;
+        private long elementStartOffset;
+
+        // Solo multiquery: sub-consulta actual
+        private String queryName;
+        private String currentField;
+        private boolean insideResultArray;
+        private List<DecodedElement> unnamedElements = new ArrayList<>();
+
+        StreamState(boolean multiquery) {
+            this.multiquery = multiquery;
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new DecodingException("No se pudo crear el parser JSON no bloqueante", e);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        List<DecodedElement> feed(DataBuffer buffer) {
+            try {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                feeder.feedInput(bytes, 0, bytes.length);
+                return drainTokens();
+            } catch (IOException e) {
+                throw new DecodingException("Respuesta JSON de IGDB no válida: " + e.getMessage(), e);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        List<DecodedElement> endOfInput() {
+            try {
+                feeder.endOfInput();
+                List<DecodedElement> decoded = drainTokens();
+                if (depth != 0 || element != null) {
+                    throw new DecodingException("Respuesta JSON de IGDB incompleta");
+                }
+                return decoded;
+            } catch (IOException e) {
+                throw new DecodingException("Respuesta JSON de IGDB no válida: " + e.getMessage(), e);
+            }
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                logger.debug("Error cerrando el parser JSON de IGDB: {}", e.getMessage());
+            }
+        }
+
+        private List<DecodedElement> drainTokens() throws IOException {
+            List<DecodedElement> decoded = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (element == null && isElementStart(token)) {
+                    element = new TokenBuffer(parser);
+                    elementDepth = depth;
+                    elementIsWholeResult = multiquery && !insideResultArray;
+                    elementStartOffset = parser.currentTokenLocation().getByteOffset();
+                }
+                if (element != null) {
+                    element.copyCurrentEvent(parser);
+                    depth += depthChange(token);
+                    if (depth == elementDepth) {
+                        completeElement(decoded);
+                    } else if (parser.currentLocation().getByteOffset() - elementStartOffset > maxElementBytes) {
+                        throw new DataBufferLimitException("Elemento de la respuesta de IGDB mayor de " + maxElementBytes + " bytes");
+                    }
+                    continue;
+                }
+                if (multiquery) {
+                    trackMultiqueryStructure(token, decoded);
+                }
+                depth += depthChange(token);
+            }
+            return decoded;
+        }
+
+        private boolean isElementStart(JsonToken token) {
+            if (!multiquery) {
+                // Elementos del array raíz; si la raíz no es un array, la raíz entera es el único elemento.
+                return (depth == 1 && token != JsonToken.END_ARRAY) || (depth == 0 && token != JsonToken.START_ARRAY);
+            }
+            if (insideResultArray) {
+                return depth == 3 && token != JsonToken.END_ARRAY;
+            }
+            // "result" que no es un array (sub-consultas /count): el objeto entero es el elemento.
+            return depth == 2 && "result".equals(currentField) && token == JsonToken.START_OBJECT;
+        }
+
+        private void trackMultiqueryStructure(JsonToken token, List<DecodedElement> decoded) throws IOException {
+            if (depth == 1 && token == JsonToken.START_OBJECT) {
+                queryName = null;
+                currentField = null;
+            } else if (depth == 2 && token == JsonToken.FIELD_NAME) {
+                currentField = parser.currentName();
+            } else if (depth == 2 && token == JsonToken.VALUE_STRING && "name".equals(currentField)) {
+                queryName = parser.getText();
+                // Resultados que llegaron antes que el nombre (IGDB suele enviar primero "name")
+                unnamedElements.forEach(pending -> decoded.add(new DecodedElement(queryName, pending.wholeResult(), pending.tokens())));
+                unnamedElements = new ArrayList<>();
+            } else if (depth == 2 && token == JsonToken.START_ARRAY && "result".equals(currentField)) {
+                insideResultArray = true;
+            } else if (depth == 3 && token == JsonToken.END_ARRAY && insideResultArray) {
+                insideResultArray = false;
+            } else if (depth == 2 && token == JsonToken.END_OBJECT && !unnamedElements.isEmpty()) {
+                logger.warn("Sub-consulta de IGDB sin nombre en la respuesta de multiquery. Se descartan {} elementos.", unnamedElements.size());
+                unnamedElements = new ArrayList<>();
+            }
+        }
+
+        private void completeElement(List<DecodedElement> decoded) {
+            DecodedElement completed = new DecodedElement(queryName, elementIsWholeResult, element);
+            element = null;
+            if (multiquery && queryName == null) {
+                unnamedElements.add(completed);
+            } else {
+                decoded.add(completed);
+            }
+        }
+
+        private int depthChange(JsonToken token) {
+            return switch (token) {
+                case START_OBJECT, START_ARRAY -> 1;
+                case END_OBJECT, END_ARRAY -> -1;
+                default -> 0;
+            };
+        }
+    }
+}
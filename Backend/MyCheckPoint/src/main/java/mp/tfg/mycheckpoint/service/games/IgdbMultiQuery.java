@@ -0,0 +1,84 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de sub-consultas con nombre que se envían juntas al endpoint {@code /multiquery} de IGDB,
+ * de modo que varias consultas se resuelven en un solo viaje de ida y vuelta. IGDB admite como máximo
+ * {@value #MAX_QUERIES} sub-consultas por petición.
+ * <p>
+ * Ejemplo:
+ * <pre>{@code
+ * IgdbMultiQuery query = IgdbMultiQuery.create()
+ *         .query("bloque-0", "games", "fields name; where id = (1942, 1020); limit 500;")
+ *         .query("bloque-1", "games", "fields name; where id = (1074, 7346); limit 500;");
+ * }</pre>
+ * Los elementos de todas las sub-consultas se reciben juntos con {@link IgdbService#multiqueryElements}.
+ * <p>
+ * Solo se usa para sub-consultas del mismo tipo (las búsquedas de juegos por IDs en bloques del cargador por
+ * lotes, el refresco y la sincronización). La vista de detalle y el enriquecimiento piden un único juego con
+ * sus DLCs, expansiones, juegos similares y demás relaciones ya expandidos en la misma consulta, así que ya
+ * son un solo viaje y no hay resultados de tipos distintos que separar por nombre.
+ */
+public final class IgdbMultiQuery {
+
+    public static final int MAX_QUERIES = 10;
+
+    private final Map<String, SubQuery> queries = new LinkedHashMap<>();
+
+    private IgdbMultiQuery() {
+    }
+
+    public static IgdbMultiQuery create() {
+        return new IgdbMultiQuery();
+    }
+
+    /**
+     * Añade una sub-consulta que devuelve resultados.
+     *
+     * @param name     nombre único con el que se recuperará el resultado.
+     * @param endpoint endpoint de IGDB sin barra inicial (ej. "games", "platforms").
+     * @param body     cuerpo APICALYPSE de la consulta (fields, where, limit...).
+     */
+    public IgdbMultiQuery query(String name, String endpoint, String body) {
+        if (name == null || name.isBlank() || name.contains("\"")) {
+            throw new IllegalArgumentException("Nombre de sub-consulta de IGDB no válido: " + name);
+        }
+        if (queries.containsKey(name)) {
+            throw new IllegalArgumentException("Sub-consulta de IGDB duplicada: " + name);
+        }
+        if (queries.size() >= MAX_QUERIES) {
+            throw new IllegalStateException("IGDB admite como máximo " + MAX_QUERIES + " sub-consultas por multiquery.");
+        }
+        queries.put(name, new SubQuery(endpoint, body.trim()));
+        return this;
+    }
+
+    /** Nombres de las sub-consultas, en el orden en que se añadieron. */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(queries.keySet());
+    }
+
+    public boolean isEmpty() {
+        return queries.isEmpty();
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    /** Cuerpo de la petición a {@code /multiquery}. */
+    String toRequestBody() {
+        StringBuilder body = new StringBuilder();
+        queries.forEach((name, subQuery) -> body
+                .append("query ").append(subQuery.endpoint()).append(" \"").append(name).append("\" {\n")
+                .append(subQuery.body()).append("\n};\n"));
+        return body.toString();
+    }
+
+    private record SubQuery(String endpoint, String body) {
+    }
+}
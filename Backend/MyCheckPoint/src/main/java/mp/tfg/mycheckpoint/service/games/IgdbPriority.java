@@ -0,0 +1,11 @@
+package mp.tfg.mycheckpoint.service.games;
+
+/**
+ * Prioridad de una petición saliente a IGDB. Las peticiones INTERACTIVE (búsquedas, vistas de detalle,
+ * añadir a la biblioteca) siempre se despachan antes que las BACKGROUND (enriquecimiento, refrescos).
+ * El orden de declaración es el orden de prioridad.
+ */
+public enum IgdbPriority {
+    INTERACTIVE,
+    BACKGROUND
+}
@@ -0,0 +1,462 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import mp.tfg.mycheckpoint.exception.ExternalServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Planificador compartido de todo el tráfico saliente hacia IGDB (se registra como filtro del
+ * WebClient {@code igdbWebClient}).
+ * <ul>
+ *     <li>Ritmo: token bucket de {@code igdb.rate-limit.requests-per-second} con ráfagas de hasta {@code burst}.</li>
+ *     <li>Concurrencia: como mucho {@code max-concurrent} peticiones abiertas a la vez.</li>
+ *     <li>Cola: las peticiones que no pueden salir esperan en un carril por {@link IgdbPriority};
+ *     siempre se despacha antes el carril de mayor prioridad. La cola está acotada
+ *     ({@code max-queue-size}) y la espera también ({@code max-wait}); si se supera cualquiera de los
+ *     dos límites la petición falla con {@link ExternalServiceUnavailableException}.</li>
+ *     <li>Reparto justo: dentro de cada carril hay una subcola por llamador ({@link IgdbCaller}) y se
+ *     atienden por turnos ponderados (weighted round robin): en cada turno un llamador puede enviar tantas
+ *     peticiones como su peso. Así un usuario que lanza muchas búsquedas solo retrasa las suyas.</li>
+ * </ul>
+ * La prioridad se indica con el atributo de petición {@link #PRIORITY_ATTRIBUTE} (por defecto INTERACTIVE)
+ * y el llamador con {@link #CALLER_ATTRIBUTE} (por defecto {@link IgdbCaller#SYSTEM}).
+ */
+@Component
+public class IgdbRequestScheduler implements ExchangeFilterFunction {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgdbRequestScheduler.class);
+
+    public static final String PRIORITY_ATTRIBUTE = IgdbRequestScheduler.class.getName() + ".priority";
+    public static final String CALLER_ATTRIBUTE = IgdbRequestScheduler.class.getName() + ".caller";
+
+    private final double permitsPerSecond;
+    private final double burstCapacity;
+    private final int maxConcurrentRequests;
+    private final int maxQueueSize;
+    private final Duration maxWait;
+    private final Map<IgdbCaller.Type, Integer> callerWeights = new EnumMap<>(IgdbCaller.Type.class);
+
+    // Todo el estado mutable del planificador se protege con este lock.
+    private final Object lock = new Object();
+    private final Map<IgdbPriority, FairLane> lanes = new EnumMap<>(IgdbPriority.class);
+    private double availableTokens;
+    private long lastRefillNanos;
+    private int inFlightRequests;
+    private int queuedRequests;
+    private boolean drainScheduled;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "igdb-request-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<IgdbPriority, Timer> waitTimers = new EnumMap<>(IgdbPriority.class);
+    private final Map<IgdbCaller.Type, Timer> callerTypeWaitTimers = new EnumMap<>(IgdbCaller.Type.class);
+    // Estadísticas por llamador (acotadas: solo los más recientes), expuestas en /actuator/igdbcallers
+    private final Cache<String, CallerStats> callerStats = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedWaitTimeout;
+
+    @Autowired
+    public IgdbRequestScheduler(MeterRegistry meterRegistry,
+                                @Value("${igdb.rate-limit.requests-per-second:4}") double permitsPerSecond,
+                                @Value("${igdb.rate-limit.burst:4}") int burstCapacity,
+                                @Value("${igdb.rate-limit.max-concurrent:8}") int maxConcurrentRequests,
+                                @Value("${igdb.rate-limit.max-queue-size:200}") int maxQueueSize,
+                                @Value("${igdb.rate-limit.max-wait:PT10S}") Duration maxWait,
+                                @Value("${igdb.fair-queue.user-weight:2}") int userWeight,
+                                @Value("${igdb.fair-queue.anonymous-weight:1}") int anonymousWeight,
+                                @Value("${igdb.fair-queue.system-weight:1}") int systemWeight) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burstCapacity = Math.max(1, burstCapacity);
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+        this.maxQueueSize = maxQueueSize;
+        this.maxWait = maxWait;
+        this.availableTokens = this.burstCapacity;
+        this.lastRefillNanos = System.nanoTime();
+        callerWeights.put(IgdbCaller.Type.USER, Math.max(1, userWeight));
+        callerWeights.put(IgdbCaller.Type.ANONYMOUS, Math.max(1, anonymousWeight));
+        callerWeights.put(IgdbCaller.Type.SYSTEM, Math.max(1, systemWeight));
+
+        for (IgdbPriority priority : IgdbPriority.values()) {
+            FairLane lane = new FairLane();
+            lanes.put(priority, lane);
+            String laneTag = priority.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("igdb.scheduler.queue.depth", lane, this::laneSize)
+                    .description("Peticiones a IGDB esperando turno")
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("igdb.scheduler.wait")
+                    .description("Tiempo de espera en cola antes de enviar la petición a IGDB")
+                    .tag("lane", laneTag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+        for (IgdbCaller.Type callerType : IgdbCaller.Type.values()) {
+            callerTypeWaitTimers.put(callerType, Timer.builder("igdb.scheduler.caller.wait")
+                    .description("Tiempo de espera en cola por tipo de llamador")
+                    .tag("caller_type", callerType.name().toLowerCase(Locale.ROOT))
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("igdb.scheduler.callers.active", this,
+                        scheduler -> scheduler.snapshot(() -> scheduler.lanes.values().stream().mapToInt(FairLane::activeCallers).sum()))
+                .description("Llamadores distintos con peticiones a IGDB en cola")
+                .register(meterRegistry);
+        Gauge.builder("igdb.scheduler.in-flight", this, scheduler -> scheduler.snapshot(() -> scheduler.inFlightRequests))
+                .description("Peticiones a IGDB en curso")
+                .register(meterRegistry);
+        rejectedQueueFull = Counter.builder("igdb.scheduler.rejected").tag("reason", "queue_full").register(meterRegistry);
+        rejectedWaitTimeout = Counter.builder("igdb.scheduler.rejected").tag("reason", "wait_timeout").register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        IgdbPriority priority = request.attribute(PRIORITY_ATTRIBUTE)
+                .map(IgdbPriority.class::cast)
+                .orElse(IgdbPriority.INTERACTIVE);
+        IgdbCaller caller = request.attribute(CALLER_ATTRIBUTE)
+                .map(IgdbCaller.class::cast)
+                .orElse(IgdbCaller.SYSTEM);
+        // La respuesta llega en cuanto se reciben las cabeceras, pero la conexión sigue ocupada hasta leer el
+        // cuerpo: el permiso se libera cuando el cuerpo termina (completo, con error o cancelado), o antes si la
+        // petición falla o se cancela sin respuesta. WebClient siempre consume o libera el cuerpo.
+        return Mono.usingWhen(acquirePermit(priority, caller),
+                permit -> next.exchange(request)
+                        .map(response -> response.mutate()
+                                .body(body -> body.doFinally(signal -> permit.release()))
+                                .build()),
+                permit -> Mono.empty(),
+                (permit, error) -> Mono.fromRunnable(permit::release),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    private Mono<Permit> acquirePermit(IgdbPriority priority, IgdbCaller caller) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(priority, caller, sink);
+            waiter.timeoutTask = timer.schedule(() -> expire(waiter), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            boolean queueFull;
+            synchronized (lock) {
+                queueFull = queuedRequests >= maxQueueSize;
+                if (!queueFull) {
+                    lanes.get(priority).add(waiter);
+                    queuedRequests++;
+                }
+            }
+            if (queueFull) {
+                waiter.timeoutTask.cancel(false);
+                rejectedQueueFull.increment();
+                statsFor(caller).rejected.increment();
+                logger.warn("Cola de peticiones a IGDB llena ({} en espera). Rechazando petición {} de {}.", maxQueueSize, priority, caller.key());
+                sink.error(new ExternalServiceUnavailableException("El servicio de juegos está saturado. Inténtalo de nuevo en unos segundos."));
+                return;
+            }
+            sink.onCancel(() -> abandon(waiter));
+            drain();
+        });
+    }
+
+    /**
+     * Despacha todas las peticiones en cola que quepan ahora mismo (tokens y concurrencia) y, si quedan
+     * peticiones esperando solo por falta de tokens, programa el siguiente intento para cuando haya uno.
+     */
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (lock) {
+            refillTokens();
+            while (inFlightRequests < maxConcurrentRequests && availableTokens >= 1.0) {
+                Waiter next = pollNextWaiter();
+                if (next == null) {
+                    break;
+                }
+                if (!next.state.compareAndSet(Waiter.WAITING, Waiter.GRANTED)) {
+                    continue; // Caducada o cancelada mientras estaba en cola
+                }
+                availableTokens -= 1.0;
+                inFlightRequests++;
+                granted.add(next);
+            }
+            if (queuedRequests > 0 && !drainScheduled
+                    && inFlightRequests < maxConcurrentRequests && availableTokens < 1.0) {
+                long delayNanos = (long) Math.ceil((1.0 - availableTokens) / permitsPerSecond * 1_000_000_000L);
+                drainScheduled = true;
+                timer.schedule(() -> {
+                    synchronized (lock) {
+                        drainScheduled = false;
+                    }
+                    drain();
+                }, delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        // Se entrega fuera del lock: el suscriptor lanza la petición HTTP en este mismo hilo.
+        granted.forEach(Waiter::deliver);
+    }
+
+    private void refillTokens() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        availableTokens = Math.min(burstCapacity, availableTokens + elapsedSeconds * permitsPerSecond);
+        lastRefillNanos = now;
+    }
+
+    private Waiter pollNextWaiter() {
+        for (FairLane lane : lanes.values()) { // EnumMap: itera en orden de prioridad
+            Waiter waiter = lane.poll();
+            if (waiter != null) {
+                queuedRequests--;
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    private void expire(Waiter waiter) {
+        if (!waiter.state.compareAndSet(Waiter.WAITING, Waiter.EXPIRED)) {
+            return;
+        }
+        removeFromLane(waiter);
+        rejectedWaitTimeout.increment();
+        statsFor(waiter.caller).rejected.increment();
+        logger.warn("Petición {} a IGDB de {} descartada tras esperar {} en cola.", waiter.priority, waiter.caller.key(), maxWait);
+        waiter.sink.error(new ExternalServiceUnavailableException("El servicio de juegos está saturado. Inténtalo de nuevo en unos segundos."));
+    }
+
+    private void abandon(Waiter waiter) {
+        if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+            waiter.timeoutTask.cancel(false);
+            removeFromLane(waiter);
+        } else if (waiter.state.get() == Waiter.GRANTED) {
+            // Cancelada justo cuando se le concedía el turno: puede que el permiso no llegue a usarse.
+            waiter.permit.release();
+        }
+    }
+
+    private void removeFromLane(Waiter waiter) {
+        synchronized (lock) {
+            if (lanes.get(waiter.priority).remove(waiter)) {
+                queuedRequests--;
+            }
+        }
+    }
+
+    private void onPermitReleased() {
+        synchronized (lock) {
+            inFlightRequests--;
+        }
+        drain();
+    }
+
+    private double laneSize(FairLane lane) {
+        synchronized (lock) {
+            return lane.size();
+        }
+    }
+
+    private CallerStats statsFor(IgdbCaller caller) {
+        return callerStats.get(caller.key(), key -> new CallerStats(caller.type()));
+    }
+
+    /**
+     * Instantánea del reparto por llamador: peticiones en cola ahora mismo, atendidas, rechazadas
+     * y tiempos de espera. Ordenada por peticiones en cola (y después por atendidas) de mayor a menor.
+     */
+    public List<Map<String, Object>> callerSnapshot() {
+        Map<String, Integer> queuedByCaller = new HashMap<>();
+        synchronized (lock) {
+            lanes.values().forEach(lane -> lane.queuedByCaller(queuedByCaller));
+        }
+        List<Map<String, Object>> snapshot = new ArrayList<>();
+        callerStats.asMap().forEach((key, stats) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            long served = stats.served.sum();
+            entry.put("caller", key);
+            entry.put("type", stats.type.name());
+            entry.put("weight", callerWeights.get(stats.type));
+            entry.put("queued", queuedByCaller.getOrDefault(key, 0));
+            entry.put("served", served);
+            entry.put("rejected", stats.rejected.sum());
+            entry.put("avgWaitMs", served == 0 ? 0 : stats.totalWaitNanos.sum() / served / 1_000_000);
+            entry.put("maxWaitMs", stats.maxWaitNanos.get() / 1_000_000);
+            snapshot.add(entry);
+        });
+        snapshot.sort(Comparator.<Map<String, Object>>comparingInt(entry -> (Integer) entry.get("queued"))
+                .thenComparingLong(entry -> (Long) entry.get("served"))
+                .reversed());
+        return snapshot;
+    }
+
+    private double snapshot(IntSupplier value) {
+        synchronized (lock) {
+            return value.getAsInt();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private final class Waiter {
+        static final int WAITING = 0;
+        static final int GRANTED = 1;
+        static final int EXPIRED = 2;
+        static final int CANCELLED = 3;
+
+        final IgdbPriority priority;
+        final IgdbCaller caller;
+        final MonoSink<Permit> sink;
+        final long enqueuedAtNanos = System.nanoTime();
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        final Permit permit = new Permit();
+        volatile ScheduledFuture<?> timeoutTask;
+
+        Waiter(IgdbPriority priority, IgdbCaller caller, MonoSink<Permit> sink) {
+            this.priority = priority;
+            this.caller = caller;
+            this.sink = sink;
+        }
+
+        int weight() {
+            return callerWeights.get(caller.type());
+        }
+
+        void deliver() {
+            timeoutTask.cancel(false);
+            long waitedNanos = System.nanoTime() - enqueuedAtNanos;
+            waitTimers.get(priority).record(waitedNanos, TimeUnit.NANOSECONDS);
+            callerTypeWaitTimers.get(caller.type()).record(waitedNanos, TimeUnit.NANOSECONDS);
+            CallerStats stats = statsFor(caller);
+            stats.served.increment();
+            stats.totalWaitNanos.add(waitedNanos);
+            stats.maxWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+            sink.success(permit);
+        }
+    }
+
+    /**
+     * Carril de una prioridad con una subcola FIFO por llamador. Los llamadores con peticiones pendientes
+     * forman un anillo; el primero del anillo puede enviar hasta "peso" peticiones seguidas y después pasa
+     * al final. Solo se usa con el lock del planificador tomado.
+     */
+    private static final class FairLane {
+        private final Map<String, Deque<Waiter>> queuesByCaller = new HashMap<>();
+        private final Deque<String> turnOrder = new ArrayDeque<>();
+        private int servedInCurrentTurn;
+        private int size;
+
+        void add(Waiter waiter) {
+            Deque<Waiter> callerQueue = queuesByCaller.get(waiter.caller.key());
+            if (callerQueue == null) {
+                callerQueue = new ArrayDeque<>();
+                queuesByCaller.put(waiter.caller.key(), callerQueue);
+                turnOrder.addLast(waiter.caller.key());
+            }
+            callerQueue.addLast(waiter);
+            size++;
+        }
+
+        Waiter poll() {
+            String callerKey = turnOrder.peekFirst();
+            if (callerKey == null) {
+                return null;
+            }
+            Deque<Waiter> callerQueue = queuesByCaller.get(callerKey);
+            Waiter waiter = callerQueue.pollFirst();
+            size--;
+            servedInCurrentTurn++;
+            if (callerQueue.isEmpty()) {
+                queuesByCaller.remove(callerKey);
+                turnOrder.pollFirst();
+                servedInCurrentTurn = 0;
+            } else if (servedInCurrentTurn >= waiter.weight()) {
+                turnOrder.addLast(turnOrder.pollFirst());
+                servedInCurrentTurn = 0;
+            }
+            return waiter;
+        }
+
+        boolean remove(Waiter waiter) {
+            String callerKey = waiter.caller.key();
+            Deque<Waiter> callerQueue = queuesByCaller.get(callerKey);
+            if (callerQueue == null || !callerQueue.remove(waiter)) {
+                return false;
+            }
+            size--;
+            if (callerQueue.isEmpty()) {
+                queuesByCaller.remove(callerKey);
+                if (callerKey.equals(turnOrder.peekFirst())) {
+                    servedInCurrentTurn = 0;
+                }
+                turnOrder.remove(callerKey);
+            }
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int activeCallers() {
+            return queuesByCaller.size();
+        }
+
+        void queuedByCaller(Map<String, Integer> accumulator) {
+            queuesByCaller.forEach((key, queue) -> accumulator.merge(key, queue.size(), Integer::sum));
+        }
+    }
+
+    private static final class CallerStats {
+        final IgdbCaller.Type type;
+        final LongAdder served = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder totalWaitNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        CallerStats(IgdbCaller.Type type) {
+            this.type = type;
+        }
+    }
+
+    /** Turno concedido para una petición; liberarlo más de una vez no tiene efecto. */
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                onPermitReleased();
+            }
+        }
+    }
+}
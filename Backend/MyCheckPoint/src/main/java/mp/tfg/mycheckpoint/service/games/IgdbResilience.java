@@ -0,0 +1,456 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mp.tfg.mycheckpoint.exception.ExternalServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Capa de resiliencia que envuelve cada llamada HTTP a IGDB hecha desde {@link IgdbService}:
+ * <ul>
+ *     <li>Timeout por llamada ({@code igdb.resilience.timeout}). En las respuestas que se consumen en streaming
+ *     el timeout se aplica al primer elemento y a cada hueco entre elementos.</li>
+ *     <li>Circuit breaker: si en la ventana de las últimas llamadas el porcentaje de fallos de IGDB (5xx, 429,
+ *     timeouts, errores de conexión) supera el umbral, el circuito se abre y las llamadas fallan al instante con
+ *     {@link ExternalServiceUnavailableException} durante {@code open-duration}. Después se dejan pasar unas
+ *     pocas llamadas de prueba (HALF_OPEN): si todas van bien se cierra y si alguna falla se vuelve a abrir.</li>
+ *     <li>Bulkhead: como mucho {@code max-concurrent-calls} llamadas en curso (incluidas las que esperan turno en
+ *     {@link IgdbRequestScheduler}); el resto se rechaza al momento en lugar de bloquear hilos.</li>
+ *     <li>Hedging (opcional, lecturas idempotentes): si una llamada no ha empezado a responder (su valor, o el primer
+ *     elemento en las de streaming) en el percentil configurado de las latencias recientes, se lanza una segunda y
+ *     se usa la primera que responda. La de respaldo ocupa su propia plaza del bulkhead y, si no queda ninguna
+ *     libre, no se lanza.</li>
+ * </ul>
+ * Las transiciones del circuito y los contadores se publican como métricas "igdb.resilience.*".
+ */
+@Component
+public class IgdbResilience {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgdbResilience.class);
+
+    public enum CircuitState {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private static final int LATENCY_SAMPLES = 200;
+    private static final int MIN_LATENCY_SAMPLES_FOR_HEDGING = 20;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final Duration hedgeMinDelay;
+
+    private final Semaphore bulkhead;
+
+    // Estado del circuito y ventana de resultados; protegidos por este lock.
+    private final Object lock = new Object();
+    private CircuitState state = CircuitState.CLOSED;
+    private final boolean[] outcomeWindow;
+    private int outcomeCount;
+    private int outcomeIndex;
+    private int failuresInWindow;
+    private long openedAtNanos;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    // Latencias recientes (hasta la respuesta o el primer elemento) de las llamadas que admiten hedging,
+    // para calcular el retardo del hedge.
+    private final long[] latencySamples = new long[LATENCY_SAMPLES];
+    private int latencySampleCount;
+    private int latencySampleIndex;
+
+    private final Counter hedgesSent;
+    private final Counter hedgesSkipped;
+
+    @Autowired
+    public IgdbResilience(MeterRegistry meterRegistry,
+                          @Value("${igdb.resilience.timeout:PT15S}") Duration timeout,
+                          @Value("${igdb.resilience.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                          @Value("${igdb.resilience.circuit.window-size:20}") int windowSize,
+                          @Value("${igdb.resilience.circuit.minimum-calls:10}") int minimumCalls,
+                          @Value("${igdb.resilience.circuit.failure-rate-threshold:50}") int failureRateThreshold,
+                          @Value("${igdb.resilience.circuit.open-duration:PT30S}") Duration openDuration,
+                          @Value("${igdb.resilience.circuit.half-open-calls:3}") int halfOpenCalls,
+                          @Value("${igdb.resilience.hedge.enabled:false}") boolean hedgingEnabled,
+                          @Value("${igdb.resilience.hedge.percentile:0.95}") double hedgePercentile,
+                          @Value("${igdb.resilience.hedge.min-delay:PT0.5S}") Duration hedgeMinDelay) {
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+        this.outcomeWindow = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, outcomeWindow.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrentCalls));
+
+        Gauge.builder("igdb.resilience.circuit.state", this, resilience -> resilience.getState().ordinal())
+                .description("Estado del circuit breaker de IGDB (0 = CLOSED, 1 = HALF_OPEN, 2 = OPEN)")
+                .register(meterRegistry);
+        Gauge.builder("igdb.resilience.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Llamadas a IGDB que aún caben en el bulkhead")
+                .register(meterRegistry);
+        hedgesSent = Counter.builder("igdb.resilience.hedges")
+                .description("Peticiones de respaldo (hedge) a IGDB, enviadas u omitidas por no quedar plaza en el bulkhead")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        hedgesSkipped = Counter.builder("igdb.resilience.hedges")
+                .description("Peticiones de respaldo (hedge) a IGDB, enviadas u omitidas por no quedar plaza en el bulkhead")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+    }
+
+    public CircuitState getState() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    /**
+     * Ejecuta una llamada a IGDB que devuelve un único valor.
+     *
+     * @param operation nombre de la operación (etiqueta de las métricas).
+     * @param call      llamada a IGDB; debe ser "fría" (cada suscripción hace una petición nueva).
+     * @param hedgeable true si la llamada es una lectura idempotente que puede duplicarse (hedging).
+     */
+    public <T> Mono<T> execute(String operation, Mono<T> call, boolean hedgeable) {
+        return Mono.defer(() -> {
+            CallPermit permit = acquire(operation);
+            long startNanos = System.nanoTime();
+            Mono<T> attempt = call.timeout(timeout);
+            Mono<T> guarded = hedgeable && hedgingEnabled ? withHedge(attempt.flux(), operation).next() : attempt;
+            return guarded
+                    .doOnSuccess(value -> {
+                        long latencyNanos = System.nanoTime() - startNanos;
+                        if (hedgeable) {
+                            recordLatency(latencyNanos);
+                        }
+                        permit.succeeded(latencyNanos);
+                    })
+                    .doOnError(error -> permit.failed(error, System.nanoTime() - startNanos))
+                    .doFinally(signal -> permit.release())
+                    .onErrorMap(TimeoutException.class, error -> timeoutException(operation, error));
+        });
+    }
+
+    /**
+     * Ejecuta una llamada a IGDB cuya respuesta se consume en streaming.
+     *
+     * @param hedgeable true si la llamada es una lectura idempotente que puede duplicarse (hedging). La latencia
+     *                  que decide el hedge es la del primer elemento: después, la respuesta ya está llegando.
+     */
+    public <T> Flux<T> executeMany(String operation, Flux<T> call, boolean hedgeable) {
+        return Flux.defer(() -> {
+            CallPermit permit = acquire(operation);
+            long startNanos = System.nanoTime();
+            AtomicBoolean responded = new AtomicBoolean();
+            Runnable recordFirstResponse = () -> {
+                if (hedgeable && responded.compareAndSet(false, true)) {
+                    recordLatency(System.nanoTime() - startNanos);
+                }
+            };
+            Flux<T> attempt = call.timeout(Mono.delay(timeout), element -> Mono.delay(timeout));
+            Flux<T> guarded = hedgeable && hedgingEnabled ? withHedge(attempt, operation) : attempt;
+            return guarded
+                    .doOnNext(element -> recordFirstResponse.run())
+                    .doOnComplete(() -> {
+                        recordFirstResponse.run();
+                        permit.succeeded(System.nanoTime() - startNanos);
+                    })
+                    .doOnError(error -> permit.failed(error, System.nanoTime() - startNanos))
+                    .doFinally(signal -> permit.release())
+                    .onErrorMap(TimeoutException.class, error -> timeoutException(operation, error));
+        });
+    }
+
+    /**
+     * Acota con el timeout de las llamadas a IGDB una espera que no es una llamada HTTP en sí (p. ej. una búsqueda
+     * encolada en el agrupador de {@link IgdbService}), con el mismo error que un timeout de llamada. No pasa por
+     * el circuito ni por el bulkhead: la consulta que la resuelve ya lo hace.
+     */
+    public <T> Mono<T> withTimeout(String operation, Mono<T> wait) {
+        return wait.timeout(timeout)
+                .onErrorMap(TimeoutException.class, error -> timeoutException(operation, error));
+    }
+
+    private <T> Flux<T> withHedge(Flux<T> attempt, String operation) {
+        Duration hedgeDelay = currentHedgeDelay();
+        if (hedgeDelay == null) {
+            return attempt;
+        }
+        // Cada intento acaba con un Optional vacío para que una respuesta sin elementos (juego no encontrado,
+        // búsqueda sin resultados) también cuente como "respuesta". Gana el primero que emite algo.
+        Flux<Optional<T>> primary = attempt.map(Optional::of).concatWithValues(Optional.empty());
+        Flux<Optional<T>> hedge = Mono.delay(hedgeDelay)
+                .thenMany(Flux.defer(() -> {
+                    // La de respaldo es otra llamada en curso: sin plaza libre en el bulkhead no se lanza
+                    if (!bulkhead.tryAcquire()) {
+                        hedgesSkipped.increment();
+                        logger.debug("IGDB {} tarda más de {} ms, pero el bulkhead está lleno. Sin petición de respaldo.",
+                                operation, hedgeDelay.toMillis());
+                        return Flux.<Optional<T>>empty();
+                    }
+                    hedgesSent.increment();
+                    logger.debug("IGDB {} tarda más de {} ms. Enviando petición de respaldo.", operation, hedgeDelay.toMillis());
+                    return primary.doFinally(signal -> bulkhead.release());
+                }));
+        return Flux.firstWithValue(primary, hedge)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                // Si fallan las dos, se propaga el error de la primera.
+                .onErrorMap(NoSuchElementException.class, error -> Arrays.stream(error.getSuppressed())
+                        .findFirst()
+                        .or(() -> Optional.ofNullable(error.getCause()))
+                        .orElse(error));
+    }
+
+    private CallPermit acquire(String operation) {
+        boolean trialCall = false;
+        synchronized (lock) {
+            if (state == CircuitState.OPEN) {
+                if (System.nanoTime() - openedAtNanos >= openDuration.toNanos()) {
+                    transitionTo(CircuitState.HALF_OPEN);
+                } else {
+                    countCall(operation, "rejected_open");
+                    throw new ExternalServiceUnavailableException("El servicio de juegos (IGDB) no está disponible temporalmente. Inténtalo de nuevo en unos segundos.");
+                }
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (halfOpenInFlight >= halfOpenCalls) {
+                    countCall(operation, "rejected_open");
+                    throw new ExternalServiceUnavailableException("El servicio de juegos (IGDB) no está disponible temporalmente. Inténtalo de nuevo en unos segundos.");
+                }
+                halfOpenInFlight++;
+                trialCall = true;
+            }
+        }
+        if (!bulkhead.tryAcquire()) {
+            if (trialCall) {
+                synchronized (lock) {
+                    if (state == CircuitState.HALF_OPEN) {
+                        halfOpenInFlight--;
+                    }
+                }
+            }
+            countCall(operation, "rejected_bulkhead");
+            logger.warn("Demasiadas llamadas a IGDB en curso. Rechazando {}.", operation);
+            throw new ExternalServiceUnavailableException("Demasiadas peticiones pendientes al servicio de juegos (IGDB). Inténtalo de nuevo en unos segundos.");
+        }
+        return new CallPermit(operation, trialCall);
+    }
+
+    /**
+     * Indica si un error significa que IGDB no está disponible ahora mismo (circuito abierto, timeout,
+     * cola llena, 5xx/429 o error de conexión), en cuyo caso los llamadores pueden degradar a datos locales.
+     */
+    public static boolean isUnavailable(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof ExternalServiceUnavailableException || isServiceFailure(current)) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /** Cuenta como fallo de IGDB lo que indica que el servicio no está sano, no los errores de la consulta. */
+    private static boolean isServiceFailure(Throwable error) {
+        if (error instanceof TimeoutException || error instanceof WebClientRequestException) {
+            return true;
+        }
+        if (error instanceof IgdbApiException apiException) {
+            return apiException.getStatusCode().is5xxServerError() || apiException.getStatusCode().value() == 429;
+        }
+        return false;
+    }
+
+    private void recordOutcome(boolean trialCall, boolean failed) {
+        synchronized (lock) {
+            if (trialCall) {
+                if (state != CircuitState.HALF_OPEN) {
+                    return;
+                }
+                halfOpenInFlight--;
+                if (failed) {
+                    transitionTo(CircuitState.OPEN);
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    transitionTo(CircuitState.CLOSED);
+                }
+                return;
+            }
+            if (state != CircuitState.CLOSED) {
+                return; // Resultado de una llamada que empezó antes de abrirse el circuito
+            }
+            if (outcomeCount == outcomeWindow.length) {
+                if (outcomeWindow[outcomeIndex]) {
+                    failuresInWindow--;
+                }
+            } else {
+                outcomeCount++;
+            }
+            outcomeWindow[outcomeIndex] = failed;
+            if (failed) {
+                failuresInWindow++;
+            }
+            outcomeIndex = (outcomeIndex + 1) % outcomeWindow.length;
+            if (outcomeCount >= minimumCalls && failuresInWindow * 100 >= failureRateThreshold * outcomeCount) {
+                logger.warn("Tasa de fallos de IGDB {}/{} en las últimas llamadas.", failuresInWindow, outcomeCount);
+                transitionTo(CircuitState.OPEN);
+            }
+        }
+    }
+
+    private void releaseTrialSlot(boolean trialCall) {
+        if (!trialCall) {
+            return;
+        }
+        synchronized (lock) {
+            if (state == CircuitState.HALF_OPEN) {
+                halfOpenInFlight--;
+            }
+        }
+    }
+
+    // Llamar con el lock tomado
+    private void transitionTo(CircuitState newState) {
+        CircuitState previousState = state;
+        if (previousState == newState) {
+            return;
+        }
+        state = newState;
+        switch (newState) {
+            case OPEN -> openedAtNanos = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenInFlight = 0;
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                outcomeCount = 0;
+                outcomeIndex = 0;
+                failuresInWindow = 0;
+            }
+        }
+        meterRegistry.counter("igdb.resilience.circuit.transitions",
+                "from", previousState.name().toLowerCase(Locale.ROOT), "to", newState.name().toLowerCase(Locale.ROOT)).increment();
+        if (newState == CircuitState.OPEN) {
+            logger.warn("Circuit breaker de IGDB: {} -> OPEN. Las llamadas fallarán al instante durante {}.", previousState, openDuration);
+        } else {
+            logger.info("Circuit breaker de IGDB: {} -> {}.", previousState, newState);
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        synchronized (lock) {
+            latencySamples[latencySampleIndex] = latencyNanos;
+            latencySampleIndex = (latencySampleIndex + 1) % latencySamples.length;
+            latencySampleCount = Math.min(latencySampleCount + 1, latencySamples.length);
+        }
+    }
+
+    /** Retardo tras el que se lanza la petición de respaldo, o null si aún no hay muestras suficientes. */
+    private Duration currentHedgeDelay() {
+        long[] samples;
+        synchronized (lock) {
+            if (latencySampleCount < MIN_LATENCY_SAMPLES_FOR_HEDGING) {
+                return null;
+            }
+            samples = Arrays.copyOf(latencySamples, latencySampleCount);
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.min(samples.length - 1, Math.ceil(hedgePercentile * samples.length) - 1);
+        Duration percentileLatency = Duration.ofNanos(samples[Math.max(0, index)]);
+        return percentileLatency.compareTo(hedgeMinDelay) > 0 ? percentileLatency : hedgeMinDelay;
+    }
+
+    private ExternalServiceUnavailableException timeoutException(String operation, TimeoutException error) {
+        logger.warn("IGDB no respondió a {} en {}.", operation, timeout);
+        return new ExternalServiceUnavailableException("El servicio de juegos (IGDB) no respondió a tiempo. Inténtalo de nuevo más tarde.", error);
+    }
+
+    private void countCall(String operation, String outcome) {
+        meterRegistry.counter("igdb.resilience.calls", "operation", operation, "outcome", outcome).increment();
+    }
+
+    private Timer callTimer(String operation, String outcome) {
+        return Timer.builder("igdb.resilience.latency")
+                .description("Duración de las llamadas a IGDB (incluida la espera en cola)")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /** Plaza ocupada en el bulkhead (y, en HALF_OPEN, en las llamadas de prueba) por una llamada. */
+    private final class CallPermit {
+        private final String operation;
+        private final boolean trialCall;
+        private final AtomicBoolean outcomeRecorded = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        CallPermit(String operation, boolean trialCall) {
+            this.operation = operation;
+            this.trialCall = trialCall;
+        }
+
+        void succeeded(long latencyNanos) {
+            if (outcomeRecorded.compareAndSet(false, true)) {
+                callTimer(operation, "success").record(latencyNanos, TimeUnit.NANOSECONDS);
+                countCall(operation, "success");
+                recordOutcome(trialCall, false);
+            }
+        }
+
+        void failed(Throwable error, long latencyNanos) {
+            if (outcomeRecorded.compareAndSet(false, true)) {
+                boolean serviceFailure = isServiceFailure(error);
+                String outcome = error instanceof TimeoutException ? "timeout" : serviceFailure ? "failure" : "ignored_error";
+                callTimer(operation, outcome).record(latencyNanos, TimeUnit.NANOSECONDS);
+                countCall(operation, outcome);
+                if (serviceFailure) {
+                    recordOutcome(trialCall, true);
+                } else {
+                    releaseTrialSlot(trialCall);
+                }
+            }
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release();
+                // Cancelada sin resultado: libera la plaza de prueba sin contar nada
+                if (outcomeRecorded.compareAndSet(false, true)) {
+                    releaseTrialSlot(trialCall);
+                }
+            }
+        }
+    }
+}
@@ -1,64 +1,179 @@
 package mp.tfg.mycheckpoint.service.games;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
 import mp.tfg.mycheckpoint.dto.games.GameDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class IgdbService {
 
     private static final Logger logger = LoggerFactory.getLogger(IgdbService.class);
     private final WebClient igdbWebClient;
+    // Timeouts, circuit breaker, bulkhead y hedging de todas las llamadas HTTP a IGDB
+    private final IgdbResilience igdbResilience;
+    // Decodificación incremental de respuestas grandes (listas de juegos, multiquery)
+    private final IgdbJsonStreamDecoder streamDecoder;
 
-    private static final String DEFAULT_GAME_FIELDS = """
-            fields
-                id, name, slug, summary, storyline, first_release_date, total_rating, total_rating_count, game_type,
-                cover.id, cover.url,
+    /**
+     * Caché de lectura de juegos completos por IGDB ID.
+     * Una entrada es "fresca" durante {@code igdb.cache.games.ttl}; pasado ese tiempo se sigue sirviendo
+     * al instante mientras se refresca en segundo plano (stale-while-revalidate), hasta que alcanza
+     * {@code igdb.cache.games.max-stale}, momento en el que se descarta y la siguiente lectura espera a IGDB.
+     * Los juegos no encontrados (respuesta vacía) no se cachean.
+     * Las lecturas concurrentes de un mismo ID sin entrada en caché comparten una única petición a IGDB
+     * (la caché guarda el futuro en curso), por lo que no hace falta coalescer aquí por separado.
+     */
+    private final AsyncLoadingCache<Long, GameDto> gameCache;
+
+    // Las cargas individuales de la caché pasan por aquí para agruparse en consultas "where id = (...)".
+    private final IgdbGameBatchLoader gameBatchLoader;
+
+    /**
+     * Caché de proyecciones parciales (niveles inferiores a FULL) por IGDB ID y nivel, con la misma
+     * política de expiración que {@link #gameCache}. Si el juego completo ya está en {@link #gameCache}
+     * se usa ese en su lugar.
+     */
+    private final AsyncLoadingCache<ProjectionKey, GameDto> projectionCache;
+
+    // Perfiles de proyección: cada nivel pide a IGDB solo los campos que necesita, y cada uno incluye al anterior.
+    private static final String CARD_FIELDS = """
+            id, name, slug, game_type, first_release_date, total_rating, cover.id, cover.url""";
+
+    private static final String SUMMARY_FIELDS = CARD_FIELDS + """
+            ,
+                summary, total_rating_count, game_status.id,
+                genres.id, genres.name,
+                themes.id, themes.name,
+                game_modes.id, game_modes.name,
+                platforms.id, platforms.name""";
+
+    private static final String DETAIL_FIELDS = SUMMARY_FIELDS + """
+            ,
+                storyline,
                 artworks.id, artworks.url,
                 screenshots.id, screenshots.url,
                 videos.id, videos.name, videos.video_id,
                 websites.id, websites.url,
-                game_modes.id, game_modes.name,
-                genres.id, genres.name,
-                themes.id, themes.name,
-                keywords.id, keywords.name,
                 game_engines.id, game_engines.name,
                 franchises.id, franchises.name,
-                platforms.id, platforms.name, platforms.alternative_name, platforms.platform_logo.id, platforms.platform_logo.url,
+                platforms.alternative_name, platforms.platform_logo.id, platforms.platform_logo.url,
                 involved_companies.id, involved_companies.developer, involved_companies.publisher, involved_companies.porting, involved_companies.supporting,
                 involved_companies.company.id, involved_companies.company.name,
                 dlcs.id, dlcs.name, dlcs.slug, dlcs.game_type, dlcs.total_rating, dlcs.cover.id, dlcs.cover.url,
                 expansions.id, expansions.name, expansions.slug, expansions.game_type, expansions.total_rating, expansions.cover.id, expansions.cover.url,
-                bundles.id, bundles.name, bundles.slug, bundles.game_type, bundles.total_rating, bundles.cover.id, bundles.cover.url,
                 similar_games.id, similar_games.name, similar_games.slug, similar_games.summary, similar_games.total_rating, similar_games.cover.id, similar_games.cover.url,
                 parent_game.id, parent_game.name, parent_game.slug, parent_game.game_type, parent_game.total_rating, parent_game.cover.id, parent_game.cover.url,
                 version_parent.id, version_parent.name, version_parent.slug, version_parent.game_type, version_parent.total_rating, version_parent.cover.id, version_parent.cover.url,
+                keywords.id, keywords.name,
+                bundles.id, bundles.name, bundles.slug, bundles.game_type, bundles.total_rating, bundles.cover.id, bundles.cover.url,
                 remakes.id, remakes.name, remakes.slug, remakes.game_type, remakes.total_rating, remakes.cover.id, remakes.cover.url,
-                remasters.id, remasters.name, remasters.slug, remasters.game_type, remasters.total_rating, remasters.cover.id, remasters.cover.url,
-                game_status.id;
-            """;
+                remasters.id, remasters.name, remasters.slug, remasters.game_type, remasters.total_rating, remasters.cover.id, remasters.cover.url""";
+
+    // Solo para la ingesta: la vista muestra de los juegos relacionados nombre, carátula y tipo, pero la ingesta
+    // los guarda también como juegos a nivel CARD (o SUMMARY los similares), y sin la fecha de lanzamiento (y el
+    // tipo, en los similares) esas filas quedarían como tarjetas incompletas.
+    private static final String FULL_FIELDS = DETAIL_FIELDS + """
+            ,
+                dlcs.first_release_date, expansions.first_release_date, bundles.first_release_date,
+                parent_game.first_release_date, version_parent.first_release_date,
+                remakes.first_release_date, remasters.first_release_date,
+                similar_games.game_type, similar_games.first_release_date""";
+
+    // Búsqueda por nombre: tarjeta más resumen, los mismos campos ligeros que se pedían antes de los perfiles.
+    private static final String SEARCH_FIELDS = "fields " + CARD_FIELDS + ", summary;\n";
+
+    private static final Map<GameDetailLevel, String> PROJECTION_FIELDS = new EnumMap<>(Map.of(
+            GameDetailLevel.CARD, "fields " + CARD_FIELDS + ";\n",
+            GameDetailLevel.SUMMARY, "fields " + SUMMARY_FIELDS + ";\n",
+            GameDetailLevel.DETAIL, "fields " + DETAIL_FIELDS + ";\n",
+            GameDetailLevel.FULL, "fields " + FULL_FIELDS + ";\n"));
 
     @Autowired
-    public IgdbService(WebClient igdbWebClient) {
+    public IgdbService(WebClient igdbWebClient,
+                       ObjectMapper objectMapper,
+                       IgdbResilience igdbResilience,
+                       MeterRegistry meterRegistry,
+                       @Value("${igdb.cache.games.max-size:5000}") long gameCacheMaxSize,
+                       @Value("${igdb.cache.games.ttl:PT30M}") Duration gameCacheTtl,
+                       @Value("${igdb.cache.games.max-stale:PT24H}") Duration gameCacheMaxStale,
+                       @Value("${igdb.batch.window:PT0.01S}") Duration batchWindow,
+                       @Value("${igdb.batch.max-size:500}") int batchMaxSize,
+                       @Value("${igdb.decode.max-element-size:2MB}") DataSize decodeMaxElementSize) {
         this.igdbWebClient = igdbWebClient;
+        this.igdbResilience = igdbResilience;
+        this.streamDecoder = new IgdbJsonStreamDecoder(objectMapper, Math.toIntExact(decodeMaxElementSize.toBytes()));
+        this.gameBatchLoader = new IgdbGameBatchLoader(
+                (igdbIds, caller) -> fetchGamesByIgdbIds(igdbIds, IgdbPriority.INTERACTIVE, caller), batchWindow, batchMaxSize);
+        this.gameCache = Caffeine.newBuilder()
+                .maximumSize(gameCacheMaxSize)
+                .refreshAfterWrite(gameCacheTtl)
+                .expireAfterWrite(gameCacheMaxStale)
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<Long, GameDto>() {
+                    @Override
+                    public CompletableFuture<? extends GameDto> asyncLoad(Long igdbId, Executor executor) {
+                        // Con timeout: una carga que no termina se quedaría en la caché como futuro pendiente
+                        return igdbResilience.withTimeout("game-lookup", gameBatchLoader.load(igdbId)).toFuture();
+                    }
+
+                    @Override
+                    public CompletableFuture<? extends Map<? extends Long, ? extends GameDto>> asyncLoadAll(
+                            Set<? extends Long> igdbIds, Executor executor) {
+                        // Las cargas masivas ya vienen agrupadas: van directas a IGDB (troceadas con multiquery si hace falta).
+                        // Con timeout, como asyncLoad: cada trozo lo tiene, pero la espera a todos ellos no
+                        return igdbResilience.withTimeout("game-lookup-all",
+                                fetchGamesByIgdbIds(List.copyOf(igdbIds), IgdbPriority.INTERACTIVE, IgdbCaller.current())
+                                        .collectMap(GameDto::getIgdbId, Function.identity()))
+                                .toFuture();
+                    }
+                });
+        this.projectionCache = Caffeine.newBuilder()
+                .maximumSize(gameCacheMaxSize)
+                .refreshAfterWrite(gameCacheTtl)
+                .expireAfterWrite(gameCacheMaxStale)
+                .recordStats()
+                .buildAsync((key, executor) -> fetchGameProjection(key.igdbId(), key.level(), IgdbCaller.current()).toFuture());
+        // Expone hits, misses, evictions y cargas como métricas "cache.*" con tag cache=igdb.games
+        CaffeineCacheMetrics.monitor(meterRegistry, gameCache, "igdb.games");
+        CaffeineCacheMetrics.monitor(meterRegistry, projectionCache, "igdb.games.projections");
+    }
+
+    /** Campos ("fields ...;") que se piden a IGDB para un nivel de detalle. */
+    static String fieldsFor(GameDetailLevel level) {
+        return PROJECTION_FIELDS.get(level);
     }
 
     public Flux<GameDto> findGamesByName(String gameName) {
-        String fields = "fields name, total_rating, cover.url, first_release_date,game_type,summary, id;";
-        String queryBody = fields + "search \"" + gameName + "\"; limit 5;"; // Ya usa search
+        String queryBody = SEARCH_FIELDS + "search \"" + gameName + "\"; limit 5;"; // Ya usa search
         logger.info("Querying IGDB with body: {}", queryBody);
         return igdbWebClient.post()
                 .uri("/games")
+                .attribute(IgdbRequestScheduler.PRIORITY_ATTRIBUTE, IgdbPriority.INTERACTIVE)
+                .attribute(IgdbRequestScheduler.CALLER_ATTRIBUTE, IgdbCaller.current())
                 .contentType(MediaType.TEXT_PLAIN)
                 .bodyValue(queryBody)
                 .retrieve()
@@ -66,17 +181,222 @@ public class IgdbService {
                         clientResponse -> clientResponse.bodyToMono(String.class)
                                 .flatMap(errorBody -> {
                                     logger.error("Error from IGDB API: {}, Body: {}", clientResponse.statusCode(), errorBody);
-                                    return Mono.error(new RuntimeException("IGDB API Error: " + clientResponse.statusCode() + " - " + errorBody));
+                                    return Mono.error(new IgdbApiException(clientResponse.statusCode(), errorBody));
                                 }))
                 .bodyToFlux(GameDto.class)
+                .transform(call -> igdbResilience.executeMany("search", call, true))
+                .doOnNext(gameDto -> gameDto.setDetailLevel(GameDetailLevel.CARD))
                 .doOnError(error -> logger.error("Error during IGDB call or deserialization: {}", error.getMessage(), error));
     }
 
+    /**
+     * Obtiene un juego completo de IGDB pasando por la caché de juegos.
+     * El {@link GameDto} devuelto es compartido con otros lectores de la caché, por lo que
+     * debe tratarse como de solo lectura (salvo los ajustes idempotentes que ya hace GameService).
+     */
     public Mono<GameDto> findGameByIgdbId(Long igdbId) {
-        String queryBody = DEFAULT_GAME_FIELDS + "where id = " + igdbId + ";";
+        if (igdbId == null) {
+            return Mono.empty();
+        }
+        // suppressCancel = true: si un suscriptor cancela, la carga compartida sigue para el resto.
+        return Mono.fromFuture(() -> gameCache.get(igdbId), true);
+    }
+
+    /**
+     * Obtiene un juego de IGDB con el nivel de detalle indicado. FULL equivale a {@link #findGameByIgdbId(Long)};
+     * para niveles inferiores se reutiliza el juego completo si ya está en caché y, si no, se pide a IGDB
+     * solo la proyección necesaria (cacheada por separado).
+     */
+    public Mono<GameDto> findGameByIgdbId(Long igdbId, GameDetailLevel level) {
+        if (igdbId == null) {
+            return Mono.empty();
+        }
+        if (level == GameDetailLevel.FULL) {
+            return findGameByIgdbId(igdbId);
+        }
+        return Mono.fromFuture(() -> {
+            CompletableFuture<GameDto> cachedFullGame = gameCache.getIfPresent(igdbId);
+            return cachedFullGame != null ? cachedFullGame : projectionCache.get(new ProjectionKey(igdbId, level));
+        }, true);
+    }
+
+    /**
+     * Obtiene un juego completo de IGDB con prioridad {@link IgdbPriority#BACKGROUND} (tareas en segundo plano:
+     * enriquecimiento, refrescos), sin pasar por la agrupación de peticiones interactivas ni esperar a que caduque
+     * la caché. El resultado sustituye a la entrada cacheada del juego.
+     */
+    public Mono<GameDto> fetchGameInBackground(Long igdbId) {
+        if (igdbId == null) {
+            return Mono.empty();
+        }
+        return fetchGamesInBackground(List.of(igdbId)).next();
+    }
+
+    /**
+     * Como {@link #fetchGameInBackground(Long)} para varios juegos, con las mismas consultas agrupadas que
+     * {@link #findGamesByIgdbIds} (hasta 500 IDs por consulta). Los IDs que IGDB no devuelva no aparecen.
+     */
+    public Flux<GameDto> fetchGamesInBackground(Collection<Long> igdbIds) {
+        if (igdbIds == null || igdbIds.isEmpty()) {
+            return Flux.empty();
+        }
+        List<Long> distinctIds = igdbIds.stream().filter(Objects::nonNull).distinct().toList();
+        return fetchGamesByIgdbIds(distinctIds, IgdbPriority.BACKGROUND, IgdbCaller.SYSTEM)
+                .doOnNext(gameDto -> gameCache.put(gameDto.getIgdbId(), CompletableFuture.completedFuture(gameDto)));
+    }
+
+    /**
+     * Juegos completos, de entre los indicados, que IGDB ha modificado después de {@code updatedAfterEpochSeconds}
+     * (campo {@code updated_at}, segundos Unix). Mismas consultas agrupadas que {@link #fetchGamesInBackground},
+     * con prioridad BACKGROUND; los juegos sin cambios no se devuelven. El resultado sustituye a la entrada cacheada.
+     */
+    public Flux<GameDto> findGamesUpdatedSince(Collection<Long> igdbIds, long updatedAfterEpochSeconds) {
+        if (igdbIds == null || igdbIds.isEmpty()) {
+            return Flux.empty();
+        }
+        List<Long> distinctIds = igdbIds.stream().filter(Objects::nonNull).distinct().toList();
+        return fetchGamesByIdChunks(distinctIds, chunk -> gamesUpdatedSinceQueryBody(chunk, updatedAfterEpochSeconds),
+                IgdbPriority.BACKGROUND, IgdbCaller.SYSTEM)
+                .doOnNext(gameDto -> gameCache.put(gameDto.getIgdbId(), CompletableFuture.completedFuture(gameDto)));
+    }
+
+    /**
+     * Devuelve el juego si ya está en alguna de las cachés (aunque esté caducado pendiente de refresco),
+     * sin hacer ninguna petición a IGDB. Prioriza el de mayor nivel de detalle. Pensado para servir datos
+     * cuando IGDB no está disponible.
+     */
+    public Optional<GameDto> findCachedGame(Long igdbId) {
+        if (igdbId == null) {
+            return Optional.empty();
+        }
+        Optional<GameDto> fullGame = completedValue(gameCache.getIfPresent(igdbId));
+        if (fullGame.isPresent()) {
+            return fullGame;
+        }
+        for (GameDetailLevel level : List.of(GameDetailLevel.DETAIL, GameDetailLevel.SUMMARY, GameDetailLevel.CARD)) {
+            Optional<GameDto> projection = completedValue(projectionCache.getIfPresent(new ProjectionKey(igdbId, level)));
+            if (projection.isPresent()) {
+                return projection;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<GameDto> completedValue(CompletableFuture<GameDto> future) {
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(future.getNow(null));
+    }
+
+    /**
+     * Obtiene varios juegos completos de IGDB pasando por la caché. Los que no estén cacheados se piden
+     * en consultas de hasta 500 IDs. Los IDs que IGDB no devuelva simplemente no aparecen en el resultado.
+     */
+    public Flux<GameDto> findGamesByIgdbIds(Collection<Long> igdbIds) {
+        if (igdbIds == null || igdbIds.isEmpty()) {
+            return Flux.empty();
+        }
+        Set<Long> distinctIds = igdbIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        return Mono.fromFuture(() -> gameCache.getAll(distinctIds), true)
+                .flatMapIterable(Map::values);
+    }
+
+    /**
+     * Descarta la entrada cacheada de un juego, forzando que la próxima lectura vaya a IGDB.
+     */
+    public void evictCachedGame(Long igdbId) {
+        if (igdbId != null) {
+            gameCache.synchronous().invalidate(igdbId);
+            for (GameDetailLevel level : GameDetailLevel.values()) {
+                projectionCache.synchronous().invalidate(new ProjectionKey(igdbId, level));
+            }
+        }
+    }
+
+    /**
+     * Envía una multiquery cuyas sub-consultas devuelven todas el mismo tipo y emite sus elementos según
+     * se decodifican, en el orden de la respuesta, sin esperar a tener la respuesta completa.
+     */
+    public <T> Flux<T> multiqueryElements(IgdbMultiQuery query, Class<T> type, IgdbPriority priority, IgdbCaller caller) {
+        if (query.isEmpty()) {
+            return Flux.empty();
+        }
+        logger.info("Querying IGDB multiquery ({} sub-queries: {})", query.size(), query.names());
+        return postForBody("/multiquery", query.toRequestBody(), priority, caller)
+                .transform(streamDecoder::decodeMultiquery)
+                .filter(element -> !element.wholeResult())
+                .map(element -> streamDecoder.readValue(element.tokens(), type))
+                .transform(call -> igdbResilience.executeMany("multiquery", call, true))
+                .doOnError(error -> logger.error("Error during IGDB multiquery {}: {}", query.names(), error.getMessage(), error));
+    }
+
+    /**
+     * Hace la petición a IGDB y devuelve el cuerpo de la respuesta tal cual llega de la red, para
+     * decodificarlo de forma incremental con {@link IgdbJsonStreamDecoder}.
+     */
+    private Flux<DataBuffer> postForBody(String uri, String queryBody, IgdbPriority priority, IgdbCaller caller) {
+        return igdbWebClient.post()
+                .uri(uri)
+                .attribute(IgdbRequestScheduler.PRIORITY_ATTRIBUTE, priority)
+                .attribute(IgdbRequestScheduler.CALLER_ATTRIBUTE, caller)
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue(queryBody)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        clientResponse -> clientResponse.bodyToMono(String.class)
+                                .flatMap(errorBody -> {
+                                    logger.error("Error from IGDB API ({}): {}, Body: {}", uri, clientResponse.statusCode(), errorBody);
+                                    return Mono.error(new IgdbApiException(clientResponse.statusCode(), errorBody));
+                                }))
+                .bodyToFlux(DataBuffer.class);
+    }
+
+    /**
+     * Obtiene juegos completos por IGDB ID. Hasta 500 IDs se piden con una consulta normal a {@code /games};
+     * por encima se trocean en bloques de 500 y se envían hasta {@value IgdbMultiQuery#MAX_QUERIES} bloques
+     * por petición a {@code /multiquery}.
+     */
+    private Flux<GameDto> fetchGamesByIgdbIds(List<Long> igdbIds, IgdbPriority priority, IgdbCaller caller) {
+        return fetchGamesByIdChunks(igdbIds, IgdbService::gamesByIdsQueryBody, priority, caller);
+    }
+
+    /**
+     * Como {@link #fetchGamesByIgdbIds}, con la consulta de cada bloque de hasta 500 IDs construida por {@code chunkQueryBody}.
+     */
+    private Flux<GameDto> fetchGamesByIdChunks(List<Long> igdbIds, Function<List<Long>, String> chunkQueryBody,
+                                               IgdbPriority priority, IgdbCaller caller) {
+        if (igdbIds.size() <= IgdbGameBatchLoader.IGDB_MAX_IDS_PER_QUERY) {
+            return fetchGameChunk(igdbIds.size(), chunkQueryBody.apply(igdbIds), priority, caller);
+        }
+        return Flux.fromIterable(igdbIds)
+                .buffer(IgdbGameBatchLoader.IGDB_MAX_IDS_PER_QUERY)
+                .buffer(IgdbMultiQuery.MAX_QUERIES)
+                .concatMap(chunks -> {
+                    IgdbMultiQuery query = IgdbMultiQuery.create();
+                    for (int i = 0; i < chunks.size(); i++) {
+                        query.query("games_" + i, "games", chunkQueryBody.apply(chunks.get(i)));
+                    }
+                    return multiqueryElements(query, GameDto.class, priority, caller);
+                });
+    }
+
+    private Flux<GameDto> fetchGameChunk(int idCount, String queryBody, IgdbPriority priority, IgdbCaller caller) {
         logger.info("Querying IGDB with body: {}", queryBody);
+        // Hasta 500 juegos completos: se decodifican y emiten uno a uno según llegan
+        return postForBody("/games", queryBody, priority, caller)
+                .transform(body -> streamDecoder.decodeArray(body, GameDto.class))
+                .transform(call -> igdbResilience.executeMany("games-by-id", call, true))
+                .doOnError(error -> logger.error("Error during IGDB call or deserialization for {} IDs: {}", idCount, error.getMessage(), error));
+    }
+
+    private Mono<GameDto> fetchGameProjection(Long igdbId, GameDetailLevel level, IgdbCaller caller) {
+        String queryBody = fieldsFor(level) + "where id = " + igdbId + "; limit 1;";
+        logger.info("Querying IGDB ({} projection) with body: {}", level, queryBody);
         return igdbWebClient.post()
                 .uri("/games")
+                .attribute(IgdbRequestScheduler.PRIORITY_ATTRIBUTE, IgdbPriority.INTERACTIVE)
+                .attribute(IgdbRequestScheduler.CALLER_ATTRIBUTE, caller)
                 .contentType(MediaType.TEXT_PLAIN)
                 .bodyValue(queryBody)
                 .retrieve()
@@ -84,13 +404,26 @@ public class IgdbService {
                         clientResponse -> clientResponse.bodyToMono(String.class)
                                 .flatMap(errorBody -> {
                                     logger.error("Error from IGDB API: {}, Body: {}", clientResponse.statusCode(), errorBody);
-                                    return Mono.error(new RuntimeException("IGDB API Error: " + clientResponse.statusCode() + " - " + errorBody));
+                                    return Mono.error(new IgdbApiException(clientResponse.statusCode(), errorBody));
                                 }))
                 .bodyToFlux(GameDto.class)
                 .next()
+                .transform(call -> igdbResilience.execute("game-projection", call, true))
+                .doOnNext(gameDto -> gameDto.setDetailLevel(level))
                 .doOnError(error -> logger.error("Error during IGDB call or deserialization for ID {}: {}", igdbId, error.getMessage(), error));
     }
 
+    private static String gamesByIdsQueryBody(List<Long> igdbIds) {
+        String idList = igdbIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return fieldsFor(GameDetailLevel.FULL) + "where id = (" + idList + "); limit " + igdbIds.size() + ";";
+    }
+
+    private static String gamesUpdatedSinceQueryBody(List<Long> igdbIds, long updatedAfterEpochSeconds) {
+        String idList = igdbIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return fieldsFor(GameDetailLevel.FULL) + "where id = (" + idList + ") & updated_at > " + updatedAfterEpochSeconds
+                + "; limit " + igdbIds.size() + ";";
+    }
+
     /**
      * Busca juegos en IGDB aplicando filtros dinámicos.
      * Los timestamps de fecha deben ser en formato Unix (segundos).
@@ -119,7 +452,7 @@ public class IgdbService {
             whereClauses.add("game_modes = (" + gameModeId + ")");
         }
 
-        String fields = "fields name, total_rating, cover.url, first_release_date, genres.name, themes.name, game_modes.name, id;"; // Añadimos slug y id para consistencia con GameDto
+        String fields = fieldsFor(GameDetailLevel.SUMMARY);
         String whereCondition = whereClauses.isEmpty() ? "" : "where " + String.join(" & ", whereClauses) + ";";
         String limitCondition = (limit != null && limit > 0) ? "limit " + limit + ";" : "limit 10;"; // Límite por defecto
 
@@ -127,24 +460,14 @@ public class IgdbService {
 
         logger.info("Querying IGDB with custom filter body: {}", queryBody);
 
-        return igdbWebClient.post()
-                .uri("/games")
-                .contentType(MediaType.TEXT_PLAIN)
-                .bodyValue(queryBody)
-                .retrieve()
-                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                        clientResponse -> clientResponse.bodyToMono(String.class)
-                                .flatMap(errorBody -> {
-                                    logger.error("Error from IGDB API (custom filter): {}, Body: {}", clientResponse.statusCode(), errorBody);
-                                    return Mono.error(new RuntimeException("IGDB API Error (custom filter): " + clientResponse.statusCode() + " - " + errorBody));
-                                }))
-                .bodyToFlux(GameDto.class) // Asumimos que la respuesta puede mapearse a GameDto (o un subconjunto de él)
-                .map(gameDto -> {
-                    // Si los campos son un subconjunto estricto y quieres marcarlo, aquí podrías hacerlo.
-                    // gameDto.setFullDetails(false); // Por ejemplo, si estos filtros siempre devuelven datos parciales.
-                    // Sin embargo, GameDto ya tiene campos para cover, name, total_rating, etc.
-                    return gameDto;
-                })
+        // Con límites altos (hasta 500) la respuesta es grande: se decodifica y emite juego a juego según llega
+        return postForBody("/games", queryBody, IgdbPriority.INTERACTIVE, IgdbCaller.current())
+                .transform(body -> streamDecoder.decodeArray(body, GameDto.class))
+                .transform(call -> igdbResilience.executeMany("custom-filter", call, true))
+                .doOnNext(gameDto -> gameDto.setDetailLevel(GameDetailLevel.SUMMARY))
                 .doOnError(error -> logger.error("Error during IGDB custom filter call or deserialization: {}", error.getMessage(), error));
     }
+
+    private record ProjectionKey(Long igdbId, GameDetailLevel level) {
+    }
 }
\ No newline at end of file
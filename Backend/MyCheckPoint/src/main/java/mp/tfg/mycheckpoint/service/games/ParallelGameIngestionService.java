@@ -0,0 +1,181 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingesta en paralelo de muchos juegos (importaciones masivas).
+ * <p>
+ * En lugar de guardar toda la lista en una única transacción larga, los DTOs se agrupan en subgrafos
+ * independientes ({@link GameService#partitionIndependentGraphs}) y cada subgrafo se guarda con
+ * {@link GameService#saveGames} en su propia transacción corta, en un pool de hilos acotado.
+ * Dos ingestas que tocan el mismo juego (de esta llamada, de otra o de otra instancia) se serializan con los
+ * bloqueos consultivos que toma {@code saveGames}. Si un subgrafo falla, solo se pierde ese subgrafo.
+ * <p>
+ * Cada hilo ocupa una sola conexión durante su transacción: también las escrituras en los diccionarios de
+ * referencia se hacen en ella.
+ */
+@Service
+public class ParallelGameIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelGameIngestionService.class);
+
+    private final GameService gameService;
+    private final TransactionTemplate requiresNewTransaction;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter savedItems;
+    private final Counter failedItems;
+    private final Counter invalidItems;
+
+    @Autowired
+    public ParallelGameIngestionService(GameService gameService,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${games.ingestion.parallel.threads:4}") int threads,
+                                        @Value("${games.ingestion.parallel.queue-size:1000}") int queueSize) {
+        this.gameService = gameService;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Cola acotada: si se llena, el hilo que llama guarda el subgrafo él mismo (frena al productor)
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "game-ingestion-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.savedItems = Counter.builder("games.ingestion.parallel.items")
+                .description("Juegos procesados por la ingesta en paralelo, por resultado")
+                .tag("outcome", "saved")
+                .register(meterRegistry);
+        this.failedItems = Counter.builder("games.ingestion.parallel.items")
+                .description("Juegos procesados por la ingesta en paralelo, por resultado")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.invalidItems = Counter.builder("games.ingestion.parallel.items")
+                .description("Juegos procesados por la ingesta en paralelo, por resultado")
+                .tag("outcome", "invalid")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guarda (o actualiza) los juegos indicados en paralelo y espera a que terminen todos.
+     * No debe llamarse desde una transacción que vaya a leer estos juegos: cada subgrafo se confirma por separado.
+     *
+     * @return un resultado por cada DTO de entrada, en el mismo orden.
+     */
+    public List<GameIngestionOutcome> ingest(List<GameDto> gameDtos) {
+        if (gameDtos == null || gameDtos.isEmpty()) {
+            return List.of();
+        }
+
+        List<GameDto> validDtos = new ArrayList<>();
+        for (GameDto gameDto : gameDtos) {
+            if (gameDto != null && gameDto.getIgdbId() != null) {
+                validDtos.add(gameDto);
+            }
+        }
+
+        List<List<GameDto>> groups = gameService.partitionIndependentGraphs(validDtos);
+        logger.info("Ingesta en paralelo: {} juegos en {} subgrafos independientes ({} hilos).",
+                validDtos.size(), groups.size(), executor.getCorePoolSize());
+
+        List<CompletableFuture<Map<Long, GameIngestionOutcome>>> futures = groups.stream()
+                .map(group -> CompletableFuture.supplyAsync(() -> ingestGroup(group), executor))
+                .toList();
+        Map<Long, GameIngestionOutcome> outcomesByIgdbId = new HashMap<>();
+        futures.forEach(future -> outcomesByIgdbId.putAll(future.join()));
+
+        List<GameIngestionOutcome> outcomes = new ArrayList<>(gameDtos.size());
+        for (GameDto gameDto : gameDtos) {
+            if (gameDto == null) {
+                outcomes.add(GameIngestionOutcome.invalid(null, "GameDto nulo."));
+            } else if (gameDto.getIgdbId() == null) {
+                outcomes.add(GameIngestionOutcome.invalid(null, "GameDto sin IGDB ID: " + gameDto.getName()));
+            } else {
+                outcomes.add(outcomesByIgdbId.get(gameDto.getIgdbId()));
+            }
+        }
+        recordMetrics(outcomes);
+        return outcomes;
+    }
+
+    private Map<Long, GameIngestionOutcome> ingestGroup(List<GameDto> group) {
+        Map<Long, GameIngestionOutcome> outcomes = new HashMap<>();
+        try {
+            Map<Long, Long> internalIds = saveGroup(group);
+            for (GameDto gameDto : group) {
+                Long internalId = internalIds.get(gameDto.getIgdbId());
+                outcomes.put(gameDto.getIgdbId(), internalId != null
+                        ? GameIngestionOutcome.saved(gameDto.getIgdbId(), internalId)
+                        : GameIngestionOutcome.failed(gameDto.getIgdbId(), "saveGames no devolvió el juego."));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Ingesta en paralelo: falló el subgrafo de {} juegos (primer IGDB ID {}): {}",
+                    group.size(), group.get(0).getIgdbId(), e.getMessage(), e);
+            group.forEach(gameDto -> outcomes.put(gameDto.getIgdbId(),
+                    GameIngestionOutcome.failed(gameDto.getIgdbId(), e.getMessage())));
+        }
+        return outcomes;
+    }
+
+    private Map<Long, Long> saveGroup(List<GameDto> group) {
+        try {
+            return saveInNewTransaction(group);
+        } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+            // Conflicto con una ingesta que no compartía juegos con esta (p. ej. la misma keyword o compañía nueva)
+            // o interbloqueo detectado por PostgreSQL: en el segundo intento esas filas ya existen.
+            logger.warn("Ingesta en paralelo: conflicto guardando el subgrafo (primer IGDB ID {}). Reintentando una vez: {}",
+                    group.get(0).getIgdbId(), e.getMessage());
+            return saveInNewTransaction(group);
+        }
+    }
+
+    private Map<Long, Long> saveInNewTransaction(List<GameDto> group) {
+        Map<Long, Long> internalIds = requiresNewTransaction.execute(status -> {
+            Map<Long, Long> savedIds = new HashMap<>();
+            for (Game game : gameService.saveGames(group)) {
+                savedIds.put(game.getIgdbId(), game.getInternalId());
+            }
+            return savedIds;
+        });
+        return internalIds != null ? internalIds : Map.of();
+    }
+
+    private void recordMetrics(List<GameIngestionOutcome> outcomes) {
+        long saved = outcomes.stream().filter(outcome -> outcome.status() == GameIngestionOutcome.Status.SAVED).count();
+        long failed = outcomes.stream().filter(outcome -> outcome.status() == GameIngestionOutcome.Status.FAILED).count();
+        long invalid = outcomes.size() - saved - failed;
+        savedItems.increment(saved);
+        failedItems.increment(failed);
+        invalidItems.increment(invalid);
+        logger.info("Ingesta en paralelo terminada: {} guardados, {} fallidos, {} no válidos.", saved, failed, invalid);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,158 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Diccionario en memoria de una tabla de referencia (géneros, temas, modos de juego...) indexado por IGDB ID.
+ * <p>
+ * Las lecturas no bloquean: trabajan sobre una instantánea inmutable que se sustituye entera (copy-on-write).
+ * Cuando falta una entrada o su contenido ha cambiado, el escritor la inserta o actualiza en la BD dentro de la
+ * transacción en curso (la de la ingesta, sin abrir otra conexión) y las entidades escritas se publican en una
+ * instantánea nueva cuando esa transacción se confirma; si se deshace, no se publican. Dos ingestas en paralelo
+ * pueden escribir la misma fila: el upsert nativo ({@code ON CONFLICT}) lo admite, y la segunda espera al
+ * bloqueo de fila de la primera dentro de su propia transacción.
+ * <p>
+ * Las entidades del diccionario están desacopladas (detached) y se comparten entre hilos: no deben modificarse.
+ * Sirven para asociarlas a un juego, porque Hibernate solo necesita su ID interno para escribir la tabla de unión.
+ *
+ * @param <D> tipo del DTO de IGDB.
+ * @param <E> tipo de la entidad.
+ */
+class ReferenceDataDictionary<D, E> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataDictionary.class);
+
+    private final String name;
+    private final Function<E, Long> igdbIdOf;
+    private final BiPredicate<D, E> upToDate;
+    private final Supplier<List<E>> loader;
+    private final Function<Map<Long, D>, List<E>> writer;
+
+    // Solo protege la sustitución de la instantánea (nunca se mantiene mientras se escribe en la BD)
+    private final Object publishLock = new Object();
+    private volatile Map<Long, E> snapshot;
+
+    /**
+     * @param name     nombre del diccionario (para logs y métricas).
+     * @param igdbIdOf obtiene el IGDB ID de la entidad.
+     * @param upToDate indica si la entidad ya refleja el DTO (sin cambios que escribir).
+     * @param loader   carga todas las filas de la tabla, en la transacción en curso si la hay.
+     * @param writer   inserta o actualiza en la BD los DTOs indicados, en la transacción en curso si la hay,
+     *                 y devuelve las entidades escritas.
+     */
+    ReferenceDataDictionary(String name, Function<E, Long> igdbIdOf, BiPredicate<D, E> upToDate,
+                            Supplier<List<E>> loader, Function<Map<Long, D>, List<E>> writer) {
+        this.name = name;
+        this.igdbIdOf = igdbIdOf;
+        this.upToDate = upToDate;
+        this.loader = loader;
+        this.writer = writer;
+    }
+
+    /**
+     * Devuelve las entidades correspondientes a los DTOs indicados, creando o actualizando en la BD
+     * las que falten o hayan cambiado.
+     */
+    Map<Long, E> resolve(Map<Long, D> dtosByIgdbId) {
+        if (dtosByIgdbId.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, E> current = currentSnapshot();
+        Map<Long, D> pending = findPending(current, dtosByIgdbId);
+        Map<Long, E> written = new HashMap<>();
+        if (!pending.isEmpty()) {
+            List<E> entities = writer.apply(pending);
+            entities.forEach(entity -> written.put(igdbIdOf.apply(entity), entity));
+            publishAfterCommit(entities);
+        }
+
+        Map<Long, E> resolved = new HashMap<>();
+        dtosByIgdbId.keySet().forEach(igdbId -> {
+            E entity = written.containsKey(igdbId) ? written.get(igdbId) : current.get(igdbId);
+            if (entity != null) {
+                resolved.put(igdbId, entity);
+            }
+        });
+        return resolved;
+    }
+
+    /**
+     * Vuelve a cargar toda la tabla desde la BD y publica una instantánea nueva.
+     */
+    void reload() {
+        synchronized (publishLock) {
+            snapshot = index(loader.get());
+            logger.debug("Diccionario '{}' cargado con {} entradas.", name, snapshot.size());
+        }
+    }
+
+    int size() {
+        Map<Long, E> current = snapshot;
+        return current != null ? current.size() : 0;
+    }
+
+    private Map<Long, E> currentSnapshot() {
+        Map<Long, E> current = snapshot;
+        if (current == null) {
+            synchronized (publishLock) {
+                if (snapshot == null) {
+                    snapshot = index(loader.get());
+                    logger.debug("Diccionario '{}' cargado con {} entradas.", name, snapshot.size());
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    // Las filas escritas solo son visibles para otras transacciones cuando se confirma la de la ingesta
+    private void publishAfterCommit(List<E> written) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(written);
+                }
+            });
+        } else {
+            publish(written);
+        }
+    }
+
+    private void publish(List<E> written) {
+        synchronized (publishLock) {
+            Map<Long, E> next = new HashMap<>(snapshot != null ? snapshot : Map.of());
+            written.forEach(entity -> next.put(igdbIdOf.apply(entity), entity));
+            snapshot = Map.copyOf(next);
+        }
+        logger.debug("Diccionario '{}': {} entradas nuevas o actualizadas.", name, written.size());
+    }
+
+    private Map<Long, D> findPending(Map<Long, E> current, Map<Long, D> dtosByIgdbId) {
+        Map<Long, D> pending = new LinkedHashMap<>();
+        dtosByIgdbId.forEach((igdbId, dto) -> {
+            E entity = current.get(igdbId);
+            if (entity == null || !upToDate.test(dto, entity)) {
+                pending.put(igdbId, dto);
+            }
+        });
+        return pending;
+    }
+
+    private Map<Long, E> index(List<E> entities) {
+        Map<Long, E> indexed = new HashMap<>();
+        entities.forEach(entity -> indexed.put(igdbIdOf.apply(entity), entity));
+        return Map.copyOf(indexed);
+    }
+}
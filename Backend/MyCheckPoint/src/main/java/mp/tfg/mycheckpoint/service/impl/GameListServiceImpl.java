@@ -12,6 +12,7 @@ import mp.tfg.mycheckpoint.repository.GameListRepository;
 import mp.tfg.mycheckpoint.repository.UserGameRepository;
 import mp.tfg.mycheckpoint.repository.UserRepository;
 import mp.tfg.mycheckpoint.service.GameListService;
+import mp.tfg.mycheckpoint.service.games.GameCardService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,16 +32,25 @@ public class GameListServiceImpl implements GameListService {
     private final GameListRepository gameListRepository;
     private final UserGameRepository userGameRepository; // Para encontrar el UserGame a añadir
     private final GameListMapper gameListMapper;
+    private final GameCardService gameCardService;
 
     @Autowired
     public GameListServiceImpl(UserRepository userRepository,
                                GameListRepository gameListRepository,
                                UserGameRepository userGameRepository,
-                               GameListMapper gameListMapper) {
+                               GameListMapper gameListMapper,
+                               GameCardService gameCardService) {
         this.userRepository = userRepository;
         this.gameListRepository = gameListRepository;
         this.userGameRepository = userGameRepository;
         this.gameListMapper = gameListMapper;
+        this.gameCardService = gameCardService;
+    }
+
+    // Los juegos de la lista se mapean con su tarjeta (GameCardService): una consulta para toda la lista
+    // en lugar de cargar cada juego para leer su igdbId.
+    private GameListResponseDTO toResponseDto(GameList gameList) {
+        return gameListMapper.toResponseDto(gameList, gameCardService.toResponseDtosWithCards(gameList.getUserGames()));
     }
 
     private User getUserByEmail(String email) {
@@ -57,7 +67,7 @@ public class GameListServiceImpl implements GameListService {
         // gameList.setPublicId(UUID.randomUUID()); // Se genera en @PrePersist
         GameList savedGameList = gameListRepository.save(gameList);
         logger.info("User {} created GameList '{}' (Public ID: {})", userEmail, savedGameList.getName(), savedGameList.getPublicId());
-        return gameListMapper.toResponseDto(savedGameList);
+        return toResponseDto(savedGameList);
     }
 
     @Override
@@ -71,7 +81,7 @@ public class GameListServiceImpl implements GameListService {
                 .map(gameList -> {
                     // Carga explícita si es necesario y no se usó FETCH en el repo.
                     // Hibernate.initialize(gameList.getUserGames());
-                    return gameListMapper.toResponseDto(gameList);
+                    return toResponseDto(gameList);
                 })
                 .collect(Collectors.toList());
     }
@@ -83,7 +93,7 @@ public class GameListServiceImpl implements GameListService {
         GameList gameList = gameListRepository.findByPublicIdAndOwnerWithGames(listPublicId, owner)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "GameList with Public ID " + listPublicId + " not found for user " + userEmail));
-        return gameListMapper.toResponseDto(gameList);
+        return toResponseDto(gameList);
     }
 
     @Override
@@ -92,7 +102,7 @@ public class GameListServiceImpl implements GameListService {
         GameList gameList = gameListRepository.findByPublicIdAndIsPublicTrueWithGames(listPublicId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Public GameList with Public ID " + listPublicId + " not found or is not public."));
-        return gameListMapper.toResponseDto(gameList);
+        return toResponseDto(gameList);
     }
 
     @Override
@@ -112,7 +122,7 @@ public class GameListServiceImpl implements GameListService {
                     // GameList fetchedList = gameListRepository.findByPublicIdAndIsPublicTrueWithGames(gameList.getPublicId())
                     //                                          .orElse(gameList); // Fallback a la lista original si no se encuentra (no debería pasar)
                     // return gameListMapper.toResponseDto(fetchedList);
-                    return gameListMapper.toResponseDto(gameList); // Asume que el mapeo maneja la carga LAZY o el repo la hizo.
+                    return toResponseDto(gameList); // Asume que el mapeo maneja la carga LAZY o el repo la hizo.
                 })
                 .collect(Collectors.toList());
     }
@@ -129,7 +139,7 @@ public class GameListServiceImpl implements GameListService {
         gameListMapper.updateFromDto(requestDTO, gameList);
         GameList updatedGameList = gameListRepository.save(gameList);
         logger.info("User {} updated GameList '{}' (Public ID: {})", userEmail, updatedGameList.getName(), updatedGameList.getPublicId());
-        return gameListMapper.toResponseDto(updatedGameList);
+        return toResponseDto(updatedGameList);
     }
 
     @Override
@@ -167,14 +177,14 @@ public class GameListServiceImpl implements GameListService {
             logger.warn("Game (UserGame ID: {}) is already in list '{}' (Public ID: {}). No action taken.",
                     userGameInternalId, gameList.getName(), listPublicId);
             // Devolver la lista tal cual o un mensaje/error específico
-            return gameListMapper.toResponseDto(gameList);
+            return toResponseDto(gameList);
         }
 
         gameList.getUserGames().add(userGame);
         GameList updatedGameList = gameListRepository.save(gameList); // Guardar para persistir la asociación
         logger.info("Added game (UserGame ID: {}) to list '{}' (Public ID: {}) for user {}",
                 userGameInternalId, updatedGameList.getName(), listPublicId, userEmail);
-        return gameListMapper.toResponseDto(updatedGameList);
+        return toResponseDto(updatedGameList);
     }
 
     @Override
@@ -2,6 +2,7 @@
 package mp.tfg.mycheckpoint.service.impl;
 
 import mp.tfg.mycheckpoint.dto.enums.TierListType;
+import mp.tfg.mycheckpoint.dto.games.GameCardDTO;
 import mp.tfg.mycheckpoint.dto.tierlist.*;
 import mp.tfg.mycheckpoint.entity.*;
 import mp.tfg.mycheckpoint.exception.InvalidOperationException;
@@ -10,6 +11,7 @@ import mp.tfg.mycheckpoint.exception.UnauthorizedOperationException;
 import mp.tfg.mycheckpoint.mapper.tierlist.TierListMapper;
 import mp.tfg.mycheckpoint.repository.*;
 import mp.tfg.mycheckpoint.service.TierListService;
+import mp.tfg.mycheckpoint.service.games.GameCardService;
 import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +41,7 @@ public class TierListServiceImpl implements TierListService {
     private final TierSectionRepository tierSectionRepository;
     private final TierListItemRepository tierListItemRepository;
     private final TierListMapper tierListMapper;
+    private final GameCardService gameCardService;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -50,7 +53,8 @@ public class TierListServiceImpl implements TierListService {
                                TierListRepository tierListRepository,
                                TierSectionRepository tierSectionRepository,
                                TierListItemRepository tierListItemRepository,
-                               TierListMapper tierListMapper) {
+                               TierListMapper tierListMapper,
+                               GameCardService gameCardService) {
         this.userRepository = userRepository;
         this.gameListRepository = gameListRepository;
         this.userGameRepository = userGameRepository;
@@ -58,6 +62,7 @@ public class TierListServiceImpl implements TierListService {
         this.tierSectionRepository = tierSectionRepository;
         this.tierListItemRepository = tierListItemRepository;
         this.tierListMapper = tierListMapper;
+        this.gameCardService = gameCardService;
     }
 
     private User getUserByEmailOrThrow(String email) {
@@ -73,14 +78,9 @@ public class TierListServiceImpl implements TierListService {
                 Hibernate.initialize(section.getItems());
                 if (section.getItems() != null) {
                     for (TierListItem item : section.getItems()) {
+                        // El juego no se inicializa: sus datos salen de las tarjetas de GameCardService (ver toResponseDtos)
                         if (item.getUserGame() != null) {
                             Hibernate.initialize(item.getUserGame());
-                            if (item.getUserGame().getGame() != null) {
-                                Hibernate.initialize(item.getUserGame().getGame());
-                                if (item.getUserGame().getGame().getCover() != null) {
-                                    Hibernate.initialize(item.getUserGame().getGame().getCover());
-                                }
-                            }
                         }
                     }
                 }
@@ -88,6 +88,31 @@ public class TierListServiceImpl implements TierListService {
         }
     }
 
+    private TierListResponseDTO toResponseDto(TierList tierList) {
+        return toResponseDtos(List.of(tierList)).get(0);
+    }
+
+    // Las tarjetas de los juegos de todas las tier lists se resuelven con una sola consulta
+    // en lugar de cargar cada juego para leer su nombre, carátula e igdbId.
+    private List<TierListResponseDTO> toResponseDtos(List<TierList> tierLists) {
+        List<Long> gameInternalIds = new ArrayList<>();
+        for (TierList tierList : tierLists) {
+            if (tierList.getSections() == null) continue;
+            for (TierSection section : tierList.getSections()) {
+                if (section.getItems() == null) continue;
+                for (TierListItem item : section.getItems()) {
+                    if (item.getUserGame() != null && item.getUserGame().getGame() != null) {
+                        gameInternalIds.add(item.getUserGame().getGame().getInternalId());
+                    }
+                }
+            }
+        }
+        Map<Long, GameCardDTO> cards = gameCardService.findCardsByGameInternalId(gameInternalIds);
+        return tierLists.stream()
+                .map(tierList -> tierListMapper.toTierListResponseDTOWithSections(tierList, cards))
+                .collect(Collectors.toList());
+    }
+
     private TierList findTierListByPublicIdAndOwnerOrThrow(UUID publicId, User owner) {
         Optional<TierList> tierListOpt = tierListRepository.findByPublicIdAndOwnerWithSections(publicId, owner);
         tierListOpt.ifPresent(this::initializeTierListDetails);
@@ -150,7 +175,7 @@ public class TierListServiceImpl implements TierListService {
         TierList savedTierList = tierListRepository.save(tierList);
         initializeTierListDetails(savedTierList);
         logger.info("TierList de perfil '{}' creada para el usuario {}", savedTierList.getName(), userEmail);
-        return tierListMapper.toTierListResponseDTOWithSections(savedTierList);
+        return toResponseDto(savedTierList);
     }
 
     private void createDefaultSections(TierList tierList) {
@@ -217,7 +242,7 @@ public class TierListServiceImpl implements TierListService {
         synchronizeTierListWithGameList(tierList, sourceGameList);
 
         TierList finalTierListState = findTierListByPublicIdForReadOrThrow(tierList.getPublicId(), currentUser); // currentUser para validación de lectura
-        return tierListMapper.toTierListResponseDTOWithSections(finalTierListState);
+        return toResponseDto(finalTierListState);
     }
 
     @Transactional
@@ -292,7 +317,7 @@ public class TierListServiceImpl implements TierListService {
     public TierListResponseDTO getTierListByPublicId(UUID tierListPublicId, String userEmail) {
         User currentUser = (userEmail != null) ? userRepository.findByEmail(userEmail).orElse(null) : null;
         TierList tierList = findTierListByPublicIdForReadOrThrow(tierListPublicId, currentUser);
-        return tierListMapper.toTierListResponseDTOWithSections(tierList);
+        return toResponseDto(tierList);
     }
 
     @Override
@@ -301,9 +326,7 @@ public class TierListServiceImpl implements TierListService {
         User owner = getUserByEmailOrThrow(userEmail);
         List<TierList> tierLists = tierListRepository.findAllByOwnerAndTypeWithSections(owner);
         tierLists.forEach(this::initializeTierListDetails);
-        return tierLists.stream()
-                .map(tierListMapper::toTierListResponseDTOWithSections)
-                .collect(Collectors.toList());
+        return toResponseDtos(tierLists);
     }
 
     @Override
@@ -311,9 +334,7 @@ public class TierListServiceImpl implements TierListService {
     public List<TierListResponseDTO> getAllPublicTierLists() {
         List<TierList> tierLists = tierListRepository.findAllByIsPublicTrueAndFetchSections(); // Usando el nuevo método del repo
         tierLists.forEach(this::initializeTierListDetails);
-        return tierLists.stream()
-                .map(tierListMapper::toTierListResponseDTOWithSections) // Usando el método correcto del mapper
-                .collect(Collectors.toList());
+        return toResponseDtos(tierLists);
     }
 
     @Override
@@ -324,7 +345,7 @@ public class TierListServiceImpl implements TierListService {
         tierListMapper.updateFromUpdateRequestDTO(updateRequestDTO, tierList);
         TierList updatedTierList = tierListRepository.save(tierList);
         initializeTierListDetails(updatedTierList);
-        return tierListMapper.toTierListResponseDTOWithSections(updatedTierList);
+        return toResponseDto(updatedTierList);
     }
 
     @Override
@@ -359,7 +380,7 @@ public class TierListServiceImpl implements TierListService {
         tierList.addSection(newSection);
         TierList updatedTierList = tierListRepository.save(tierList);
         initializeTierListDetails(updatedTierList);
-        return tierListMapper.toTierListResponseDTOWithSections(updatedTierList);
+        return toResponseDto(updatedTierList);
     }
 
     @Override
@@ -431,7 +452,7 @@ public class TierListServiceImpl implements TierListService {
                 sectionToRemove.getName(), sectionInternalId, userEmail);
 
         TierList reloadedTierList = findTierListByPublicIdAndOwnerOrThrow(tierListPublicId, owner);
-        return tierListMapper.toTierListResponseDTOWithSections(reloadedTierList);
+        return toResponseDto(reloadedTierList);
     }
 
     @Override // Asegúrate de que esta anotación esté presente
@@ -453,7 +474,7 @@ public class TierListServiceImpl implements TierListService {
         // Es buena práctica inicializar los detalles para el DTO de respuesta
         initializeTierListDetails(updatedTierList);
 
-        return tierListMapper.toTierListResponseDTOWithSections(updatedTierList);
+        return toResponseDto(updatedTierList);
     }
 
     @Override
@@ -535,7 +556,7 @@ public class TierListServiceImpl implements TierListService {
                 targetSection.getName(), tierList.getName(), userEmail);
 
         TierList reloadedTierList = findTierListByPublicIdAndOwnerOrThrow(updatedTierList.getPublicId(), tierList.getOwner());
-        return tierListMapper.toTierListResponseDTOWithSections(reloadedTierList);
+        return toResponseDto(reloadedTierList);
     }
 
     @Override
@@ -657,7 +678,7 @@ public class TierListServiceImpl implements TierListService {
                 userEmail);
 
         initializeTierListDetails(updatedTierList); // Para el DTO de respuesta
-        return tierListMapper.toTierListResponseDTOWithSections(updatedTierList);
+        return toResponseDto(updatedTierList);
     }
 
     @Override
@@ -692,6 +713,6 @@ public class TierListServiceImpl implements TierListService {
                 itemToRemove.getInternalId(), (itemToRemove.getUserGame() != null ? itemToRemove.getUserGame().getInternalId() : "N/A"), tierList.getName(), userEmail);
 
         TierList reloadedTierList = findTierListByPublicIdAndOwnerOrThrow(updatedTierList.getPublicId(), owner);
-        return tierListMapper.toTierListResponseDTOWithSections(reloadedTierList);
+        return toResponseDto(reloadedTierList);
     }
 }
\ No newline at end of file
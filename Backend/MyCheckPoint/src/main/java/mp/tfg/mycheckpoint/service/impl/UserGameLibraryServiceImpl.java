@@ -1,6 +1,7 @@
 package mp.tfg.mycheckpoint.service.impl;
 
 import mp.tfg.mycheckpoint.dto.comment.PublicGameCommentDTO; // IMPORTACIÓN ACTUALIZADA
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
 import mp.tfg.mycheckpoint.dto.enums.VisibilidadEnum;
 import mp.tfg.mycheckpoint.dto.games.GameDto;
 import mp.tfg.mycheckpoint.dto.usergame.GameDetailDTO;
@@ -14,15 +15,23 @@ import mp.tfg.mycheckpoint.mapper.games.GameMapper;
 import mp.tfg.mycheckpoint.mapper.UserGameMapper;
 import mp.tfg.mycheckpoint.repository.UserRepository;
 import mp.tfg.mycheckpoint.repository.UserGameRepository;
+import mp.tfg.mycheckpoint.repository.games.GameCatalogStatus;
 import mp.tfg.mycheckpoint.repository.games.GameRepository;
 import mp.tfg.mycheckpoint.service.UserGameLibraryService;
+import mp.tfg.mycheckpoint.service.games.GameCardService;
+import mp.tfg.mycheckpoint.service.games.GameDetailDocumentService;
+import mp.tfg.mycheckpoint.service.games.GameEnrichmentService;
+import mp.tfg.mycheckpoint.service.games.GameIngestionCoordinator;
 import mp.tfg.mycheckpoint.service.games.GameService;
+import mp.tfg.mycheckpoint.service.games.IgdbResilience;
 import mp.tfg.mycheckpoint.service.games.IgdbService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
@@ -43,6 +52,11 @@ public class UserGameLibraryServiceImpl implements UserGameLibraryService {
     private final GameMapper gameGeneralMapper;
     private final GameService gameService;
     private final IgdbService igdbService;
+    private final GameIngestionCoordinator gameIngestionCoordinator;
+    private final GameDetailDocumentService gameDetailDocumentService;
+    private final GameCardService gameCardService;
+    private final GameEnrichmentService gameEnrichmentService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public UserGameLibraryServiceImpl(UserRepository userRepository,
@@ -51,7 +65,12 @@ public class UserGameLibraryServiceImpl implements UserGameLibraryService {
                                       UserGameMapper userGameMapper,
                                       GameMapper gameGeneralMapper,
                                       GameService gameService,
-                                      IgdbService igdbService) {
+                                      IgdbService igdbService,
+                                      GameIngestionCoordinator gameIngestionCoordinator,
+                                      GameDetailDocumentService gameDetailDocumentService,
+                                      GameCardService gameCardService,
+                                      GameEnrichmentService gameEnrichmentService,
+                                      PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.gameRepository = gameRepository;
         this.userGameRepository = userGameRepository;
@@ -59,6 +78,11 @@ public class UserGameLibraryServiceImpl implements UserGameLibraryService {
         this.gameGeneralMapper = gameGeneralMapper;
         this.gameService = gameService;
         this.igdbService = igdbService;
+        this.gameIngestionCoordinator = gameIngestionCoordinator;
+        this.gameDetailDocumentService = gameDetailDocumentService;
+        this.gameCardService = gameCardService;
+        this.gameEnrichmentService = gameEnrichmentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     private User getUserByEmail(String email) {
@@ -66,101 +90,63 @@ public class UserGameLibraryServiceImpl implements UserGameLibraryService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
     }
 
-    private Game ensureGameExists(Long igdbId) {
-        Optional<Game> gameOpt = gameRepository.findByIgdbId(igdbId);
-
-        if (gameOpt.isPresent()) {
-            Game existingGameEntity = gameOpt.get();
-
-            // Comprobar si la ENTIDAD existente tiene todos los detalles.
-            if (!existingGameEntity.isFullDetails()) {
-                logger.info("Juego con IGDB ID {} existe localmente pero está marcado como parcial (entidad.isFullDetails=false). Obteniendo detalles completos de IGDB.", igdbId);
-
-                // 1. Obtener el DTO completo de IGDB.
-                GameDto gameDtoFromIgdb = igdbService.findGameByIgdbId(igdbId).block();
-
-                if (gameDtoFromIgdb == null) {
-                    logger.error("No se pudo encontrar el juego con IGDB ID {} en IGDB para completar detalles, aunque existía parcialmente.", igdbId);
-                    // Considera qué hacer aquí. ¿Devolver el parcial? ¿Lanzar error?
-                    // Por coherencia con el flujo deseado, es mejor lanzar un error si no se puede completar.
-                    throw new ResourceNotFoundException("Juego no encontrado en IGDB con ID: " + igdbId + " para completar detalles.");
-                }
-
-                // 2. Marcar este DTO como que contiene todos los detalles.
-                gameDtoFromIgdb.setFullDetails(true);
-
-                // 3. Llamar a gameService.saveGames() para actualizar la entidad existente.
-                // La lógica dentro de GameService (findOrCreateAndUpdateBaseGame y processSingleGameDto)
-                // debería manejar la actualización completa de 'existingGameEntity' porque
-                // gameDtoFromIgdb.isFullDetails() es true.
-                // Es importante que processSingleGameDto procese TODAS las relaciones (ManyToMany, etc.)
-                // cuando el DTO que recibe está marcado como isFullDetails=true.
-                logger.debug("Llamando a gameService.saveGames para actualizar el juego IGDB ID {} con DTO completo.", igdbId);
-                List<Game> updatedGames = gameService.saveGames(Collections.singletonList(gameDtoFromIgdb));
-
-                if (updatedGames.isEmpty() || updatedGames.get(0) == null) {
-                    logger.error("Error al actualizar el juego (IGDB ID {}) con detalles completos usando gameService.saveGames.", igdbId);
-                    throw new RuntimeException("Falló la actualización del juego desde IGDB con ID: " + igdbId + " después de obtener detalles completos.");
-                }
-
-                Game fullyUpdatedGameEntity = updatedGames.get(0);
-                logger.info("Juego con IGDB ID {} actualizado con detalles completos. Entidad.isFullDetails ahora es: {}", igdbId, fullyUpdatedGameEntity.isFullDetails());
-                return fullyUpdatedGameEntity; // Devuelve la entidad actualizada y ahora completa.
-
+    /**
+     * Fase 1 de la escritura en la biblioteca, sin transacción ni conexión retenida: resuelve el juego en el
+     * catálogo local. Si está guardado, aunque sea con datos parciales, se usa tal cual y los parciales se encolan
+     * para enriquecerlos en segundo plano. Solo si no existe se trae de IGDB (no hay fila a la que asociar la
+     * entrada); la ingesta confirma en su propia transacción corta, después de que IGDB haya respondido.
+     *
+     * @return el internalId del juego.
+     */
+    private Long resolveGameInternalId(Long igdbId) {
+        Optional<GameCatalogStatus> catalogStatus = gameRepository.findCatalogStatusByIgdbId(igdbId);
+        if (catalogStatus.isPresent()) {
+            if (catalogStatus.get().fullDetails()) {
+                logger.debug("Juego con IGDB ID {} existe localmente y ya tiene detalles completos.", igdbId);
             } else {
-                // El juego existe y la entidad ya está marcada como con detalles completos.
-                logger.debug("Juego con IGDB ID {} existe localmente y ya tiene detalles completos (entidad.isFullDetails=true).", igdbId);
-                return existingGameEntity;
-            }
-        } else {
-            // El juego no existe localmente, obtenerlo de IGDB y guardarlo.
-            logger.info("Juego con IGDB ID {} no encontrado en BD local. Obteniendo de IGDB y guardando.", igdbId);
-            GameDto gameDtoFromIgdb = igdbService.findGameByIgdbId(igdbId).block();
-
-            if (gameDtoFromIgdb == null) {
-                throw new ResourceNotFoundException("Juego no encontrado en IGDB con ID: " + igdbId);
-            }
-
-            // Al obtenerlo por primera vez directamente para añadir a la biblioteca, se asume completo.
-            gameDtoFromIgdb.setFullDetails(true);
-
-            logger.debug("Llamando a gameService.saveGames para guardar el nuevo juego IGDB ID {} con DTO completo.", igdbId);
-            List<Game> savedGames = gameService.saveGames(Collections.singletonList(gameDtoFromIgdb));
-
-            if (savedGames.isEmpty() || savedGames.get(0) == null) {
-                logger.error("Error al guardar nuevo juego de IGDB con ID {}.", igdbId);
-                throw new RuntimeException("Falló el guardado del nuevo juego desde IGDB con ID: " + igdbId);
+                logger.info("Juego con IGDB ID {} existe localmente con datos parciales. Se usa ya y se encola para enriquecerlo.", igdbId);
+                gameEnrichmentService.enqueue(igdbId);
             }
-
-            Game newSavedGameEntity = savedGames.get(0);
-            logger.info("Nuevo juego con IGDB ID {} guardado. Entidad.isFullDetails: {}", igdbId, newSavedGameEntity.isFullDetails());
-            return newSavedGameEntity;
+            return catalogStatus.get().internalId();
         }
+
+        logger.info("Juego con IGDB ID {} no encontrado en BD local. Obteniendo detalles completos de IGDB.", igdbId);
+        // La ingesta se comparte entre peticiones concurrentes del mismo juego.
+        Long internalId = gameIngestionCoordinator.ingestFullGame(igdbId);
+        logger.info("Juego con IGDB ID {} guardado con detalles completos (internalId {}).", igdbId, internalId);
+        return internalId;
     }
 
     @Override
-    @Transactional
     public UserGameResponseDTO addOrUpdateGameInLibrary(String userEmail, Long igdbId, UserGameDataDTO userGameDataDTO) {
-        User user = getUserByEmail(userEmail);
-        Game game = ensureGameExists(igdbId);
-
-        UserGame userGame = userGameRepository.findByUserAndGame(user, game)
-                .orElseGet(() -> UserGame.builder().user(user).game(game).build());
-
-        userGameMapper.updateFromDto(userGameDataDTO, userGame);
-        UserGame savedUserGame = userGameRepository.save(userGame);
-        logger.info("User {} {} game with IGDB ID {} (internal UserGame ID: {}) to their library.",
-                userEmail, (userGame.getInternalId() == null || userGame.getInternalId().equals(0L)) ? "added" : "updated", igdbId, savedUserGame.getInternalId());
-        return userGameMapper.toResponseDto(savedUserGame);
+        // Fase 1: resolver el juego en el catálogo fuera de cualquier transacción (la llamada a IGDB puede tardar)
+        Long gameInternalId = resolveGameInternalId(igdbId);
+
+        // Fase 2: transacción corta que solo escribe la entrada de la biblioteca
+        return transactionTemplate.execute(status -> {
+            User user = getUserByEmail(userEmail);
+            Game game = gameRepository.getReferenceById(gameInternalId); // Referencia sin cargar el juego
+
+            Optional<UserGame> existingUserGame = userGameRepository.findByUserAndGame(user, game);
+            UserGame userGame = existingUserGame.orElseGet(() -> UserGame.builder().user(user).game(game).build());
+
+            userGameMapper.updateFromDto(userGameDataDTO, userGame);
+            UserGame savedUserGame = userGameRepository.save(userGame);
+            logger.info("User {} {} game with IGDB ID {} (internal UserGame ID: {}) to their library.",
+                    userEmail, existingUserGame.isPresent() ? "updated" : "added", igdbId, savedUserGame.getInternalId());
+
+            UserGameResponseDTO responseDto = userGameMapper.toResponseDtoWithoutGame(savedUserGame);
+            responseDto.setGameIgdbId(igdbId);
+            return responseDto;
+        });
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<UserGameResponseDTO> getUserGameLibrary(String userEmail) {
         User user = getUserByEmail(userEmail);
-        return userGameRepository.findByUser(user).stream()
-                .map(userGameMapper::toResponseDto)
-                .collect(Collectors.toList());
+        // Tarjetas de juego en bloque: una consulta para toda la biblioteca en lugar de una por juego
+        return gameCardService.toResponseDtosWithCards(userGameRepository.findByUser(user));
     }
 
     @Override
@@ -177,41 +163,52 @@ public class UserGameLibraryServiceImpl implements UserGameLibraryService {
     @Transactional(readOnly = true)
     public GameDetailDTO getGameDetailsForUser(Long igdbId, String userEmail) {
         Optional<Game> gameEntityOptional = gameRepository.findByIgdbId(igdbId);
-        GameDto gameInfoDto;
+        GameDto gameInfoDto = null;
+        String gameInfoDocument = null; // JSON precalculado del gameInfo, si el juego local tiene uno al día
+        boolean staleGameInfo = false; // true si IGDB no estaba disponible y se sirven datos locales/cacheados
         Game gameEntityForUserAndComments = gameEntityOptional.orElse(null); // Usar para userGameData y comments
 
         if (gameEntityOptional.isPresent()) {
             Game localGameEntity = gameEntityOptional.get();
-            logger.debug("Juego con IGDB ID {} encontrado localmente. FullDetails: {}", igdbId, localGameEntity.isFullDetails());
+            logger.debug("Juego con IGDB ID {} encontrado localmente. Nivel de detalle: {}", igdbId, localGameEntity.getDetailLevel());
 
-            if (localGameEntity.isFullDetails()) {
-                // El juego existe localmente y TIENE detalles completos.
+            if (localGameEntity.getDetailLevel().isAtLeast(GameDetailLevel.DETAIL)) {
+                // El juego existe localmente y TIENE al menos los detalles que muestra la vista.
                 logger.debug("Usando datos completos locales para el gameInfo del juego IGDB ID {}.", igdbId);
-                // gameService.getGameByIgdbIdOriginal carga la entidad y sus colecciones LAZY.
-                Game fullyLoadedLocalGame = gameService.getGameByIgdbIdOriginal(igdbId); // Puede devolver null si no se encuentra, aunque ya hicimos findByIgdbId
-                if (fullyLoadedLocalGame == null) { // Salvaguarda
-                    throw new ResourceNotFoundException("Error al cargar la entidad local completa para el juego IGDB ID: " + igdbId);
+                // Primero el documento precalculado: una sola lectura, sin cargar colecciones ni mapear.
+                GameDetailDocumentService.DocumentLookup documentLookup = gameDetailDocumentService.find(igdbId);
+                gameInfoDocument = documentLookup.document();
+                if (gameInfoDocument == null) {
+                    // gameService.getGameByIgdbIdOriginal carga la entidad y sus colecciones LAZY.
+                    Game fullyLoadedLocalGame = gameService.getGameByIgdbIdOriginal(igdbId); // Puede devolver null si no se encuentra, aunque ya hicimos findByIgdbId
+                    if (fullyLoadedLocalGame == null) { // Salvaguarda
+                        throw new ResourceNotFoundException("Error al cargar la entidad local completa para el juego IGDB ID: " + igdbId);
+                    }
+                    gameInfoDto = gameGeneralMapper.toDto(fullyLoadedLocalGame);
+                    // Se guarda para las siguientes lecturas (falta o es de una versión anterior), al acabar esta transacción
+                    gameDetailDocumentService.storeAfterTransaction(documentLookup, gameInfoDto);
                 }
-                gameInfoDto = gameGeneralMapper.toDto(fullyLoadedLocalGame);
             } else {
-                // El juego existe localmente PERO está marcado como PARCIAL (isFullDetails = false).
-                // Obtener los detalles completos de IGDB para la respuesta, SIN GUARDARLOS en la BDD local.
-                logger.info("Juego IGDB ID {} existe localmente pero es parcial. Obteniendo detalles completos de IGDB solo para la vista (sin guardar).", igdbId);
-                gameInfoDto = igdbService.findGameByIgdbId(igdbId)
-                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Juego no encontrado en IGDB con ID: " + igdbId + " al intentar obtener detalles completos para la vista.")))
-                        .block();
+                // El juego existe localmente PERO con un nivel de detalle inferior al de la vista.
+                // Obtener la proyección DETAIL de IGDB para la respuesta, SIN GUARDARLA en la BDD local.
+                logger.info("Juego IGDB ID {} existe localmente pero es parcial. Obteniendo detalles de IGDB solo para la vista (sin guardar).", igdbId);
+                gameEnrichmentService.enqueue(igdbId); // Se completará en segundo plano para las siguientes vistas
+                GameInfoForView gameInfoForView = fetchGameInfoForView(igdbId, localGameEntity,
+                        "Juego no encontrado en IGDB con ID: " + igdbId + " al intentar obtener detalles completos para la vista.");
+                gameInfoDto = gameInfoForView.gameInfo();
+                staleGameInfo = gameInfoForView.stale();
                 // En este caso, gameInfoDto viene de IGDB. La entidad local (localGameEntity o gameEntityForUserAndComments) sigue siendo parcial.
             }
         } else {
             // El juego NO existe localmente. Obtener de IGDB.
             logger.info("Juego con IGDB ID {} no encontrado localmente. Obteniendo de IGDB para la vista.", igdbId);
-            gameInfoDto = igdbService.findGameByIgdbId(igdbId)
-                    .switchIfEmpty(Mono.error(new ResourceNotFoundException("Juego no encontrado en IGDB con ID: " + igdbId)))
-                    .block();
+            GameInfoForView gameInfoForView = fetchGameInfoForView(igdbId, null, "Juego no encontrado en IGDB con ID: " + igdbId);
+            gameInfoDto = gameInfoForView.gameInfo();
+            staleGameInfo = gameInfoForView.stale();
             // gameEntityForUserAndComments ya es null en este caso.
         }
 
-        if (gameInfoDto == null) {
+        if (gameInfoDto == null && gameInfoDocument == null) {
             // Si después de todas las lógicas, gameInfoDto sigue siendo null (ej. no se encontró ni localmente ni en IGDB).
             throw new ResourceNotFoundException("No se pudo obtener información del juego con IGDB ID: " + igdbId);
         }
@@ -255,11 +252,48 @@ public class UserGameLibraryServiceImpl implements UserGameLibraryService {
 
         return GameDetailDTO.builder()
                 .gameInfo(gameInfoDto) // Este es el DTO que viene de la entidad local completa o de IGDB directamente
+                .gameInfoDocument(gameInfoDocument)
                 .userGameData(userGameDataDto)
                 .publicComments(publicComments)
+                .stale(staleGameInfo)
                 .build();
     }
 
+    /**
+     * Obtiene de IGDB la información del juego para la vista de detalle. Si IGDB no está disponible
+     * (circuito abierto, timeout, errores 5xx...), degrada a la copia en caché o a la entidad local aunque
+     * sea parcial, y el resultado se marca como desactualizado. Si no hay nada local, se propaga el error.
+     */
+    private GameInfoForView fetchGameInfoForView(Long igdbId, Game localGame, String notFoundMessage) {
+        try {
+            GameDto gameInfo = igdbService.findGameByIgdbId(igdbId, GameDetailLevel.DETAIL)
+                    .switchIfEmpty(Mono.error(new ResourceNotFoundException(notFoundMessage)))
+                    .block();
+            return new GameInfoForView(gameInfo, false);
+        } catch (RuntimeException e) {
+            if (!IgdbResilience.isUnavailable(e)) {
+                throw e;
+            }
+            Optional<GameDto> cachedGame = igdbService.findCachedGame(igdbId);
+            if (cachedGame.isPresent()) {
+                logger.warn("IGDB no disponible ({}). Sirviendo el juego IGDB ID {} desde la caché.", e.getMessage(), igdbId);
+                return new GameInfoForView(cachedGame.get(), true);
+            }
+            if (localGame != null) {
+                Game loadedLocalGame = gameService.getGameByIgdbIdOriginal(igdbId);
+                if (loadedLocalGame != null) {
+                    logger.warn("IGDB no disponible ({}). Sirviendo el juego IGDB ID {} desde la BD local (nivel {}).",
+                            e.getMessage(), igdbId, loadedLocalGame.getDetailLevel());
+                    return new GameInfoForView(gameGeneralMapper.toDto(loadedLocalGame), true);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private record GameInfoForView(GameDto gameInfo, boolean stale) {
+    }
+
     @Override
     @Transactional
     public void removeGameFromLibrary(String userEmail, Long igdbId) {
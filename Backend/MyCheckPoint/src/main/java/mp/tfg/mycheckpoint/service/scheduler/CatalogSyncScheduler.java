@@ -0,0 +1,217 @@
+package mp.tfg.mycheckpoint.service.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.entity.games.CatalogSyncState;
+import mp.tfg.mycheckpoint.repository.games.CatalogSyncLockRepository;
+import mp.tfg.mycheckpoint.repository.games.CatalogSyncStateRepository;
+import mp.tfg.mycheckpoint.repository.games.GameRepository;
+import mp.tfg.mycheckpoint.service.games.GameService;
+import mp.tfg.mycheckpoint.service.games.IgdbService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sincronización incremental del catálogo local con IGDB por {@code updated_at}.
+ * <p>
+ * Cada pasada recorre los juegos completos guardados en orden de IGDB ID, en bloques de
+ * {@code games.sync.batch-size}, y pide a IGDB solo los de cada bloque modificados después del watermark
+ * ({@link IgdbService#findGamesUpdatedSince}). Los cambios se guardan con {@link GameService#saveGames} y, en la
+ * misma transacción, se avanza el cursor de la pasada: un bloque cuenta como hecho solo si se ha confirmado.
+ * Al terminar el recorrido, el watermark pasa al instante en que empezó la pasada (menos un margen por la
+ * diferencia de relojes con IGDB).
+ * <p>
+ * Si algo falla, la pasada se detiene y la siguiente ejecución la reanuda desde el último bloque confirmado, con
+ * el mismo watermark. Volver a aplicar un juego ya sincronizado no reescribe nada (hash de contenido), así que
+ * repetir un bloque es inofensivo.
+ * <p>
+ * Solo puede haber una pasada en curso: cada una toma un bloqueo consultivo de sesión
+ * ({@link CatalogSyncLockRepository}) y lo mantiene hasta terminar o detenerse. Si otra instancia (o una ejecución
+ * anterior que aún no ha acabado) lo tiene, esta ejecución se salta sin tocar el estado ni llamar a IGDB.
+ */
+@Service
+public class CatalogSyncScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSyncScheduler.class);
+
+    static final String IGDB_GAMES_SYNC = "igdb-games";
+
+    private final CatalogSyncStateRepository syncStateRepository;
+    private final CatalogSyncLockRepository syncLockRepository;
+    private final GameRepository gameRepository;
+    private final IgdbService igdbService;
+    private final GameService gameService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration clockSkewMargin;
+    private final Duration initialLookback;
+
+    private final AtomicLong watermark = new AtomicLong();
+    private final Counter scannedGames;
+    private final Counter updatedGames;
+    private final Counter skippedRuns;
+    private final Timer runTimer;
+
+    @Autowired
+    public CatalogSyncScheduler(CatalogSyncStateRepository syncStateRepository,
+                                CatalogSyncLockRepository syncLockRepository,
+                                GameRepository gameRepository,
+                                IgdbService igdbService,
+                                GameService gameService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${games.sync.enabled:true}") boolean enabled,
+                                @Value("${games.sync.batch-size:500}") int batchSize,
+                                @Value("${games.sync.clock-skew-margin:PT10M}") Duration clockSkewMargin,
+                                @Value("${games.sync.initial-lookback:P7D}") Duration initialLookback) {
+        this.syncStateRepository = syncStateRepository;
+        this.syncLockRepository = syncLockRepository;
+        this.gameRepository = gameRepository;
+        this.igdbService = igdbService;
+        this.gameService = gameService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.clockSkewMargin = clockSkewMargin;
+        this.initialLookback = initialLookback;
+
+        Gauge.builder("games.sync.watermark.age", watermark,
+                        value -> value.get() == 0 ? 0 : Instant.now().getEpochSecond() - value.get())
+                .description("Segundos desde el watermark de la sincronización con IGDB (antigüedad de lo sincronizado)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.scannedGames = Counter.builder("games.sync.games")
+                .description("Juegos locales comprobados y actualizados por la sincronización con IGDB")
+                .tag("result", "scanned")
+                .register(meterRegistry);
+        this.updatedGames = Counter.builder("games.sync.games")
+                .description("Juegos locales comprobados y actualizados por la sincronización con IGDB")
+                .tag("result", "updated")
+                .register(meterRegistry);
+        this.skippedRuns = Counter.builder("games.sync.runs")
+                .description("Ejecuciones de la sincronización con IGDB saltadas porque ya había una pasada en curso")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("games.sync.run")
+                .description("Duración de cada pasada de la sincronización con IGDB")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${games.sync.interval:PT6H}", initialDelayString = "${games.sync.initial-delay:PT5M}")
+    public void syncUpdatedGames() {
+        if (!enabled) {
+            return;
+        }
+        runTimer.record(this::runSync);
+    }
+
+    // Ejecuta (o reanuda) una pasada completa si no hay otra en curso
+    void runSync() {
+        Optional<CatalogSyncLockRepository.RunLock> runLock = syncLockRepository.tryLock(IGDB_GAMES_SYNC);
+        if (runLock.isEmpty()) {
+            skippedRuns.increment();
+            logger.info("Sincronización con IGDB saltada: ya hay una pasada en curso.");
+            return;
+        }
+        try (CatalogSyncLockRepository.RunLock ignored = runLock.get()) {
+            runLockedSync();
+        }
+    }
+
+    // Con el bloqueo de la pasada tomado; si se detiene, el watermark no avanza
+    private void runLockedSync() {
+        CatalogSyncState state = startOrResumeRun();
+        long since = state.getWatermark();
+        long target = state.getRunTarget();
+        Long cursor = state.getCursorIgdbId();
+        watermark.set(since);
+        logger.info("Sincronización con IGDB: {} pasada (cambios desde updated_at > {}{}).",
+                cursor == null ? "nueva" : "reanudando", since, cursor == null ? "" : ", tras IGDB ID " + cursor);
+
+        int scanned = 0;
+        int updated = 0;
+        while (true) {
+            List<Long> igdbIds = gameRepository.findFullDetailsIgdbIdsAfter(cursor == null ? 0L : cursor, PageRequest.of(0, batchSize));
+            if (igdbIds.isEmpty()) {
+                break;
+            }
+            Long lastIgdbId = igdbIds.get(igdbIds.size() - 1);
+            try {
+                List<GameDto> changedGames = igdbService.findGamesUpdatedSince(igdbIds, since).collectList().block();
+                int changedCount = changedGames != null ? changedGames.size() : 0;
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (changedCount > 0) {
+                        changedGames.forEach(gameDto -> gameDto.setDetailLevel(GameDetailLevel.FULL));
+                        gameService.saveGames(changedGames);
+                    }
+                    saveProgress(lastIgdbId, null);
+                });
+                scanned += igdbIds.size();
+                updated += changedCount;
+                scannedGames.increment(igdbIds.size());
+                updatedGames.increment(changedCount);
+            } catch (RuntimeException e) {
+                logger.warn("Sincronización con IGDB detenida tras IGDB ID {} ({} comprobados, {} actualizados). " +
+                        "Se reanudará en la siguiente ejecución: {}", cursor, scanned, updated, e.getMessage());
+                return;
+            }
+            cursor = lastIgdbId;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> saveProgress(null, target));
+        watermark.set(target);
+        logger.info("Sincronización con IGDB terminada: {} juegos comprobados, {} actualizados. Nuevo watermark: {}.", scanned, updated, target);
+    }
+
+    private CatalogSyncState startOrResumeRun() {
+        return transactionTemplate.execute(status -> {
+            long now = Instant.now().getEpochSecond();
+            CatalogSyncState state = syncStateRepository.findById(IGDB_GAMES_SYNC).orElseGet(() -> {
+                CatalogSyncState initial = new CatalogSyncState();
+                initial.setName(IGDB_GAMES_SYNC);
+                initial.setWatermark(now - initialLookback.toSeconds());
+                return initial;
+            });
+            if (state.getRunTarget() == null) {
+                // Nueva pasada: los cambios posteriores a su inicio se recogerán en la siguiente
+                state.setRunTarget(now - clockSkewMargin.toSeconds());
+                state.setCursorIgdbId(null);
+                state.setUpdatedAt(Instant.now());
+                state = syncStateRepository.save(state);
+            }
+            return state;
+        });
+    }
+
+    // Con finishedTarget == null avanza el cursor de la pasada; si no, la cierra y fija el nuevo watermark
+    private void saveProgress(Long cursorIgdbId, Long finishedTarget) {
+        CatalogSyncState state = syncStateRepository.findById(IGDB_GAMES_SYNC)
+                .orElseThrow(() -> new IllegalStateException("Estado de sincronización no encontrado: " + IGDB_GAMES_SYNC));
+        if (finishedTarget != null) {
+            state.setWatermark(finishedTarget);
+            state.setRunTarget(null);
+            state.setCursorIgdbId(null);
+        } else {
+            state.setCursorIgdbId(cursorIgdbId);
+        }
+        state.setUpdatedAt(Instant.now());
+    }
+}
@@ -0,0 +1,168 @@
+package mp.tfg.mycheckpoint.service.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.repository.games.GameRefreshRepository;
+import mp.tfg.mycheckpoint.service.games.GameIngestionOutcome;
+import mp.tfg.mycheckpoint.service.games.IgdbResilience;
+import mp.tfg.mycheckpoint.service.games.IgdbService;
+import mp.tfg.mycheckpoint.service.games.ParallelGameIngestionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refresco periódico del catálogo local contra IGDB (valoraciones, fechas y estados de lanzamiento...).
+ * <p>
+ * Cada juego completo tiene su próxima fecha de refresco ({@code games.next_refresh_at}), que la ingesta calcula
+ * según su estado y fecha de lanzamiento (GameFreshnessPolicy). En cada ejecución se reclaman los juegos vencidos
+ * por lotes ({@link GameRefreshRepository#claimDueGames}), se piden a IGDB en consultas agrupadas con prioridad
+ * BACKGROUND y se guardan con {@link ParallelGameIngestionService}. Cada ejecución procesa como mucho
+ * {@code games.refresh.max-games-per-run} juegos; el resto queda para las siguientes.
+ */
+@Service
+public class GameRefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameRefreshScheduler.class);
+
+    private final GameRefreshRepository gameRefreshRepository;
+    private final IgdbService igdbService;
+    private final ParallelGameIngestionService parallelGameIngestionService;
+    private final boolean enabled;
+    private final int maxGamesPerRun;
+    private final int batchSize;
+    private final Duration reservation;
+    private final Duration missingGameRetry;
+
+    private final AtomicLong dueGames = new AtomicLong();
+    private final Counter refreshedGames;
+    private final Counter missingGames;
+    private final Counter failedGames;
+    private final Timer runTimer;
+
+    @Autowired
+    public GameRefreshScheduler(GameRefreshRepository gameRefreshRepository,
+                                IgdbService igdbService,
+                                ParallelGameIngestionService parallelGameIngestionService,
+                                MeterRegistry meterRegistry,
+                                @Value("${games.refresh.enabled:true}") boolean enabled,
+                                @Value("${games.refresh.max-games-per-run:1000}") int maxGamesPerRun,
+                                @Value("${games.refresh.batch-size:200}") int batchSize,
+                                @Value("${games.refresh.reservation:PT1H}") Duration reservation,
+                                @Value("${games.refresh.missing-game-retry:P30D}") Duration missingGameRetry) {
+        this.gameRefreshRepository = gameRefreshRepository;
+        this.igdbService = igdbService;
+        this.parallelGameIngestionService = parallelGameIngestionService;
+        this.enabled = enabled;
+        this.maxGamesPerRun = Math.max(0, maxGamesPerRun);
+        this.batchSize = Math.max(1, batchSize);
+        this.reservation = reservation;
+        this.missingGameRetry = missingGameRetry;
+
+        Gauge.builder("games.refresh.due", dueGames, AtomicLong::get)
+                .description("Juegos con el refresco vencido al empezar la última ejecución")
+                .register(meterRegistry);
+        this.refreshedGames = refreshCounter("refreshed", meterRegistry);
+        this.missingGames = refreshCounter("missing", meterRegistry);
+        this.failedGames = refreshCounter("failed", meterRegistry);
+        this.runTimer = Timer.builder("games.refresh.run")
+                .description("Duración de cada ejecución del refresco del catálogo")
+                .register(meterRegistry);
+    }
+
+    private static Counter refreshCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("games.refresh.games")
+                .description("Juegos procesados por el refresco del catálogo, por resultado")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${games.refresh.interval:PT15M}", initialDelayString = "${games.refresh.initial-delay:PT2M}")
+    public void refreshStaleGames() {
+        if (!enabled || maxGamesPerRun == 0) {
+            return;
+        }
+        runTimer.record(this::runRefresh);
+    }
+
+    private void runRefresh() {
+        Instant now = Instant.now();
+        long due = gameRefreshRepository.countDueGames(now);
+        dueGames.set(due);
+        if (due == 0) {
+            logger.debug("Refresco del catálogo: ningún juego vencido.");
+            return;
+        }
+        logger.info("Refresco del catálogo: {} juegos vencidos; se procesarán como mucho {} en esta ejecución.", due, maxGamesPerRun);
+
+        int remainingBudget = maxGamesPerRun;
+        int refreshed = 0;
+        int missing = 0;
+        int failed = 0;
+        while (remainingBudget > 0) {
+            List<Long> claimedIgdbIds = gameRefreshRepository.claimDueGames(now, Instant.now().plus(reservation),
+                    Math.min(batchSize, remainingBudget));
+            if (claimedIgdbIds.isEmpty()) {
+                break;
+            }
+            remainingBudget -= claimedIgdbIds.size();
+
+            List<GameDto> gameDtos;
+            try {
+                gameDtos = igdbService.fetchGamesInBackground(claimedIgdbIds).collectList().block();
+            } catch (RuntimeException e) {
+                failed += claimedIgdbIds.size();
+                failedGames.increment(claimedIgdbIds.size());
+                if (IgdbResilience.isUnavailable(e)) {
+                    // Los juegos reclamados vuelven a vencer al acabar la reserva
+                    logger.warn("Refresco del catálogo interrumpido: IGDB no disponible ({}).", e.getMessage());
+                    break;
+                }
+                logger.error("Refresco del catálogo: error obteniendo un lote de {} juegos de IGDB: {}", claimedIgdbIds.size(), e.getMessage(), e);
+                continue;
+            }
+
+            Set<Long> returnedIgdbIds = new HashSet<>();
+            if (gameDtos != null && !gameDtos.isEmpty()) {
+                gameDtos.forEach(gameDto -> {
+                    gameDto.setDetailLevel(GameDetailLevel.FULL);
+                    returnedIgdbIds.add(gameDto.getIgdbId());
+                });
+                for (GameIngestionOutcome outcome : parallelGameIngestionService.ingest(gameDtos)) {
+                    if (outcome.status() == GameIngestionOutcome.Status.SAVED) {
+                        refreshed++;
+                        refreshedGames.increment();
+                    } else {
+                        failed++;
+                        failedGames.increment();
+                    }
+                }
+            }
+
+            // Los que IGDB ya no devuelve no se vuelven a pedir en cada ejecución
+            List<Long> missingIgdbIds = claimedIgdbIds.stream().filter(igdbId -> !returnedIgdbIds.contains(igdbId)).toList();
+            if (!missingIgdbIds.isEmpty()) {
+                gameRefreshRepository.postponeRefresh(missingIgdbIds, Instant.now().plus(missingGameRetry));
+                missing += missingIgdbIds.size();
+                missingGames.increment(missingIgdbIds.size());
+            }
+            logger.info("Refresco del catálogo: progreso {}/{} (refrescados {}, no encontrados en IGDB {}, fallidos {}).",
+                    maxGamesPerRun - remainingBudget, Math.min(due, maxGamesPerRun), refreshed, missing, failed);
+        }
+        logger.info("Refresco del catálogo terminado: {} refrescados, {} no encontrados en IGDB, {} fallidos.", refreshed, missing, failed);
+    }
+}
@@ -0,0 +1,19 @@
+-- Columnas del refresco periodico de juegos (GameRefreshScheduler) y puesta en marcha para los juegos existentes.
+-- Los juegos completos guardados antes de existir el refresco no tienen proxima fecha: vencen ya y el
+-- planificador los va refrescando por lotes, dentro de su presupuesto por ejecucion. Solo afecta a filas con
+-- next_refresh_at nulo, asi que se puede ejecutar en cada arranque.
+-- En una BD nueva la tabla games aun no existe: Hibernate la crea despues con estas columnas.
+DO $$
+BEGIN
+    IF to_regclass('games') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE games ADD COLUMN IF NOT EXISTS refreshed_at timestamp(6) with time zone;
+    ALTER TABLE games ADD COLUMN IF NOT EXISTS next_refresh_at timestamp(6) with time zone;
+
+    UPDATE games SET next_refresh_at = now()
+    WHERE is_full_details = true AND next_refresh_at IS NULL;
+END
+$$
+^^^
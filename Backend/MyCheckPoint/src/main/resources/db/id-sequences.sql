@@ -0,0 +1,46 @@
+-- Migracion de IDENTITY a secuencias pooled (INCREMENT BY 50 = allocationSize de las entidades).
+--
+-- Hibernate reserva con cada nextval el rango (valor - 49 .. valor], asi que cada secuencia se situa para que
+-- su siguiente rango empiece por encima del MAX(internal_id) actual de la tabla. Solo se toca la secuencia
+-- si podria generar ids ya usados: el script es idempotente y se puede ejecutar en cada arranque.
+-- No reescribe ni bloquea las tablas (MAX sobre la clave primaria, CREATE SEQUENCE y setval).
+--
+-- Las columnas internal_id conservan su IDENTITY por si hubiera que volver a la version anterior,
+-- pero la aplicacion ya no la usa para estas tablas. No conviene mezclar en el mismo despliegue
+-- instancias con la version anterior y con esta, porque cada una generaria ids de una fuente distinta.
+-- En una BD nueva las tablas aun no existen: solo se crean las secuencias y Hibernate crea las tablas despues.
+DO $$
+DECLARE
+    target record;
+    max_id bigint;
+    seq_last_value bigint;
+    seq_is_called boolean;
+BEGIN
+    FOR target IN
+        SELECT * FROM (VALUES
+            ('games', 'games_seq'),
+            ('game_company_involvements', 'game_company_involvements_seq'),
+            ('user_games', 'user_games_seq'),
+            ('game_lists', 'game_lists_seq'),
+            ('tier_lists', 'tier_lists_seq'),
+            ('tier_sections', 'tier_sections_seq'),
+            ('tier_list_items', 'tier_list_items_seq')
+        ) AS t (table_name, sequence_name)
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', target.sequence_name);
+
+        IF to_regclass(target.table_name) IS NOT NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(internal_id), 0) FROM %I', target.table_name) INTO max_id;
+            EXECUTE format('SELECT last_value, is_called FROM %I', target.sequence_name) INTO seq_last_value, seq_is_called;
+
+            IF max_id > 0 AND ((seq_is_called AND seq_last_value < max_id)
+                    OR (NOT seq_is_called AND seq_last_value - 49 <= max_id)) THEN
+                PERFORM setval(target.sequence_name, max_id + 50, false);
+                RAISE NOTICE 'Secuencia % situada en % (MAX(internal_id) de % = %)',
+                    target.sequence_name, max_id + 50, target.table_name, max_id;
+            END IF;
+        END IF;
+    END LOOP;
+END
+$$
+^^^
@@ -0,0 +1,61 @@
+-- Migracion de las listas de valores de games (artworks, screenshots, websites, videos) desde sus tablas hijas
+-- (@ElementCollection) a una columna JSONB por lista en la propia fila del juego.
+--
+-- Las claves de cada elemento son las propiedades Java de Artwork, Screenshot, Website y Video
+-- (formato JSON de Hibernate con Jackson). Las tablas antiguas se renombran a *_legacy al terminar, asi
+-- que la migracion solo se hace una vez y los datos originales se conservan por si hubiera que volver atras.
+-- En una BD nueva la tabla games aun no existe: Hibernate la crea despues con las columnas JSONB.
+DO $$
+BEGIN
+    IF to_regclass('games') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE games ADD COLUMN IF NOT EXISTS artworks jsonb;
+    ALTER TABLE games ADD COLUMN IF NOT EXISTS screenshots jsonb;
+    ALTER TABLE games ADD COLUMN IF NOT EXISTS websites jsonb;
+    ALTER TABLE games ADD COLUMN IF NOT EXISTS videos jsonb;
+
+    IF to_regclass('game_artworks') IS NOT NULL THEN
+        UPDATE games g SET artworks = m.items
+        FROM (SELECT game_internal_id,
+                     jsonb_agg(jsonb_build_object('igdbId', artwork_igdb_id, 'url', artwork_url) ORDER BY artwork_igdb_id) AS items
+              FROM game_artworks GROUP BY game_internal_id) m
+        WHERE g.internal_id = m.game_internal_id AND g.artworks IS NULL;
+        ALTER TABLE game_artworks RENAME TO game_artworks_legacy;
+    END IF;
+
+    IF to_regclass('game_screenshots') IS NOT NULL THEN
+        UPDATE games g SET screenshots = m.items
+        FROM (SELECT game_internal_id,
+                     jsonb_agg(jsonb_build_object('igdbId', screenshot_igdb_id, 'url', screenshot_url) ORDER BY screenshot_igdb_id) AS items
+              FROM game_screenshots GROUP BY game_internal_id) m
+        WHERE g.internal_id = m.game_internal_id AND g.screenshots IS NULL;
+        ALTER TABLE game_screenshots RENAME TO game_screenshots_legacy;
+    END IF;
+
+    IF to_regclass('game_websites') IS NOT NULL THEN
+        UPDATE games g SET websites = m.items
+        FROM (SELECT game_internal_id,
+                     jsonb_agg(jsonb_build_object('igdbId', website_igdb_id, 'url', website_url) ORDER BY website_igdb_id) AS items
+              FROM game_websites GROUP BY game_internal_id) m
+        WHERE g.internal_id = m.game_internal_id AND g.websites IS NULL;
+        ALTER TABLE game_websites RENAME TO game_websites_legacy;
+    END IF;
+
+    IF to_regclass('game_videos') IS NOT NULL THEN
+        UPDATE games g SET videos = m.items
+        FROM (SELECT game_internal_id,
+                     jsonb_agg(jsonb_build_object('igdbId', video_igdb_id, 'name', video_name, 'videoId', video_platform_id) ORDER BY video_igdb_id) AS items
+              FROM game_videos GROUP BY game_internal_id) m
+        WHERE g.internal_id = m.game_internal_id AND g.videos IS NULL;
+        ALTER TABLE game_videos RENAME TO game_videos_legacy;
+    END IF;
+
+    -- Los juegos sin elementos quedan con lista vacia (la entidad espera listas no nulas)
+    UPDATE games SET artworks = COALESCE(artworks, '[]'::jsonb), screenshots = COALESCE(screenshots, '[]'::jsonb),
+                     websites = COALESCE(websites, '[]'::jsonb), videos = COALESCE(videos, '[]'::jsonb)
+    WHERE artworks IS NULL OR screenshots IS NULL OR websites IS NULL OR videos IS NULL;
+END
+$$
+^^^
@@ -0,0 +1,87 @@
+package mp.tfg.mycheckpoint;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cuenta las sentencias que se envían a la BD por cualquier conexión del {@link DataSource}, tanto las de
+ * Hibernate como las de {@code JdbcTemplate}. Cada llamada a un {@code execute*} es un viaje a la BD: un
+ * {@code executeBatch} cuenta como uno aunque lleve muchas filas.
+ * <p>
+ * Para los benchmarks que miden sentencias por operación: se registra con un {@code @Bean} estático en una
+ * {@code @TestConfiguration} (envuelve el {@code DataSource} del contexto) y se inyecta para usar {@link #count}.
+ * Las tareas programadas deben estar desactivadas para que no cuenten sus sentencias.
+ */
+public class StatementCounter implements BeanPostProcessor {
+
+    private final AtomicLong statements = new AtomicLong();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    /**
+     * Ejecuta la llamada y devuelve las sentencias enviadas a la BD mientras duraba.
+     */
+    public long count(Runnable call) {
+        long before = statements.get();
+        call.run();
+        return statements.get() - before;
+    }
+
+    private final class CountingDataSource extends DelegatingDataSource {
+
+        private CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingProxy(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingProxy(Connection.class, super.getConnection(username, password));
+        }
+    }
+
+    // Las sentencias que crea la conexión también se envuelven; en ellas se cuentan los execute*
+    private <T> T countingProxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                statements.incrementAndGet();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (target instanceof Connection && result instanceof Statement statement
+                    && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return countingProxy(statementType(method.getReturnType()), statement);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Statement> statementType(Class<?> returnType) {
+        return (Class<Statement>) returnType;
+    }
+}
@@ -0,0 +1,139 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contra la BD configurada (como {@code MyCheckPointApplicationTests}): el texto que se escribe con {@code COPY}
+ * llega intacto a la tabla de staging y los IDs reservados por bloques salen de la secuencia sin huecos ni
+ * solapes. Cada prueba se ejecuta en una transacción que se deshace, así que no deja nada en la BD.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+class CatalogBulkImportRepositoryTest {
+
+    private static final String SEQUENCE = "catalog_import_test_seq";
+
+    @Autowired
+    private CatalogBulkImportRepository catalogBulkImportRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void copiedTextIsStoredExactlyAsItWasRead() {
+        String name = "Tabulador\taquí y barra \\ invertida";
+        String summary = "Primera línea\nsegunda\r\ntercera";
+        String storyline = "Un \\N que no es NULL, ñ, 日本語 y 🎮";
+        String genresJson = "[{\"id\":1,\"name\":\"Acción \\\"dura\\\"\\n\\ty \\\\ más\"}]";
+        Instant releaseDate = Instant.parse("2017-03-03T00:00:00Z");
+
+        Map<String, Object> staged = inRolledBackTransaction(() -> {
+            catalogBulkImportRepository.createStagingTable();
+            long copied = catalogBulkImportRepository.copyIntoStaging(List.of(
+                    row(1L, name, summary, storyline, "slug\0con-nul", genresJson, releaseDate, List.of(3L, 4L)),
+                    row(2L, null, null, null, null, null, null, List.of())).iterator());
+            assertThat(copied).isEqualTo(2);
+            return jdbcTemplate.queryForMap("SELECT name, summary, storyline, slug, genres->0->>'name' AS genre_name, " +
+                    "first_release_date, similar_igdb_ids::text AS similar_ids, line_no " +
+                    "FROM catalog_import_games WHERE igdb_id = 1");
+        });
+
+        assertThat(staged.get("name")).isEqualTo(name);
+        assertThat(staged.get("summary")).isEqualTo(summary);
+        assertThat(staged.get("storyline")).isEqualTo(storyline);
+        // PostgreSQL no admite NUL en columnas de texto: se descarta
+        assertThat(staged.get("slug")).isEqualTo("slugcon-nul");
+        assertThat(staged.get("genre_name")).isEqualTo("Acción \"dura\"\n\ty \\ más");
+        assertThat(((Timestamp) staged.get("first_release_date")).toInstant()).isEqualTo(releaseDate);
+        assertThat(staged.get("similar_ids")).isEqualTo("{3,4}");
+        assertThat(staged.get("line_no")).isEqualTo(1L);
+    }
+
+    @Test
+    void nullFieldsAndEmptyListsAreCopiedAsSuch() {
+        Map<String, Object> staged = inRolledBackTransaction(() -> {
+            catalogBulkImportRepository.createStagingTable();
+            catalogBulkImportRepository.copyIntoStaging(List.of(row(2L, null, null, null, null, null, null, List.of())).iterator());
+            return jdbcTemplate.queryForMap("SELECT name IS NULL AS no_name, genres IS NULL AS no_genres, " +
+                    "first_release_date IS NULL AS no_date, cardinality(similar_igdb_ids) AS similar_count " +
+                    "FROM catalog_import_games WHERE igdb_id = 2");
+        });
+
+        assertThat(staged).containsEntry("no_name", true).containsEntry("no_genres", true)
+                .containsEntry("no_date", true).containsEntry("similar_count", 0);
+    }
+
+    @Test
+    void aNewSequenceSkipsItsFirstValueLikeHibernate() {
+        List<Long> ids = inRolledBackTransaction(() -> {
+            jdbcTemplate.execute("CREATE TEMP SEQUENCE " + SEQUENCE + " INCREMENT BY " + CatalogBulkImportRepository.ID_BLOCK_SIZE);
+            List<Long> assigned = idsFromBlocks(120);
+            // El siguiente bloque que pida Hibernate (nextval - 49 .. nextval) empieza después del último ID usado
+            assertThat(nextHibernateBlockStart()).isGreaterThan(assigned.get(assigned.size() - 1));
+            return assigned;
+        });
+
+        // Bloques de 50 con finales 51, 101 y 151; el valor inicial 1 no se usa como final de bloque
+        assertThat(ids).containsExactlyElementsOf(LongStream.rangeClosed(2, 121).boxed().toList());
+    }
+
+    @Test
+    void aUsedSequenceHandsOutContiguousBlocks() {
+        inRolledBackTransaction(() -> {
+            jdbcTemplate.execute("CREATE TEMP SEQUENCE " + SEQUENCE + " INCREMENT BY " +
+                    CatalogBulkImportRepository.ID_BLOCK_SIZE + " START WITH 1001");
+            jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class); // Bloque 952..1001 ya usado
+
+            assertThat(idsFromBlocks(50)).containsExactlyElementsOf(LongStream.rangeClosed(1002, 1051).boxed().toList());
+            assertThat(idsFromBlocks(51)).containsExactlyElementsOf(LongStream.rangeClosed(1052, 1102).boxed().toList());
+            // Sin filas no se consume ningún valor de la secuencia
+            assertThat(idsFromBlocks(0)).isEmpty();
+            assertThat(nextHibernateBlockStart()).isEqualTo(1152);
+            return null;
+        });
+    }
+
+    // IDs que reciben, en orden de posición, las filas de una fuente de 'rows' filas
+    private List<Long> idsFromBlocks(int rows) {
+        return jdbcTemplate.queryForList(
+                "WITH source AS (SELECT g - 1 AS position FROM generate_series(1, " + rows + ") g), " +
+                CatalogBulkImportRepository.idBlocksCte(SEQUENCE, "source") + " " +
+                "SELECT " + CatalogBulkImportRepository.idFromBlock("s") + " FROM source s " +
+                "JOIN id_blocks b ON b.block = s.position / " + CatalogBulkImportRepository.ID_BLOCK_SIZE + " " +
+                "ORDER BY s.position", Long.class);
+    }
+
+    private long nextHibernateBlockStart() {
+        Long blockEnd = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+        return blockEnd - CatalogBulkImportRepository.ID_BLOCK_SIZE + 1;
+    }
+
+    // La tabla de staging y la secuencia temporal viven en la conexión de la transacción
+    private <T> T inRolledBackTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return work.get();
+        });
+    }
+
+    private static CatalogImportRow row(Long igdbId, String name, String summary, String storyline, String slug,
+                                        String genresJson, Instant firstReleaseDate, List<Long> similarIgdbIds) {
+        return new CatalogImportRow(igdbId, name, slug, null, null, null, null, summary, storyline, null,
+                firstReleaseDate, "RELEASED", null, null, null, null, null, null, null, genresJson, null, null,
+                null, null, null, null, null, null, similarIgdbIds, List.of(), List.of());
+    }
+}
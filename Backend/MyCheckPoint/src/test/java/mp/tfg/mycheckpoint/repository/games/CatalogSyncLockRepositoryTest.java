@@ -0,0 +1,50 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contra la BD configurada (como {@code MyCheckPointApplicationTests}): cada {@code tryLock} usa su propia
+ * conexión, igual que dos instancias de la aplicación.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+class CatalogSyncLockRepositoryTest {
+
+    private static final String SYNC_NAME = "test-sync-lock";
+
+    @Autowired
+    private CatalogSyncLockRepository syncLockRepository;
+
+    @Test
+    void aSecondPassCannotTakeTheLockUntilTheFirstReleasesIt() {
+        Optional<CatalogSyncLockRepository.RunLock> first = syncLockRepository.tryLock(SYNC_NAME);
+        assertThat(first).isPresent();
+        try {
+            assertThat(syncLockRepository.tryLock(SYNC_NAME)).isEmpty();
+        } finally {
+            first.get().close();
+        }
+
+        Optional<CatalogSyncLockRepository.RunLock> next = syncLockRepository.tryLock(SYNC_NAME);
+        assertThat(next).isPresent();
+        next.get().close();
+    }
+
+    @Test
+    void differentSyncsDoNotBlockEachOther() {
+        Optional<CatalogSyncLockRepository.RunLock> first = syncLockRepository.tryLock(SYNC_NAME);
+        Optional<CatalogSyncLockRepository.RunLock> other = syncLockRepository.tryLock(SYNC_NAME + "-otra");
+        try {
+            assertThat(first).isPresent();
+            assertThat(other).isPresent();
+        } finally {
+            first.ifPresent(CatalogSyncLockRepository.RunLock::close);
+            other.ifPresent(CatalogSyncLockRepository.RunLock::close);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package mp.tfg.mycheckpoint.repository.games;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mp.tfg.mycheckpoint.StatementCounter;
+import mp.tfg.mycheckpoint.entity.games.Artwork;
+import mp.tfg.mycheckpoint.entity.games.Screenshot;
+import mp.tfg.mycheckpoint.entity.games.Video;
+import mp.tfg.mycheckpoint.entity.games.Website;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Carga de los medios (artworks, screenshots, websites y videos) de los juegos desde las columnas JSONB de
+ * {@code games} frente a las tablas hijas que usaba el {@code @ElementCollection} anterior, con los mismos datos
+ * y por JDBC, incluido el paso de cada fila o documento JSON a los objetos de la entidad:
+ * <ul>
+ *     <li>una página de {@value #GAMES} juegos: una consulta con JSONB; con tablas hijas, la de los juegos y una
+ *     por tabla cada {@value #BATCH_FETCH_SIZE} juegos ({@code hibernate.default_batch_fetch_size});</li>
+ *     <li>un juego (vista de detalle): una consulta con JSONB; cinco con tablas hijas.</li>
+ * </ul>
+ * Las tablas hijas se crean como temporales con la estructura que migra {@code db/media-jsonb.sql}, con índice
+ * por juego, y se consultan ordenadas por IGDB ID para que las listas salgan en el mismo orden. Todo ocurre en
+ * una transacción que se deshace. Mediana de {@value #ROUNDS} rondas tras {@value #WARMUP} de calentamiento.
+ * <p>
+ * Se ejecuta con {@code mvn test -Pbenchmark} contra la BD configurada.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+@Import(GameMediaLoadBenchmark.CountingConfiguration.class)
+class GameMediaLoadBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameMediaLoadBenchmark.class);
+
+    private static final int GAMES = 500;
+    private static final int BATCH_FETCH_SIZE = 50;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 15;
+    private static final long FIRST_TEST_ID = 9_100_500_000L;
+
+    private static final String CREATE_GAMES_SQL =
+            "INSERT INTO games (internal_id, igdb_id, is_full_details, name, artworks, screenshots, websites, videos) " +
+            "SELECT -g, " + FIRST_TEST_ID + " + g, true, 'Juego ' || g, " +
+            media(4, "jsonb_build_object('igdbId', g * 100 + i, 'url', '//images.igdb.com/igdb/image/upload/t_1080p/ar' || g || '_' || i || '.jpg')") + ", " +
+            media(8, "jsonb_build_object('igdbId', g * 100 + 10 + i, 'url', '//images.igdb.com/igdb/image/upload/t_1080p/sc' || g || '_' || i || '.jpg')") + ", " +
+            media(3, "jsonb_build_object('igdbId', g * 100 + 20 + i, 'url', 'https://juego-' || g || '.example/' || i)") + ", " +
+            media(2, "jsonb_build_object('igdbId', g * 100 + 30 + i, 'name', 'Tráiler ' || i, 'videoId', 'vid' || g || '_' || i)") + " " +
+            "FROM generate_series(1, " + GAMES + ") g";
+
+    // Tabla hija -> sus columnas y las del JSONB de games (misma lista) con las que se rellena
+    private static final Map<String, String[]> CHILD_TABLES = Map.of(
+            "game_artworks", new String[]{"artwork_igdb_id bigint, artwork_url varchar(255)",
+                    "jsonb_to_recordset(g.artworks) AS r(\"igdbId\" bigint, url text)", "r.\"igdbId\", r.url"},
+            "game_screenshots", new String[]{"screenshot_igdb_id bigint, screenshot_url varchar(255)",
+                    "jsonb_to_recordset(g.screenshots) AS r(\"igdbId\" bigint, url text)", "r.\"igdbId\", r.url"},
+            "game_websites", new String[]{"website_igdb_id bigint, website_url varchar(255)",
+                    "jsonb_to_recordset(g.websites) AS r(\"igdbId\" bigint, url text)", "r.\"igdbId\", r.url"},
+            "game_videos", new String[]{"video_igdb_id bigint, video_name varchar(255), video_platform_id varchar(255)",
+                    "jsonb_to_recordset(g.videos) AS r(\"igdbId\" bigint, name text, \"videoId\" text)",
+                    "r.\"igdbId\", r.name, r.\"videoId\""});
+
+    @TestConfiguration
+    static class CountingConfiguration {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    // Como el format mapper JSON de Hibernate (hibernate.type.json_format_mapper=jackson)
+    private final ObjectMapper jsonColumnMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private StatementCounter statementCounter;
+
+    /**
+     * Medios de un juego tal como los tiene la entidad.
+     */
+    private record Media(List<Artwork> artworks, List<Screenshot> screenshots, List<Website> websites, List<Video> videos) {
+        int size() {
+            return artworks.size() + screenshots.size() + websites.size() + videos.size();
+        }
+    }
+
+    @Test
+    void jsonbColumnsAgainstChildTables() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.update(CREATE_GAMES_SQL);
+            CHILD_TABLES.forEach((table, columns) -> {
+                jdbcTemplate.execute("CREATE TEMP TABLE " + table + " (game_internal_id bigint, " + columns[0] + ") ON COMMIT DROP");
+                jdbcTemplate.update("INSERT INTO " + table + " SELECT g.internal_id, " + columns[2] + " " +
+                        "FROM games g CROSS JOIN LATERAL " + columns[1] + " WHERE g.internal_id < 0");
+                jdbcTemplate.execute("CREATE INDEX ON " + table + " (game_internal_id)");
+                jdbcTemplate.execute("ANALYZE " + table);
+            });
+            jdbcTemplate.execute("ANALYZE games");
+
+            Long[] page = LongStream.rangeClosed(1, GAMES).map(g -> -g).boxed().toArray(Long[]::new);
+            // Con los mismos datos, las dos formas devuelven los mismos medios
+            assertThat(fromJsonb(page)).isEqualTo(fromChildTables(page)).hasSize(GAMES);
+
+            long[] childTablesPage = measure(() -> fromChildTables(page));
+            long[] jsonbPage = measure(() -> fromJsonb(page));
+            long[] childTablesSingle = measure(() -> singleGames(page, this::fromChildTables));
+            long[] jsonbSingle = measure(() -> singleGames(page, this::fromJsonb));
+
+            logger.info("Medios de una página de {} juegos: tablas hijas -> {} µs, {} sentencias; JSONB -> {} µs, {} sentencias.",
+                    GAMES, childTablesPage[0] / 1000, childTablesPage[1], jsonbPage[0] / 1000, jsonbPage[1]);
+            logger.info("Medios de un juego (media de {}): tablas hijas -> {} µs, {} sentencias; JSONB -> {} µs, {} sentencias.",
+                    GAMES, childTablesSingle[0] / 1000 / GAMES, childTablesSingle[1] / GAMES,
+                    jsonbSingle[0] / 1000 / GAMES, jsonbSingle[1] / GAMES);
+        });
+    }
+
+    // {mediana en nanosegundos, sentencias por ronda}
+    private long[] measure(Supplier<Object> load) {
+        for (int i = 0; i < WARMUP; i++) {
+            load.get();
+        }
+        long[] nanos = new long[ROUNDS];
+        long statements = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            statements = statementCounter.count(load::get);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return new long[]{nanos[ROUNDS / 2], statements};
+    }
+
+    private int singleGames(Long[] page, Function<Long[], Map<Long, Media>> load) {
+        int items = 0;
+        for (Long internalId : page) {
+            items += load.apply(new Long[]{internalId}).get(internalId).size();
+        }
+        return items;
+    }
+
+    private Map<Long, Media> fromJsonb(Long[] internalIds) {
+        Map<Long, Media> mediaByGame = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT internal_id, igdb_id, name, artworks, screenshots, websites, videos FROM games " +
+                "WHERE internal_id = ANY(?)", resultSet -> {
+            mediaByGame.put(resultSet.getLong("internal_id"), new Media(
+                    readJson(resultSet.getString("artworks"), new TypeReference<>() {}),
+                    readJson(resultSet.getString("screenshots"), new TypeReference<>() {}),
+                    readJson(resultSet.getString("websites"), new TypeReference<>() {}),
+                    readJson(resultSet.getString("videos"), new TypeReference<>() {})));
+        }, (Object) internalIds);
+        return mediaByGame;
+    }
+
+    private Map<Long, Media> fromChildTables(Long[] internalIds) {
+        Map<Long, Media> mediaByGame = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT internal_id, igdb_id, name FROM games WHERE internal_id = ANY(?)", resultSet -> {
+            mediaByGame.put(resultSet.getLong("internal_id"),
+                    new Media(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        }, (Object) internalIds);
+        for (int from = 0; from < internalIds.length; from += BATCH_FETCH_SIZE) {
+            Long[] batch = Arrays.copyOfRange(internalIds, from, Math.min(from + BATCH_FETCH_SIZE, internalIds.length));
+            jdbcTemplate.query("SELECT game_internal_id, artwork_igdb_id, artwork_url FROM game_artworks " +
+                    "WHERE game_internal_id = ANY(?) ORDER BY game_internal_id, artwork_igdb_id", resultSet -> {
+                mediaByGame.get(resultSet.getLong(1)).artworks().add(new Artwork(resultSet.getLong(2), resultSet.getString(3)));
+            }, (Object) batch);
+            jdbcTemplate.query("SELECT game_internal_id, screenshot_igdb_id, screenshot_url FROM game_screenshots " +
+                    "WHERE game_internal_id = ANY(?) ORDER BY game_internal_id, screenshot_igdb_id", resultSet -> {
+                mediaByGame.get(resultSet.getLong(1)).screenshots().add(new Screenshot(resultSet.getLong(2), resultSet.getString(3)));
+            }, (Object) batch);
+            jdbcTemplate.query("SELECT game_internal_id, website_igdb_id, website_url FROM game_websites " +
+                    "WHERE game_internal_id = ANY(?) ORDER BY game_internal_id, website_igdb_id", resultSet -> {
+                mediaByGame.get(resultSet.getLong(1)).websites().add(new Website(resultSet.getLong(2), resultSet.getString(3)));
+            }, (Object) batch);
+            jdbcTemplate.query("SELECT game_internal_id, video_igdb_id, video_name, video_platform_id FROM game_videos " +
+                    "WHERE game_internal_id = ANY(?) ORDER BY game_internal_id, video_igdb_id", resultSet -> {
+                mediaByGame.get(resultSet.getLong(1)).videos()
+                        .add(new Video(resultSet.getLong(2), resultSet.getString(3), resultSet.getString(4)));
+            }, (Object) batch);
+        }
+        return mediaByGame;
+    }
+
+    private <T> List<T> readJson(String json, TypeReference<List<T>> type) {
+        try {
+            return jsonColumnMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String media(int count, String element) {
+        return "(SELECT jsonb_agg(" + element + " ORDER BY i) FROM generate_series(1, " + count + ") i)";
+    }
+}
@@ -0,0 +1,174 @@
+package mp.tfg.mycheckpoint.service;
+
+import mp.tfg.mycheckpoint.StatementCounter;
+import mp.tfg.mycheckpoint.dto.enums.UserGameStatus;
+import mp.tfg.mycheckpoint.dto.gameList.GameListRequestDTO;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.dto.tierlist.TierListCreateRequestDTO;
+import mp.tfg.mycheckpoint.entity.User;
+import mp.tfg.mycheckpoint.entity.UserGame;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import mp.tfg.mycheckpoint.repository.UserGameRepository;
+import mp.tfg.mycheckpoint.repository.UserRepository;
+import mp.tfg.mycheckpoint.service.games.GameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sentencias que envían a la BD las operaciones que insertan muchas filas de entidades con IDs de secuencia
+ * (optimizador pooled, bloques de 50): con ellos Hibernate agrupa los INSERT en lotes JDBC. Con IDENTITY haría
+ * falta al menos un INSERT por fila, porque Hibernate necesita el ID generado de cada una y no agrupa esas
+ * inserciones. Cada medida se toma tras una ejecución de calentamiento que deja reservados los bloques.
+ * <p>
+ * Se ejecuta con {@code mvn test -Pbenchmark} contra la BD configurada; usa IGDB IDs reservados y un usuario
+ * propio que borra al acabar.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+@Import(PooledSequenceInsertBenchmark.CountingConfiguration.class)
+class PooledSequenceInsertBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledSequenceInsertBenchmark.class);
+
+    private static final long FIRST_TEST_ID = 9_100_400_000L;
+    private static final long LAST_TEST_ID = 9_100_499_999L;
+    private static final String EMAIL = "secuencias-benchmark@mycheckpoint.test";
+    private static final int GAMES = 200;
+    private static final int LIST_GAMES = 100;
+
+    @TestConfiguration
+    static class CountingConfiguration {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @Autowired
+    private GameService gameService;
+    @Autowired
+    private GameListService gameListService;
+    @Autowired
+    private TierListService tierListService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserGameRepository userGameRepository;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        User newUser = new User();
+        newUser.setPublicId(UUID.randomUUID());
+        newUser.setNombreUsuario("secuencias-benchmark");
+        newUser.setEmail(EMAIL);
+        newUser.setContraseña("no-se-usa");
+        user = userRepository.save(newUser);
+    }
+
+    @AfterEach
+    void deleteTestData() {
+        String tierLists = "(SELECT internal_id FROM tier_lists WHERE owner_user_internal_id = " + user.getId() + ")";
+        jdbcTemplate.update("DELETE FROM tier_list_items WHERE tier_section_internal_id IN " +
+                "(SELECT internal_id FROM tier_sections WHERE tier_list_internal_id IN " + tierLists + ")");
+        jdbcTemplate.update("DELETE FROM tier_sections WHERE tier_list_internal_id IN " + tierLists);
+        jdbcTemplate.update("DELETE FROM tier_lists WHERE owner_user_internal_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM game_list_user_games WHERE game_list_internal_id IN " +
+                "(SELECT internal_id FROM game_lists WHERE user_internal_id = ?)", user.getId());
+        jdbcTemplate.update("DELETE FROM game_lists WHERE user_internal_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM user_games WHERE user_internal_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM usuario WHERE id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM game_detail_documents WHERE igdb_id BETWEEN ? AND ?", FIRST_TEST_ID, LAST_TEST_ID);
+        jdbcTemplate.update("DELETE FROM games WHERE igdb_id BETWEEN ? AND ?", FIRST_TEST_ID, LAST_TEST_ID);
+    }
+
+    @Test
+    void savingNewGames() {
+        gameService.saveGames(games(FIRST_TEST_ID + 50_000, GAMES));
+
+        long statements = statementCounter.count(() -> gameService.saveGames(games(FIRST_TEST_ID, GAMES)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM games WHERE igdb_id BETWEEN ? AND ?",
+                Long.class, FIRST_TEST_ID, FIRST_TEST_ID + GAMES - 1)).isEqualTo(GAMES);
+        logger.info("saveGames de {} juegos nuevos: {} sentencias ({} filas de games insertadas).", GAMES, statements, GAMES);
+        assertThat(statements).isLessThan(GAMES);
+    }
+
+    @Test
+    void creatingAProfileTierList() {
+        tierListService.createProfileTierList(EMAIL, tierListRequest("Calentamiento"));
+
+        long statements = statementCounter.count(() -> tierListService.createProfileTierList(EMAIL, tierListRequest("Medida")));
+
+        // La tier list y sus seis secciones por defecto (sin clasificar, S, A, B, C y D)
+        logger.info("createProfileTierList: {} sentencias (7 filas insertadas: 1 tier list y 6 secciones).", statements);
+    }
+
+    @Test
+    void creatingTheTierListOfAGameList() {
+        List<Long> userGameIds = addGamesToLibrary(LIST_GAMES);
+        UUID warmUpList = gameList("Calentamiento", userGameIds);
+        tierListService.getOrCreateTierListForGameList(EMAIL, warmUpList);
+        UUID measuredList = gameList("Medida", userGameIds);
+
+        long statements = statementCounter.count(() -> tierListService.getOrCreateTierListForGameList(EMAIL, measuredList));
+
+        int rows = 1 + 6 + LIST_GAMES;
+        logger.info("getOrCreateTierListForGameList con {} juegos: {} sentencias ({} filas insertadas: 1 tier list, " +
+                "6 secciones y {} elementos).", LIST_GAMES, statements, rows, LIST_GAMES);
+        assertThat(statements).isLessThan(rows);
+    }
+
+    private static TierListCreateRequestDTO tierListRequest(String name) {
+        return TierListCreateRequestDTO.builder().name(name).isPublic(false).build();
+    }
+
+    private UUID gameList(String name, List<Long> userGameIds) {
+        UUID listId = gameListService.createGameList(EMAIL, GameListRequestDTO.builder().name(name).isPublic(false).build())
+                .getPublicId();
+        userGameIds.forEach(userGameId -> gameListService.addGameToCustomList(EMAIL, listId, userGameId));
+        return listId;
+    }
+
+    private List<Long> addGamesToLibrary(int count) {
+        List<Long> userGameIds = new ArrayList<>();
+        for (Game game : gameService.saveGames(games(FIRST_TEST_ID, count))) {
+            userGameIds.add(userGameRepository.save(UserGame.builder()
+                    .user(user)
+                    .game(game)
+                    .status(UserGameStatus.PLAYING)
+                    .build()).getInternalId());
+        }
+        return userGameIds;
+    }
+
+    private static List<GameDto> games(long firstIgdbId, int count) {
+        List<GameDto> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GameDto gameDto = new GameDto();
+            gameDto.setIgdbId(firstIgdbId + i);
+            gameDto.setName("Juego " + gameDto.getIgdbId());
+            games.add(gameDto);
+        }
+        return games;
+    }
+}
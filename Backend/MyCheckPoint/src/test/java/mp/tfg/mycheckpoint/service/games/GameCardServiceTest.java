@@ -0,0 +1,183 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import jakarta.persistence.EntityManagerFactory;
+import mp.tfg.mycheckpoint.dto.enums.UserGameStatus;
+import mp.tfg.mycheckpoint.dto.gameList.GameListRequestDTO;
+import mp.tfg.mycheckpoint.dto.gameList.GameListResponseDTO;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.dto.tierlist.TierListItemGameInfoDTO;
+import mp.tfg.mycheckpoint.dto.tierlist.TierListResponseDTO;
+import mp.tfg.mycheckpoint.dto.usergame.UserGameResponseDTO;
+import mp.tfg.mycheckpoint.entity.User;
+import mp.tfg.mycheckpoint.entity.UserGame;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import mp.tfg.mycheckpoint.repository.UserGameRepository;
+import mp.tfg.mycheckpoint.repository.UserRepository;
+import mp.tfg.mycheckpoint.service.GameListService;
+import mp.tfg.mycheckpoint.service.TierListService;
+import mp.tfg.mycheckpoint.service.UserGameLibraryService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Respuestas en forma de lista contra la BD configurada (como {@code MyCheckPointApplicationTests}): el número de
+ * sentencias SQL no crece con el número de juegos, porque las tarjetas se leen con una consulta por página y
+ * nunca se carga la entidad {@link Game}. Los juegos de prueba usan IGDB IDs reservados y se borran al acabar.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+class GameCardServiceTest {
+
+    private static final long FIRST_TEST_ID = 9_100_200_000L;
+    private static final long LAST_TEST_ID = 9_100_299_999L;
+    private static final String EMAIL = "tarjetas-test@mycheckpoint.test";
+
+    @Autowired
+    private GameService gameService;
+    @Autowired
+    private UserGameLibraryService userGameLibraryService;
+    @Autowired
+    private GameListService gameListService;
+    @Autowired
+    private TierListService tierListService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserGameRepository userGameRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private final List<Long> userGameIds = new ArrayList<>();
+
+    @BeforeEach
+    void createUser() {
+        User newUser = new User();
+        newUser.setPublicId(UUID.randomUUID());
+        newUser.setNombreUsuario("tarjetas-test");
+        newUser.setEmail(EMAIL);
+        newUser.setContraseña("no-se-usa");
+        user = userRepository.save(newUser);
+    }
+
+    @AfterEach
+    void deleteTestData() {
+        String tierLists = "(SELECT internal_id FROM tier_lists WHERE owner_user_internal_id = " + user.getId() + ")";
+        jdbcTemplate.update("DELETE FROM tier_list_items WHERE tier_section_internal_id IN " +
+                "(SELECT internal_id FROM tier_sections WHERE tier_list_internal_id IN " + tierLists + ")");
+        jdbcTemplate.update("DELETE FROM tier_sections WHERE tier_list_internal_id IN " + tierLists);
+        jdbcTemplate.update("DELETE FROM tier_lists WHERE owner_user_internal_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM game_list_user_games WHERE game_list_internal_id IN " +
+                "(SELECT internal_id FROM game_lists WHERE user_internal_id = ?)", user.getId());
+        jdbcTemplate.update("DELETE FROM game_lists WHERE user_internal_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM user_games WHERE user_internal_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM usuario WHERE id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM game_detail_documents WHERE igdb_id BETWEEN ? AND ?", FIRST_TEST_ID, LAST_TEST_ID);
+        jdbcTemplate.update("DELETE FROM games WHERE igdb_id BETWEEN ? AND ?", FIRST_TEST_ID, LAST_TEST_ID);
+    }
+
+    @Test
+    void theLibraryUsesOneCardQueryPerPage() {
+        addGamesToLibrary(2);
+        StatementCount twoGames = count(() -> userGameLibraryService.getUserGameLibrary(EMAIL));
+        addGamesToLibrary(4);
+        List<UserGameResponseDTO> library = new ArrayList<>();
+        StatementCount sixGames = count(() -> library.addAll(userGameLibraryService.getUserGameLibrary(EMAIL)));
+
+        assertThat(library).hasSize(6).allSatisfy(entry -> assertThat(entry.getGameCard().getName()).startsWith("Juego "));
+        assertThat(sixGames.statements()).isPositive().isEqualTo(twoGames.statements());
+        assertThat(sixGames.gameLoads()).isZero();
+    }
+
+    @Test
+    void aGameListUsesOneCardQueryPerPage() {
+        UUID listId = gameListService.createGameList(EMAIL, GameListRequestDTO.builder().name("Lista").isPublic(false).build())
+                .getPublicId();
+        addGamesToLibrary(2).forEach(userGameId -> gameListService.addGameToCustomList(EMAIL, listId, userGameId));
+        StatementCount twoGames = count(() -> gameListService.getGameListByPublicIdForUser(EMAIL, listId));
+        addGamesToLibrary(4).forEach(userGameId -> gameListService.addGameToCustomList(EMAIL, listId, userGameId));
+        List<GameListResponseDTO> lists = new ArrayList<>();
+        StatementCount sixGames = count(() -> lists.add(gameListService.getGameListByPublicIdForUser(EMAIL, listId)));
+
+        assertThat(lists.get(0).getGamesInList()).hasSize(6)
+                .allSatisfy(entry -> assertThat(entry.getGameCard().getName()).startsWith("Juego "));
+        assertThat(sixGames.statements()).isPositive().isEqualTo(twoGames.statements());
+        assertThat(sixGames.gameLoads()).isZero();
+    }
+
+    @Test
+    void aTierListUsesOneCardQueryPerPage() {
+        UUID listId = gameListService.createGameList(EMAIL, GameListRequestDTO.builder().name("Lista").isPublic(false).build())
+                .getPublicId();
+        addGamesToLibrary(2).forEach(userGameId -> gameListService.addGameToCustomList(EMAIL, listId, userGameId));
+        UUID tierListId = tierListService.getOrCreateTierListForGameList(EMAIL, listId).getPublicId();
+        StatementCount twoGames = count(() -> tierListService.getTierListByPublicId(tierListId, EMAIL));
+        addGamesToLibrary(4).forEach(userGameId -> gameListService.addGameToCustomList(EMAIL, listId, userGameId));
+        tierListService.getOrCreateTierListForGameList(EMAIL, listId); // Sincroniza los juegos nuevos de la lista
+        List<TierListResponseDTO> tierLists = new ArrayList<>();
+        StatementCount sixGames = count(() -> tierLists.add(tierListService.getTierListByPublicId(tierListId, EMAIL)));
+
+        List<TierListItemGameInfoDTO> items = Stream.concat(
+                        Stream.of(tierLists.get(0).getUnclassifiedSection()),
+                        tierLists.get(0).getSections().stream())
+                .filter(section -> section != null && section.getItems() != null)
+                .flatMap(section -> section.getItems().stream())
+                .distinct()
+                .toList();
+        assertThat(items).hasSize(6).allSatisfy(item -> assertThat(item.getGameName()).startsWith("Juego "));
+        assertThat(sixGames.statements()).isPositive().isEqualTo(twoGames.statements());
+        assertThat(sixGames.gameLoads()).isZero();
+    }
+
+    /**
+     * Sentencias preparadas por Hibernate y entidades {@link Game} cargadas durante la llamada.
+     */
+    private record StatementCount(long statements, long gameLoads) {
+    }
+
+    private StatementCount count(Runnable call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            call.run();
+            return new StatementCount(statistics.getPrepareStatementCount(),
+                    statistics.getEntityStatistics(Game.class.getName()).getLoadCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    // Guarda juegos nuevos y los añade a la biblioteca del usuario; devuelve los IDs de las entradas creadas
+    private List<Long> addGamesToLibrary(int count) {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GameDto gameDto = new GameDto();
+            gameDto.setIgdbId(FIRST_TEST_ID + userGameIds.size());
+            gameDto.setName("Juego " + gameDto.getIgdbId());
+            Game game = gameService.saveGames(List.of(gameDto)).get(0);
+            UserGame userGame = userGameRepository.save(UserGame.builder()
+                    .user(user)
+                    .game(game)
+                    .status(UserGameStatus.PLAYING)
+                    .build());
+            userGameIds.add(userGame.getInternalId());
+            created.add(userGame.getInternalId());
+        }
+        return created;
+    }
+}
@@ -0,0 +1,79 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mp.tfg.mycheckpoint.dto.enums.ReleaseStatus;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.dto.games.GenreDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameContentHasherTest {
+
+    private static final String IGDB_JSON = """
+            {"id": 1942, "name": "The Witcher 3: Wild Hunt", "total_rating": 92.5,
+             "genres": [{"id": 12, "name": "Rol"}], "platforms": [], "first_release_date": 1431993600}""";
+
+    // Mismo contenido con las propiedades en otro orden y sin la lista vacía
+    private static final String IGDB_JSON_REORDERED = """
+            {"first_release_date": 1431993600, "genres": [{"name": "Rol", "id": 12}],
+             "total_rating": 92.5, "name": "The Witcher 3: Wild Hunt", "id": 1942}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final GameContentHasher hasher = new GameContentHasher(objectMapper);
+
+    @Test
+    void sameContentGivesTheSameHashRegardlessOfPropertyOrderAndEmptyLists() throws Exception {
+        GameDto game = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        GameDto reordered = objectMapper.readValue(IGDB_JSON_REORDERED, GameDto.class);
+
+        String hash = hasher.hash(game);
+        assertThat(hash).hasSize(64).matches("[0-9a-f]+");
+        assertThat(hasher.hash(reordered)).isEqualTo(hash);
+        // Estable entre instancias (se guarda en la BD y se compara en ingestas posteriores)
+        assertThat(new GameContentHasher(objectMapper).hash(objectMapper.readValue(IGDB_JSON, GameDto.class))).isEqualTo(hash);
+    }
+
+    @Test
+    void nullListsHashLikeEmptyLists() throws Exception {
+        GameDto withEmptyList = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        GameDto withNullList = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        withEmptyList.setKeywords(new ArrayList<>());
+        withNullList.setKeywords(null);
+
+        assertThat(hasher.hash(withNullList)).isEqualTo(hasher.hash(withEmptyList));
+    }
+
+    @Test
+    void ignoresTheReleaseStatusComputedByTheIngestion() throws Exception {
+        GameDto game = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        String hash = hasher.hash(game);
+
+        game.setFirstReleaseStatus(ReleaseStatus.RELEASED);
+
+        assertThat(hasher.hash(game)).isEqualTo(hash);
+    }
+
+    @Test
+    void anyContentChangeChangesTheHash() throws Exception {
+        GameDto game = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        String hash = hasher.hash(game);
+
+        GameDto renamed = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        renamed.setName("The Witcher 3");
+        GameDto rated = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        rated.setTotalRating(93.0);
+        GameDto regenred = objectMapper.readValue(IGDB_JSON, GameDto.class);
+        GenreDto genre = new GenreDto();
+        genre.setIgdbId(31L);
+        genre.setName("Aventura");
+        regenred.setGenres(List.of(regenred.getGenres().get(0), genre));
+
+        assertThat(List.of(hasher.hash(renamed), hasher.hash(rated), hasher.hash(regenred)))
+                .doesNotContain(hash)
+                .doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,165 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.dto.usergame.GameDetailDTO;
+import mp.tfg.mycheckpoint.repository.games.GameDetailDocumentRepository;
+import mp.tfg.mycheckpoint.service.UserGameLibraryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contra la BD configurada (como {@code MyCheckPointApplicationTests}): los juegos de prueba usan IGDB IDs
+ * reservados y se borran al acabar cada test.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+class GameDetailDocumentServiceTest {
+
+    private static final long GAME_ID = 9_100_000_001L;
+    private static final long OTHER_GAME_ID = 9_100_000_002L;
+
+    @Autowired
+    private GameService gameService;
+    @Autowired
+    private GameDetailDocumentService documentService;
+    @Autowired
+    private GameDetailDocumentRepository documentRepository;
+    @Autowired
+    private UserGameLibraryService userGameLibraryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void deleteTestGames() {
+        jdbcTemplate.update("DELETE FROM game_detail_documents WHERE igdb_id IN (?, ?)", GAME_ID, OTHER_GAME_ID);
+        jdbcTemplate.update("DELETE FROM games WHERE igdb_id = ?", GAME_ID);
+    }
+
+    @Test
+    void theDetailViewServesTheDocumentWrittenByTheIngestion() {
+        gameService.saveGames(List.of(game("Primera versión")));
+
+        GameDetailDTO details = userGameLibraryService.getGameDetailsForUser(GAME_ID, null);
+
+        assertThat(details.getGameInfoDocument()).contains("Primera versión");
+        assertThat(details.getGameInfo()).isNull();
+    }
+
+    @Test
+    void theDetailViewRegeneratesAMissingDocumentAndStoresItForTheNextRead() throws Exception {
+        gameService.saveGames(List.of(game("Primera versión")));
+        jdbcTemplate.update("DELETE FROM game_detail_documents WHERE igdb_id = ?", GAME_ID);
+
+        GameDetailDTO details = userGameLibraryService.getGameDetailsForUser(GAME_ID, null);
+
+        assertThat(details.getGameInfoDocument()).isNull();
+        assertThat(details.getGameInfo().getName()).isEqualTo("Primera versión");
+        assertThat(awaitDocument()).contains("Primera versión");
+    }
+
+    @Test
+    void aNewIngestionReplacesTheDocument() {
+        gameService.saveGames(List.of(game("Primera versión")));
+        gameService.saveGames(List.of(game("Segunda versión")));
+
+        assertThat(documentService.find(GAME_ID).document()).contains("Segunda versión");
+    }
+
+    @Test
+    void anInvalidatedDocumentIsNotServed() {
+        gameService.saveGames(List.of(game("Primera versión")));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                documentService.invalidate(List.of(GAME_ID, OTHER_GAME_ID)));
+
+        GameDetailDocumentService.DocumentLookup lookup = documentService.find(GAME_ID);
+
+        assertThat(lookup.document()).isNull();
+        assertThat(lookup.readGeneratedAt()).isNotNull();
+        assertThat(documentService.find(OTHER_GAME_ID).readGeneratedAt()).isNotNull();
+    }
+
+    @Test
+    void aLateReadSideStoreDoesNotReplaceADocumentWrittenByALaterIngestion() {
+        gameService.saveGames(List.of(game("Primera versión")));
+        GameDetailDocumentService.DocumentLookup lookup = documentService.find(GAME_ID);
+
+        gameService.saveGames(List.of(game("Segunda versión")));
+        documentService.store(lookup, "{\"name\":\"Primera versión\"}");
+
+        assertThat(documentService.find(GAME_ID).document()).contains("Segunda versión");
+    }
+
+    @Test
+    void aLateReadSideStoreDoesNotRecreateADocumentInvalidatedByALaterIngestion() {
+        GameDetailDocumentService.DocumentLookup lookup = documentService.find(GAME_ID);
+        assertThat(lookup.readGeneratedAt()).isNull();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> documentService.invalidate(List.of(GAME_ID)));
+        documentService.store(lookup, "{\"name\":\"Primera versión\"}");
+
+        assertThat(documentService.find(GAME_ID).document()).isNull();
+    }
+
+    @Test
+    void aReadAfterTheIngestionTimestampButBeforeItsCommitCannotOverwriteIt() throws Exception {
+        gameService.saveGames(List.of(game("Primera versión")));
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        // La ingesta escribe su documento (sello anterior a la lectura) pero aún no confirma
+        CompletableFuture<Void> ingestion = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    documentRepository.upsert(new Long[]{GAME_ID}, new String[]{"{\"name\":\"Segunda versión\"}"},
+                            GameDetailDocumentService.DOCUMENT_VERSION, Instant.now());
+                    written.countDown();
+                    await(commit);
+                }));
+        assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+
+        GameDetailDocumentService.DocumentLookup lookup = documentService.find(GAME_ID);
+        assertThat(lookup.document()).contains("Primera versión");
+        commit.countDown();
+        ingestion.get(10, TimeUnit.SECONDS);
+        documentService.store(lookup, "{\"name\":\"Primera versión\"}");
+
+        assertThat(documentService.find(GAME_ID).document()).contains("Segunda versión");
+    }
+
+    private String awaitDocument() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String document = documentService.find(GAME_ID).document();
+        while (document == null && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            document = documentService.find(GAME_ID).document();
+        }
+        return document;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static GameDto game(String name) {
+        GameDto dto = new GameDto();
+        dto.setIgdbId(GAME_ID);
+        dto.setName(name);
+        return dto;
+    }
+}
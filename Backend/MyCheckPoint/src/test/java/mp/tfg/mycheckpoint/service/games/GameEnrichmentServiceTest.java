@@ -0,0 +1,146 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mp.tfg.mycheckpoint.repository.games.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cola de enriquecimiento con la ingesta y el repositorio simulados.
+ */
+class GameEnrichmentServiceTest {
+
+    private static final Duration RETRY_INITIAL_DELAY = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GameIngestionCoordinator gameIngestionCoordinator = mock(GameIngestionCoordinator.class);
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final CountDownLatch releaseIngestion = new CountDownLatch(1);
+
+    private GameEnrichmentService enrichmentService;
+
+    @AfterEach
+    void tearDown() {
+        releaseIngestion.countDown();
+        enrichmentService.shutdown();
+    }
+
+    @Test
+    void duplicateIdsArePendingOnlyOnce() throws Exception {
+        enrichmentService = enrichmentService(10, 3);
+        blockIngestionUntilReleased();
+
+        assertThat(enrichmentService.enqueue(1L)).isTrue();
+        assertThat(enrichmentService.enqueue(1L)).isTrue();
+        assertThat(enrichmentService.enqueue(1L)).isTrue();
+        assertThat(queueDepth()).isEqualTo(1);
+
+        releaseIngestion.countDown();
+        await(() -> requests("enriched") == 1 && queueDepth() == 0);
+        verify(gameIngestionCoordinator, times(1)).ingestFullGame(1L, IgdbPriority.BACKGROUND);
+        assertThat(requests("enqueued")).isEqualTo(1);
+        assertThat(requests("coalesced")).isEqualTo(2);
+
+        // Una vez completado, el mismo juego vuelve a poder encolarse
+        assertThat(enrichmentService.enqueue(1L)).isTrue();
+        await(() -> requests("enriched") == 2);
+        assertThat(requests("enqueued")).isEqualTo(2);
+    }
+
+    @Test
+    void failedAttemptsAreRetriedWithExponentialBackoff() throws Exception {
+        enrichmentService = enrichmentService(10, 5);
+        List<Long> attemptTimes = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        when(gameIngestionCoordinator.ingestFullGame(eq(1L), eq(IgdbPriority.BACKGROUND))).thenAnswer(invocation -> {
+            attemptTimes.add(System.nanoTime());
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("IGDB no responde");
+            }
+            return 10L;
+        });
+
+        enrichmentService.enqueue(1L);
+
+        await(() -> requests("enriched") == 1);
+        assertThat(attemptTimes).hasSize(3);
+        assertThat(Duration.ofNanos(attemptTimes.get(1) - attemptTimes.get(0))).isGreaterThanOrEqualTo(RETRY_INITIAL_DELAY);
+        assertThat(Duration.ofNanos(attemptTimes.get(2) - attemptTimes.get(1))).isGreaterThanOrEqualTo(RETRY_INITIAL_DELAY.multipliedBy(2));
+        assertThat(requests("retried")).isEqualTo(2);
+        assertThat(queueDepth()).isZero();
+    }
+
+    @Test
+    void aGameIsDroppedAfterItsLastAttempt() throws Exception {
+        enrichmentService = enrichmentService(10, 2);
+        when(gameIngestionCoordinator.ingestFullGame(anyLong(), eq(IgdbPriority.BACKGROUND)))
+                .thenThrow(new IllegalStateException("IGDB no responde"));
+
+        enrichmentService.enqueue(1L);
+
+        await(() -> requests("failed") == 1 && queueDepth() == 0);
+        verify(gameIngestionCoordinator, times(2)).ingestFullGame(1L, IgdbPriority.BACKGROUND);
+        assertThat(requests("retried")).isEqualTo(1);
+    }
+
+    @Test
+    void aFullQueueRejectsNewGamesButStillCoalescesPendingOnes() throws Exception {
+        enrichmentService = enrichmentService(2, 3);
+        blockIngestionUntilReleased();
+
+        assertThat(enrichmentService.enqueue(1L)).isTrue();
+        assertThat(enrichmentService.enqueue(2L)).isTrue();
+        assertThat(enrichmentService.enqueue(3L)).isFalse();
+        assertThat(enrichmentService.enqueue(2L)).isTrue();
+
+        assertThat(requests("rejected")).isEqualTo(1);
+        assertThat(requests("coalesced")).isEqualTo(1);
+        assertThat(queueDepth()).isEqualTo(2);
+        releaseIngestion.countDown();
+        await(() -> queueDepth() == 0);
+        verify(gameIngestionCoordinator, never()).ingestFullGame(3L, IgdbPriority.BACKGROUND);
+    }
+
+    private GameEnrichmentService enrichmentService(int maxPending, int maxAttempts) {
+        when(gameRepository.findCatalogStatusByIgdbId(anyLong())).thenReturn(Optional.empty());
+        return new GameEnrichmentService(gameIngestionCoordinator, gameRepository, meterRegistry,
+                2, maxPending, maxAttempts, RETRY_INITIAL_DELAY, Duration.ofSeconds(1));
+    }
+
+    private void blockIngestionUntilReleased() {
+        when(gameIngestionCoordinator.ingestFullGame(anyLong(), eq(IgdbPriority.BACKGROUND))).thenAnswer(invocation -> {
+            releaseIngestion.await(10, TimeUnit.SECONDS);
+            return 10L;
+        });
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("games.enrichment.requests").tag("result", result).counter().count();
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("games.enrichment.queue.depth").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
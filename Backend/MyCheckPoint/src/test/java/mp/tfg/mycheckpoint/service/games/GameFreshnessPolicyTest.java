@@ -0,0 +1,74 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.enums.ReleaseStatus;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameFreshnessPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T00:00:00Z");
+
+    @Test
+    void gamesStillChangingAreRefreshedDaily() {
+        assertThat(interval(ReleaseStatus.EARLY_ACCESS, daysAgo(2000))).isEqualTo(Duration.ofDays(1));
+        assertThat(interval(ReleaseStatus.ALPHA, null)).isEqualTo(Duration.ofDays(1));
+        assertThat(interval(ReleaseStatus.BETA, daysAgo(-400))).isEqualTo(Duration.ofDays(1));
+        assertThat(interval(ReleaseStatus.RUMORED, null)).isEqualTo(Duration.ofDays(3));
+    }
+
+    @Test
+    void deadGamesAreRefreshedQuarterlyWhateverTheirDate() {
+        assertThat(interval(ReleaseStatus.CANCELLED, daysAgo(-10))).isEqualTo(Duration.ofDays(90));
+        assertThat(interval(ReleaseStatus.DELISTED, daysAgo(5))).isEqualTo(Duration.ofDays(90));
+        assertThat(interval(ReleaseStatus.OFFLINE, null)).isEqualTo(Duration.ofDays(90));
+    }
+
+    @Test
+    void releasedOrUnknownGamesDependOnTheirReleaseDate() {
+        assertThat(interval(ReleaseStatus.RELEASED, null)).isEqualTo(Duration.ofDays(7));
+        assertThat(interval(null, daysAgo(-30))).isEqualTo(Duration.ofDays(1));     // Sale en un mes
+        assertThat(interval(null, daysAgo(-200))).isEqualTo(Duration.ofDays(7));    // Sale en más de 90 días
+        assertThat(interval(ReleaseStatus.RELEASED, daysAgo(10))).isEqualTo(Duration.ofDays(1));
+        assertThat(interval(ReleaseStatus.UNKNOWN, daysAgo(30))).isEqualTo(Duration.ofDays(7));
+        assertThat(interval(ReleaseStatus.RELEASED, daysAgo(364))).isEqualTo(Duration.ofDays(7));
+        assertThat(interval(ReleaseStatus.RELEASED, daysAgo(365))).isEqualTo(Duration.ofDays(30));
+        assertThat(interval(ReleaseStatus.RELEASED, daysAgo(5 * 365 - 1))).isEqualTo(Duration.ofDays(30));
+        assertThat(interval(ReleaseStatus.RELEASED, daysAgo(5 * 365))).isEqualTo(Duration.ofDays(90));
+    }
+
+    @Test
+    void nextRefreshAddsAStablePerGameSpreadOfAtMostTenPercent() {
+        Duration interval = Duration.ofDays(90);
+        for (long igdbId = 1; igdbId <= 50; igdbId++) {
+            Instant next = GameFreshnessPolicy.nextRefreshAt(game(igdbId, daysAgo(10 * 365)), NOW);
+
+            assertThat(next).isBetween(NOW.plus(interval), NOW.plus(interval).plus(interval.dividedBy(10)));
+            assertThat(GameFreshnessPolicy.nextRefreshAt(game(igdbId, daysAgo(10 * 365)), NOW)).isEqualTo(next);
+        }
+        // Juegos distintos no vencen todos a la vez
+        assertThat(GameFreshnessPolicy.nextRefreshAt(game(1L, null), NOW))
+                .isNotEqualTo(GameFreshnessPolicy.nextRefreshAt(game(2L, null), NOW));
+        assertThat(GameFreshnessPolicy.nextRefreshAt(game(null, null), NOW)).isEqualTo(NOW.plus(Duration.ofDays(7)));
+    }
+
+    private static Duration interval(ReleaseStatus status, Instant firstReleaseDate) {
+        return GameFreshnessPolicy.refreshInterval(status, firstReleaseDate, NOW);
+    }
+
+    private static Instant daysAgo(long days) {
+        return NOW.minus(Duration.ofDays(days));
+    }
+
+    private static Game game(Long igdbId, Instant firstReleaseDate) {
+        Game game = new Game();
+        game.setIgdbId(igdbId);
+        game.setFirstReleaseDate(firstReleaseDate);
+        game.setFirstReleaseStatus(ReleaseStatus.RELEASED);
+        return game;
+    }
+}
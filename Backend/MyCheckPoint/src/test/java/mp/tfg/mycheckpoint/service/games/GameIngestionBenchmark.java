@@ -0,0 +1,160 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mp.tfg.mycheckpoint.StatementCounter;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ingesta de {@value #GAMES} juegos completos que comparten géneros, plataformas, compañías... contra la BD
+ * configurada: todos en una llamada a {@link GameService#saveGames} (las referencias se resuelven en bloque para
+ * todo el grafo) frente a una llamada por juego (cada una resuelve solo las suyas, como la ingesta por DTO).
+ * Mide el tiempo y las sentencias enviadas a la BD; mediana de {@value #ROUNDS} rondas tras una de calentamiento.
+ * <p>
+ * Se ejecuta con {@code mvn test -Pbenchmark}. Usa IGDB IDs reservados que borra al acabar cada ronda.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+@Import(GameIngestionBenchmark.CountingConfiguration.class)
+class GameIngestionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameIngestionBenchmark.class);
+
+    private static final int GAMES = 200;
+    private static final int ROUNDS = 3;
+    private static final long FIRST_TEST_ID = 9_100_300_000L;
+    private static final long LAST_TEST_ID = 9_100_399_999L;
+    private static final long REFERENCE_ID = FIRST_TEST_ID + 50_000;
+    private static final String TEST_IDS = " BETWEEN " + FIRST_TEST_ID + " AND " + LAST_TEST_ID;
+    private static final String TEST_GAMES = "(SELECT internal_id FROM games WHERE igdb_id" + TEST_IDS + ")";
+    private static final List<String> REFERENCE_TABLES = List.of(
+            "game_modes", "genres", "franchises", "game_engines", "keywords", "platforms", "themes", "companies");
+    private static final List<String> REFERENCE_JOIN_TABLES = List.of(
+            "game_game_modes", "game_genres", "game_franchises", "game_game_engines_assoc", "game_keywords_assoc",
+            "game_platforms_assoc", "game_themes_assoc");
+
+    @TestConfiguration
+    static class CountingConfiguration {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @Autowired
+    private GameService gameService;
+    @Autowired
+    private GameReferenceDataService referenceDataService;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void deleteTestGames() {
+        REFERENCE_JOIN_TABLES.forEach(joinTable ->
+                jdbcTemplate.update("DELETE FROM " + joinTable + " WHERE game_internal_id IN " + TEST_GAMES));
+        jdbcTemplate.update("DELETE FROM game_company_involvements WHERE game_internal_id IN " + TEST_GAMES);
+        jdbcTemplate.update("DELETE FROM game_similar_games_assoc WHERE game_id IN " + TEST_GAMES + " OR similar_game_id IN " + TEST_GAMES);
+        jdbcTemplate.update("DELETE FROM game_detail_documents WHERE igdb_id" + TEST_IDS);
+        jdbcTemplate.update("DELETE FROM games WHERE igdb_id" + TEST_IDS);
+        REFERENCE_TABLES.forEach(table -> jdbcTemplate.update("DELETE FROM " + table + " WHERE igdb_id" + TEST_IDS));
+        // Los diccionarios en memoria no pueden seguir sirviendo las filas borradas
+        referenceDataService.preload();
+    }
+
+    @Test
+    void wholeGraphInOneCallAgainstOneCallPerGame() throws Exception {
+        long[][] together = new long[ROUNDS + 1][];
+        long[][] oneByOne = new long[ROUNDS + 1][];
+        for (int round = 0; round <= ROUNDS; round++) {
+            List<GameDto> games = games();
+            together[round] = measure(() -> assertThat(gameService.saveGames(games)).hasSize(GAMES));
+            deleteTestGames();
+
+            List<GameDto> sameGames = games();
+            oneByOne[round] = measure(() -> sameGames.forEach(game -> gameService.saveGames(List.of(game))));
+            deleteTestGames();
+        }
+
+        // La ronda 0 es de calentamiento
+        logger.info("Ingesta de {} juegos completos: una llamada -> {} ms, {} sentencias; una llamada por juego -> {} ms, {} sentencias.",
+                GAMES, median(together, 0) / 1_000_000, median(together, 1),
+                median(oneByOne, 0) / 1_000_000, median(oneByOne, 1));
+        assertThat(median(together, 1)).isLessThan(median(oneByOne, 1));
+    }
+
+    // {nanosegundos, sentencias}
+    private long[] measure(Runnable call) {
+        long start = System.nanoTime();
+        long statements = statementCounter.count(call);
+        return new long[]{System.nanoTime() - start, statements};
+    }
+
+    private static long median(long[][] rounds, int index) {
+        long[] values = Arrays.stream(rounds, 1, rounds.length).mapToLong(round -> round[index]).sorted().toArray();
+        return values[values.length / 2];
+    }
+
+    private List<GameDto> games() throws JsonProcessingException {
+        List<GameDto> games = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++) {
+            games.add(objectMapper.readValue(gameJson(i), GameDto.class));
+        }
+        return games;
+    }
+
+    // Cada juego toma sus referencias de conjuntos pequeños, así que muchos juegos comparten las mismas filas
+    private static String gameJson(int i) {
+        long id = FIRST_TEST_ID + i;
+        return """
+                {"id": %d, "name": "Juego %d", "slug": "juego-%d", "summary": "Resumen", "game_type": 0,
+                 "first_release_date": 1500000000, "game_status": {"id": 0}, "total_rating": 80.0, "total_rating_count": 50,
+                 "cover": {"id": %d, "url": "//portada.jpg"},
+                 "screenshots": [{"id": %d, "url": "//captura-1.jpg"}, {"id": %d, "url": "//captura-2.jpg"}],
+                 "game_modes": [%s], "genres": [%s], "themes": [%s], "keywords": [%s], "platforms": [%s],
+                 "involved_companies": [
+                     {"id": %d, "company": {"id": %d, "name": "Estudio %d"}, "developer": true},
+                     {"id": %d, "company": {"id": %d, "name": "Editora %d"}, "publisher": true}],
+                 "similar_games": [{"id": %d, "name": "Juego %d", "game_type": 0}, {"id": %d, "name": "Juego %d", "game_type": 0}]}
+                """.formatted(id, id, id, id, REFERENCE_ID + 10_000 + 2L * i, REFERENCE_ID + 10_001 + 2L * i,
+                references("Modo", i, 3, 1), references("Género", i, 20, 2), references("Tema", i, 10, 1),
+                references("Palabra", i, 50, 3), platform(i % 8),
+                REFERENCE_ID + 20_000 + 2L * i, REFERENCE_ID + i % 30, i % 30,
+                REFERENCE_ID + 20_001 + 2L * i, REFERENCE_ID + (i + 11) % 30, (i + 11) % 30,
+                FIRST_TEST_ID + (i + 1) % GAMES, FIRST_TEST_ID + (i + 1) % GAMES,
+                FIRST_TEST_ID + (i + 2) % GAMES, FIRST_TEST_ID + (i + 2) % GAMES);
+    }
+
+    private static String references(String name, int game, int poolSize, int count) {
+        StringJoiner references = new StringJoiner(", ");
+        for (int k = 0; k < count; k++) {
+            int index = (game + k * 7) % poolSize;
+            references.add("{\"id\": " + (REFERENCE_ID + index) + ", \"name\": \"" + name + " " + index + "\"}");
+        }
+        return references.toString();
+    }
+
+    private static String platform(int index) {
+        return "{\"id\": " + (REFERENCE_ID + index) + ", \"name\": \"Plataforma " + index + "\", " +
+                "\"platform_logo\": {\"id\": " + (REFERENCE_ID + 100 + index) + ", \"url\": \"//logo.png\"}}";
+    }
+}
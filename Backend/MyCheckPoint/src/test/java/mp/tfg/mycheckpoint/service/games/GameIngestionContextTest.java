@@ -0,0 +1,334 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import mp.tfg.mycheckpoint.dto.enums.GameType;
+import mp.tfg.mycheckpoint.dto.games.*;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameIngestionContextTest {
+
+    @Test
+    void collectsTheSameIdsAsTheEntityByEntityWalk() {
+        GameDto zelda = fullGame(1L, "Zelda");
+        zelda.setGenres(List.of(genre(10L, "Aventura"), genre(11L, "RPG")));
+        zelda.setThemes(List.of(theme(20L, "Fantasía")));
+        zelda.setKeywords(List.of(keyword(30L, "espada")));
+        zelda.setPlatforms(List.of(platform(40L, "Switch")));
+        zelda.setInvolvedCompanies(List.of(involvement(500L, company(50L, "Nintendo")), involvement(501L, null)));
+        zelda.setDlcs(List.of(related(2L, "Zelda DLC")));
+        zelda.setExpansions(List.of(related(3L, "Zelda Expansión")));
+        zelda.setSimilarGames(List.of(similar(4L, "Okami"), similar(1L, "Zelda (ciclo)")));
+        zelda.setVersionParent(related(5L, "Zelda original"));
+
+        GameDto okami = fullGame(4L, "Okami");
+        okami.setGenres(List.of(genre(11L, "RPG")));
+        okami.setGameModes(List.of(gameMode(60L, "Un jugador")));
+        okami.setFranchises(List.of(franchise(70L, "Okami")));
+        okami.setGameEngines(List.of(gameEngine(80L, "Propio")));
+        okami.setRemasters(List.of(related(6L, "Okami HD")));
+        okami.setParentGameInfo(related(1L, "Zelda"));
+
+        // Un juego parcial: aporta nodos pero no procesa entidades de referencia
+        GameDto partial = card(7L, "Parcial");
+        partial.setGenres(List.of(genre(12L, "No se procesa")));
+        partial.setBundles(List.of(related(8L, "Pack")));
+
+        List<GameDto> gameDtos = Arrays.asList(zelda, okami, null, partial, card(null, "Sin ID"));
+        GameIngestionContext context = collect(gameDtos);
+        LegacyWalk legacy = LegacyWalk.of(gameDtos);
+
+        assertThat(context.gameIds).containsExactlyInAnyOrderElementsOf(legacy.games);
+        assertThat(context.genreDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.genres);
+        assertThat(context.themeDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.themes);
+        assertThat(context.keywordDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.keywords);
+        assertThat(context.platformDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.platforms);
+        assertThat(context.gameModeDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.gameModes);
+        assertThat(context.franchiseDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.franchises);
+        assertThat(context.gameEngineDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.gameEngines);
+        assertThat(context.companyDtos.keySet()).containsExactlyInAnyOrderElementsOf(legacy.companies);
+        assertThat(context.involvementIds).containsExactlyInAnyOrderElementsOf(legacy.involvements);
+        assertThat(context.genreDtos).doesNotContainKey(12L);
+    }
+
+    @Test
+    void keepsTheRichestDtoForEachGameAndTheLastOneAtTheSameLevel() {
+        GameDto zelda = fullGame(1L, "Zelda");
+        zelda.setSimilarGames(List.of(similar(4L, "Okami (primera referencia)")));
+        zelda.setDlcs(List.of(related(2L, "DLC")));
+        GameDto other = fullGame(9L, "Otro");
+        other.setSimilarGames(List.of(similar(4L, "Okami (última referencia)")));
+        other.setDlcs(List.of(related(1L, "Zelda (referencia)")));
+        other.setGenres(List.of(genre(10L, "Nombre nuevo")));
+        zelda.setGenres(List.of(genre(10L, "Nombre viejo")));
+
+        GameIngestionContext context = collect(List.of(zelda, other));
+
+        // La referencia parcial a un juego completo no lo sustituye
+        assertThat(context.richestDto(card(1L, "Zelda (referencia)")).getName()).isEqualTo("Zelda");
+        assertThat(context.richestDto(card(1L, "Zelda (referencia)")).getDetailLevel()).isEqualTo(GameDetailLevel.FULL);
+        // Un juego similar (SUMMARY) es más rico que una referencia CARD y, entre los del mismo nivel,
+        // gana el último, como al procesarlos en orden
+        assertThat(context.richestDto(card(4L, "?")).getName()).isEqualTo("Okami (última referencia)");
+        assertThat(context.richestDto(card(4L, "?")).getDetailLevel()).isEqualTo(GameDetailLevel.SUMMARY);
+        // A igual nivel se usa el DTO que se está procesando
+        GameDto dlc = card(2L, "DLC");
+        assertThat(context.richestDto(dlc)).isSameAs(dlc);
+        // Un DTO más rico que el del grafo se usa tal cual
+        GameDto fullOkami = fullGame(4L, "Okami completo");
+        assertThat(context.richestDto(fullOkami)).isSameAs(fullOkami);
+        // Entidades de referencia repetidas: prevalece la última
+        assertThat(context.genreDtos.get(10L).getName()).isEqualTo("Nombre nuevo");
+    }
+
+    @Test
+    void partitionsOnlyGamesThatShareGraphNodesAndPreservesOrder() {
+        GameDto a = fullGame(1L, "A");
+        a.setDlcs(List.of(related(100L, "DLC de A")));
+        GameDto b = fullGame(2L, "B");
+        GameDto c = fullGame(3L, "C");
+        c.setSimilarGames(List.of(similar(200L, "Similar de C")));
+        GameDto d = fullGame(4L, "D");
+        d.setParentGameInfo(related(100L, "DLC de A")); // Comparte nodo con A
+        GameDto e = fullGame(5L, "E");
+        e.setRemakes(List.of(related(200L, "Similar de C"))); // Comparte nodo con C
+        GameDto f = fullGame(6L, "F");
+        f.setBundles(List.of(related(4L, "D"), related(5L, "E"))); // Une los grupos de A y de C (transitivo)
+        GameDto g = fullGame(7L, "G");
+
+        List<List<GameDto>> groups = GameIngestionContext.partitionIndependentGraphs(List.of(a, b, c, d, e, f, g));
+
+        assertThat(groups).containsExactly(List.of(a, c, d, e, f), List.of(b), List.of(g));
+    }
+
+    @Test
+    void ingestingEachPartitionSeparatelyTouchesTheSameEntitiesAsIngestingEverythingAtOnce() {
+        List<GameDto> gameDtos = realisticGraph();
+
+        GameIngestionContext whole = collect(gameDtos);
+        List<List<GameDto>> groups = GameIngestionContext.partitionIndependentGraphs(gameDtos);
+        assertThat(groups).hasSizeGreaterThan(1);
+
+        Set<Long> gamesAcrossGroups = new HashSet<>();
+        Set<Long> genresAcrossGroups = new HashSet<>();
+        Set<Long> companiesAcrossGroups = new HashSet<>();
+        for (List<GameDto> group : groups) {
+            GameIngestionContext groupContext = collect(group);
+            // Ningún juego está en dos grupos: cada subgrafo se puede guardar en su propia transacción
+            for (Long gameId : groupContext.gameIds) {
+                assertThat(gamesAcrossGroups.add(gameId)).as("juego %d en dos subgrafos", gameId).isTrue();
+                GameDto inGroup = groupContext.richestDto(card(gameId, "?"));
+                GameDto inWhole = whole.richestDto(card(gameId, "?"));
+                assertThat(inGroup.getName()).isEqualTo(inWhole.getName());
+                assertThat(inGroup.getDetailLevel()).isEqualTo(inWhole.getDetailLevel());
+            }
+            genresAcrossGroups.addAll(groupContext.genreDtos.keySet());
+            companiesAcrossGroups.addAll(groupContext.companyDtos.keySet());
+        }
+        assertThat(gamesAcrossGroups).isEqualTo(whole.gameIds);
+        assertThat(genresAcrossGroups).isEqualTo(whole.genreDtos.keySet());
+        assertThat(companiesAcrossGroups).isEqualTo(whole.companyDtos.keySet());
+        assertThat(groups.stream().flatMap(List::stream).toList()).containsExactlyInAnyOrderElementsOf(gameDtos);
+    }
+
+    @Test
+    void visitingAProcessedGameCountsAsDeduplicated() {
+        GameIngestionContext context = collect(List.of(fullGame(1L, "A")));
+        Game game = new Game();
+        game.setIgdbId(1L);
+
+        assertThat(context.visitGame(1L)).isEmpty();
+        context.markProcessed(game);
+        assertThat(context.visitGame(1L)).containsSame(game);
+        assertThat(context.nodesVisited()).isEqualTo(2);
+        assertThat(context.nodesDeduplicated()).isEqualTo(1);
+    }
+
+    /**
+     * Catálogo con franquicias que comparten juegos relacionados y otras independientes,
+     * como llega de una carga masiva de IGDB.
+     */
+    private static List<GameDto> realisticGraph() {
+        List<GameDto> gameDtos = new ArrayList<>();
+        for (long franchise = 0; franchise < 20; franchise++) {
+            for (long entry = 0; entry < 5; entry++) {
+                long igdbId = franchise * 100 + entry + 1;
+                GameDto game = fullGame(igdbId, "Juego " + igdbId);
+                game.setGenres(List.of(genre(franchise % 4, "Género " + franchise % 4)));
+                game.setInvolvedCompanies(List.of(involvement(igdbId * 10, company(franchise % 3, "Compañía"))));
+                game.setDlcs(List.of(related(10_000 + igdbId, "DLC " + igdbId)));
+                if (entry > 0 && franchise % 2 == 0) {
+                    game.setVersionParent(related(franchise * 100 + 1, "Juego " + (franchise * 100 + 1)));
+                }
+                if (franchise % 5 == 0) {
+                    game.setSimilarGames(List.of(similar(90_000 + franchise, "Similar compartido")));
+                }
+                gameDtos.add(game);
+            }
+        }
+        return gameDtos;
+    }
+
+    private static GameIngestionContext collect(List<GameDto> gameDtos) {
+        return GameIngestionContext.collect(gameDtos, GameIngestionContextTest::fromRelated, GameIngestionContextTest::fromSimilar);
+    }
+
+    /**
+     * IDs que consultaba la ingesta anterior al recorrer el grafo entidad a entidad: cada juego raíz y cada
+     * juego relacionado, y las entidades de referencia solo de los DTOs completos.
+     */
+    private record LegacyWalk(Set<Long> games, Set<Long> genres, Set<Long> themes, Set<Long> keywords,
+                              Set<Long> platforms, Set<Long> gameModes, Set<Long> franchises,
+                              Set<Long> gameEngines, Set<Long> companies, Set<Long> involvements) {
+
+        static LegacyWalk of(List<GameDto> gameDtos) {
+            LegacyWalk walk = new LegacyWalk(new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+                    new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>());
+            gameDtos.stream().filter(Objects::nonNull).filter(gameDto -> gameDto.getIgdbId() != null).forEach(walk::visit);
+            return walk;
+        }
+
+        private void visit(GameDto gameDto) {
+            games.add(gameDto.getIgdbId());
+            List<DlcInfoDto> related = new ArrayList<>();
+            related.add(gameDto.getParentGameInfo());
+            related.add(gameDto.getVersionParent());
+            related.addAll(gameDto.getDlcs());
+            related.addAll(gameDto.getExpansions());
+            related.addAll(gameDto.getBundles());
+            related.addAll(gameDto.getRemakes());
+            related.addAll(gameDto.getRemasters());
+            related.stream().filter(Objects::nonNull).forEach(relatedGame -> games.add(relatedGame.getIgdbId()));
+            gameDto.getSimilarGames().forEach(similarGame -> games.add(similarGame.getIgdbId()));
+            if (!gameDto.isFullDetails()) {
+                return;
+            }
+            addIds(gameDto.getGenres(), GenreDto::getIgdbId, genres);
+            addIds(gameDto.getThemes(), ThemeDto::getIgdbId, themes);
+            addIds(gameDto.getKeywords(), KeywordDto::getIgdbId, keywords);
+            addIds(gameDto.getPlatforms(), PlatformDto::getIgdbId, platforms);
+            addIds(gameDto.getGameModes(), GameModeDto::getIgdbId, gameModes);
+            addIds(gameDto.getFranchises(), FranchiseDto::getIgdbId, franchises);
+            addIds(gameDto.getGameEngines(), GameEngineDto::getIgdbId, gameEngines);
+            for (InvolvedCompanyDto involvedCompany : gameDto.getInvolvedCompanies()) {
+                if (involvedCompany.getCompany() != null) {
+                    companies.add(involvedCompany.getCompany().getIgdbId());
+                    involvements.add(involvedCompany.getInvolvementIgdbId());
+                }
+            }
+        }
+
+        private static <D> void addIds(List<D> dtos, Function<D, Long> igdbIdOf, Set<Long> target) {
+            dtos.forEach(dto -> target.add(igdbIdOf.apply(dto)));
+        }
+    }
+
+    private static GameDto fullGame(Long igdbId, String name) {
+        GameDto gameDto = new GameDto();
+        gameDto.setIgdbId(igdbId);
+        gameDto.setName(name);
+        gameDto.setGameType(GameType.GAME);
+        gameDto.setDetailLevel(GameDetailLevel.FULL);
+        return gameDto;
+    }
+
+    private static GameDto card(Long igdbId, String name) {
+        GameDto gameDto = fullGame(igdbId, name);
+        gameDto.setDetailLevel(GameDetailLevel.CARD);
+        return gameDto;
+    }
+
+    private static GameDto fromRelated(DlcInfoDto relatedGame) {
+        return card(relatedGame.getIgdbId(), relatedGame.getName());
+    }
+
+    private static GameDto fromSimilar(SimilarGameInfoDto similarGame) {
+        GameDto gameDto = card(similarGame.getIgdbId(), similarGame.getName());
+        gameDto.setDetailLevel(GameDetailLevel.SUMMARY);
+        return gameDto;
+    }
+
+    private static DlcInfoDto related(Long igdbId, String name) {
+        DlcInfoDto relatedGame = new DlcInfoDto();
+        relatedGame.setIgdbId(igdbId);
+        relatedGame.setName(name);
+        relatedGame.setGameType(GameType.DLC);
+        return relatedGame;
+    }
+
+    private static SimilarGameInfoDto similar(Long igdbId, String name) {
+        SimilarGameInfoDto similarGame = new SimilarGameInfoDto();
+        similarGame.setIgdbId(igdbId);
+        similarGame.setName(name);
+        return similarGame;
+    }
+
+    private static GenreDto genre(Long igdbId, String name) {
+        GenreDto genre = new GenreDto();
+        genre.setIgdbId(igdbId);
+        genre.setName(name);
+        return genre;
+    }
+
+    private static ThemeDto theme(Long igdbId, String name) {
+        ThemeDto theme = new ThemeDto();
+        theme.setIgdbId(igdbId);
+        theme.setName(name);
+        return theme;
+    }
+
+    private static KeywordDto keyword(Long igdbId, String name) {
+        KeywordDto keyword = new KeywordDto();
+        keyword.setIgdbId(igdbId);
+        keyword.setName(name);
+        return keyword;
+    }
+
+    private static PlatformDto platform(Long igdbId, String name) {
+        PlatformDto platform = new PlatformDto();
+        platform.setIgdbId(igdbId);
+        platform.setName(name);
+        return platform;
+    }
+
+    private static GameModeDto gameMode(Long igdbId, String name) {
+        GameModeDto gameMode = new GameModeDto();
+        gameMode.setIgdbId(igdbId);
+        gameMode.setName(name);
+        return gameMode;
+    }
+
+    private static FranchiseDto franchise(Long igdbId, String name) {
+        FranchiseDto franchise = new FranchiseDto();
+        franchise.setIgdbId(igdbId);
+        franchise.setName(name);
+        return franchise;
+    }
+
+    private static GameEngineDto gameEngine(Long igdbId, String name) {
+        GameEngineDto gameEngine = new GameEngineDto();
+        gameEngine.setIgdbId(igdbId);
+        gameEngine.setName(name);
+        return gameEngine;
+    }
+
+    private static CompanyInfoDto company(Long igdbId, String name) {
+        CompanyInfoDto company = new CompanyInfoDto();
+        company.setIgdbId(igdbId);
+        company.setName(name);
+        return company;
+    }
+
+    private static InvolvedCompanyDto involvement(Long igdbId, CompanyInfoDto company) {
+        InvolvedCompanyDto involvement = new InvolvedCompanyDto();
+        involvement.setInvolvementIgdbId(igdbId);
+        involvement.setCompany(company);
+        involvement.setDeveloper(true);
+        return involvement;
+    }
+}
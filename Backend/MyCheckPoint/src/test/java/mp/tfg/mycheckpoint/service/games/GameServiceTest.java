@@ -0,0 +1,336 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import mp.tfg.mycheckpoint.dto.enums.GameType;
+import mp.tfg.mycheckpoint.dto.games.DlcInfoDto;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.dto.games.SimilarGameInfoDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ingesta contra la BD configurada (como {@code MyCheckPointApplicationTests}): los juegos de prueba usan
+ * IGDB IDs reservados y se borran al acabar cada test. Las entidades de referencia (géneros, compañías...) usan
+ * IDs del mismo rango en sus tablas.
+ */
+@SpringBootTest(properties = {"games.refresh.enabled=false", "games.sync.enabled=false"})
+class GameServiceTest {
+
+    private static final long FIRST_TEST_ID = 9_100_100_000L;
+    private static final long LAST_TEST_ID = 9_100_199_999L;
+    private static final String TEST_IDS = " BETWEEN " + FIRST_TEST_ID + " AND " + LAST_TEST_ID;
+    private static final String TEST_GAMES = "(SELECT internal_id FROM games WHERE igdb_id" + TEST_IDS + ")";
+
+    // Tabla de unión -> (columna del juego, tabla de referencia, columna de la entidad de referencia)
+    private static final Map<String, String[]> REFERENCE_JOIN_TABLES = Map.of(
+            "game_game_modes", new String[]{"game_internal_id", "game_modes", "game_mode_internal_id"},
+            "game_genres", new String[]{"game_internal_id", "genres", "genre_internal_id"},
+            "game_franchises", new String[]{"game_internal_id", "franchises", "franchise_internal_id"},
+            "game_game_engines_assoc", new String[]{"game_internal_id", "game_engines", "game_engine_internal_id"},
+            "game_keywords_assoc", new String[]{"game_internal_id", "keywords", "keyword_internal_id"},
+            "game_platforms_assoc", new String[]{"game_internal_id", "platforms", "platform_internal_id"},
+            "game_themes_assoc", new String[]{"game_internal_id", "themes", "theme_internal_id"});
+    private static final Map<String, String[]> GAME_JOIN_TABLES = Map.of(
+            "game_similar_games_assoc", new String[]{"game_id", "similar_game_id"},
+            "game_remake_versions_assoc", new String[]{"original_game_id", "remake_game_id"},
+            "game_remaster_versions_assoc", new String[]{"original_game_id", "remaster_game_id"});
+
+    @Autowired
+    private GameService gameService;
+    @Autowired
+    private GameReferenceDataService referenceDataService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void deleteTestGames() {
+        REFERENCE_JOIN_TABLES.forEach((joinTable, columns) ->
+                jdbcTemplate.update("DELETE FROM " + joinTable + " WHERE " + columns[0] + " IN " + TEST_GAMES));
+        jdbcTemplate.update("DELETE FROM game_company_involvements WHERE game_internal_id IN " + TEST_GAMES);
+        jdbcTemplate.update("DELETE FROM game_similar_games_assoc WHERE game_id IN " + TEST_GAMES + " OR similar_game_id IN " + TEST_GAMES);
+        jdbcTemplate.update("DELETE FROM game_remake_versions_assoc WHERE original_game_id IN " + TEST_GAMES + " OR remake_game_id IN " + TEST_GAMES);
+        jdbcTemplate.update("DELETE FROM game_remaster_versions_assoc WHERE original_game_id IN " + TEST_GAMES + " OR remaster_game_id IN " + TEST_GAMES);
+        jdbcTemplate.update("UPDATE games SET parent_game_internal_id = NULL, version_parent_game_internal_id = NULL " +
+                "WHERE internal_id IN " + TEST_GAMES);
+        jdbcTemplate.update("DELETE FROM game_detail_documents WHERE igdb_id BETWEEN ? AND ?", FIRST_TEST_ID, LAST_TEST_ID);
+        jdbcTemplate.update("DELETE FROM games WHERE igdb_id BETWEEN ? AND ?", FIRST_TEST_ID, LAST_TEST_ID);
+        REFERENCE_JOIN_TABLES.values().forEach(columns ->
+                jdbcTemplate.update("DELETE FROM " + columns[1] + " WHERE igdb_id" + TEST_IDS));
+        jdbcTemplate.update("DELETE FROM companies WHERE igdb_id" + TEST_IDS);
+        // Los diccionarios en memoria no pueden seguir sirviendo las filas borradas
+        referenceDataService.preload();
+    }
+
+    @Test
+    void aGraphSavedInOneCallProducesTheSameRowsAsSavingItsGamesOneByOne() throws Exception {
+        gameService.saveGames(List.of(fullGameA(), fullGameB()));
+        Map<String, List<String>> savedTogether = catalogRows();
+        deleteTestGames();
+
+        gameService.saveGames(List.of(fullGameA()));
+        gameService.saveGames(List.of(fullGameB()));
+
+        assertThat(catalogRows()).isEqualTo(savedTogether);
+    }
+
+    @Test
+    void savingTheSameGraphAgainLeavesTheRowsUnchanged() throws Exception {
+        gameService.saveGames(List.of(fullGameA(), fullGameB()));
+        Map<String, List<String>> firstSave = catalogRows();
+
+        gameService.saveGames(List.of(fullGameA(), fullGameB()));
+
+        assertThat(catalogRows()).isEqualTo(firstSave);
+    }
+
+    @Test
+    void aFullGraphIsSavedWithAllItsEntitiesAndRelations() throws Exception {
+        gameService.saveGames(List.of(fullGameA(), fullGameB()));
+        Map<String, List<String>> rows = catalogRows();
+
+        long a = FIRST_TEST_ID;
+        long b = FIRST_TEST_ID + 1;
+        long ref = FIRST_TEST_ID + 50_000;
+        assertThat(rows.get("game_genres")).containsExactly(
+                pair(a, ref + 1), pair(a, ref + 2), pair(b, ref + 2), pair(b, ref + 3));
+        assertThat(rows.get("genres")).containsExactly(
+                "[" + (ref + 1) + ", Aventura]", "[" + (ref + 2) + ", RPG]", "[" + (ref + 3) + ", Estrategia]");
+        assertThat(rows.get("game_keywords_assoc")).containsExactly(pair(a, ref + 1), pair(a, ref + 2), pair(b, ref + 2));
+        assertThat(rows.get("game_platforms_assoc")).containsExactly(pair(a, ref + 1), pair(b, ref + 1));
+        assertThat(rows.get("platforms")).containsExactly("[" + (ref + 1) + ", Plataforma, PF, " + (ref + 9) + ", //logo.png]");
+        assertThat(rows.get("game_company_involvements")).containsExactly(
+                "[" + (ref + 1) + ", " + a + ", " + (ref + 1) + ", true, false, false, false]",
+                "[" + (ref + 2) + ", " + a + ", " + (ref + 2) + ", false, false, true, false]",
+                "[" + (ref + 3) + ", " + b + ", " + (ref + 1) + ", false, false, true, true]");
+        assertThat(rows.get("game_similar_games_assoc")).containsExactly(pair(a, b), pair(b, a));
+        assertThat(rows.get("game_remake_versions_assoc")).containsExactly(pair(a, FIRST_TEST_ID + 12));
+        assertThat(rows.get("game_remaster_versions_assoc")).containsExactly(pair(b, FIRST_TEST_ID + 13));
+
+        Map<String, Object> gameA = jdbcTemplate.queryForMap("SELECT detail_level, screenshots, artworks FROM games WHERE igdb_id = ?", a);
+        assertThat(gameA.get("detail_level")).isEqualTo("FULL");
+        assertThat(String.valueOf(gameA.get("screenshots"))).contains("//captura-1.jpg", "//captura-2.jpg");
+        assertThat(String.valueOf(gameA.get("artworks"))).contains("//arte.jpg");
+        // DLC y expansión cuelgan de A; el remake y el remaster se guardan como tarjetas independientes
+        assertThat(parentOf(FIRST_TEST_ID + 10)).isEqualTo(a);
+        assertThat(parentOf(FIRST_TEST_ID + 11)).isEqualTo(a);
+        assertThat(row(FIRST_TEST_ID + 12).get("detail_level")).isEqualTo("CARD");
+        assertThat(row(FIRST_TEST_ID + 13).get("detail_level")).isEqualTo("CARD");
+    }
+
+    @Test
+    void aRelatedGameCardDoesNotClearTheRelationsOfAFullGame() throws Exception {
+        gameService.saveGames(List.of(fullGameA()));
+        List<String> similarGames = catalogRows().get("game_similar_games_assoc");
+
+        // B lista a A como similar: A llega como tarjeta, sin sus remakes ni sus similares
+        gameService.saveGames(List.of(fullGameB()));
+
+        Map<String, List<String>> rows = catalogRows();
+        assertThat(rows.get("game_remake_versions_assoc")).containsExactly(pair(FIRST_TEST_ID, FIRST_TEST_ID + 12));
+        assertThat(rows.get("game_similar_games_assoc")).containsAll(similarGames);
+    }
+
+    @Test
+    void anUnchangedFullGameIsSkippedWithoutTouchingItsRows() throws Exception {
+        gameService.saveGames(List.of(fullGameA()));
+        // Si la ingesta volviera a mapear el juego, sobrescribiría estos cambios hechos por fuera
+        jdbcTemplate.update("UPDATE games SET name = 'Renombrado fuera', screenshots = '[]' WHERE igdb_id = ?", FIRST_TEST_ID);
+        jdbcTemplate.update("DELETE FROM game_genres WHERE game_internal_id IN " + TEST_GAMES);
+        Map<String, List<String>> before = catalogRows();
+        double skipped = ingestionUpdates("skipped");
+        double applied = ingestionUpdates("applied");
+
+        gameService.saveGames(List.of(fullGameA()));
+
+        assertThat(catalogRows()).isEqualTo(before);
+        assertThat(ingestionUpdates("skipped")).isEqualTo(skipped + 1);
+        assertThat(ingestionUpdates("applied")).isEqualTo(applied);
+    }
+
+    @Test
+    void aChangedFullGameIsAppliedAndCounted() throws Exception {
+        gameService.saveGames(List.of(fullGameA()));
+        double skipped = ingestionUpdates("skipped");
+        double applied = ingestionUpdates("applied");
+        GameDto changed = fullGameA();
+        changed.setName("Juego A (edición revisada)");
+
+        gameService.saveGames(List.of(changed));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM games WHERE igdb_id = ?", String.class, FIRST_TEST_ID))
+                .isEqualTo("Juego A (edición revisada)");
+        assertThat(ingestionUpdates("applied")).isEqualTo(applied + 1);
+        assertThat(ingestionUpdates("skipped")).isEqualTo(skipped);
+    }
+
+    @Test
+    void relatedGamesOfAFullProjectionAreSavedAsCompleteCards() {
+        GameDto game = game(FIRST_TEST_ID, "Juego base");
+        game.setDlcs(List.of(dlc(FIRST_TEST_ID + 1, "DLC", 1_600_000_000L)));
+        game.setSimilarGames(List.of(similar(FIRST_TEST_ID + 2, "Similar", GameType.REMASTER, 1_500_000_000L)));
+
+        gameService.saveGames(List.of(game));
+
+        Map<String, Object> dlcRow = row(FIRST_TEST_ID + 1);
+        assertThat(dlcRow.get("detail_level")).isEqualTo("CARD");
+        assertThat(releaseDate(dlcRow)).isEqualTo(Instant.ofEpochSecond(1_600_000_000L));
+        Map<String, Object> similarRow = row(FIRST_TEST_ID + 2);
+        assertThat(similarRow.get("game_type")).isEqualTo(GameType.REMASTER.getValue());
+        assertThat(releaseDate(similarRow)).isEqualTo(Instant.ofEpochSecond(1_500_000_000L));
+    }
+
+    @Test
+    void aSimilarGameWithoutTypeIsSavedAsAMainGame() {
+        GameDto game = game(FIRST_TEST_ID, "Juego base");
+        game.setSimilarGames(List.of(similar(FIRST_TEST_ID + 2, "Similar", null, null)));
+
+        gameService.saveGames(List.of(game));
+
+        assertThat(row(FIRST_TEST_ID + 2).get("game_type")).isEqualTo(GameType.GAME.getValue());
+    }
+
+    /**
+     * Filas de los juegos de prueba y de todo lo que cuelga de ellos, identificadas por IGDB ID (los IDs internos
+     * dependen del orden de inserción) y sin las fechas de refresco, que dependen del momento de la ingesta.
+     */
+    private Map<String, List<String>> catalogRows() {
+        Map<String, List<String>> rows = new LinkedHashMap<>();
+        rows.put("games", rows("SELECT g.igdb_id, g.name, g.slug, g.detail_level, g.is_full_details, g.game_type, " +
+                "g.first_release_date, g.first_release_status, g.total_rating, g.total_rating_count, g.summary, g.storyline, " +
+                "g.cover_igdb_id, g.cover_url, CAST(g.artworks AS text) AS artworks, CAST(g.screenshots AS text) AS screenshots, " +
+                "CAST(g.websites AS text) AS websites, CAST(g.videos AS text) AS videos, g.content_hash, " +
+                "(SELECT p.igdb_id FROM games p WHERE p.internal_id = g.parent_game_internal_id) AS parent_igdb_id, " +
+                "(SELECT v.igdb_id FROM games v WHERE v.internal_id = g.version_parent_game_internal_id) AS version_parent_igdb_id " +
+                "FROM games g WHERE g.igdb_id" + TEST_IDS));
+        REFERENCE_JOIN_TABLES.forEach((joinTable, columns) -> {
+            rows.put(joinTable, rows("SELECT g.igdb_id AS game_igdb_id, r.igdb_id AS related_igdb_id FROM " + joinTable + " j " +
+                    "JOIN games g ON g.internal_id = j." + columns[0] + " JOIN " + columns[1] + " r ON r.internal_id = j." + columns[2] +
+                    " WHERE g.igdb_id" + TEST_IDS));
+            rows.put(columns[1], rows(columns[1].equals("platforms")
+                    ? "SELECT igdb_id, name, alternative_name, logo_igdb_id, logo_url FROM platforms WHERE igdb_id" + TEST_IDS
+                    : "SELECT igdb_id, name FROM " + columns[1] + " WHERE igdb_id" + TEST_IDS));
+        });
+        GAME_JOIN_TABLES.forEach((joinTable, columns) -> rows.put(joinTable, rows(
+                "SELECT g.igdb_id AS game_igdb_id, r.igdb_id AS related_igdb_id FROM " + joinTable + " j JOIN games g ON g.internal_id = j." + columns[0] +
+                        " JOIN games r ON r.internal_id = j." + columns[1] + " WHERE g.igdb_id" + TEST_IDS)));
+        rows.put("companies", rows("SELECT igdb_id, name FROM companies WHERE igdb_id" + TEST_IDS));
+        rows.put("game_company_involvements", rows("SELECT i.involvement_igdb_id, g.igdb_id AS game_igdb_id, c.igdb_id AS company_igdb_id, i.developer, " +
+                "i.porting, i.publisher, i.supporting FROM game_company_involvements i " +
+                "JOIN games g ON g.internal_id = i.game_internal_id JOIN companies c ON c.internal_id = i.company_internal_id " +
+                "WHERE g.igdb_id" + TEST_IDS));
+        return rows;
+    }
+
+    private double ingestionUpdates(String result) {
+        return meterRegistry.get("games.ingestion.updates").tag("result", result).counter().count();
+    }
+
+    private List<String> rows(String sql) {
+        return jdbcTemplate.queryForList(sql).stream().map(row -> row.values().toString()).sorted().toList();
+    }
+
+    private static String pair(long first, long second) {
+        return "[" + first + ", " + second + "]";
+    }
+
+    private Long parentOf(long igdbId) {
+        return jdbcTemplate.queryForObject("SELECT p.igdb_id FROM games g JOIN games p ON p.internal_id = g.parent_game_internal_id " +
+                "WHERE g.igdb_id = ?", Long.class, igdbId);
+    }
+
+    // Juego completo con todas las relaciones que pide la proyección FULL; B es similar a A y A a B
+    private GameDto fullGameA() throws JsonProcessingException {
+        long ref = FIRST_TEST_ID + 50_000;
+        return objectMapper.readValue("""
+                {"id": %1$d, "name": "Juego A", "slug": "juego-a", "summary": "Resumen", "storyline": "Historia",
+                 "game_type": 0, "first_release_date": 1500000000, "game_status": {"id": 0},
+                 "total_rating": 85.5, "total_rating_count": 120,
+                 "cover": {"id": %2$d, "url": "//portada-a.jpg"},
+                 "artworks": [{"id": %2$d, "url": "//arte.jpg"}],
+                 "screenshots": [{"id": %3$d, "url": "//captura-1.jpg"}, {"id": %4$d, "url": "//captura-2.jpg"}],
+                 "websites": [{"id": %3$d, "url": "https://juego-a.example"}],
+                 "videos": [{"id": %3$d, "name": "Tráiler", "video_id": "abc"}],
+                 "game_modes": [{"id": %3$d, "name": "Un jugador"}],
+                 "genres": [{"id": %3$d, "name": "Aventura"}, {"id": %4$d, "name": "RPG"}],
+                 "themes": [{"id": %3$d, "name": "Fantasía"}],
+                 "franchises": [{"id": %3$d, "name": "Saga"}],
+                 "game_engines": [{"id": %3$d, "name": "Motor"}],
+                 "keywords": [{"id": %3$d, "name": "mazmorras"}, {"id": %4$d, "name": "magia"}],
+                 "platforms": [{"id": %3$d, "name": "Plataforma", "alternative_name": "PF",
+                                "platform_logo": {"id": %5$d, "url": "//logo.png"}}],
+                 "involved_companies": [
+                     {"id": %3$d, "company": {"id": %3$d, "name": "Estudio"}, "developer": true},
+                     {"id": %4$d, "company": {"id": %4$d, "name": "Editora"}, "publisher": true}],
+                 "dlcs": [{"id": %6$d, "name": "DLC de A", "game_type": 1, "first_release_date": 1510000000}],
+                 "expansions": [{"id": %7$d, "name": "Expansión de A", "game_type": 2}],
+                 "remakes": [{"id": %8$d, "name": "Remake de A", "game_type": 8}],
+                 "similar_games": [{"id": %9$d, "name": "Juego B", "game_type": 0}]}
+                """.formatted(FIRST_TEST_ID, ref, ref + 1, ref + 2, ref + 9, FIRST_TEST_ID + 10,
+                FIRST_TEST_ID + 11, FIRST_TEST_ID + 12, FIRST_TEST_ID + 1), GameDto.class);
+    }
+
+    private GameDto fullGameB() throws JsonProcessingException {
+        long ref = FIRST_TEST_ID + 50_000;
+        return objectMapper.readValue("""
+                {"id": %1$d, "name": "Juego B", "slug": "juego-b", "game_type": 0, "first_release_date": 1400000000,
+                 "genres": [{"id": %2$d, "name": "RPG"}, {"id": %3$d, "name": "Estrategia"}],
+                 "keywords": [{"id": %2$d, "name": "magia"}],
+                 "platforms": [{"id": %4$d, "name": "Plataforma", "alternative_name": "PF",
+                                "platform_logo": {"id": %5$d, "url": "//logo.png"}}],
+                 "involved_companies": [
+                     {"id": %3$d, "company": {"id": %4$d, "name": "Estudio"}, "publisher": true, "supporting": true}],
+                 "remasters": [{"id": %6$d, "name": "Remaster de B", "game_type": 9}],
+                 "similar_games": [{"id": %7$d, "name": "Juego A", "game_type": 0}]}
+                """.formatted(FIRST_TEST_ID + 1, ref + 2, ref + 3, ref + 1, ref + 9, FIRST_TEST_ID + 13, FIRST_TEST_ID),
+                GameDto.class);
+    }
+
+    private Map<String, Object> row(long igdbId) {
+        return jdbcTemplate.queryForMap("SELECT detail_level, game_type, first_release_date FROM games WHERE igdb_id = ?", igdbId);
+    }
+
+    private static Instant releaseDate(Map<String, Object> row) {
+        return ((java.sql.Timestamp) row.get("first_release_date")).toInstant();
+    }
+
+    private static GameDto game(long igdbId, String name) {
+        GameDto dto = new GameDto();
+        dto.setIgdbId(igdbId);
+        dto.setName(name);
+        return dto;
+    }
+
+    private static DlcInfoDto dlc(long igdbId, String name, Long firstReleaseDate) {
+        DlcInfoDto dto = new DlcInfoDto();
+        dto.setIgdbId(igdbId);
+        dto.setName(name);
+        dto.setGameType(GameType.DLC);
+        dto.setFirstReleaseDate(firstReleaseDate);
+        return dto;
+    }
+
+    private static SimilarGameInfoDto similar(long igdbId, String name, GameType gameType, Long firstReleaseDate) {
+        SimilarGameInfoDto dto = new SimilarGameInfoDto();
+        dto.setIgdbId(igdbId);
+        dto.setName(name);
+        dto.setGameType(gameType);
+        dto.setFirstReleaseDate(firstReleaseDate);
+        return dto;
+    }
+}
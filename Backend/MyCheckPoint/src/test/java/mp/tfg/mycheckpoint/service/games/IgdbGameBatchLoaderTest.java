@@ -0,0 +1,80 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IgdbGameBatchLoaderTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    @Test
+    void resolvesEveryLookupWhenMoreBatchesArePendingThanCanRunAtOnce() {
+        AtomicInteger fetches = new AtomicInteger();
+        // IGDB lento: mientras hay 4 bloques en curso la ventana vence varias veces con búsquedas esperando
+        IgdbGameBatchLoader loader = new IgdbGameBatchLoader((igdbIds, caller) -> {
+            fetches.incrementAndGet();
+            return Flux.fromIterable(igdbIds).map(IgdbGameBatchLoaderTest::game).delaySubscription(Duration.ofMillis(200));
+        }, Duration.ofMillis(5), BATCH_SIZE);
+
+        // Las búsquedas llegan poco a poco, así que la ventana cierra bloques incompletos sin esperar a llenarlos
+        int lookups = 12 * BATCH_SIZE;
+        List<CompletableFuture<GameDto>> results = new ArrayList<>();
+        for (long igdbId = 1; igdbId <= lookups; igdbId++) {
+            results.add(loader.load(igdbId).toFuture());
+            LockSupport.parkNanos(Duration.ofMillis(2).toNanos());
+        }
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).orTimeout(10, TimeUnit.SECONDS).join();
+        for (int i = 0; i < lookups; i++) {
+            assertThat(results.get(i).join().getIgdbId()).isEqualTo(i + 1L);
+        }
+        assertThat(fetches.get()).isGreaterThanOrEqualTo(lookups / BATCH_SIZE);
+    }
+
+    @Test
+    void failedBatchFailsOnlyItsLookupsAndLaterLookupsStillResolve() {
+        AtomicInteger fetches = new AtomicInteger();
+        IgdbGameBatchLoader loader = new IgdbGameBatchLoader((igdbIds, caller) -> {
+            if (fetches.incrementAndGet() == 1) {
+                throw new IllegalStateException("IGDB caído");
+            }
+            return Flux.fromIterable(igdbIds).map(IgdbGameBatchLoaderTest::game);
+        }, Duration.ofMillis(5), BATCH_SIZE);
+
+        assertThatThrownBy(() -> loader.load(1L).block(Duration.ofSeconds(5)))
+                .hasMessageContaining("IGDB caído");
+        assertThat(loader.load(2L).block(Duration.ofSeconds(5)).getIgdbId()).isEqualTo(2L);
+    }
+
+    @Test
+    void gameMissingFromTheResponseCompletesEmpty() {
+        IgdbGameBatchLoader loader = new IgdbGameBatchLoader(
+                (igdbIds, caller) -> Flux.fromIterable(igdbIds).filter(igdbId -> igdbId != 404L).map(IgdbGameBatchLoaderTest::game),
+                Duration.ofMillis(5), BATCH_SIZE);
+
+        Mono<GameDto> missing = loader.load(404L);
+        Mono<GameDto> found = loader.load(7L);
+
+        assertThat(missing.blockOptional(Duration.ofSeconds(5))).isEmpty();
+        assertThat(found.block(Duration.ofSeconds(5)).getIgdbId()).isEqualTo(7L);
+    }
+
+    private static GameDto game(Long igdbId) {
+        GameDto gameDto = new GameDto();
+        gameDto.setIgdbId(igdbId);
+        return gameDto;
+    }
+}
@@ -0,0 +1,198 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Decodificación de una respuesta de IGDB de 500 juegos completos: {@link IgdbJsonStreamDecoder} frente a lo que
+ * hacía {@code bodyToFlux} con el {@link Jackson2JsonDecoder} de WebClient. Mide el tiempo hasta el primer juego,
+ * el tiempo total y los bytes asignados por el hilo que decodifica (mediana de {@value #ITERATIONS} rondas tras
+ * {@value #WARMUP} de calentamiento). El cuerpo llega en trozos de 8 KB, como los de Reactor Netty.
+ * <p>
+ * Se ejecuta con {@code mvn test -Pbenchmark}; no usa la BD.
+ */
+class IgdbJsonStreamDecoderBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(IgdbJsonStreamDecoderBenchmark.class);
+
+    private static final int WARMUP = 15;
+    private static final int ITERATIONS = 25;
+    private static final int GAMES = 500;
+    private static final int SUB_QUERIES = 4;
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final IgdbJsonStreamDecoder streamDecoder = new IgdbJsonStreamDecoder(objectMapper, 2 * 1024 * 1024);
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    @Test
+    void multiqueryOfFullGames() {
+        byte[] body = multiqueryBody();
+        Jackson2JsonDecoder webClientDecoder = new Jackson2JsonDecoder(objectMapper);
+        webClientDecoder.setMaxInMemorySize(-1); // Sin límite, solo para poder medirlo
+
+        // Como antes: cada entrada {name, result} a un JsonNode, todas al mapa y luego los juegos de cada sub-consulta
+        Measurement before = measure(() -> webClientDecoder
+                .decode(chunks(body), ResolvableType.forClass(JsonNode.class), null, null)
+                .cast(JsonNode.class)
+                .collectMap(entry -> entry.path("name").asText(), entry -> entry.path("result"))
+                .flatMapMany(resultsByName -> Flux.fromIterable(resultsByName.values()))
+                .concatMap(result -> Flux.fromIterable(result).map(node -> treeToGame(node))));
+        Measurement after = measure(() -> streamDecoder.decodeMultiquery(chunks(body))
+                .filter(element -> !element.wholeResult())
+                .map(element -> streamDecoder.readValue(element.tokens(), GameDto.class)));
+
+        report("multiquery", body, before, after);
+        assertThat(after.firstNanos()).isLessThan(before.firstNanos());
+
+        // Con el límite por defecto de los codecs (256 KB) el camino anterior ni siquiera podía decodificarla
+        assertThatThrownBy(() -> new Jackson2JsonDecoder(objectMapper)
+                .decode(chunks(body), ResolvableType.forClass(JsonNode.class), null, null).blockLast())
+                .isInstanceOf(DataBufferLimitException.class);
+    }
+
+    @Test
+    void arrayOfFullGames() {
+        byte[] body = arrayBody();
+        Jackson2JsonDecoder webClientDecoder = new Jackson2JsonDecoder(objectMapper);
+
+        Measurement before = measure(() -> webClientDecoder
+                .decode(chunks(body), ResolvableType.forClass(GameDto.class), null, null)
+                .cast(GameDto.class));
+        Measurement after = measure(() -> streamDecoder.decodeArray(chunks(body), GameDto.class));
+
+        report("array", body, before, after);
+    }
+
+    private record Measurement(long firstNanos, long totalNanos, long allocatedBytes) {
+    }
+
+    private Measurement measure(Supplier<Flux<GameDto>> decode) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(decode.get().count().block()).isEqualTo(GAMES);
+        }
+        long[] first = new long[ITERATIONS];
+        long[] total = new long[ITERATIONS];
+        long[] allocated = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long[] firstAt = {0};
+            // Todo el pipeline es síncrono: decodifica el hilo que se suscribe
+            Long count = decode.get()
+                    .doOnNext(game -> {
+                        if (firstAt[0] == 0) {
+                            firstAt[0] = System.nanoTime();
+                        }
+                    })
+                    .count()
+                    .block();
+            total[i] = System.nanoTime() - start;
+            allocated[i] = allocatedBytes() - allocatedBefore;
+            first[i] = firstAt[0] - start;
+            assertThat(count).isEqualTo(GAMES);
+        }
+        return new Measurement(median(first), median(total), median(allocated));
+    }
+
+    private static void report(String shape, byte[] body, Measurement before, Measurement after) {
+        logger.info("Decodificación {} ({} juegos, {} KB): bodyToFlux -> primer juego {} µs, total {} µs, {} KB asignados; " +
+                        "IgdbJsonStreamDecoder -> primer juego {} µs, total {} µs, {} KB asignados.",
+                shape, GAMES, body.length / 1024,
+                before.firstNanos() / 1000, before.totalNanos() / 1000, before.allocatedBytes() / 1024,
+                after.firstNanos() / 1000, after.totalNanos() / 1000, after.allocatedBytes() / 1024);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private GameDto treeToGame(JsonNode node) {
+        try {
+            return objectMapper.treeToValue(node, GameDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Flux<DataBuffer> chunks(byte[] body) {
+        return Flux.defer(() -> {
+            List<DataBuffer> buffers = new ArrayList<>();
+            for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+                buffers.add(bufferFactory.wrap(Arrays.copyOfRange(body, offset, Math.min(body.length, offset + CHUNK_SIZE))));
+            }
+            return Flux.fromIterable(buffers);
+        });
+    }
+
+    private static byte[] multiqueryBody() {
+        StringJoiner entries = new StringJoiner(",", "[", "]");
+        int perQuery = GAMES / SUB_QUERIES;
+        for (int q = 0; q < SUB_QUERIES; q++) {
+            StringJoiner games = new StringJoiner(",", "[", "]");
+            for (int i = q * perQuery; i < (q + 1) * perQuery; i++) {
+                games.add(gameJson(i));
+            }
+            entries.add("{\"name\": \"games_" + q + "\", \"result\": " + games + "}");
+        }
+        return entries.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] arrayBody() {
+        StringJoiner games = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < GAMES; i++) {
+            games.add(gameJson(i));
+        }
+        return games.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Un juego con la forma de las consultas de detalle: textos largos y listas de referencias y medios
+    private static String gameJson(int index) {
+        long id = 100_000L + index;
+        String text = "Texto de prueba con acentos (ñ, á) y \\\"comillas\\\". ".repeat(20);
+        StringJoiner screenshots = new StringJoiner(",", "[", "]");
+        StringJoiner similar = new StringJoiner(",", "[", "]");
+        StringJoiner genres = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 8; i++) {
+            screenshots.add("{\"id\": " + (id * 10 + i) + ", \"url\": \"//images.igdb.com/igdb/image/upload/t_thumb/sc" + id + i + ".jpg\"}");
+            similar.add("{\"id\": " + (id + i + 1) + ", \"name\": \"Juego " + (id + i + 1) + "\", \"game_type\": 0, " +
+                    "\"first_release_date\": 1500000000, \"cover\": {\"id\": " + (id + i) + ", \"url\": \"//portada.jpg\"}}");
+            genres.add("{\"id\": " + i + ", \"name\": \"Género " + i + "\"}");
+        }
+        return "{\"id\": " + id + ", \"name\": \"Juego " + id + "\", \"slug\": \"juego-" + id + "\", " +
+                "\"summary\": \"" + text + "\", \"storyline\": \"" + text + "\", \"game_type\": 0, " +
+                "\"first_release_date\": 1500000000, \"game_status\": {\"id\": 0}, \"total_rating\": 85.5, " +
+                "\"total_rating_count\": 120, \"cover\": {\"id\": " + id + ", \"url\": \"//portada.jpg\"}, " +
+                "\"screenshots\": " + screenshots + ", \"artworks\": " + screenshots + ", \"genres\": " + genres + ", " +
+                "\"themes\": " + genres + ", \"keywords\": " + genres + ", " +
+                "\"platforms\": [{\"id\": 6, \"name\": \"PC\", \"alternative_name\": \"Windows\", " +
+                "\"platform_logo\": {\"id\": 6, \"url\": \"//logo.png\"}}], " +
+                "\"involved_companies\": [{\"id\": " + id + ", \"company\": {\"id\": 70, \"name\": \"Estudio\"}, \"developer\": true}], " +
+                "\"similar_games\": " + similar + "}";
+    }
+}
@@ -0,0 +1,129 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IgdbJsonStreamDecoderTest {
+
+    private static final String GAMES = """
+            [
+              {"id": 1942, "name": "The Witcher 3: Wild Hunt", "genres": [{"id": 12, "name": "Rol"}], "total_rating": 92.5},
+              {"id": 1020, "name": "Grand Theft Auto V", "summary": "Ciudad con \\"comillas\\" y [corchetes] {llaves}"},
+              {"id": 7346, "name": "ゼルダの伝説 ブレス オブ ザ ワイルド"}
+            ]""";
+
+    private static final String MULTIQUERY = """
+            [
+              {"name": "bloque-0", "result": [{"id": 1942, "name": "The Witcher 3"}, {"id": 1020, "name": "GTA V"}]},
+              {"result": [{"id": 7346, "name": "Zelda"}], "name": "bloque-1"},
+              {"name": "contador", "count": 3, "result": {"count": 3}},
+              {"name": "vacio", "result": []}
+            ]""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final IgdbJsonStreamDecoder decoder = new IgdbJsonStreamDecoder(objectMapper, 64 * 1024);
+
+    @Test
+    void decodesArrayElementsWhateverWayTheBodyIsSplit() {
+        byte[] body = GAMES.getBytes(StandardCharsets.UTF_8);
+        // Cortes de todos los tamaños: dentro de cadenas, de números, de caracteres multibyte...
+        for (int chunkSize = 1; chunkSize <= body.length; chunkSize++) {
+            List<GameDto> games = decoder.decodeArray(split(body, chunkSize), GameDto.class)
+                    .collectList().block(Duration.ofSeconds(5));
+
+            assertThat(games).as("trozos de %d bytes", chunkSize)
+                    .extracting(GameDto::getIgdbId).containsExactly(1942L, 1020L, 7346L);
+            assertThat(games.get(0).getGenres()).singleElement().satisfies(genre -> assertThat(genre.getName()).isEqualTo("Rol"));
+            assertThat(games.get(1).getSummary()).isEqualTo("Ciudad con \"comillas\" y [corchetes] {llaves}");
+            assertThat(games.get(2).getName()).isEqualTo("ゼルダの伝説 ブレス オブ ザ ワイルド");
+        }
+    }
+
+    @Test
+    void emitsEachElementAsSoonAsItIsComplete() {
+        byte[] body = GAMES.getBytes(StandardCharsets.UTF_8);
+        int secondElementStart = GAMES.indexOf("{\"id\": 1020");
+        List<Long> emitted = new ArrayList<>();
+
+        // El primer trozo acaba justo después del primer juego: ya se puede emitir sin esperar al resto
+        decoder.decodeArray(Flux.just(buffer(Arrays.copyOfRange(body, 0, secondElementStart)))
+                        .concatWith(Flux.never()), GameDto.class)
+                .take(1)
+                .doOnNext(game -> emitted.add(game.getIgdbId()))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(emitted).containsExactly(1942L);
+    }
+
+    @Test
+    void decodesMultiqueryResultsWithTheirQueryNameWhateverWayTheBodyIsSplit() {
+        byte[] body = MULTIQUERY.getBytes(StandardCharsets.UTF_8);
+        for (int chunkSize = 1; chunkSize <= body.length; chunkSize++) {
+            List<IgdbJsonStreamDecoder.DecodedElement> elements = decoder.decodeMultiquery(split(body, chunkSize))
+                    .collectList().block(Duration.ofSeconds(5));
+
+            assertThat(elements).as("trozos de %d bytes", chunkSize)
+                    .extracting(IgdbJsonStreamDecoder.DecodedElement::queryName)
+                    .containsExactly("bloque-0", "bloque-0", "bloque-1", "contador");
+            assertThat(elements).extracting(IgdbJsonStreamDecoder.DecodedElement::wholeResult)
+                    .containsExactly(false, false, false, true);
+            assertThat(decoder.readValue(elements.get(2).tokens(), GameDto.class).getIgdbId()).isEqualTo(7346L);
+            assertThat(decoder.readValue(elements.get(3).tokens(), JsonNode.class).get("count").asInt()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void rejectsAnElementLargerThanTheLimit() {
+        IgdbJsonStreamDecoder smallDecoder = new IgdbJsonStreamDecoder(objectMapper, 64);
+        String body = "[{\"id\": 1, \"summary\": \"" + "a".repeat(200) + "\"}]";
+
+        assertThatThrownBy(() -> smallDecoder.decodeArray(split(body.getBytes(StandardCharsets.UTF_8), 16), GameDto.class)
+                .blockLast(Duration.ofSeconds(5)))
+                .isInstanceOf(DataBufferLimitException.class);
+    }
+
+    @Test
+    void failsOnTruncatedOrMalformedBodies() {
+        byte[] truncated = GAMES.substring(0, GAMES.length() - 10).getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> decoder.decodeArray(split(truncated, 32), GameDto.class).blockLast(Duration.ofSeconds(5)))
+                .isInstanceOf(DecodingException.class);
+
+        byte[] malformed = "[{\"id\": 1,, }]".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> decoder.decodeArray(split(malformed, 4), GameDto.class).blockLast(Duration.ofSeconds(5)))
+                .isInstanceOf(DecodingException.class);
+    }
+
+    @Test
+    void emptyArrayDecodesToNoElements() {
+        assertThat(decoder.decodeArray(split("[]".getBytes(StandardCharsets.UTF_8), 1), GameDto.class)
+                .collectList().block(Duration.ofSeconds(5))).isEmpty();
+    }
+
+    private static Flux<DataBuffer> split(byte[] body, int chunkSize) {
+        List<DataBuffer> chunks = new ArrayList<>();
+        for (int start = 0; start < body.length; start += chunkSize) {
+            chunks.add(buffer(Arrays.copyOfRange(body, start, Math.min(body.length, start + chunkSize))));
+        }
+        return Flux.fromIterable(chunks);
+    }
+
+    private static DataBuffer buffer(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+}
@@ -0,0 +1,52 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IgdbMultiQueryTest {
+
+    @Test
+    void buildsTheMultiqueryBodyInInsertionOrder() {
+        IgdbMultiQuery query = IgdbMultiQuery.create()
+                .query("bloque-1", "games", "fields name; where id = (1942, 1020); limit 500;  ")
+                .query("bloque-0", "platforms", "fields name; where id = 6;");
+
+        assertThat(query.names()).containsExactly("bloque-1", "bloque-0");
+        assertThat(query.size()).isEqualTo(2);
+        assertThat(query.toRequestBody()).isEqualTo("""
+                query games "bloque-1" {
+                fields name; where id = (1942, 1020); limit 500;
+                };
+                query platforms "bloque-0" {
+                fields name; where id = 6;
+                };
+                """);
+    }
+
+    @Test
+    void emptyQueryHasNoBody() {
+        IgdbMultiQuery query = IgdbMultiQuery.create();
+
+        assertThat(query.isEmpty()).isTrue();
+        assertThat(query.toRequestBody()).isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidOrDuplicatedNamesAndTooManyQueries() {
+        assertThatThrownBy(() -> IgdbMultiQuery.create().query(" ", "games", "fields name;"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> IgdbMultiQuery.create().query("con \"comillas\"", "games", "fields name;"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> IgdbMultiQuery.create().query("a", "games", "fields name;").query("a", "games", "fields id;"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        IgdbMultiQuery full = IgdbMultiQuery.create();
+        for (int i = 0; i < IgdbMultiQuery.MAX_QUERIES; i++) {
+            full.query("bloque-" + i, "games", "fields name;");
+        }
+        assertThatThrownBy(() -> full.query("uno-mas", "games", "fields name;"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
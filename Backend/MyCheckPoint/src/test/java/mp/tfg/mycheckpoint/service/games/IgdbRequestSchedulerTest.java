@@ -0,0 +1,84 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IgdbRequestSchedulerTest {
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.POST, URI.create("http://igdb.test/games")).build();
+
+    // Un único hueco de concurrencia y tokens de sobra: solo la concurrencia limita
+    private final IgdbRequestScheduler scheduler = new IgdbRequestScheduler(new SimpleMeterRegistry(),
+            1000, 1000, 1, 10, Duration.ofSeconds(5), 2, 1, 1);
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void permitIsHeldUntilTheResponseBodyIsConsumed() {
+        AtomicInteger exchanges = new AtomicInteger();
+        Sinks.Many<DataBuffer> firstBody = Sinks.many().unicast().onBackpressureBuffer();
+        ExchangeFunction next = clientRequest -> {
+            ClientResponse.Builder response = ClientResponse.create(HttpStatus.OK);
+            if (exchanges.incrementAndGet() == 1) {
+                response.body(firstBody.asFlux());
+            } else {
+                response.body("[]");
+            }
+            return Mono.just(response.build());
+        };
+
+        ClientResponse first = scheduler.filter(request, next).block(Duration.ofSeconds(5));
+        CompletableFuture<String> firstContent = first.bodyToMono(String.class).toFuture();
+        CompletableFuture<String> second = scheduler.filter(request, next)
+                .flatMap(response -> response.bodyToMono(String.class))
+                .toFuture();
+
+        // Con las cabeceras recibidas pero el cuerpo a medias, la segunda petición sigue en cola
+        assertThat(second).isNotDone();
+        assertThat(exchanges).hasValue(1);
+
+        firstBody.tryEmitNext(DefaultDataBufferFactory.sharedInstance.wrap("[]".getBytes(StandardCharsets.UTF_8)));
+        firstBody.tryEmitComplete();
+
+        assertThat(firstContent.join()).isEqualTo("[]");
+        assertThat(second.orTimeout(5, TimeUnit.SECONDS).join()).isEqualTo("[]");
+        assertThat(exchanges).hasValue(2);
+    }
+
+    @Test
+    void permitIsReleasedWhenTheExchangeFails() {
+        AtomicInteger exchanges = new AtomicInteger();
+        ExchangeFunction next = clientRequest -> exchanges.incrementAndGet() == 1
+                ? Mono.error(new IllegalStateException("conexión rechazada"))
+                : Mono.just(ClientResponse.create(HttpStatus.OK).body("[]").build());
+
+        assertThat(scheduler.filter(request, next).onErrorResume(error -> Mono.empty()).blockOptional(Duration.ofSeconds(5))).isEmpty();
+        String body = scheduler.filter(request, next)
+                .flatMap(response -> response.bodyToMono(String.class))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(body).isEqualTo("[]");
+    }
+}
@@ -0,0 +1,103 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IgdbResilienceTest {
+
+    private static final Duration HEDGE_MIN_DELAY = Duration.ofMillis(50);
+    private static final Duration SLOW_RESPONSE = Duration.ofSeconds(2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void aSlowStreamingReadIsHedgedAndTheFirstResponseWins() {
+        IgdbResilience resilience = resilience(2);
+        warmUpLatencies(resilience);
+        AtomicInteger attempts = new AtomicInteger();
+        // La primera petición tarda; la de respaldo responde al momento
+        Flux<String> call = Flux.defer(() -> attempts.incrementAndGet() == 1
+                ? Flux.just("lenta").delaySubscription(SLOW_RESPONSE)
+                : Flux.just("a", "b"));
+
+        long start = System.nanoTime();
+        List<String> result = resilience.executeMany("search", call, true).collectList().block();
+
+        assertThat(result).containsExactly("a", "b");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(SLOW_RESPONSE);
+        assertThat(hedges("sent")).isEqualTo(1);
+    }
+
+    @Test
+    void anEmptyResponseAlsoCountsAsTheFirstResponse() {
+        IgdbResilience resilience = resilience(2);
+        warmUpLatencies(resilience);
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.just("lenta").delaySubscription(SLOW_RESPONSE)
+                : Mono.empty());
+
+        long start = System.nanoTime();
+        String result = resilience.execute("game-projection", call, true).block();
+
+        assertThat(result).isNull();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(SLOW_RESPONSE);
+    }
+
+    @Test
+    void noHedgeIsSentWithoutAFreeBulkheadPermit() {
+        // La única plaza la ocupa la propia llamada: la de respaldo no cabe
+        IgdbResilience resilience = resilience(1);
+        warmUpLatencies(resilience);
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<String> call = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.just("lenta").delaySubscription(Duration.ofMillis(300));
+        });
+
+        List<String> result = resilience.executeMany("games-by-id", call, true).collectList().block();
+
+        assertThat(result).containsExactly("lenta");
+        assertThat(attempts).hasValue(1);
+        assertThat(hedges("skipped")).isEqualTo(1);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    @Test
+    void theHedgePermitIsReleasedWhenTheCallEnds() {
+        IgdbResilience resilience = resilience(2);
+        warmUpLatencies(resilience);
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<String> call = Flux.defer(() -> attempts.incrementAndGet() == 1
+                ? Flux.just("lenta").delaySubscription(SLOW_RESPONSE)
+                : Flux.just("rapida"));
+
+        resilience.executeMany("search", call, true).blockLast();
+
+        assertThat(meterRegistry.get("igdb.resilience.bulkhead.available").gauge().value()).isEqualTo(2.0);
+    }
+
+    private IgdbResilience resilience(int maxConcurrentCalls) {
+        return new IgdbResilience(meterRegistry, Duration.ofSeconds(5), maxConcurrentCalls,
+                20, 10, 50, Duration.ofSeconds(30), 3, true, 0.95, HEDGE_MIN_DELAY);
+    }
+
+    // El hedging solo se activa con suficientes latencias recientes; con respuestas inmediatas el retardo es el mínimo
+    private static void warmUpLatencies(IgdbResilience resilience) {
+        for (int i = 0; i < 20; i++) {
+            resilience.executeMany("search", Flux.just("calentamiento"), true).blockLast();
+        }
+    }
+
+    private double hedges(String result) {
+        return meterRegistry.get("igdb.resilience.hedges").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,126 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.entity.games.Game;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Resultados por juego de la ingesta en paralelo, con {@code saveGames} y las transacciones simulados.
+ */
+class ParallelGameIngestionServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GameService gameService = mock(GameService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    // IGDB ID -> excepciones que lanzará saveGames en sus siguientes intentos (después guarda el juego)
+    private final Map<Long, Deque<RuntimeException>> failures = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+    private ParallelGameIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(gameService.partitionIndependentGraphs(anyList())).thenAnswer(invocation ->
+                GameIngestionContext.partitionIndependentGraphs(invocation.getArgument(0)));
+        when(gameService.saveGames(anyList())).thenAnswer(invocation -> {
+            List<GameDto> group = invocation.getArgument(0);
+            List<Game> saved = new ArrayList<>();
+            for (GameDto gameDto : group) {
+                attempts.computeIfAbsent(gameDto.getIgdbId(), igdbId -> new AtomicInteger()).incrementAndGet();
+                RuntimeException failure = Optional.ofNullable(failures.get(gameDto.getIgdbId()))
+                        .map(Deque::pollFirst).orElse(null);
+                if (failure != null) {
+                    throw failure;
+                }
+                Game game = new Game();
+                game.setIgdbId(gameDto.getIgdbId());
+                game.setInternalId(gameDto.getIgdbId() * 10);
+                saved.add(game);
+            }
+            return saved;
+        });
+        ingestionService = new ParallelGameIngestionService(gameService, transactionManager, meterRegistry, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestionService.shutdown();
+    }
+
+    @Test
+    void aFailingSubgraphOnlyFailsItsOwnGames() {
+        failures.put(2L, new ArrayDeque<>(List.of(new IllegalStateException("IGDB devolvió basura"))));
+        GameDto withoutId = game(null);
+
+        List<GameIngestionOutcome> outcomes = ingestionService.ingest(Arrays.asList(game(1L), game(2L), null, withoutId, game(3L)));
+
+        assertThat(outcomes).extracting(GameIngestionOutcome::status).containsExactly(
+                GameIngestionOutcome.Status.SAVED, GameIngestionOutcome.Status.FAILED, GameIngestionOutcome.Status.INVALID,
+                GameIngestionOutcome.Status.INVALID, GameIngestionOutcome.Status.SAVED);
+        assertThat(outcomes.get(0).internalId()).isEqualTo(10L);
+        assertThat(outcomes.get(1).igdbId()).isEqualTo(2L);
+        assertThat(outcomes.get(1).error()).isEqualTo("IGDB devolvió basura");
+        assertThat(outcomes.get(4).internalId()).isEqualTo(30L);
+        // Un fallo que no es un conflicto no se reintenta
+        assertThat(attempts.get(2L)).hasValue(1);
+        assertThat(items("saved")).isEqualTo(2);
+        assertThat(items("failed")).isEqualTo(1);
+        assertThat(items("invalid")).isEqualTo(2);
+    }
+
+    @Test
+    void aDataIntegrityViolationIsRetriedOnceInANewTransaction() {
+        failures.put(1L, new ArrayDeque<>(List.of(new DataIntegrityViolationException("duplicate key value"))));
+
+        List<GameIngestionOutcome> outcomes = ingestionService.ingest(List.of(game(1L)));
+
+        assertThat(outcomes).singleElement().satisfies(outcome -> {
+            assertThat(outcome.status()).isEqualTo(GameIngestionOutcome.Status.SAVED);
+            assertThat(outcome.internalId()).isEqualTo(10L);
+        });
+        assertThat(attempts.get(1L)).hasValue(2);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void aSecondConflictFailsTheSubgraph() {
+        failures.put(1L, new ArrayDeque<>(List.of(new DataIntegrityViolationException("duplicate key value"),
+                new DataIntegrityViolationException("duplicate key value otra vez"))));
+
+        List<GameIngestionOutcome> outcomes = ingestionService.ingest(List.of(game(1L)));
+
+        assertThat(outcomes).singleElement().satisfies(outcome -> {
+            assertThat(outcome.status()).isEqualTo(GameIngestionOutcome.Status.FAILED);
+            assertThat(outcome.error()).isEqualTo("duplicate key value otra vez");
+        });
+        assertThat(attempts.get(1L)).hasValue(2);
+    }
+
+    private double items(String outcome) {
+        return meterRegistry.get("games.ingestion.parallel.items").tag("outcome", outcome).counter().count();
+    }
+
+    private static GameDto game(Long igdbId) {
+        GameDto dto = new GameDto();
+        dto.setIgdbId(igdbId);
+        dto.setName("Juego " + igdbId);
+        return dto;
+    }
+}
@@ -0,0 +1,182 @@
+package mp.tfg.mycheckpoint.service.games;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReferenceDataDictionaryTest {
+
+    private record Dto(Long igdbId, String name) {
+    }
+
+    private record Row(Long igdbId, String name) {
+    }
+
+    /** Tabla de referencia simulada: cuenta cargas y escrituras. */
+    private static class Table {
+        final Map<Long, Row> rows = new ConcurrentHashMap<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+        final List<Set<Long>> written = new CopyOnWriteArrayList<>();
+
+        List<Row> load() {
+            loads.incrementAndGet();
+            return new ArrayList<>(rows.values());
+        }
+
+        List<Row> write(Map<Long, Dto> pending) {
+            writes.incrementAndGet();
+            written.add(new HashSet<>(pending.keySet()));
+            List<Row> saved = new ArrayList<>();
+            pending.forEach((igdbId, dto) -> {
+                Row row = new Row(igdbId, dto.name());
+                rows.put(igdbId, row);
+                saved.add(row);
+            });
+            return saved;
+        }
+
+        ReferenceDataDictionary<Dto, Row> dictionary() {
+            return new ReferenceDataDictionary<>("generos", Row::igdbId,
+                    (dto, row) -> Objects.equals(dto.name(), row.name()), this::load, this::write);
+        }
+    }
+
+    @Test
+    void resolvesKnownEntriesFromTheSnapshotWithoutWriting() {
+        Table table = new Table();
+        table.rows.put(1L, new Row(1L, "Rol"));
+        table.rows.put(2L, new Row(2L, "Aventura"));
+        ReferenceDataDictionary<Dto, Row> dictionary = table.dictionary();
+
+        Map<Long, Row> first = dictionary.resolve(dtos(new Dto(1L, "Rol")));
+        Map<Long, Row> second = dictionary.resolve(dtos(new Dto(1L, "Rol"), new Dto(2L, "Aventura")));
+
+        assertThat(first).containsOnlyKeys(1L);
+        assertThat(second).containsOnlyKeys(1L, 2L);
+        assertThat(table.loads).hasValue(1); // Se carga una vez, de forma perezosa
+        assertThat(table.writes).hasValue(0);
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    @Test
+    void writesOnlyMissingOrChangedEntries() {
+        Table table = new Table();
+        table.rows.put(1L, new Row(1L, "Rol"));
+        table.rows.put(2L, new Row(2L, "Aventura"));
+        ReferenceDataDictionary<Dto, Row> dictionary = table.dictionary();
+
+        Map<Long, Row> resolved = dictionary.resolve(dtos(new Dto(1L, "Rol"), new Dto(2L, "Aventura gráfica"), new Dto(3L, "Plataformas")));
+
+        assertThat(table.written).containsExactly(Set.of(2L, 3L));
+        assertThat(resolved.get(2L).name()).isEqualTo("Aventura gráfica");
+        assertThat(resolved.get(3L).name()).isEqualTo("Plataformas");
+        // La instantánea nueva ya tiene las entradas escritas
+        dictionary.resolve(dtos(new Dto(2L, "Aventura gráfica"), new Dto(3L, "Plataformas")));
+        assertThat(table.writes).hasValue(1);
+    }
+
+    @Test
+    void emptyRequestDoesNotTouchTheDatabase() {
+        Table table = new Table();
+
+        assertThat(table.dictionary().resolve(Map.of())).isEmpty();
+        assertThat(table.loads).hasValue(0);
+    }
+
+    @Test
+    void reloadPicksUpRowsWrittenElsewhere() {
+        Table table = new Table();
+        ReferenceDataDictionary<Dto, Row> dictionary = table.dictionary();
+        dictionary.reload();
+        table.rows.put(5L, new Row(5L, "Carreras")); // Escrita por otra instancia
+
+        dictionary.reload();
+        Map<Long, Row> resolved = dictionary.resolve(dtos(new Dto(5L, "Carreras")));
+
+        assertThat(resolved).containsOnlyKeys(5L);
+        assertThat(table.writes).hasValue(0);
+    }
+
+    @Test
+    void entriesWrittenInATransactionArePublishedOnlyWhenItCommits() {
+        Table table = new Table();
+        ReferenceDataDictionary<Dto, Row> dictionary = table.dictionary();
+
+        // Transacción que se deshace: la entrada se usa en ella pero no se publica
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(dictionary.resolve(dtos(new Dto(1L, "Rol")))).containsOnlyKeys(1L);
+            assertThat(dictionary.size()).isZero();
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(dictionary.size()).isZero();
+
+        // Transacción que se confirma: se vuelve a escribir y se publica al confirmar
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dictionary.resolve(dtos(new Dto(1L, "Rol")));
+            assertThat(dictionary.size()).isZero();
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(dictionary.size()).isEqualTo(1);
+        assertThat(table.writes).hasValue(2);
+
+        dictionary.resolve(dtos(new Dto(1L, "Rol")));
+        assertThat(table.writes).hasValue(2);
+    }
+
+    @Test
+    void aSlowWriteDoesNotBlockOtherIngestions() throws Exception {
+        CountDownLatch slowWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowWrite = new CountDownLatch(1);
+        Table table = new Table() {
+            @Override
+            List<Row> write(Map<Long, Dto> pending) {
+                if (pending.containsKey(1L)) {
+                    slowWriteStarted.countDown();
+                    try {
+                        releaseSlowWrite.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.write(pending);
+            }
+        };
+        ReferenceDataDictionary<Dto, Row> dictionary = table.dictionary();
+        dictionary.reload();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<Long, Row>> slow = executor.submit(() -> dictionary.resolve(dtos(new Dto(1L, "Rol"))));
+            assertThat(slowWriteStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Sin bloqueo global de escritura: otra ingesta escribe su entrada mientras la primera sigue en la BD
+            assertThat(dictionary.resolve(dtos(new Dto(2L, "Aventura")))).containsOnlyKeys(2L);
+
+            releaseSlowWrite.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS)).containsOnlyKeys(1L);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    private static Map<Long, Dto> dtos(Dto... dtos) {
+        Map<Long, Dto> byIgdbId = new LinkedHashMap<>();
+        Arrays.stream(dtos).forEach(dto -> byIgdbId.put(dto.igdbId(), dto));
+        return byIgdbId;
+    }
+}
@@ -0,0 +1,246 @@
+package mp.tfg.mycheckpoint.service.scheduler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.entity.games.CatalogSyncState;
+import mp.tfg.mycheckpoint.repository.games.CatalogSyncLockRepository;
+import mp.tfg.mycheckpoint.repository.games.CatalogSyncStateRepository;
+import mp.tfg.mycheckpoint.repository.games.GameRepository;
+import mp.tfg.mycheckpoint.service.games.GameService;
+import mp.tfg.mycheckpoint.service.games.IgdbRequestScheduler;
+import mp.tfg.mycheckpoint.service.games.IgdbResilience;
+import mp.tfg.mycheckpoint.service.games.IgdbService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pasadas de la sincronización incremental contra un IGDB simulado con un servidor HTTP local.
+ * La BD (juegos locales y estado de la sincronización) se simula en memoria.
+ */
+class CatalogSyncSchedulerTest {
+
+    private static final Pattern GAMES_QUERY = Pattern.compile("where id = \\(([0-9,]+)\\) & updated_at > (\\d+);");
+    private static final long NOW = Instant.now().getEpochSecond();
+
+    // Catálogo de IGDB simulado: updated_at por IGDB ID
+    private final Map<Long, Long> igdbUpdatedAt = new TreeMap<>();
+    private final List<String> igdbRequests = new CopyOnWriteArrayList<>();
+    private volatile Long failRequestsWithId;
+
+    private final List<Long> localFullGames = new ArrayList<>();
+    private final Map<String, CatalogSyncState> syncStates = new HashMap<>();
+    private final List<List<Long>> savedBatches = new ArrayList<>();
+
+    private final CatalogSyncLockRepository syncLockRepository = mock(CatalogSyncLockRepository.class);
+    private final CatalogSyncLockRepository.RunLock runLock = mock(CatalogSyncLockRepository.RunLock.class);
+
+    private HttpServer igdb;
+    private CatalogSyncScheduler syncScheduler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        igdb = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        igdb.createContext("/games", this::handleGames);
+        igdb.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        IgdbRequestScheduler requestScheduler = new IgdbRequestScheduler(meterRegistry, 100, 100, 4, 100, Duration.ofSeconds(5), 2, 1, 1);
+        WebClient igdbWebClient = WebClient.builder()
+                .baseUrl("http://localhost:" + igdb.getAddress().getPort())
+                .filter(requestScheduler)
+                .build();
+        IgdbResilience igdbResilience = new IgdbResilience(meterRegistry, Duration.ofSeconds(5), 50,
+                20, 10, 50, Duration.ofSeconds(30), 3, false, 0.95, Duration.ofMillis(500));
+        IgdbService igdbService = new IgdbService(igdbWebClient, objectMapper, igdbResilience, meterRegistry,
+                100, Duration.ofMinutes(30), Duration.ofHours(24), Duration.ofMillis(10), 500, DataSize.ofMegabytes(2));
+
+        GameRepository gameRepository = mock(GameRepository.class);
+        when(gameRepository.findFullDetailsIgdbIdsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return localFullGames.stream().filter(igdbId -> igdbId > after).sorted().limit(page.getPageSize()).toList();
+        });
+        CatalogSyncStateRepository syncStateRepository = mock(CatalogSyncStateRepository.class);
+        when(syncStateRepository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(syncStates.get(invocation.<String>getArgument(0))));
+        when(syncStateRepository.save(any(CatalogSyncState.class))).thenAnswer(invocation -> {
+            CatalogSyncState state = invocation.getArgument(0);
+            syncStates.put(state.getName(), state);
+            return state;
+        });
+        GameService gameService = mock(GameService.class);
+        when(gameService.saveGames(anyList())).thenAnswer(invocation -> {
+            List<GameDto> gameDtos = invocation.getArgument(0);
+            assertThat(gameDtos).allSatisfy(gameDto -> assertThat(gameDto.getDetailLevel()).isEqualTo(GameDetailLevel.FULL));
+            savedBatches.add(gameDtos.stream().map(GameDto::getIgdbId).toList());
+            return List.of();
+        });
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        when(syncLockRepository.tryLock(CatalogSyncScheduler.IGDB_GAMES_SYNC)).thenReturn(Optional.of(runLock));
+
+        syncScheduler = new CatalogSyncScheduler(syncStateRepository, syncLockRepository, gameRepository, igdbService, gameService,
+                transactionManager, meterRegistry, true, 2, Duration.ofMinutes(10), Duration.ofDays(7));
+    }
+
+    @AfterEach
+    void tearDown() {
+        igdb.stop(0);
+    }
+
+    @Test
+    void firstRunAppliesGamesChangedSinceTheInitialLookbackAndAdvancesTheWatermark() {
+        localFullGames.addAll(List.of(10L, 20L, 30L, 40L, 50L));
+        igdbUpdatedAt.put(10L, NOW - 60);                         // Cambiado hace un minuto
+        igdbUpdatedAt.put(20L, NOW - Duration.ofDays(30).toSeconds()); // Sin cambios recientes
+        igdbUpdatedAt.put(30L, NOW - Duration.ofDays(2).toSeconds());
+        igdbUpdatedAt.put(40L, NOW - Duration.ofDays(8).toSeconds());
+        igdbUpdatedAt.put(50L, NOW - 3600);
+
+        syncScheduler.runSync();
+
+        // Bloques de 2 juegos locales: solo se guardan los modificados en IGDB
+        assertThat(igdbRequests).hasSize(3);
+        assertThat(savedBatches).containsExactly(List.of(10L), List.of(30L), List.of(50L));
+        CatalogSyncState state = syncStates.get(CatalogSyncScheduler.IGDB_GAMES_SYNC);
+        assertThat(state.getRunTarget()).isNull();
+        assertThat(state.getCursorIgdbId()).isNull();
+        assertThat(state.getWatermark()).isBetween(NOW - 600, Instant.now().getEpochSecond() - 600);
+        // Sin estado previo se parte de hace initial-lookback (7 días)
+        Matcher firstQuery = GAMES_QUERY.matcher(igdbRequests.get(0));
+        assertThat(firstQuery.find()).isTrue();
+        assertThat(firstQuery.group(1)).isEqualTo("10,20");
+        assertThat(Long.parseLong(firstQuery.group(2)))
+                .isBetween(NOW - Duration.ofDays(7).toSeconds(), Instant.now().getEpochSecond() - Duration.ofDays(7).toSeconds());
+    }
+
+    @Test
+    void interruptedRunResumesFromTheLastConfirmedBlockWithTheSameWatermark() {
+        localFullGames.addAll(List.of(10L, 20L, 30L, 40L));
+        long watermark = NOW - Duration.ofDays(1).toSeconds();
+        CatalogSyncState initial = new CatalogSyncState();
+        initial.setName(CatalogSyncScheduler.IGDB_GAMES_SYNC);
+        initial.setWatermark(watermark);
+        syncStates.put(initial.getName(), initial);
+        igdbUpdatedAt.put(10L, NOW - 60);
+        igdbUpdatedAt.put(20L, NOW - 60);
+        igdbUpdatedAt.put(30L, NOW - 60);
+        igdbUpdatedAt.put(40L, NOW - Duration.ofDays(3).toSeconds());
+
+        // IGDB falla en el segundo bloque: la pasada se detiene sin avanzar el watermark
+        failRequestsWithId = 30L;
+        syncScheduler.runSync();
+
+        CatalogSyncState state = syncStates.get(CatalogSyncScheduler.IGDB_GAMES_SYNC);
+        assertThat(savedBatches).containsExactly(List.of(10L, 20L));
+        assertThat(state.getCursorIgdbId()).isEqualTo(20L);
+        assertThat(state.getWatermark()).isEqualTo(watermark);
+        Long runTarget = state.getRunTarget();
+        assertThat(runTarget).isNotNull();
+
+        // La siguiente ejecución reanuda tras el IGDB ID 20 con el mismo watermark y cierra la pasada
+        failRequestsWithId = null;
+        igdbRequests.clear();
+        syncScheduler.runSync();
+
+        assertThat(savedBatches).containsExactly(List.of(10L, 20L), List.of(30L));
+        assertThat(igdbRequests).singleElement().asString()
+                .contains("where id = (30,40) & updated_at > " + watermark + ";");
+        assertThat(state.getWatermark()).isEqualTo(runTarget);
+        assertThat(state.getRunTarget()).isNull();
+        assertThat(state.getCursorIgdbId()).isNull();
+    }
+
+    @Test
+    void catalogWithoutFullGamesOnlyAdvancesTheWatermark() {
+        syncScheduler.runSync();
+
+        assertThat(igdbRequests).isEmpty();
+        assertThat(savedBatches).isEmpty();
+        assertThat(syncStates.get(CatalogSyncScheduler.IGDB_GAMES_SYNC).getWatermark()).isGreaterThan(NOW - 3600);
+    }
+
+    @Test
+    void runIsSkippedWhileAnotherPassHoldsTheLock() {
+        localFullGames.addAll(List.of(10L, 20L));
+        igdbUpdatedAt.put(10L, NOW - 60);
+        when(syncLockRepository.tryLock(CatalogSyncScheduler.IGDB_GAMES_SYNC)).thenReturn(Optional.empty());
+
+        syncScheduler.runSync();
+
+        assertThat(igdbRequests).isEmpty();
+        assertThat(savedBatches).isEmpty();
+        assertThat(syncStates).isEmpty();
+    }
+
+    @Test
+    void theLockIsReleasedWhenThePassStops() {
+        localFullGames.addAll(List.of(10L, 20L));
+        igdbUpdatedAt.put(10L, NOW - 60);
+        failRequestsWithId = 10L;
+
+        syncScheduler.runSync();
+
+        verify(runLock).close();
+        assertThat(syncStates.get(CatalogSyncScheduler.IGDB_GAMES_SYNC).getRunTarget()).isNotNull();
+    }
+
+    // POST /games con "where id = (...) & updated_at > N;": devuelve los juegos pedidos modificados después de N
+    private void handleGames(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        igdbRequests.add(body);
+        Matcher matcher = GAMES_QUERY.matcher(body);
+        List<Long> requestedIds = new ArrayList<>();
+        long updatedAfter = 0;
+        if (matcher.find()) {
+            Arrays.stream(matcher.group(1).split(",")).map(Long::valueOf).forEach(requestedIds::add);
+            updatedAfter = Long.parseLong(matcher.group(2));
+        }
+        if (failRequestsWithId != null && requestedIds.contains(failRequestsWithId)) {
+            respond(exchange, 500, "{\"message\": \"IGDB caído\"}");
+            return;
+        }
+        long since = updatedAfter;
+        String games = requestedIds.stream()
+                .filter(igdbId -> igdbUpdatedAt.getOrDefault(igdbId, 0L) > since)
+                .map(igdbId -> "{\"id\": " + igdbId + ", \"name\": \"Juego " + igdbId + "\"}")
+                .reduce((a, b) -> a + "," + b)
+                .orElse("");
+        respond(exchange, 200, "[" + games + "]");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+}
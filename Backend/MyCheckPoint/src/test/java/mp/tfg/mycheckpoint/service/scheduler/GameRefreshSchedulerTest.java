@@ -0,0 +1,131 @@
+package mp.tfg.mycheckpoint.service.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mp.tfg.mycheckpoint.dto.enums.GameDetailLevel;
+import mp.tfg.mycheckpoint.dto.games.GameDto;
+import mp.tfg.mycheckpoint.repository.games.GameRefreshRepository;
+import mp.tfg.mycheckpoint.service.games.GameIngestionOutcome;
+import mp.tfg.mycheckpoint.service.games.IgdbService;
+import mp.tfg.mycheckpoint.service.games.ParallelGameIngestionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Ejecuciones del refresco del catálogo con IGDB, la ingesta y la BD simulados: los juegos vencidos se guardan
+ * en memoria en orden de vencimiento.
+ */
+class GameRefreshSchedulerTest {
+
+    private static final Duration MISSING_GAME_RETRY = Duration.ofDays(30);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GameRefreshRepository gameRefreshRepository = mock(GameRefreshRepository.class);
+    private final IgdbService igdbService = mock(IgdbService.class);
+    private final ParallelGameIngestionService parallelGameIngestionService = mock(ParallelGameIngestionService.class);
+
+    private final Deque<Long> dueGames = new ArrayDeque<>();
+    private final Set<Long> missingInIgdb = new HashSet<>();
+    private final List<Integer> claimLimits = new ArrayList<>();
+    private final List<Long> ingestedIgdbIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(gameRefreshRepository.countDueGames(any())).thenAnswer(invocation -> (long) dueGames.size());
+        when(gameRefreshRepository.claimDueGames(any(), any(), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(2);
+            claimLimits.add(limit);
+            List<Long> claimed = new ArrayList<>();
+            while (claimed.size() < limit && !dueGames.isEmpty()) {
+                claimed.add(dueGames.pollFirst());
+            }
+            return claimed;
+        });
+        when(igdbService.fetchGamesInBackground(anyList())).thenAnswer(invocation -> {
+            List<Long> igdbIds = invocation.getArgument(0);
+            return Flux.fromIterable(igdbIds).filter(igdbId -> !missingInIgdb.contains(igdbId)).map(igdbId -> {
+                GameDto gameDto = new GameDto();
+                gameDto.setIgdbId(igdbId);
+                gameDto.setDetailLevel(GameDetailLevel.SUMMARY);
+                return gameDto;
+            });
+        });
+        when(parallelGameIngestionService.ingest(anyList())).thenAnswer(invocation -> {
+            List<GameDto> gameDtos = invocation.getArgument(0);
+            assertThat(gameDtos).allSatisfy(gameDto -> assertThat(gameDto.getDetailLevel()).isEqualTo(GameDetailLevel.FULL));
+            gameDtos.forEach(gameDto -> ingestedIgdbIds.add(gameDto.getIgdbId()));
+            return gameDtos.stream()
+                    .map(gameDto -> new GameIngestionOutcome(gameDto.getIgdbId(), GameIngestionOutcome.Status.SAVED, gameDto.getIgdbId(), null))
+                    .toList();
+        });
+    }
+
+    @Test
+    void eachRunRefreshesAtMostItsBudgetInBatches() {
+        for (long igdbId = 1; igdbId <= 25; igdbId++) {
+            dueGames.add(igdbId);
+        }
+        GameRefreshScheduler refreshScheduler = refreshScheduler(10, 4);
+
+        refreshScheduler.refreshStaleGames();
+
+        // Lotes de 4 hasta agotar el presupuesto de 10: el último lote solo pide lo que queda
+        assertThat(claimLimits).containsExactly(4, 4, 2);
+        assertThat(ingestedIgdbIds).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(dueGames).hasSize(15);
+        assertThat(refreshedGames("refreshed")).isEqualTo(10);
+        assertThat(meterRegistry.get("games.refresh.due").gauge().value()).isEqualTo(25);
+
+        // La siguiente ejecución sigue con los siguientes vencidos
+        refreshScheduler.refreshStaleGames();
+
+        assertThat(ingestedIgdbIds).hasSize(20).endsWith(20L);
+        assertThat(dueGames).hasSize(5);
+    }
+
+    @Test
+    void gamesThatIgdbNoLongerReturnsArePostponed() {
+        dueGames.addAll(List.of(1L, 2L, 3L, 4L, 5L));
+        missingInIgdb.addAll(List.of(2L, 5L));
+        GameRefreshScheduler refreshScheduler = refreshScheduler(100, 10);
+
+        Instant before = Instant.now();
+        refreshScheduler.refreshStaleGames();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> postponed = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Instant> until = ArgumentCaptor.forClass(Instant.class);
+        verify(gameRefreshRepository).postponeRefresh(postponed.capture(), until.capture());
+        assertThat(postponed.getValue()).containsExactly(2L, 5L);
+        assertThat(until.getValue()).isBetween(before.plus(MISSING_GAME_RETRY), Instant.now().plus(MISSING_GAME_RETRY));
+        assertThat(ingestedIgdbIds).containsExactly(1L, 3L, 4L);
+        assertThat(refreshedGames("refreshed")).isEqualTo(3);
+        assertThat(refreshedGames("missing")).isEqualTo(2);
+    }
+
+    @Test
+    void aRunWithoutDueGamesClaimsNothing() {
+        refreshScheduler(10, 4).refreshStaleGames();
+
+        assertThat(claimLimits).isEmpty();
+        verifyNoInteractions(igdbService, parallelGameIngestionService);
+    }
+
+    private GameRefreshScheduler refreshScheduler(int maxGamesPerRun, int batchSize) {
+        return new GameRefreshScheduler(gameRefreshRepository, igdbService, parallelGameIngestionService, meterRegistry,
+                true, maxGamesPerRun, batchSize, Duration.ofHours(1), MISSING_GAME_RETRY);
+    }
+
+    private double refreshedGames(String result) {
+        return meterRegistry.get("games.refresh.games").tag("result", result).counter().count();
+    }
+}